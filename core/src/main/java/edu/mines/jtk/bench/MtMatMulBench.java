@@ -93,6 +93,69 @@ public class MtMatMulBench {
       assertEquals(c1,c4);
       assertEquals(c1,c5);
     }
+    benchDouble(m,n,maxtime);
+  }
+
+  /**
+   * Compares a simple loop with the blocked multi-threaded matrix 
+   * multiplication in {@link edu.mines.jtk.la.DMatrix#times(DMatrix)}.
+   */
+  private static void benchDouble(int m, int n, double maxtime) {
+    edu.mines.jtk.la.DMatrix a = edu.mines.jtk.la.DMatrix.random(m,n);
+    edu.mines.jtk.la.DMatrix b = edu.mines.jtk.la.DMatrix.random(n,m);
+    double[][] aa = a.getArray();
+    double[][] ba = b.getArray();
+    double[][] c1 = new double[m][m];
+    edu.mines.jtk.la.DMatrix c2 = null;
+    Stopwatch s = new Stopwatch();
+    double gflops = 2.0e-9*m*m*n;
+    System.out.println();
+    System.out.println("Double-precision matrix multiply");
+    System.out.println("loop  = single-threaded simple loop");
+    System.out.println("times = DMatrix.times (blocked, multi-threaded)");
+    for (int ntrial=0; ntrial<3; ++ntrial) {
+      System.out.println();
+      int nmul;
+
+      s.restart();
+      for (nmul=0; s.time()<maxtime; ++nmul)
+        mulDouble(aa,ba,c1);
+      s.stop();
+      System.out.println("loop:  rate="+(float)(nmul*gflops/s.time())+
+                         " gflops");
+
+      s.restart();
+      for (nmul=0; s.time()<maxtime; ++nmul)
+        c2 = a.times(b);
+      s.stop();
+      System.out.println("times: rate="+(float)(nmul*gflops/s.time())+
+                         " gflops");
+
+      double[][] c2a = c2.getArray();
+      double emax = 0.0;
+      for (int i=0; i<m; ++i)
+        for (int j=0; j<m; ++j)
+          emax = max(emax,abs(c1[i][j]-c2a[i][j]));
+      System.out.println("max difference = "+emax);
+    }
+  }
+
+  private static void mulDouble(double[][] a, double[][] b, double[][] c) {
+    int ni = c.length;
+    int nj = c[0].length;
+    int nk = b.length;
+    for (int i=0; i<ni; ++i) {
+      double[] ai = a[i];
+      double[] ci = c[i];
+      for (int j=0; j<nj; ++j)
+        ci[j] = 0.0;
+      for (int k=0; k<nk; ++k) {
+        double aik = ai[k];
+        double[] bk = b[k];
+        for (int j=0; j<nj; ++j)
+          ci[j] += aik*bk[j];
+      }
+    }
   }
 
   /**
@@ -14,6 +14,7 @@ limitations under the License.
 ****************************************************************************/
 package edu.mines.jtk.bench;
 
+import static java.lang.Math.hypot;
 import static edu.mines.jtk.util.ArrayMath.sum;
 import edu.mines.jtk.util.Stopwatch;
 
@@ -25,6 +26,7 @@ import edu.mines.jtk.util.Stopwatch;
 public class QrdBench {
 
   public static void main(String[] args) {
+    benchLarge(1000,1000);
     double maxtime = 5;
     int m = 100;
     int n = 5;
@@ -74,4 +76,56 @@ public class QrdBench {
       System.out.println("edu.mines.jtk.lapack: rate="+rate+" sum="+sum);
     }
   }
+
+  /**
+   * Compares blocked and unblocked QR decompositions of a large matrix.
+   */
+  private static void benchLarge(int m, int n) {
+    double maxtime = 5;
+    edu.mines.jtk.la.DMatrix a = edu.mines.jtk.la.DMatrix.random(m,n);
+    double gflops = 1.0e-9*(2.0*m*n*n-2.0*n*n*n/3.0);
+    System.out.println("QR decomposition, m="+m+" n="+n);
+    Stopwatch sw = new Stopwatch();
+    for (int niter=0; niter<3; ++niter) {
+      int nqrd;
+      sw.restart();
+      for (nqrd=0; sw.time()<maxtime; ++nqrd)
+        qrdUnblocked(a.get());
+      sw.stop();
+      System.out.println("unblocked: rate="+(float)(nqrd*gflops/sw.time())+
+                         " gflops");
+      sw.restart();
+      for (nqrd=0; sw.time()<maxtime; ++nqrd)
+        new edu.mines.jtk.la.DMatrixQrd(a);
+      sw.stop();
+      System.out.println("blocked:   rate="+(float)(nqrd*gflops/sw.time())+
+                         " gflops");
+    }
+  }
+
+  // The unblocked Householder algorithm used in Jama.
+  private static void qrdUnblocked(double[][] qr) {
+    int m = qr.length;
+    int n = qr[0].length;
+    for (int k=0; k<n; ++k) {
+      double nrm = 0;
+      for (int i=k; i<m; ++i)
+        nrm = hypot(nrm,qr[i][k]);
+      if (nrm!=0.0) {
+        if (qr[k][k]<0.0)
+          nrm = -nrm;
+        for (int i=k; i<m; ++i)
+          qr[i][k] /= nrm;
+        qr[k][k] += 1.0;
+        for (int j=k+1; j<n; ++j) {
+          double s = 0.0; 
+          for (int i=k; i<m; ++i)
+            s += qr[i][k]*qr[i][j];
+          s = -s/qr[k][k];
+          for (int i=k; i<m; ++i)
+            qr[i][j] += s*qr[i][k];
+        }
+      }
+    }
+  }
 }
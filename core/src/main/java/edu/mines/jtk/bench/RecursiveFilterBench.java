@@ -15,16 +15,26 @@ limitations under the License.
 package edu.mines.jtk.bench;
 
 import static edu.mines.jtk.util.ArrayMath.*;
+import edu.mines.jtk.dsp.RecursiveParallelFilter;
+import edu.mines.jtk.dsp.SymmetricTridiagonalFilter;
+import edu.mines.jtk.util.Cdouble;
+import edu.mines.jtk.util.Parallel;
 import edu.mines.jtk.util.Stopwatch;
 
 /**
  * Benchmark different methods for multi-dimensional recursive filtering.
+ * With the argument "parallel", compares serial and parallel application
+ * of recursive parallel and symmetric tridiagonal filters.
  * @author Dave Hale, Colorado School of Mines
  * @version 2005.11.17
  */
 public class RecursiveFilterBench {
 
   public static void main(String[] args) {
+    if (args.length>0 && args[0].equals("parallel")) {
+      benchParallel();
+      return;
+    }
     double maxtime = 5;
     int n1 = 4000;
     int n2 = 4000;
@@ -142,4 +152,69 @@ public class RecursiveFilterBench {
       xi = xt;
     }
   }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // parallel
+
+  private interface Method {
+    public void apply();
+  }
+
+  private static void benchParallel() {
+    int n1 = 2000;
+    int n2 = 2000;
+    int m1 = 200;
+    int m2 = 200;
+    int m3 = 100;
+    final float[][] x = sin(rampfloat(0.0f,0.01f,0.02f,n1,n2));
+    final float[][] y = zerofloat(n1,n2);
+    final float[][][] x3 = sin(rampfloat(0.0f,0.01f,0.02f,0.03f,m1,m2,m3));
+    final float[][][] y3 = zerofloat(m1,m2,m3);
+    Cdouble[] poles = {
+      new Cdouble(0.8,0.3),new Cdouble(0.8,-0.3),new Cdouble(0.7,0.0)};
+    Cdouble[] zeros = {};
+    final RecursiveParallelFilter rpf = 
+      new RecursiveParallelFilter(poles,zeros,1.0);
+    final SymmetricTridiagonalFilter stf = 
+      new SymmetricTridiagonalFilter(3.0,3.0,3.0,1.0);
+    String[] names = {
+      "rpf apply1ForwardReverse 2D",
+      "rpf apply2ForwardReverse 2D",
+      "rpf apply3ForwardReverse 3D",
+      "stf apply2 2D",
+      "stf applyInverse2 2D",
+      "stf applyInverse3 3D",
+    };
+    Method[] methods = {
+      new Method() { public void apply() {
+        rpf.apply1ForwardReverse(x,y); }},
+      new Method() { public void apply() {
+        rpf.apply2ForwardReverse(x,y); }},
+      new Method() { public void apply() {
+        rpf.apply3ForwardReverse(x3,y3); }},
+      new Method() { public void apply() {
+        stf.apply2(x,y); }},
+      new Method() { public void apply() {
+        stf.applyInverse2(x,y); }},
+      new Method() { public void apply() {
+        stf.applyInverse3(x3,y3); }},
+    };
+    double maxtime = 2;
+    Stopwatch sw = new Stopwatch();
+    for (int im=0; im<methods.length; ++im) {
+      double[] rate = new double[2];
+      for (int ip=0; ip<2; ++ip) {
+        Parallel.setParallel(ip==1);
+        sw.restart();
+        int n;
+        for (n=0; sw.time()<maxtime; ++n)
+          methods[im].apply();
+        sw.stop();
+        rate[ip] = n/sw.time();
+      }
+      Parallel.setParallel(true);
+      System.out.println(names[im]+": serial="+rate[0]+
+        " parallel="+rate[1]+" speedup="+rate[1]/rate[0]);
+    }
+  }
 }
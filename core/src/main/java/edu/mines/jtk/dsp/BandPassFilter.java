@@ -14,6 +14,10 @@ limitations under the License.
 ****************************************************************************/
 package edu.mines.jtk.dsp;
 
+import java.io.IOException;
+
+import edu.mines.jtk.io.ArrayInput;
+import edu.mines.jtk.io.ArrayOutput;
 import edu.mines.jtk.util.Check;
 import static edu.mines.jtk.util.ArrayMath.*;
 
@@ -31,6 +35,9 @@ import static edu.mines.jtk.util.ArrayMath.*;
  * repeated application to multiple input arrays. A cached transform 
  * can be reused while the lengths of input and output arrays do not 
  * change. Because caching consumes memory, it is disabled by default.
+ * <p>
+ * Long 1D sequences of samples, such as continuous recordings that are 
+ * too long to fit in memory, may be filtered in blocks by a stream.
  *
  * @author Dave Hale, Colorado School of Mines
  * @version 2009.12.19
@@ -163,6 +170,43 @@ public class BandPassFilter {
     _ff3.apply(x,y);
   }
 
+  /**
+   * Applies this filter to a sequence of n input samples read from the 
+   * specified input, and writes n filtered output samples to the specified 
+   * output. Only blocks of samples are stored in memory.
+   * @param ai array input from which to read input samples.
+   * @param ao array output to which to write output samples.
+   * @param n number of samples to read and write.
+   * @throws IOException if an I/O error occurs.
+   */
+  public void apply(ArrayInput ai, ArrayOutput ao, long n) 
+    throws IOException
+  {
+    updateFilter1();
+    _ff1.apply(ai,ao,n);
+  }
+
+  /**
+   * Returns a new stream that applies this filter to 1D sequences of 
+   * samples, with a default block length.
+   * @return the stream.
+   */
+  public FftFilter.Stream stream() {
+    updateFilter1();
+    return _ff1.stream();
+  }
+
+  /**
+   * Returns a new stream that applies this filter to 1D sequences of 
+   * samples, in blocks of at least the specified number of samples.
+   * @param nblock the minimum number of output samples per block.
+   * @return the stream.
+   */
+  public FftFilter.Stream stream(int nblock) {
+    updateFilter1();
+    return _ff1.stream(nblock);
+  }
+
   ///////////////////////////////////////////////////////////////////////////
   // private
 
@@ -0,0 +1,262 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.dsp;
+
+import static java.lang.Math.sqrt;
+
+import edu.mines.jtk.util.Check;
+import edu.mines.jtk.util.Parallel;
+
+/**
+ * Special-purpose Cholesky solvers for batches of small linear systems.
+ * Each system Ax = b has a symmetric positive-definite matrix A, and
+ * a batch contains n such systems, where n is typically the number of
+ * samples in an image. Batches are stored as structure-of-arrays: for
+ * each element of A, b, or x, one array of n floats (a plane) contains
+ * that element for all systems in the batch.
+ * <p>
+ * Systems are solved in parallel, using double precision arithmetic,
+ * and without allocating memory for each system. If a matrix A is not
+ * positive-definite, then the corresponding solution x is zero. Arrays
+ * for the solution x may be the same as those for the right-hand-side b.
+ * @author agent
+ * @version 2026.10.19
+ */
+public class Cholesky {
+
+  /**
+   * Solves a batch of 2x2 systems of equations.
+   * @param a11 array of elements A(1,1).
+   * @param a12 array of elements A(1,2) = A(2,1).
+   * @param a22 array of elements A(2,2).
+   * @param b1 array of elements b(1).
+   * @param b2 array of elements b(2).
+   * @param x1 array of elements x(1).
+   * @param x2 array of elements x(2).
+   * @return the number of matrices A that are not positive-definite.
+   */
+  public static int solve22(
+    final float[] a11, final float[] a12, final float[] a22,
+    final float[] b1, final float[] b2,
+    final float[] x1, final float[] x2)
+  {
+    return loop(a11.length,new Block() {
+      public int solve(int i0, int i1) {
+        int nbad = 0;
+        for (int i=i0; i<i1; ++i) {
+          double l11 = a11[i];
+          if (l11<=0.0) {
+            x1[i] = x2[i] = 0.0f;
+            ++nbad;
+            continue;
+          }
+          l11 = sqrt(l11);
+          double l21 = a12[i]/l11;
+          double l22 = a22[i]-l21*l21;
+          if (l22<=0.0) {
+            x1[i] = x2[i] = 0.0f;
+            ++nbad;
+            continue;
+          }
+          l22 = sqrt(l22);
+          double y1 = b1[i]/l11;
+          double y2 = (b2[i]-l21*y1)/l22;
+          y2 /= l22;
+          y1 = (y1-l21*y2)/l11;
+          x1[i] = (float)y1;
+          x2[i] = (float)y2;
+        }
+        return nbad;
+      }
+    });
+  }
+
+  /**
+   * Solves a batch of 3x3 systems of equations.
+   * @param a11 array of elements A(1,1).
+   * @param a12 array of elements A(1,2) = A(2,1).
+   * @param a13 array of elements A(1,3) = A(3,1).
+   * @param a22 array of elements A(2,2).
+   * @param a23 array of elements A(2,3) = A(3,2).
+   * @param a33 array of elements A(3,3).
+   * @param b1 array of elements b(1).
+   * @param b2 array of elements b(2).
+   * @param b3 array of elements b(3).
+   * @param x1 array of elements x(1).
+   * @param x2 array of elements x(2).
+   * @param x3 array of elements x(3).
+   * @return the number of matrices A that are not positive-definite.
+   */
+  public static int solve33(
+    final float[] a11, final float[] a12, final float[] a13,
+    final float[] a22, final float[] a23, final float[] a33,
+    final float[] b1, final float[] b2, final float[] b3,
+    final float[] x1, final float[] x2, final float[] x3)
+  {
+    return loop(a11.length,new Block() {
+      public int solve(int i0, int i1) {
+        int nbad = 0;
+        for (int i=i0; i<i1; ++i) {
+          double l11 = a11[i];
+          if (l11<=0.0) {
+            x1[i] = x2[i] = x3[i] = 0.0f;
+            ++nbad;
+            continue;
+          }
+          l11 = sqrt(l11);
+          double d11 = 1.0/l11;
+          double l21 = a12[i]*d11;
+          double l31 = a13[i]*d11;
+          double l22 = a22[i]-l21*l21;
+          if (l22<=0.0) {
+            x1[i] = x2[i] = x3[i] = 0.0f;
+            ++nbad;
+            continue;
+          }
+          l22 = sqrt(l22);
+          double d22 = 1.0/l22;
+          double l32 = (a23[i]-l31*l21)*d22;
+          double l33 = a33[i]-l31*l31-l32*l32;
+          if (l33<=0.0) {
+            x1[i] = x2[i] = x3[i] = 0.0f;
+            ++nbad;
+            continue;
+          }
+          l33 = sqrt(l33);
+          double d33 = 1.0/l33;
+          double y1 = b1[i]*d11;
+          double y2 = (b2[i]-l21*y1)*d22;
+          double y3 = (b3[i]-l31*y1-l32*y2)*d33;
+          y3 *= d33;
+          y2 = (y2-l32*y3)*d22;
+          y1 = (y1-l21*y2-l31*y3)*d11;
+          x1[i] = (float)y1;
+          x2[i] = (float)y2;
+          x3[i] = (float)y3;
+        }
+        return nbad;
+      }
+    });
+  }
+
+  /**
+   * Solves a batch of m-by-m systems of equations. Elements in the lower
+   * triangle of each symmetric matrix A are stored by rows, such that
+   * a[i*(i+1)/2+j] contains elements A(i,j) for j&lt;=i and i&lt;m,
+   * with zero-based indices i and j. The number m is determined by the
+   * length of the array b.
+   * @param a array[m*(m+1)/2][] of elements in the matrices A.
+   * @param b array[m][] of elements in the right-hand-sides b.
+   * @param x array[m][] of elements in the solutions x.
+   * @return the number of matrices A that are not positive-definite.
+   */
+  public static int solve(
+    final float[][] a, final float[][] b, final float[][] x)
+  {
+    final int m = b.length;
+    Check.argument(a.length==m*(m+1)/2,"a.length==m*(m+1)/2");
+    Check.argument(x.length==m,"x.length==b.length");
+    return loop(a[0].length,new Block() {
+      public int solve(int i0, int i1) {
+        double[] l = work(a.length+m);
+        int ly = a.length;
+        int nbad = 0;
+        for (int i=i0; i<i1; ++i) {
+
+          // Factor A = L*L', with L stored in place of A.
+          boolean bad = false;
+          for (int j=0,kj=0; j<m && !bad; ++j) {
+            int kj0 = kj;
+            for (int k=0,kk=0; k<=j; ++k,++kj) {
+              double s = a[kj][i];
+              for (int p=0; p<k; ++p)
+                s -= l[kj0+p]*l[kk+p];
+              if (k<j) {
+                l[kj] = s/l[kk+k];
+              } else if (s>0.0) {
+                l[kj] = sqrt(s);
+              } else {
+                bad = true;
+              }
+              kk += k+1;
+            }
+          }
+          if (bad) {
+            for (int j=0; j<m; ++j)
+              x[j][i] = 0.0f;
+            ++nbad;
+            continue;
+          }
+
+          // Solve L*y = b and then L'*x = y.
+          for (int j=0,kj=0; j<m; ++j) {
+            double s = b[j][i];
+            for (int k=0; k<j; ++k,++kj)
+              s -= l[kj]*l[ly+k];
+            l[ly+j] = s/l[kj++];
+          }
+          for (int j=m-1; j>=0; --j) {
+            int jj = j*(j+1)/2+j;
+            double s = l[ly+j]/l[jj];
+            l[ly+j] = s;
+            for (int k=0; k<j; ++k)
+              l[ly+k] -= l[jj-j+k]*s;
+            x[j][i] = (float)s;
+          }
+        }
+        return nbad;
+      }
+    });
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  private static final int NBLOCK = 1024; // systems per parallel task
+
+  // Per-thread work array for factors and solutions of m-by-m systems,
+  // reused by all calls in the same thread.
+  private static final ThreadLocal<double[]> _work = 
+    new ThreadLocal<double[]>();
+
+  // Returns the work array for the current thread, with length at least n.
+  private static double[] work(int n) {
+    double[] w = _work.get();
+    if (w==null || w.length<n)
+      _work.set(w=new double[n]);
+    return w;
+  }
+
+  // Solves systems with indices in [i0,i1); returns number not solved.
+  private interface Block {
+    public int solve(int i0, int i1);
+  }
+
+  // Solves all n systems in parallel blocks.
+  private static int loop(final int n, final Block block) {
+    int nb = (n+NBLOCK-1)/NBLOCK;
+    if (nb==0) return 0;
+    return Parallel.reduce(nb,new Parallel.ReduceInt<Integer>() {
+      public Integer compute(int ib) {
+        int i0 = ib*NBLOCK;
+        int i1 = Math.min(i0+NBLOCK,n);
+        return block.solve(i0,i1);
+      }
+      public Integer combine(Integer n1, Integer n2) {
+        return n1+n2;
+      }
+    });
+  }
+}
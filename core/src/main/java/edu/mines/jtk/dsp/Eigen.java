@@ -16,6 +16,7 @@ package edu.mines.jtk.dsp;
 
 import static edu.mines.jtk.util.ArrayMath.*;
 import edu.mines.jtk.util.Check;
+import edu.mines.jtk.util.Parallel;
 
 /**
  * Special-purpose eigensolvers for digital signal processing.
@@ -184,9 +185,176 @@ public class Eigen {
     solveSymmetric33Hybrid(a,v,d);
   }
 
+  /**
+   * Computes eigenvalues and eigenvectors for a batch of symmetric 2x2 
+   * matrices A. Elements of all matrices are stored in arrays, one array
+   * for each distinct element. For each matrix, eigenvalues au &gt;= av 
+   * are computed, along with the eigenvector u that corresponds to au. 
+   * The other eigenvector v is orthogonal to u. Matrices are processed
+   * in parallel, with results that equal those computed by the method
+   * {@link #solveSymmetric22(float[][],float[][],float[])}.
+   * @param a11 array of elements A(1,1).
+   * @param a12 array of elements A(1,2) = A(2,1).
+   * @param a22 array of elements A(2,2).
+   * @param u1 array of 1st components of eigenvectors u.
+   * @param u2 array of 2nd components of eigenvectors u.
+   * @param au array of eigenvalues au.
+   * @param av array of eigenvalues av.
+   */
+  public static void solveSymmetric22(
+    final float[] a11, final float[] a12, final float[] a22,
+    final float[] u1, final float[] u2, final float[] au, final float[] av)
+  {
+    final int n = a11.length;
+    Parallel.loop(0,n,NBLOCK,new Parallel.LoopInt() {
+      public void compute(int i0) {
+        int i1 = min(i0+NBLOCK,n);
+        solveSymmetric22(a11,a12,a22,u1,u2,au,av,i0,i1);
+      }
+    });
+  }
+
+  /**
+   * Computes eigenvalues and eigenvectors for a batch of symmetric 3x3 
+   * matrices A. Elements of all matrices are stored in arrays, one array
+   * for each distinct element. For each matrix, eigenvalues 
+   * au &gt;= av &gt;= aw are computed, along with the eigenvectors u and
+   * w that correspond to au and aw. The eigenvector v is orthogonal to 
+   * both u and w. Matrices are processed in parallel, with results that 
+   * equal those computed by the method 
+   * {@link #solveSymmetric33(double[][],double[][],double[])}.
+   * @param a11 array of elements A(1,1).
+   * @param a12 array of elements A(1,2) = A(2,1).
+   * @param a13 array of elements A(1,3) = A(3,1).
+   * @param a22 array of elements A(2,2).
+   * @param a23 array of elements A(2,3) = A(3,2).
+   * @param a33 array of elements A(3,3).
+   * @param u1 array of 1st components of eigenvectors u.
+   * @param u2 array of 2nd components of eigenvectors u.
+   * @param u3 array of 3rd components of eigenvectors u.
+   * @param w1 array of 1st components of eigenvectors w.
+   * @param w2 array of 2nd components of eigenvectors w.
+   * @param w3 array of 3rd components of eigenvectors w.
+   * @param au array of eigenvalues au.
+   * @param av array of eigenvalues av.
+   * @param aw array of eigenvalues aw.
+   */
+  public static void solveSymmetric33(
+    final float[] a11, final float[] a12, final float[] a13,
+    final float[] a22, final float[] a23, final float[] a33,
+    final float[] u1, final float[] u2, final float[] u3,
+    final float[] w1, final float[] w2, final float[] w3,
+    final float[] au, final float[] av, final float[] aw)
+  {
+    final int n = a11.length;
+    Parallel.loop(0,n,NBLOCK,new Parallel.LoopInt() {
+      public void compute(int i0) {
+        int i1 = min(i0+NBLOCK,n);
+        solveSymmetric33(a11,a12,a13,a22,a23,a33,
+                         u1,u2,u3,w1,w2,w3,au,av,aw,i0,i1);
+      }
+    });
+  }
+
+  /**
+   * As for the batched 2x2 solver above, but only for matrices with 
+   * indices in [i0,i1), and serially, in the current thread. The Jacobi 
+   * rotation of {@link #solveSymmetric22(float[][],float[][],float[])} 
+   * is applied directly to elements of the arrays, without allocation.
+   */
+  static void solveSymmetric22(
+    float[] a11, float[] a12, float[] a22,
+    float[] u1, float[] u2, float[] au, float[] av, int i0, int i1)
+  {
+    float tiny = 0.1f*sqrt(FLT_EPSILON); // avoid overflow in r*r below
+    for (int i=i0; i<i1; ++i) {
+      float a00 = a11[i];
+      float a01 = a12[i];
+      float b11 = a22[i];
+      float v00 = 1.0f, v01 = 0.0f;
+      float v10 = 0.0f, v11 = 1.0f;
+      if (a01!=0.0f) {
+        float c,r,s,t,u,vpr,vqr;
+        u = b11-a00;
+        if (abs(a01)<tiny*abs(u)) {
+          t = a01/u;
+        } else {
+          r = 0.5f*u/a01;
+          t = (r>=0.0f)?1.0f/(r+sqrt(1.0f+r*r)):1.0f/(r-sqrt(1.0f+r*r));
+        }
+        c = 1.0f/sqrt(1.0f+t*t);
+        s = t*c;
+        u = s/(1.0f+c);
+        r = t*a01;
+        a00 -= r;
+        b11 += r;
+        vpr = v00;
+        vqr = v10;
+        v00 = vpr-s*(vqr+vpr*u);
+        v10 = vqr+s*(vpr-vqr*u);
+        vpr = v01;
+        vqr = v11;
+        v01 = vpr-s*(vqr+vpr*u);
+        v11 = vqr+s*(vpr-vqr*u);
+      }
+      if (a00<b11) {
+        au[i] = b11; av[i] = a00;
+        u1[i] = v10; u2[i] = v11;
+      } else {
+        au[i] = a00; av[i] = b11;
+        u1[i] = v00; u2[i] = v01;
+      }
+    }
+  }
+
+  /**
+   * As for the batched 3x3 solver above, but only for matrices with 
+   * indices in [i0,i1), and serially, in the current thread. The kernel 
+   * is still the scalar Jacobi method of 
+   * {@link #solveSymmetric33(double[][],double[][],double[])}, applied 
+   * to one matrix at a time, but with per-thread scratch arrays, so that
+   * repeated calls do not allocate.
+   */
+  static void solveSymmetric33(
+    float[] a11, float[] a12, float[] a13,
+    float[] a22, float[] a23, float[] a33,
+    float[] u1, float[] u2, float[] u3,
+    float[] w1, float[] w2, float[] w3,
+    float[] au, float[] av, float[] aw, int i0, int i1)
+  {
+    Work33 work = _work33.get();
+    if (work==null)
+      _work33.set(work=new Work33());
+    double[][] a = work.a;
+    double[][] v = work.v;
+    double[] d = work.d;
+    for (int i=i0; i<i1; ++i) {
+      a[0][0] = a11[i]; a[0][1] = a12[i]; a[0][2] = a13[i];
+      a[1][0] = a12[i]; a[1][1] = a22[i]; a[1][2] = a23[i];
+      a[2][0] = a13[i]; a[2][1] = a23[i]; a[2][2] = a33[i];
+      solveSymmetric33(a,v,d);
+      double[] u = v[0];
+      double[] w = v[2];
+      u1[i] = (float)u[0]; u2[i] = (float)u[1]; u3[i] = (float)u[2];
+      w1[i] = (float)w[0]; w2[i] = (float)w[1]; w3[i] = (float)w[2];
+      au[i] = (float)d[0]; av[i] = (float)d[1]; aw[i] = (float)d[2];
+    }
+  }
+
   ///////////////////////////////////////////////////////////////////////////
   // private
 
+  private static final int NBLOCK = 1024; // matrices per parallel task
+
+  // Per-thread scratch arrays for 3x3 matrices.
+  private static class Work33 {
+    double[][] a = new double[3][3];
+    double[][] v = new double[3][3];
+    double[] d = new double[3];
+  }
+  private static final ThreadLocal<Work33> _work33 = 
+    new ThreadLocal<Work33>();
+
   /**
    * Sorts eigenvalues d and eigenvectors v in descending order.
    */
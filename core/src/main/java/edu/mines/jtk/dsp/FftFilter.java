@@ -14,6 +14,10 @@ limitations under the License.
 ****************************************************************************/
 package edu.mines.jtk.dsp;
 
+import java.io.IOException;
+
+import edu.mines.jtk.io.ArrayInput;
+import edu.mines.jtk.io.ArrayOutput;
 import edu.mines.jtk.util.Check;
 import static edu.mines.jtk.util.ArrayMath.*;
 
@@ -57,6 +61,13 @@ import static edu.mines.jtk.util.ArrayMath.*;
  * of a cached filter is recomputed only when the lengths of the input 
  * and output arrays have changed. Because this caching consumes memory,
  * it is disabled by default.
+ * <p>
+ * A 1D filter may also be applied to sequences of input samples that are
+ * too long to fit in memory. A {@link FftFilter.Stream} accepts input
+ * samples incrementally, and uses the overlap-save method to compute
+ * output samples in blocks with fixed length. Streams use and retain 
+ * only a small number of blocks of samples, and the FFT of the filter 
+ * for the most recently used block length is always cached.
  *
  * @author Dave Hale, Colorado School of Mines
  * @version 2009.12.14
@@ -314,9 +325,264 @@ public class FftFilter {
     copy(nx1,nx2,nx3,xfft,y);
   }
 
+  /**
+   * Applies this filter to a sequence of n input samples read from the 
+   * specified input, and writes n filtered output samples to the specified 
+   * output. Only blocks of samples are stored in memory. Output samples 
+   * are the same as those computed by {@link #apply(float[],float[])} 
+   * for an array containing the n input samples, except for rounding 
+   * errors.
+   * @param ai array input from which to read input samples.
+   * @param ao array output to which to write output samples.
+   * @param n number of samples to read and write.
+   * @throws IOException if an I/O error occurs.
+   */
+  public void apply(ArrayInput ai, ArrayOutput ao, long n) 
+    throws IOException
+  {
+    Stream s = stream();
+    int nb = s.getBlockLength();
+    float[] x = new float[nb];
+    float[] y = new float[nb];
+    for (long j=0; j<n; j+=nb) {
+      int m = (int)Math.min(nb,n-j);
+      ai.readFloats(x,0,m);
+      s.push(x,0,m);
+      for (int ny=s.pull(y); ny>0; ny=s.pull(y))
+        ao.writeFloats(y,0,ny);
+    }
+    s.finish();
+    for (int ny=s.pull(y); ny>0; ny=s.pull(y))
+      ao.writeFloats(y,0,ny);
+  }
+
+  /**
+   * Returns a new stream that applies this 1D filter with a default 
+   * block length.
+   * @return the stream.
+   */
+  public Stream stream() {
+    Check.state(_h1!=null,"1D filter is available");
+    return stream(Math.max(1024,7*_nh1));
+  }
+
+  /**
+   * Returns a new stream that applies this 1D filter in blocks of at 
+   * least the specified number of output samples. Memory consumed by 
+   * the stream and the latency of its output are both proportional to 
+   * the actual block length, which may be increased for efficiency. 
+   * The extrapolation method of this filter when the stream is created 
+   * is used for that stream.
+   * @param nblock the minimum number of output samples per block.
+   * @return the stream.
+   */
+  public Stream stream(int nblock) {
+    Check.state(_h1!=null,"1D filter is available");
+    Check.argument(nblock>0,"nblock>0");
+    int nfft = FftReal.nfftFast(nblock+_nh1-1);
+    if (_sfft==null || _sfft.getNfft()!=nfft) {
+      _sfft = new FftReal(nfft);
+      _shfft = new float[nfft+2];
+      float scale = 1.0f/(float)nfft;
+      for (int ih1=0; ih1<_nh1; ++ih1)
+        _shfft[ih1] = scale*_h1[ih1];
+      _sfft.realToComplex(-1,_shfft,_shfft);
+    }
+    return new Stream(_sfft,_shfft,_nh1,_kh1,_extrapolation);
+  }
+
+  /**
+   * A stream of samples filtered with the overlap-save method.
+   * Input samples are pushed into a stream, and output samples are 
+   * pulled from it. Each block of output samples becomes available 
+   * when all input samples required to compute them have been pushed, 
+   * or when the stream is finished. After a stream is finished, no more 
+   * input samples may be pushed, and output samples for all input
+   * samples can be pulled.
+   * <p>
+   * Output samples that have not been pulled are retained in memory, 
+   * so output samples should be pulled after each push. Streams are 
+   * not thread-safe.
+   */
+  public static class Stream {
+
+    /**
+     * Returns the number of output samples computed for each block.
+     * @return the block length.
+     */
+    public int getBlockLength() {
+      return _nb;
+    }
+
+    /**
+     * Pushes input samples into this stream.
+     * @param x array of input samples.
+     */
+    public void push(float[] x) {
+      push(x,0,x.length);
+    }
+
+    /**
+     * Pushes input samples into this stream.
+     * @param x array containing input samples.
+     * @param j index in x of first input sample.
+     * @param n number of input samples.
+     */
+    public void push(float[] x, int j, int n) {
+      Check.state(!_finished,"stream is not finished");
+      if (n>0 && _nin==0) {
+        float xl = (_extrapolation==Extrapolation.ZERO_SLOPE)?x[j]:0.0f;
+        for (int i=0; i<_nh-1-_kh; ++i)
+          _xs[_ns++] = xl;
+      }
+      _nin += n;
+      if (n>0)
+        _xlast = x[j+n-1];
+      append(x,j,n);
+    }
+
+    /**
+     * Finishes this stream. Output samples for all input samples pushed
+     * will be available for pulling.
+     */
+    public void finish() {
+      if (_finished) 
+        return;
+      _finished = true;
+      if (_nin==0)
+        return;
+      float xr = (_extrapolation==Extrapolation.ZERO_SLOPE)?_xlast:0.0f;
+      float[] xe = new float[_kh];
+      for (int i=0; i<_kh; ++i)
+        xe[i] = xr;
+      append(xe,0,_kh);
+      if (_ns>_nh-1) {
+        for (int i=_ns; i<_nfft; ++i)
+          _xs[i] = 0.0f;
+        _ns = _nfft;
+        filterBlock();
+      }
+    }
+
+    /**
+     * Returns the number of output samples available for pulling.
+     * @return the number of output samples.
+     */
+    public int available() {
+      return (int)(Math.min(_nout,_nin)-_npull);
+    }
+
+    /**
+     * Pulls available output samples from this stream.
+     * @param y array for output samples.
+     * @return the number of output samples pulled; zero, if none.
+     */
+    public int pull(float[] y) {
+      return pull(y,0,y.length);
+    }
+
+    /**
+     * Pulls available output samples from this stream.
+     * @param y array for output samples.
+     * @param j index in y of first output sample.
+     * @param n maximum number of output samples to pull.
+     * @return the number of output samples pulled; zero, if none.
+     */
+    public int pull(float[] y, int j, int n) {
+      int m = Math.min(n,available());
+      for (int i=0; i<m; ++i) {
+        y[j+i] = _ys[_ys0];
+        if (++_ys0==_ys.length) _ys0 = 0;
+      }
+      _npull += m;
+      return m;
+    }
+
+    private FftReal _fft; // FFT for blocks
+    private float[] _hfft; // FFT of filter, scaled and not shifted
+    private int _nh,_kh; // filter length and origin
+    private int _nfft; // FFT length
+    private int _nb; // output samples per block
+    private Extrapolation _extrapolation;
+    private float[] _xs; // input samples for the next block
+    private int _ns; // number of input samples for the next block
+    private float[] _xfft; // array for FFT of one block
+    private float[] _ys; // circular buffer of output samples
+    private int _ys0; // index of next output sample to pull
+    private long _nin; // number of input samples pushed
+    private long _nout; // number of output samples computed
+    private long _npull; // number of output samples pulled
+    private float _xlast; // last input sample pushed
+    private boolean _finished;
+
+    private Stream(
+      FftReal fft, float[] hfft, int nh, int kh, Extrapolation extrapolation)
+    {
+      _fft = fft;
+      _hfft = hfft;
+      _nh = nh;
+      _kh = kh;
+      _nfft = fft.getNfft();
+      _nb = _nfft-_nh+1;
+      _extrapolation = extrapolation;
+      _xs = new float[_nfft];
+      _xfft = new float[_nfft+2];
+      _ys = new float[2*_nb];
+    }
+
+    // Appends input samples, filtering blocks as they become full.
+    private void append(float[] x, int j, int n) {
+      while (n>0) {
+        int m = Math.min(n,_nfft-_ns);
+        System.arraycopy(x,j,_xs,_ns,m);
+        _ns += m;
+        j += m;
+        n -= m;
+        if (_ns==_nfft)
+          filterBlock();
+      }
+    }
+
+    // Filters one full block of input samples. The first nh-1 samples 
+    // overlap those of the previous block, and the last nb samples of
+    // the circular convolution are output samples.
+    private void filterBlock() {
+      copy(_nfft,_xs,_xfft);
+      _fft.realToComplex(-1,_xfft,_xfft);
+      for (int k=0,kr=0,ki=1; k<=_nfft/2; ++k,kr+=2,ki+=2) {
+        float xr = _xfft[kr];
+        float xi = _xfft[ki];
+        float hr = _hfft[kr];
+        float hi = _hfft[ki];
+        _xfft[kr] = xr*hr-xi*hi;
+        _xfft[ki] = xr*hi+xi*hr;
+      }
+      _fft.complexToReal(1,_xfft,_xfft);
+      int ny = (int)(_nout-_npull);
+      if (ny+_nb>_ys.length) {
+        float[] ys = new float[2*(ny+_nb)];
+        for (int i=0,k=_ys0; i<ny; ++i) {
+          ys[i] = _ys[k];
+          if (++k==_ys.length) k = 0;
+        }
+        _ys = ys;
+        _ys0 = 0;
+      }
+      for (int i=0,k=(_ys0+ny)%_ys.length; i<_nb; ++i) {
+        _ys[k] = _xfft[_nh-1+i];
+        if (++k==_ys.length) k = 0;
+      }
+      _nout += _nb;
+      System.arraycopy(_xs,_nfft-_nh+1,_xs,0,_nh-1);
+      _ns = _nh-1;
+    }
+  }
+
   ///////////////////////////////////////////////////////////////////////////
   // private
 
+  private FftReal _sfft; // FFT for blocks of streams
+  private float[] _shfft; // FFT of filter for blocks of streams
   private int _nx1,_nx2,_nx3;
   private int _nh1,_nh2,_nh3;
   private int _kh1,_kh2,_kh3;
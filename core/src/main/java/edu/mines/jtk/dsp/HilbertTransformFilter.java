@@ -15,6 +15,7 @@ limitations under the License.
 package edu.mines.jtk.dsp;
 
 import edu.mines.jtk.util.Check;
+import edu.mines.jtk.util.Parallel;
 import static edu.mines.jtk.util.ArrayMath.*;
 
 /**
@@ -29,6 +30,16 @@ import static edu.mines.jtk.util.ArrayMath.*;
  * length of the filter used here is chosen to yield less than a
  * specified maximum error for frequencies between specified lower
  * and upper bounds.
+ * <p>
+ * Alternatively, an ideal Hilbert transform of an entire array can be
+ * computed with fast Fourier transforms. The cost of this FFT-based
+ * transform grows as n*log(n) for arrays with n samples, regardless
+ * of the frequencies for which the transform must be accurate. The
+ * FFT-based transform is also used to compute attributes of analytic
+ * signals: envelope, instantaneous phase and instantaneous frequency.
+ * For multi-dimensional arrays, those attributes are computed for all
+ * 1st-dimension arrays (traces) in parallel, in one pass over the
+ * input array.
  * 
  * @author Dave Hale, Colorado School of Mines
  * @version 2010.06.01
@@ -84,6 +95,120 @@ public class HilbertTransformFilter {
   public int length() {
     return _filter.length;
   }
+
+  /**
+   * Applies an ideal Hilbert transform, computed with FFTs. The
+   * amplitude spectrum of this transform is one for all frequencies
+   * except zero and Nyquist, for which it is zero. Input samples are
+   * padded with zeros to avoid wraparound of the transform.
+   * @param x array of input samples.
+   * @param y array of output samples.
+   */
+  public static void applyFft(float[] x, float[] y) {
+    Check.argument(x.length==y.length,"x.length==y.length");
+    int n = x.length;
+    FftReal fft = fft(n);
+    float[] c = new float[fft.getNfft()+2];
+    transform(fft,x,c);
+    copy(n,c,y);
+  }
+
+  /**
+   * Computes attributes of the analytic signal for the specified array.
+   * The analytic signal of x is x-i*y, where y is the Hilbert transform
+   * of x computed by {@link #applyFft(float[],float[])}. The envelope is
+   * sqrt(x*x+y*y), and the instantaneous phase, in radians, is
+   * atan2(-y,x). The instantaneous frequency, in cycles per sample, is
+   * the rate of change of that phase, computed from centered differences
+   * that are unaffected by the wrapping of phase to [-pi,pi].
+   * <p>
+   * Any of the output arrays may be null, in which case the corresponding
+   * attribute is not computed.
+   * @param x array of input samples.
+   * @param e array of output envelope; null, if not computed.
+   * @param p array of output phase; null, if not computed.
+   * @param f array of output frequency; null, if not computed.
+   */
+  public static void applyForAttributes(
+    float[] x, float[] e, float[] p, float[] f)
+  {
+    int n = x.length;
+    checkOutput(n,e);
+    checkOutput(n,p);
+    checkOutput(n,f);
+    FftReal fft = fft(n);
+    float[] c = new float[fft.getNfft()+2];
+    transform(fft,x,c);
+    attributes(x,c,e,p,f);
+  }
+
+  /**
+   * Computes attributes of the analytic signal for all 1st-dimension
+   * arrays (traces) of the specified 2D array. Any of the output arrays
+   * may be null, in which case the corresponding attribute is not computed.
+   * @param x array of input samples.
+   * @param e array of output envelope; null, if not computed.
+   * @param p array of output phase; null, if not computed.
+   * @param f array of output frequency; null, if not computed.
+   * @see #applyForAttributes(float[],float[],float[],float[])
+   */
+  public static void applyForAttributes(
+    final float[][] x, final float[][] e, final float[][] p, final float[][] f)
+  {
+    final int n1 = x[0].length;
+    int n2 = x.length;
+    checkOutput(n1,n2,e);
+    checkOutput(n1,n2,p);
+    checkOutput(n1,n2,f);
+    final FftReal fft = fft(n1);
+    final Parallel.Unsafe<float[]> cu = new Parallel.Unsafe<float[]>();
+    Parallel.loop(n2,new Parallel.LoopInt() {
+      public void compute(int i2) {
+        float[] c = work(cu,fft);
+        transform(fft,x[i2],c);
+        attributes(x[i2],c,
+          (e!=null)?e[i2]:null,
+          (p!=null)?p[i2]:null,
+          (f!=null)?f[i2]:null);
+      }
+    });
+  }
+
+  /**
+   * Computes attributes of the analytic signal for all 1st-dimension
+   * arrays (traces) of the specified 3D array. Any of the output arrays
+   * may be null, in which case the corresponding attribute is not computed.
+   * @param x array of input samples.
+   * @param e array of output envelope; null, if not computed.
+   * @param p array of output phase; null, if not computed.
+   * @param f array of output frequency; null, if not computed.
+   * @see #applyForAttributes(float[],float[],float[],float[])
+   */
+  public static void applyForAttributes(
+    final float[][][] x, 
+    final float[][][] e, final float[][][] p, final float[][][] f)
+  {
+    final int n1 = x[0][0].length;
+    final int n2 = x[0].length;
+    int n3 = x.length;
+    checkOutput(n1,n2,n3,e);
+    checkOutput(n1,n2,n3,p);
+    checkOutput(n1,n2,n3,f);
+    final FftReal fft = fft(n1);
+    final Parallel.Unsafe<float[]> cu = new Parallel.Unsafe<float[]>();
+    Parallel.loop(n3,new Parallel.LoopInt() {
+      public void compute(int i3) {
+        float[] c = work(cu,fft);
+        for (int i2=0; i2<n2; ++i2) {
+          transform(fft,x[i3][i2],c);
+          attributes(x[i3][i2],c,
+            (e!=null)?e[i3][i2]:null,
+            (p!=null)?p[i3][i2]:null,
+            (f!=null)?f[i3][i2]:null);
+        }
+      }
+    });
+  }
   
   ///////////////////////////////////////////////////////////////////////////
   // private
@@ -94,6 +219,90 @@ public class HilbertTransformFilter {
   private static final float FMAX_DEFAULT = 0.475f; // default max frequency.
   private float[] _filter;
 
+  // Returns an FFT for arrays with n samples, long enough to avoid
+  // wraparound of the Hilbert transform.
+  private static FftReal fft(int n) {
+    Check.argument(n>0,"n>0");
+    return new FftReal(FftReal.nfftFast(2*n));
+  }
+
+  private static float[] work(Parallel.Unsafe<float[]> cu, FftReal fft) {
+    float[] c = cu.get();
+    if (c==null)
+      cu.set(c=new float[fft.getNfft()+2]);
+    return c;
+  }
+
+  // Computes the Hilbert transform of x in the first x.length samples
+  // of the work array c, which has length nfft+2.
+  private static void transform(FftReal fft, float[] x, float[] c) {
+    int n = x.length;
+    int nfft = fft.getNfft();
+    copy(n,x,c);
+    zero(c,n,nfft+2);
+    fft.realToComplex(-1,c,c);
+    float s = 1.0f/nfft;
+    c[0] = c[1] = 0.0f;
+    c[nfft] = c[nfft+1] = 0.0f;
+    for (int j=2; j<nfft; j+=2) {
+      float cr = c[j];
+      c[j  ] = -s*c[j+1];
+      c[j+1] =  s*cr;
+    }
+    fft.complexToReal(1,c,c);
+  }
+
+  // Computes attributes of the analytic signal x-i*y. For frequency,
+  // the phase difference between samples j and k is the argument of
+  // (x[k]-i*y[k])*(x[j]+i*y[j]).
+  private static void attributes(
+    float[] x, float[] y, float[] e, float[] p, float[] f)
+  {
+    int n = x.length;
+    for (int i=0; i<n; ++i) {
+      float xi = x[i];
+      float yi = y[i];
+      if (e!=null)
+        e[i] = sqrt(xi*xi+yi*yi);
+      if (p!=null)
+        p[i] = atan2(-yi,xi);
+    }
+    if (f!=null) {
+      float s = 0.5f/FLT_PI;
+      for (int i=0; i<n; ++i) {
+        int j = max(0,i-1);
+        int k = min(n-1,i+1);
+        if (j==k) {
+          f[i] = 0.0f;
+        } else {
+          float ar = x[k]*x[j]+y[k]*y[j];
+          float ai = x[k]*y[j]-y[k]*x[j];
+          f[i] = s*atan2(ai,ar)/(k-j);
+        }
+      }
+    }
+  }
+
+  private static void zero(float[] c, int j, int k) {
+    for (int i=j; i<k; ++i)
+      c[i] = 0.0f;
+  }
+
+  private static void checkOutput(int n1, float[] y) {
+    if (y!=null)
+      Check.argument(y.length==n1,"output array has length x.length");
+  }
+  private static void checkOutput(int n1, int n2, float[][] y) {
+    if (y!=null)
+      Check.argument(y.length==n2 && y[0].length==n1,
+        "output array has dimensions of x");
+  }
+  private static void checkOutput(int n1, int n2, int n3, float[][][] y) {
+    if (y!=null)
+      Check.argument(y.length==n3 && y[0].length==n2 && y[0][0].length==n1,
+        "output array has dimensions of x");
+  }
+
   private static float idealFilter(float x) {
     if (x==0.0f) return 0.0f;
     float y = 0.5f*FLT_PI*x;
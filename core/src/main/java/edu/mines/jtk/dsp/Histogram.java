@@ -16,6 +16,9 @@ package edu.mines.jtk.dsp;
 
 import static edu.mines.jtk.util.ArrayMath.*;
 import edu.mines.jtk.util.Check;
+import edu.mines.jtk.util.Float3;
+import edu.mines.jtk.util.Parallel;
+import edu.mines.jtk.util.QuantileSketch;
 
 /**
  * A histogram summarizes the distribution of values v in an array.
@@ -31,7 +34,9 @@ import edu.mines.jtk.util.Check;
  * The number of bins may be specified or computed automatically. In the
  * automatic case, we compute bin width = 2.0*(v75-v25)/pow(n,1.0/3.0),
  * where n denotes the number of values, and v25 and v75 are the 25th and 
- * 75th percentiles, respectively. The number of bins is then computed by 
+ * 75th percentiles, respectively. (For more than about one million values,
+ * these percentiles are estimated with a {@link QuantileSketch}.)
+ * The number of bins is then computed by 
  * dividing the range (vmax-vmin) of values by that bin width, rounding 
  * down to the nearest integer. In this way, the number of bins grows 
  * as the cube root of the number of values n.
@@ -40,6 +45,13 @@ import edu.mines.jtk.util.Check;
  * computed automatically. If specified, then only values in the range 
  * [vmin,vmax] are binned, and values outside this range are ignored.
  * <p>
+ * Histograms may be computed for 1-D, 2-D, and 3-D arrays, and for 
+ * abstract 3-D arrays that are read one slice at a time, without copying
+ * values into a single array. Values are binned in parallel, with separate
+ * counts for blocks of values that are summed when all blocks are binned.
+ * When both the number of bins and vmin and vmax are computed for many 
+ * values, vmin and vmax are computed in the same pass as percentiles.
+ * <p>
  * Reference: Izenman, A. J., 1991, Recent developments in nonparametric 
  * density estimation: Journal of the American Statistical Association, 
  * v. 86, p. 205-224.
@@ -55,8 +67,7 @@ public class Histogram {
    * @param v the array of values.
    */
   public Histogram(float[] v) {
-    initMinMax(v);
-    init(v,0);
+    this(new Values(v),0);
   }
 
   /**
@@ -66,8 +77,7 @@ public class Histogram {
    * @param nbin the number of bins.
    */
   public Histogram(float[] v, int nbin) {
-    initMinMax(v);
-    init(v,nbin);
+    this(new Values(v),nbin);
   }
 
   /**
@@ -79,9 +89,7 @@ public class Histogram {
    * @param vmax the maximum value.
    */
   public Histogram(float[] v, float vmin, float vmax) {
-    Check.argument(vmin<=vmax,"vmin<=vmax");
-    initMinMax(vmin,vmax);
-    init(v,0);
+    this(new Values(v),vmin,vmax,0);
   }
 
   /**
@@ -93,9 +101,139 @@ public class Histogram {
    * @param nbin the number of bins.
    */
   public Histogram(float[] v, float vmin, float vmax, int nbin) {
-    Check.argument(vmin<=vmax,"vmin<=vmax");
-    initMinMax(vmin,vmax);
-    init(v,nbin);
+    this(new Values(v),vmin,vmax,nbin);
+  }
+
+  /**
+   * Constructs a histogram for the specified 2-D array of values.
+   * Computes the number of bins to obtain a robust estimate of the density 
+   * function. Counts and bins all values.
+   * @param v the 2-D array of values.
+   */
+  public Histogram(float[][] v) {
+    this(new Values(v),0);
+  }
+
+  /**
+   * Constructs a histogram for the specified 2-D array of values.
+   * Counts and bins all values.
+   * @param v the 2-D array of values.
+   * @param nbin the number of bins.
+   */
+  public Histogram(float[][] v, int nbin) {
+    this(new Values(v),nbin);
+  }
+
+  /**
+   * Constructs a histogram for the specified 2-D array of values.
+   * Computes the number of bins to obtain a robust estimate of the density 
+   * function. Counts and bins only those values in [vmin,vmax].
+   * @param v the 2-D array of values.
+   * @param vmin the minimum value.
+   * @param vmax the maximum value.
+   */
+  public Histogram(float[][] v, float vmin, float vmax) {
+    this(new Values(v),vmin,vmax,0);
+  }
+
+  /**
+   * Constructs a histogram for the specified 2-D array of values.
+   * Counts and bins only those values in [vmin,vmax].
+   * @param v the 2-D array of values.
+   * @param vmin the minimum value.
+   * @param vmax the maximum value.
+   * @param nbin the number of bins.
+   */
+  public Histogram(float[][] v, float vmin, float vmax, int nbin) {
+    this(new Values(v),vmin,vmax,nbin);
+  }
+
+  /**
+   * Constructs a histogram for the specified 3-D array of values.
+   * Computes the number of bins to obtain a robust estimate of the density 
+   * function. Counts and bins all values.
+   * @param v the 3-D array of values.
+   */
+  public Histogram(float[][][] v) {
+    this(new Values(v),0);
+  }
+
+  /**
+   * Constructs a histogram for the specified 3-D array of values.
+   * Counts and bins all values.
+   * @param v the 3-D array of values.
+   * @param nbin the number of bins.
+   */
+  public Histogram(float[][][] v, int nbin) {
+    this(new Values(v),nbin);
+  }
+
+  /**
+   * Constructs a histogram for the specified 3-D array of values.
+   * Computes the number of bins to obtain a robust estimate of the density 
+   * function. Counts and bins only those values in [vmin,vmax].
+   * @param v the 3-D array of values.
+   * @param vmin the minimum value.
+   * @param vmax the maximum value.
+   */
+  public Histogram(float[][][] v, float vmin, float vmax) {
+    this(new Values(v),vmin,vmax,0);
+  }
+
+  /**
+   * Constructs a histogram for the specified 3-D array of values.
+   * Counts and bins only those values in [vmin,vmax].
+   * @param v the 3-D array of values.
+   * @param vmin the minimum value.
+   * @param vmax the maximum value.
+   * @param nbin the number of bins.
+   */
+  public Histogram(float[][][] v, float vmin, float vmax, int nbin) {
+    this(new Values(v),vmin,vmax,nbin);
+  }
+
+  /**
+   * Constructs a histogram for the specified abstract 3-D array of values.
+   * Computes the number of bins to obtain a robust estimate of the density 
+   * function. Counts and bins all values.
+   * @param f3 the abstract 3-D array of values.
+   */
+  public Histogram(Float3 f3) {
+    this(new Values(f3),0);
+  }
+
+  /**
+   * Constructs a histogram for the specified abstract 3-D array of values.
+   * Counts and bins all values.
+   * @param f3 the abstract 3-D array of values.
+   * @param nbin the number of bins.
+   */
+  public Histogram(Float3 f3, int nbin) {
+    this(new Values(f3),nbin);
+  }
+
+  /**
+   * Constructs a histogram for the specified abstract 3-D array of values.
+   * Computes the number of bins to obtain a robust estimate of the density 
+   * function. Counts and bins only those values in [vmin,vmax].
+   * @param f3 the abstract 3-D array of values.
+   * @param vmin the minimum value.
+   * @param vmax the maximum value.
+   */
+  public Histogram(Float3 f3, float vmin, float vmax) {
+    this(new Values(f3),vmin,vmax,0);
+  }
+
+  /**
+   * Constructs a histogram for the specified abstract 3-D array of values.
+   * Counts and bins only those values in [vmin,vmax].
+   * @param f3 the abstract 3-D array of values.
+   * @param vmin the minimum value.
+   * @param vmax the maximum value.
+   * @param nbin the number of bins.
+   */
+  public Histogram(Float3 f3, float vmin, float vmax, int nbin) {
+    this(new Values(f3),vmin,vmax,nbin);
   }
 
   /**
@@ -196,6 +334,10 @@ public class Histogram {
   ///////////////////////////////////////////////////////////////////////////
   // private
 
+  private static final int BLOCK = 1<<16; // values per parallel block
+  private static final long EXACT_MAX = 1L<<20; // max for exact percentiles
+  private static final double RANK_ERROR = 0.001; // for quantile sketches
+
   private float _vmin; // minimum value to count
   private float _vmax; // maximum value to count
   private boolean _computedMinMax; // true if vmin and vmax not specified
@@ -205,53 +347,234 @@ public class Histogram {
   private long _nlo; // number of samples < vmin
   private long _nhi; // number of samples > vmax
 
-  private void initMinMax(float[] v) {
-    int n = v.length;
-    _vmin = _vmax = v[0];
-    for (int i=1; i<n; ++i) {
-      float vi = v[i];
-      if (vi<_vmin)
-        _vmin = vi;
-      if (vi>_vmax)
-        _vmax = vi;
-    }
+  private Histogram(Values v, int nbin) {
     _computedMinMax = true;
+    QuantileSketch qs = null;
+    if (nbin==0 && v.count()>EXACT_MAX) {
+      qs = v.sketch(); // min and max are computed with percentiles
+      _vmin = qs.getMin();
+      _vmax = qs.getMax();
+    } else {
+      initMinMax(v);
+    }
+    init(v,nbin,qs);
   }
 
-  private void initMinMax(float vmin, float vmax) {
+  private Histogram(Values v, float vmin, float vmax, int nbin) {
+    Check.argument(vmin<=vmax,"vmin<=vmax");
     _vmin = vmin;
     _vmax = vmax;
     _computedMinMax = false;
+    init(v,nbin,null);
   }
 
   /**
-   * Returns a copy of the specified array v. 
-   * Discards values outside the range [vmin,vmax].
+   * Values in an array or abstract array, as a sequence of slabs. Each 
+   * slab is a sequence of segments of rows, and segments are grouped 
+   * into blocks that are processed in parallel. Arrays have one slab; 
+   * abstract arrays have one slab for each 2-D slice read.
    */
-  private float[] trim(float[] v) {
-    float[] t;
-    if (_computedMinMax) {
-      t = copy(v);
-    } else {
+  private static class Values {
+    float[][] a; // rows of values in the current slab
+    int[] j; // index of first value in each segment
+    int[] m; // number of values in each segment
+    int[] b; // segments in block ib are [b[ib],b[ib+1])
+    Values(float[] v) {
       int n = v.length;
-      t = new float[n];
-      int m = 0;
-      for (int i=0; i<n; ++i) {
-        float vi = v[i];
-        if (_vmin<=vi && vi<=_vmax)
-          t[m++] = vi;
+      int nb = (n+BLOCK-1)/BLOCK;
+      a = new float[nb][];
+      j = new int[nb];
+      m = new int[nb];
+      for (int ib=0; ib<nb; ++ib) {
+        a[ib] = v;
+        j[ib] = ib*BLOCK;
+        m[ib] = min(BLOCK,n-j[ib]);
       }
-      if (m<n)
-        t = copy(m,t);
+      _f = v;
+      _n = n;
+      setRows(a,j,m);
+    }
+    Values(float[][] v) {
+      _f = v;
+      setRows(v);
+    }
+    Values(float[][][] v) {
+      int nrow = 0;
+      for (float[][] vi:v)
+        nrow += vi.length;
+      float[][] rows = new float[nrow][];
+      int irow = 0;
+      for (float[][] vi:v)
+        for (float[] vij:vi)
+          rows[irow++] = vij;
+      _f = v;
+      setRows(rows);
+    }
+    Values(Float3 f3) {
+      _f = f3;
+      _f3 = f3;
+      _n = (long)f3.getN1()*f3.getN2()*f3.getN3();
+    }
+    long count() {
+      return _n;
+    }
+    int slabCount() {
+      return (_f3!=null)?_f3.getN3():1;
+    }
+    void loadSlab(int i3) {
+      if (_f3!=null) {
+        int n1 = _f3.getN1();
+        int n2 = _f3.getN2();
+        if (_slice==null)
+          _slice = new float[n2][n1];
+        _f3.get12(n1,n2,0,0,i3,_slice);
+        setRows(_slice);
+      }
+    }
+    QuantileSketch sketch() {
+      if (_f instanceof float[]) {
+        return QuantileSketch.sketch((float[])_f,RANK_ERROR);
+      } else if (_f instanceof float[][]) {
+        return QuantileSketch.sketch((float[][])_f,RANK_ERROR);
+      } else if (_f instanceof float[][][]) {
+        return QuantileSketch.sketch((float[][][])_f,RANK_ERROR);
+      } else {
+        return QuantileSketch.sketch(_f3,RANK_ERROR);
+      }
+    }
+    private Object _f;
+    private Float3 _f3;
+    private float[][] _slice;
+    private long _n;
+    private void setRows(float[][] rows) {
+      int nrow = rows.length;
+      int[] jr = new int[nrow], mr = new int[nrow];
+      long n = 0;
+      for (int irow=0; irow<nrow; ++irow) {
+        mr[irow] = rows[irow].length;
+        n += mr[irow];
+      }
+      if (_f3==null)
+        _n = n;
+      setRows(rows,jr,mr);
+    }
+    private void setRows(float[][] rows, int[] jr, int[] mr) {
+      a = rows;
+      j = jr;
+      m = mr;
+      int nseg = a.length;
+      int nb = 0;
+      int[] bb = new int[nseg+1];
+      for (int iseg=0,nv=0; iseg<nseg; ++iseg) {
+        if (nv==0)
+          bb[nb++] = iseg;
+        nv += m[iseg];
+        if (nv>=BLOCK)
+          nv = 0;
+      }
+      bb[nb] = nseg;
+      b = copy(nb+1,bb);
     }
-    return t;
+  }
+
+  private void initMinMax(final Values v) {
+    float[] mm = null;
+    for (int i3=0; i3<v.slabCount(); ++i3) {
+      v.loadSlab(i3);
+      int nb = v.b.length-1;
+      if (nb==0) continue;
+      float[] mb = Parallel.reduce(nb,new Parallel.ReduceInt<float[]>() {
+        public float[] compute(int ib) {
+          float[] mm = null;
+          for (int iseg=v.b[ib]; iseg<v.b[ib+1]; ++iseg) {
+            float[] a = v.a[iseg];
+            for (int i=v.j[iseg],n=i+v.m[iseg]; i<n; ++i) {
+              float ai = a[i];
+              if (mm==null) {
+                mm = new float[]{ai,ai};
+              } else {
+                if (ai<mm[0]) mm[0] = ai;
+                if (ai>mm[1]) mm[1] = ai;
+              }
+            }
+          }
+          return mm;
+        }
+        public float[] combine(float[] m1, float[] m2) {
+          return combineMinMax(m1,m2);
+        }
+      });
+      mm = combineMinMax(mm,mb);
+    }
+    _vmin = (mm!=null)?mm[0]:0.0f;
+    _vmax = (mm!=null)?mm[1]:0.0f;
+  }
+  private static float[] combineMinMax(float[] m1, float[] m2) {
+    if (m1==null) return m2;
+    if (m2==null) return m1;
+    return new float[]{min(m1[0],m2[0]),max(m1[1],m2[1])};
+  }
+
+  /**
+   * Returns {n,v25,v75}, the number of values in [vmin,vmax] and their
+   * 25th and 75th percentiles. For large arrays, percentiles are 
+   * estimated with a quantile sketch, without copying the array.
+   */
+  private double[] percentiles(Values v, QuantileSketch qs) {
+    if (qs==null && v.count()<=EXACT_MAX) {
+      float[] t = new float[(int)v.count()];
+      int n = 0;
+      for (int i3=0; i3<v.slabCount(); ++i3) {
+        v.loadSlab(i3);
+        for (int iseg=0; iseg<v.a.length; ++iseg) {
+          float[] a = v.a[iseg];
+          for (int i=v.j[iseg],ni=i+v.m[iseg]; i<ni; ++i) {
+            float ai = a[i];
+            if (_computedMinMax || _vmin<=ai && ai<=_vmax)
+              t[n++] = ai;
+          }
+        }
+      }
+      if (n==0)
+        return new double[]{0.0,0.0,0.0};
+      if (n<t.length)
+        t = copy(n,t);
+      int k25 = (int)rint(0.25*(n-1));
+      quickPartialSort(k25,t);
+      double v25 = t[k25];
+      int k75 = (int)rint(0.75*(n-1));
+      quickPartialSort(k75,t);
+      double v75 = t[k75];
+      return new double[]{n,v25,v75};
+    }
+    if (qs==null) {
+      if (_computedMinMax) {
+        qs = v.sketch();
+      } else {
+        qs = QuantileSketch.forRankError(RANK_ERROR);
+        for (int i3=0; i3<v.slabCount(); ++i3) {
+          v.loadSlab(i3);
+          for (int iseg=0; iseg<v.a.length; ++iseg) {
+            float[] a = v.a[iseg];
+            for (int i=v.j[iseg],ni=i+v.m[iseg]; i<ni; ++i) {
+              float ai = a[i];
+              if (_vmin<=ai && ai<=_vmax)
+                qs.add(ai);
+            }
+          }
+        }
+      }
+    }
+    float[] q = qs.getQuantiles(new double[]{0.25,0.75});
+    return new double[]{qs.getCount(),q[0],q[1]};
   }
 
   /**
    * Initializes the histogram. If nbin is zero, then this method computes
-   * the number of bins.
+   * the number of bins. If not null, the quantile sketch qs contains 
+   * all values.
    */
-  private void init(float[] v, int nbin) {
+  private void init(final Values v, int nbin, QuantileSketch qs) {
 
     // Bin width must be positive.
     double dbin = (_vmax-_vmin)/max(1,nbin);
@@ -267,20 +590,14 @@ public class Histogram {
       // If might have more than one bin, ...
       if (_vmin<_vmax) {
 
-        // Count only those values in [vmin,vmax].
-        float[] t = trim(v);
-        int n = t.length;
+        // Compute 25th and 75th percentiles of values in [vmin,vmax].
+        double[] p = percentiles(v,qs);
+        long n = (long)p[0];
 
         // If there exists at least one such value, ...
         if (n>0) {
-
-          // Compute 25th and 75th percentiles.
-          int k25 = (int)rint(0.25*(n-1));
-          quickPartialSort(k25,t);
-          double v25 = t[k25];
-          int k75 = (int)rint(0.75*(n-1));
-          quickPartialSort(k75,t);
-          double v75 = t[k75];
+          double v25 = p[1];
+          double v75 = p[2];
 
           // Compute number and width of bins.
           if (v25<v75) {
@@ -291,32 +608,59 @@ public class Histogram {
         }
       }
     }
-    double fbin = _vmin+0.5*dbin;
+    final double fbin = _vmin+0.5*dbin;
     _sbin = new Sampling(nbin,dbin,fbin);
 
-    // Count binned values.
-    double vscl = 1.0/dbin;
-    int n = v.length;
-    _nlo = 0;
-    _nhi = 0;
-    _h = new long[nbin];
-    _nin = 0;
-    for (int i=0; i<n; ++i) {
-      float vi = v[i];
-      if (vi<_vmin) {
-        ++_nlo;
-      } else if (vi>_vmax) {
-        ++_nhi;
-      } else {
-        int ibin = (int)rint((vi-fbin)*vscl);
-        if (ibin<0) {
-          ibin = 0;
-        } else if (ibin>=nbin) {
-          ibin = nbin-1;
+    // Count binned values, in parallel blocks with separate counts; 
+    // counts[nbin] and counts[nbin+1] are numbers of values < vmin and
+    // > vmax, respectively.
+    final double vscl = 1.0/dbin;
+    final int mbin = nbin;
+    final float vmin = _vmin;
+    final float vmax = _vmax;
+    long[] h = new long[nbin+2];
+    for (int i3=0; i3<v.slabCount(); ++i3) {
+      v.loadSlab(i3);
+      int nb = v.b.length-1;
+      if (nb==0) continue;
+      long[] hb = Parallel.reduce(nb,new Parallel.ReduceInt<long[]>() {
+        public long[] compute(int ib) {
+          long[] h = new long[mbin+2];
+          for (int iseg=v.b[ib]; iseg<v.b[ib+1]; ++iseg) {
+            float[] a = v.a[iseg];
+            for (int i=v.j[iseg],n=i+v.m[iseg]; i<n; ++i) {
+              float vi = a[i];
+              if (vi<vmin) {
+                ++h[mbin];
+              } else if (vi>vmax) {
+                ++h[mbin+1];
+              } else {
+                int ibin = (int)rint((vi-fbin)*vscl);
+                if (ibin<0) {
+                  ibin = 0;
+                } else if (ibin>=mbin) {
+                  ibin = mbin-1;
+                }
+                ++h[ibin];
+              }
+            }
+          }
+          return h;
         }
-        ++_h[ibin];
-        ++_nin;
-      }
+        public long[] combine(long[] h1, long[] h2) {
+          for (int i=0; i<h1.length; ++i)
+            h1[i] += h2[i];
+          return h1;
+        }
+      });
+      for (int i=0; i<h.length; ++i)
+        h[i] += hb[i];
     }
+    _h = copy(nbin,h);
+    _nlo = h[nbin];
+    _nhi = h[nbin+1];
+    _nin = 0;
+    for (int ibin=0; ibin<nbin; ++ibin)
+      _nin += _h[ibin];
   }
 }
@@ -294,26 +294,21 @@ public class LocalOrientFilter {
     }
 
     // Compute eigenvectors, eigenvalues, and outputs that depend on them.
-    float[][] a = new float[2][2];
-    float[][] z = new float[2][2];
-    float[] e = new float[2];
+    float[] u1r = new float[n1], u2r = new float[n1];
+    float[] eur = new float[n1], evr = new float[n1];
     for (int i2=0; i2<n2; ++i2) {
+      Eigen.solveSymmetric22(g11[i2],g12[i2],g22[i2],u1r,u2r,eur,evr);
       for (int i1=0; i1<n1; ++i1) {
-        a[0][0] = g11[i2][i1];
-        a[0][1] = g12[i2][i1];
-        a[1][0] = g12[i2][i1];
-        a[1][1] = g22[i2][i1];
-        Eigen.solveSymmetric22(a,z,e);
-        float u1i = z[0][0];
-        float u2i = z[0][1];
+        float u1i = u1r[i1];
+        float u2i = u2r[i1];
         if (u1i<0.0f) {
           u1i = -u1i;
           u2i = -u2i;
         }
         float v1i = -u2i;
         float v2i = u1i;
-        float eui = e[0];
-        float evi = e[1];
+        float eui = eur[i1];
+        float evi = evr[i1];
         if (evi<0.0f) evi = 0.0f;
         if (eui<evi) eui = evi;
         if (theta!=null) theta[i2][i1] = asin(u2i);
@@ -446,45 +441,18 @@ public class LocalOrientFilter {
     int n1 = x[0][0].length;
     int n2 = x[0].length;
     int n3 = x.length;
-    float[][][] u2 = new float[n3][n2][n1];
-    float[][][] u3 = new float[n3][n2][n1];
-    float[][][] w1 = new float[n3][n2][n1];
-    float[][][] w2 = new float[n3][n2][n1];
-    float[][][] eu = new float[n3][n2][n1];
-    float[][][] ev = new float[n3][n2][n1];
-    float[][][] ew = new float[n3][n2][n1];
-    apply(x,
-      null,null,
-      null,u2,u3,
-      null,null,null,
-      w1,w2,null,
-      eu,ev,ew,
-      null,null);
-
-    // Compute u1 such that u3 > 0.
-    float[][][] u1 = u3;
-    for (int i3=0; i3<n3; ++i3) {
-      for (int i2=0; i2<n2; ++i2) {
-        for (int i1=0; i1<n1; ++i1) {
-          float u2i = u2[i3][i2][i1];
-          float u3i = u3[i3][i2][i1];
-          float u1s = 1.0f-u2i*u2i-u3i*u3i;
-          float u1i = (u1s>0.0f)?sqrt(u1s):0.0f;
-          if (u3i<0.0f) {
-            u1i = -u1i;
-            u2i = -u2i;
-          }
-          u1[i3][i2][i1] = u1i;
-          u2[i3][i2][i1] = u2i;
-        }
-      }
-    }
-    return new EigenTensors3(u1,u2,w1,w2,eu,ev,ew,compressed);
+    float[][][][] g = computeStructureTensors(x,new float[6][][][]);
+    EigenTensors3 et = new EigenTensors3(n1,n2,n3,compressed);
+    solveEigenproblems(g,et);
+    return et;
   }
 
   /**
    * Applies this filter for the specified image and outputs. All
    * outputs are optional and are computed for only non-null arrays.
+   * Where possible, output arrays are used as workspace; only six
+   * arrays with the size of the input array are required, and fewer 
+   * are allocated if more outputs are specified.
    * @param x input array for 3-D image.
    * @param theta orientation dip angle; 0 &lt;= theta &lt;= pi/2.
    * @param phi orientation azimuthal angle; -pi &lt;= phi &lt;= pi.
@@ -531,64 +499,10 @@ public class LocalOrientFilter {
     if (ep!=null) t[nt++] = ep;
     if (el!=null) t[nt++] = el;
 
-    // Gradient.
-    int n1 = x[0][0].length;
-    int n2 = x[0].length;
-    int n3 = x.length;
-    float[][][] g1 = (nt>0)?t[0]:new float[n3][n2][n1];
-    float[][][] g2 = (nt>1)?t[1]:new float[n3][n2][n1];
-    float[][][] g3 = (nt>2)?t[2]:new float[n3][n2][n1];
-    _rgfGradient1.apply100(x,g1);
-    _rgfGradient2.apply010(x,g2);
-    _rgfGradient3.apply001(x,g3);
-
-    // Gradient products.
-    float[][][] g11 = g1;
-    float[][][] g22 = g2;
-    float[][][] g33 = g3;
-    float[][][] g12 = (nt>3)?t[3]:new float[n3][n2][n1];
-    float[][][] g13 = (nt>4)?t[4]:new float[n3][n2][n1];
-    float[][][] g23 = (nt>5)?t[5]:new float[n3][n2][n1];
-    computeGradientProducts(g1,g2,g3,g11,g12,g13,g22,g23,g33);
-    /*
-    for (int i3=0; i3<n3; ++i3) {
-      for (int i2=0; i2<n2; ++i2) {
-        for (int i1=0; i1<n1; ++i1) {
-          float g1i = g1[i3][i2][i1];
-          float g2i = g2[i3][i2][i1];
-          float g3i = g3[i3][i2][i1];
-          g11[i3][i2][i1] = g1i*g1i;
-          g22[i3][i2][i1] = g2i*g2i;
-          g33[i3][i2][i1] = g3i*g3i;
-          g12[i3][i2][i1] = g1i*g2i;
-          g13[i3][i2][i1] = g1i*g3i;
-          g23[i3][i2][i1] = g2i*g3i;
-        }
-      }
-    }
-    */
-    
     // Smoothed gradient products comprise the structure tensor.
-    if (_rgfSmoother1!=null || _rgfSmoother2!=null || _rgfSmoother3!=null) {
-      float[][][] h = (nt>6)?t[6]:new float[n3][n2][n1];
-      float[][][][] gs = {g11,g22,g33,g12,g13,g23};
-      for (float[][][] g:gs) {
-        if (_rgfSmoother1!=null) {
-          _rgfSmoother1.apply0XX(g,h);
-        } else {
-          copy(g,h);
-        }
-        if (_rgfSmoother2!=null) {
-          _rgfSmoother2.applyX0X(h,g);
-        } else {
-          copy(h,g);
-        }
-        if (_rgfSmoother3!=null) {
-          _rgfSmoother3.applyXX0(g,h);
-          copy(h,g);
-        }
-      }
-    }
+    float[][][][] g = computeStructureTensors(x,t);
+    float[][][] g11 = g[0], g12 = g[1], g13 = g[2];
+    float[][][] g22 = g[3], g23 = g[4], g33 = g[5];
 
     // Compute eigenvectors, eigenvalues, and outputs that depend on them.
     solveEigenproblems(g11,g12,g13,g22,g23,g33,
@@ -670,41 +584,185 @@ public class LocalOrientFilter {
   private RecursiveGaussianFilter _rgfSmoother2;
   private RecursiveGaussianFilter _rgfSmoother3;
 
-  private void computeGradientProducts(
-    final float[][][] g1, final float[][][] g2, final float[][][] g3,
-    final float[][][] g11, final float[][][] g12, final float[][][] g13,
-    final float[][][] g22, final float[][][] g23, final float[][][] g33)
+  // Computes smoothed gradient products g11, g12, g13, g22, g23 and g33, 
+  // which are the elements of structure tensors, and returns them in that 
+  // order. Smoothing and differencing along the 3rd dimension require 
+  // entire columns of samples, but all other steps are computed together 
+  // for one slab of samples at a time: gradients are completed, multiplied 
+  // and smoothed in the 1st and 2nd dimensions. Therefore only one array
+  // is stored for each product; gradients and intermediate results are 
+  // stored in those arrays or in slabs. Non-null arrays in the specified 
+  // array t are used to store products.
+  private float[][][][] computeStructureTensors(
+    final float[][][] x, float[][][][] t)
   {
-    final int n1 = g1[0][0].length;
-    final int n2 = g1[0].length;
-    final int n3 = g1.length;
+    final int n1 = x[0][0].length;
+    final int n2 = x[0].length;
+    final int n3 = x.length;
+    final float[][][][] g = new float[6][][][];
+    for (int j=0; j<6; ++j)
+      g[j] = (j<t.length && t[j]!=null)?t[j]:new float[n3][][];
+
+    // Gradients smoothed or differenced along the 3rd dimension.
+    final float[][][] a1 = allocate(n1,n2,g[0]);
+    final float[][][] a2 = 
+      (_rgfGradient2==_rgfGradient1)?a1:allocate(n1,n2,g[3]);
+    final float[][][] a3 = allocate(n1,n2,g[5]);
+    _rgfGradient1.applyXX0(x,a1);
+    if (a2!=a1)
+      _rgfGradient2.applyXX0(x,a2);
+    _rgfGradient3.applyXX1(x,a3);
+
+    // Gradients, products, and smoothing in 1st and 2nd dimensions.
+    final boolean smooth = 
+      _rgfSmoother1!=null || _rgfSmoother2!=null || _rgfSmoother3!=null;
+    final Parallel.Unsafe<float[][][]> su = new Parallel.Unsafe<float[][][]>();
     Parallel.loop(n3,new Parallel.LoopInt() {
       public void compute(int i3) {
+        float[][][] s = su.get();
+        if (s==null) su.set(s=new float[4][n2][n1]);
+        float[][] g1 = s[0], g2 = s[1], g3 = s[2], h = s[3];
+        _rgfGradient1.apply10(a1[i3],g1);
+        _rgfGradient2.apply01(a2[i3],g2);
+        _rgfGradient3.apply00(a3[i3],g3);
+        for (int j=0; j<6; ++j) {
+          if (g[j][i3]==null)
+            g[j][i3] = new float[n2][n1];
+        }
+        computeGradientProducts(g1,g2,g3,
+          g[0][i3],g[1][i3],g[2][i3],g[3][i3],g[4][i3],g[5][i3]);
+        for (int j=0; j<6 && smooth; ++j) {
+          float[][] gj = g[j][i3];
+          if (_rgfSmoother1!=null) {
+            _rgfSmoother1.apply0X(gj,h);
+          } else {
+            copy(gj,h);
+          }
+          if (_rgfSmoother2!=null) {
+            _rgfSmoother2.applyX0(h,gj);
+          } else {
+            copy(h,gj);
+          }
+        }
+      }
+    });
+
+    // Smoothing in 3rd dimension.
+    if (_rgfSmoother3!=null) {
+      for (int j=0; j<6; ++j)
+        _rgfSmoother3.applyXX0(g[j],g[j]);
+    }
+    return g;
+  }
+
+  // Allocates any slabs not yet allocated in the specified array.
+  private static float[][][] allocate(int n1, int n2, float[][][] g) {
+    for (int i3=0; i3<g.length; ++i3) {
+      if (g[i3]==null)
+        g[i3] = new float[n2][n1];
+    }
+    return g;
+  }
+
+  private static void computeGradientProducts(
+    float[][] g1, float[][] g2, float[][] g3,
+    float[][] g11, float[][] g12, float[][] g13,
+    float[][] g22, float[][] g23, float[][] g33)
+  {
+    int n1 = g1[0].length;
+    int n2 = g1.length;
+    for (int i2=0; i2<n2; ++i2) {
+      float[] g1i = g1[i2];
+      float[] g2i = g2[i2];
+      float[] g3i = g3[i2];
+      float[] g11i = g11[i2];
+      float[] g12i = g12[i2];
+      float[] g13i = g13[i2];
+      float[] g22i = g22[i2];
+      float[] g23i = g23[i2];
+      float[] g33i = g33[i2];
+      for (int i1=0; i1<n1; ++i1) {
+        float g1ii = g1i[i1];
+        float g2ii = g2i[i1];
+        float g3ii = g3i[i1];
+        g11i[i1] = g1ii*g1ii;
+        g22i[i1] = g2ii*g2ii;
+        g33i[i1] = g3ii*g3ii;
+        g12i[i1] = g1ii*g2ii;
+        g13i[i1] = g1ii*g3ii;
+        g23i[i1] = g2ii*g3ii;
+      }
+    }
+  }
+
+  // Solves eigenproblems for structure tensors g11, g12, g13, g22, g23 
+  // and g33, and sets the eigenvectors and eigenvalues in the specified 
+  // tensors. Slabs of structure tensors are discarded when no longer used.
+  private void solveEigenproblems(
+    final float[][][][] g, final EigenTensors3 et) 
+  {
+    final int n1 = et.getN1();
+    final int n2 = et.getN2();
+    final int n3 = et.getN3();
+    final Parallel.Unsafe<float[][]> ru = new Parallel.Unsafe<float[][]>();
+    Parallel.loop(n3,new Parallel.LoopInt() {
+      public void compute(int i3) {
+        float[][] r = ru.get();
+        if (r==null) ru.set(r=new float[9][n1]);
+        float[] u1r = r[0], u2r = r[1], u3r = r[2];
+        float[] w1r = r[3], w2r = r[4], w3r = r[5];
+        float[] eur = r[6], evr = r[7], ewr = r[8];
+        float[][] g11 = g[0][i3], g12 = g[1][i3], g13 = g[2][i3];
+        float[][] g22 = g[3][i3], g23 = g[4][i3], g33 = g[5][i3];
         for (int i2=0; i2<n2; ++i2) {
-          float[] g1i = g1[i3][i2];
-          float[] g2i = g2[i3][i2];
-          float[] g3i = g3[i3][i2];
-          float[] g11i = g11[i3][i2];
-          float[] g12i = g12[i3][i2];
-          float[] g13i = g13[i3][i2];
-          float[] g22i = g22[i3][i2];
-          float[] g23i = g23[i3][i2];
-          float[] g33i = g33[i3][i2];
+          Eigen.solveSymmetric33(
+            g11[i2],g12[i2],g13[i2],g22[i2],g23[i2],g33[i2],
+            u1r,u2r,u3r,w1r,w2r,w3r,eur,evr,ewr,0,n1);
           for (int i1=0; i1<n1; ++i1) {
-            float g1ii = g1i[i1];
-            float g2ii = g2i[i1];
-            float g3ii = g3i[i1];
-            g11i[i1] = g1ii*g1ii;
-            g22i[i1] = g2ii*g2ii;
-            g33i[i1] = g3ii*g3ii;
-            g12i[i1] = g1ii*g2ii;
-            g13i[i1] = g1ii*g3ii;
-            g23i[i1] = g2ii*g3ii;
+            float u1i = u1r[i1];
+            float u2i = u2r[i1];
+            float u3i = u3r[i1];
+            float w1i = w1r[i1];
+            float w2i = w2r[i1];
+            float w3i = w3r[i1];
+            if (u1i<0.0f) {
+              u2i = -u2i;
+              u3i = -u3i;
+            }
+            if (w3i<0.0f) {
+              w1i = -w1i;
+              w2i = -w2i;
+            }
+            float eui = eur[i1];
+            float evi = evr[i1];
+            float ewi = ewr[i1];
+            if (ewi<0.0f) ewi = 0.0f;
+            if (evi<ewi) evi = ewi;
+            if (eui<evi) eui = evi;
+
+            // Eigenvectors u and w with non-negative 3rd components.
+            float u1s = 1.0f-u2i*u2i-u3i*u3i;
+            u1i = (u1s>0.0f)?sqrt(u1s):0.0f;
+            if (u3i<0.0f) {
+              u1i = -u1i;
+              u2i = -u2i;
+            }
+            u3i = c3(u1i,u2i);
+            w3i = c3(w1i,w2i);
+            et.setEigenvalues(i1,i2,i3,eui,evi,ewi);
+            et.setEigenvectorU(i1,i2,i3,u1i,u2i,u3i);
+            et.setEigenvectorW(i1,i2,i3,w1i,w2i,w3i);
           }
         }
+        for (int j=0; j<6; ++j)
+          g[j][i3] = null;
       }
     });
   }
+  private static float c3(float c1, float c2) {
+    float c3s = 1.0f-c1*c1-c2*c2;
+    return (c3s>0.0f)?(float)Math.sqrt(c3s):0.0f;
+  }
 
   private void solveEigenproblems(
     final float[][][] g11, final float[][][] g12, final float[][][] g13,
@@ -719,32 +777,29 @@ public class LocalOrientFilter {
     final int n1 = g11[0][0].length;
     final int n2 = g11[0].length;
     final int n3 = g11.length;
+    final Parallel.Unsafe<float[][]> ru = new Parallel.Unsafe<float[][]>();
     Parallel.loop(n3,new Parallel.LoopInt() {
       public void compute(int i3) {
-        double[][] a = new double[3][3];
-        double[][] z = new double[3][3];
-        double[] e = new double[3];
+        float[][] r = ru.get();
+        if (r==null) ru.set(r=new float[9][n1]);
+        float[] u1r = r[0], u2r = r[1], u3r = r[2];
+        float[] w1r = r[3], w2r = r[4], w3r = r[5];
+        float[] eur = r[6], evr = r[7], ewr = r[8];
         for (int i2=0; i2<n2; ++i2) {
+          Eigen.solveSymmetric33(
+            g11[i3][i2],g12[i3][i2],g13[i3][i2],
+            g22[i3][i2],g23[i3][i2],g33[i3][i2],
+            u1r,u2r,u3r,w1r,w2r,w3r,eur,evr,ewr,0,n1);
           for (int i1=0; i1<n1; ++i1) {
-            a[0][0] = g11[i3][i2][i1];
-            a[0][1] = g12[i3][i2][i1];
-            a[0][2] = g13[i3][i2][i1];
-            a[1][0] = g12[i3][i2][i1];
-            a[1][1] = g22[i3][i2][i1];
-            a[1][2] = g23[i3][i2][i1];
-            a[2][0] = g13[i3][i2][i1];
-            a[2][1] = g23[i3][i2][i1];
-            a[2][2] = g33[i3][i2][i1];
-            Eigen.solveSymmetric33(a,z,e);
-            float u1i = (float)z[0][0];
-            float u2i = (float)z[0][1];
-            float u3i = (float)z[0][2];
-            float v1i = (float)z[1][0];
-            float v2i = (float)z[1][1];
-            float v3i = (float)z[1][2];
-            float w1i = (float)z[2][0];
-            float w2i = (float)z[2][1];
-            float w3i = (float)z[2][2];
+            float u1i = u1r[i1];
+            float u2i = u2r[i1];
+            float u3i = u3r[i1];
+            float w1i = w1r[i1];
+            float w2i = w2r[i1];
+            float w3i = w3r[i1];
+            float v1i = w2i*u3i-w3i*u2i; // v = w x u
+            float v2i = w3i*u1i-w1i*u3i;
+            float v3i = w1i*u2i-w2i*u1i;
             if (u1i<0.0f) {
               u1i = -u1i;
               u2i = -u2i;
@@ -760,9 +815,9 @@ public class LocalOrientFilter {
               w2i = -w2i;
               w3i = -w3i;
             }
-            float eui = (float)e[0];
-            float evi = (float)e[1];
-            float ewi = (float)e[2];
+            float eui = eur[i1];
+            float evi = evr[i1];
+            float ewi = ewr[i1];
             if (ewi<0.0f) ewi = 0.0f;
             if (evi<ewi) evi = ewi;
             if (eui<evi) eui = evi;
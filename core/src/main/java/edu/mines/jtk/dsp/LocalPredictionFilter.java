@@ -18,6 +18,7 @@ import java.util.ArrayList;
 
 import static edu.mines.jtk.util.ArrayMath.*;
 import edu.mines.jtk.util.Check;
+import edu.mines.jtk.util.Parallel;
 
 /**
  * Local prediction filtering.
@@ -63,34 +64,7 @@ public class LocalPredictionFilter {
     // Compute prediction filters.
     int n1 = f[0].length;
     int n2 = f.length;
-    double[][] rkjt = new double[m][m];
-    double[] rk0t = new double[m];
-    double[] at = new double[m];
-    float[][][] a = new float[m][n2][n1];
-    CgSolver cgs = new CgSolver(m,100);
-    //DirectSolver ds = new DirectSolver(m);
-    double niter = 0.0;
-    for (int i2=0; i2<n2; ++i2) {
-      int i1b = (i2%2==0)?0:n1-1;
-      int i1e = (i2%2==0)?n1:-1;
-      int i1s = (i2%2==0)?1:-1;
-      for (int i1=i1b; i1!=i1e; i1+=i1s) {
-        for (int k=0; k<m; ++k) {
-          for (int j=0; j<m; ++j)
-            rkjt[k][j] = rkj[k][j][i2][i1];
-          rk0t[k] = rk0[k][i2][i1];
-        }
-        niter += cgs.solve(rkjt,rk0t,at);
-        //boolean bad = ds.solve(rkjt,rk0t,at);
-        //if (bad)
-        //  System.out.println("bad for i1="+i1+" i2="+i2);
-        for (int i=0; i<m; ++i)
-          a[i][i2][i1] = (float)at[i];
-      }
-    }
-    niter /= n1;
-    niter /= n2;
-    System.out.println("Average number of CG iterations = "+niter);
+    float[][][] a = solveFilters(rkj,rk0,n1,n2);
 
     // Apply prediction filters.
     zero(g);
@@ -140,30 +114,7 @@ public class LocalPredictionFilter {
     // Compute prediction filters.
     int n1 = f[0].length;
     int n2 = f.length;
-    double[][] rkjt = new double[m][m];
-    double[] rk0t = new double[m];
-    double[] at = new double[m];
-    float[][][] a = new float[m][n2][n1];
-    CgSolver cgs = new CgSolver(m,100);
-    double niter = 0.0;
-    for (int i2=0; i2<n2; ++i2) {
-      int i1b = (i2%2==0)?0:n1-1;
-      int i1e = (i2%2==0)?n1:-1;
-      int i1s = (i2%2==0)?1:-1;
-      for (int i1=i1b; i1!=i1e; i1+=i1s) {
-        for (int k=0; k<m; ++k) {
-          for (int j=0; j<m; ++j)
-            rkjt[k][j] = rkj[k][j][i2][i1];
-          rk0t[k] = rk0[k][i2][i1];
-        }
-        niter += cgs.solve(rkjt,rk0t,at);
-        for (int i=0; i<m; ++i)
-          a[i][i2][i1] = (float)at[i];
-      }
-    }
-    niter /= n1;
-    niter /= n2;
-    System.out.println("Average number of CG iterations = "+niter);
+    float[][][] a = solveFilters(rkj,rk0,n1,n2);
 
     // Apply prediction error filters.
     copy(f,g);
@@ -226,81 +177,39 @@ public class LocalPredictionFilter {
   }
   */
 
-  private static class CgSolver {
-    CgSolver(int m, int maxiter) {
-      this.m = m;
-      this.maxiter = maxiter;
-      this.p = new double[m];
-      this.q = new double[m];
-      this.r = new double[m];
-    }
-    int solve(double[][] a, double[] b, double[] x) {
-      double rp = 0.0;
-      double rr = 0.0;
-      double bb = 0.0;
-      for (int i=0; i<m; ++i) {
-        double[] ai = a[i];
-        double ax = 0.0;
-        for (int j=0; j<m; ++j)
-          ax += ai[j]*x[j];
-        double bi = b[i];
-        double ri = r[i] = bi-ax;
-        bb += bi*bi;
-        rr += ri*ri;
-      }
-      double small = bb*TINY;
-      int niter;
-      for (niter=0; niter<maxiter && rr>small; ++niter) {
-        if (niter==0) {
-          for (int i=0; i<m; ++i)
-            p[i] = r[i];
-        } else {
-          double beta = rr/rp;
-          for (int i=0; i<m; ++i)
-            p[i] = r[i]+beta*p[i];
-        }
-        double pq = 0.0;
-        for (int i=0; i<m; ++i) {
-          double[] ai = a[i];
-          double ap = 0.0;
-          for (int j=0; j<m; ++j)
-            ap += ai[j]*p[j];
-          q[i] = ap;
-          pq += p[i]*q[i];
-        }
-        double alpha = rr/pq;
-        rp = rr;
-        rr = 0.0;
-        for (int i=0; i<m; ++i) {
-          x[i] += alpha*p[i];
-          r[i] -= alpha*q[i];
-          rr += r[i]*r[i];
-        }
-      }
-      if (rr>small)
-        System.out.println("CgSolver.solve: failed to converge");
+  // Relative damping added to diagonal elements of normal equations.
+  private static final float DAMPING = 1.0e-3f;
 
-      /*
-      // Check
-      double rc = 0.0;
-      for (int i=0; i<m; ++i) {
-        double[] ai = a[i];
-        double ax = 0.0;
-        for (int j=0; j<m; ++j)
-          ax += ai[j]*x[j];
-        double bi = b[i];
-        double ri = bi-ax;
-        bb += bi*bi;
-        rc += ri*ri;
+  // Solves the normal equations for prediction filters, for all samples.
+  // Matrices are symmetric, so only elements rkj[k][j] for j<=k are used.
+  // Diagonal elements, which are all zero-lag auto-correlations, are
+  // damped by a small fraction of their maximum. Where the input is zero
+  // or nearly so, auto-correlations are tiny and may not form positive-
+  // definite matrices, and this damping makes filters there tend to zero,
+  // instead of being zero or huge.
+  private static float[][][] solveFilters(
+    final float[][][][] rkj, final float[][][] rk0, final int n1, int n2)
+  {
+    final int m = rk0.length;
+    final float[][][] a = new float[m][n2][n1];
+    final float[][] r00 = rkj[0][0];
+    final float eps = max(DAMPING*max(r00),Float.MIN_NORMAL);
+    Parallel.loop(n2,new Parallel.LoopInt() {
+      public void compute(int i2) {
+        float[] d = add(r00[i2],eps);
+        float[][] r = new float[m*(m+1)/2][];
+        float[][] b = new float[m][];
+        float[][] x = new float[m][];
+        for (int k=0,kj=0; k<m; ++k) {
+          for (int j=0; j<=k; ++j,++kj)
+            r[kj] = (j<k)?rkj[k][j][i2]:d;
+          b[k] = rk0[k][i2];
+          x[k] = a[k][i2];
+        }
+        Cholesky.solve(r,b,x);
       }
-      System.out.println(
-        "niter="+niter+" bb="+bb+" rr="+rr+" rc="+rc);
-      */
-      return niter;
-    }
-    private static final double TINY = ulp(1.0f);
-    private int m,maxiter;
-    private double[] p,q,r;
+    });
+    return a;
   }
 
   private class R2 {
@@ -14,6 +14,7 @@ limitations under the License.
 ****************************************************************************/
 package edu.mines.jtk.dsp;
 
+import edu.mines.jtk.util.Parallel;
 import static edu.mines.jtk.util.ArrayMath.*;
 
 /**
@@ -26,6 +27,14 @@ import static edu.mines.jtk.util.ArrayMath.*;
  * <a
  * href="http://www.mines.edu/~dhale/papers/Hale09StructureOrientedSmoothingAndSemblance.pdf">
  * Hale, D., 2009, Structure-oriented smoothing and semblance, CWP-635</a>
+ * <p>
+ * For 2D and 3D arrays, the numerator and denominator are smoothed 
+ * together, with tensor eigenvalues set once for each smoothing, and the
+ * two smoothing filters are applied in parallel. Arrays used for this 
+ * work are kept for subsequent semblance computations with arrays of the 
+ * same dimensions. These retained arrays are six times (2D) or seven times
+ * (3D) the size of the input array; call {@link #releaseWork()} to free
+ * them when no more semblance computations of that size are expected.
  * @author Dave Hale, Colorado School of Mines
  * @version 2009.07.24
  */
@@ -59,13 +68,21 @@ public class LocalSemblanceFilter {
     _smoother2 = new LaplacianSmoother(halfWidth2);
   }
 
+  /**
+   * Releases work arrays kept from previous semblance computations.
+   * The next 2D or 3D semblance computation will allocate new arrays.
+   */
+  public synchronized void releaseWork() {
+    _work2 = null;
+    _work3 = null;
+  }
+
   /**
    * Computes local semblance for a 1D array.
    * @param f the array of input values.
    * @param s the array of output semblance values.
    */
   public void semblance(float[] f, float[] s) {
-    int n1 = f.length;
     float[] sn,sd;
     sn = smooth1(f);
     sn = mul(sn,sn);
@@ -73,17 +90,7 @@ public class LocalSemblanceFilter {
     sd = mul(f,f);
     sd = smooth1(sd);
     sd = smooth2(sd);
-    for (int i1=0; i1<n1; ++i1) {
-      float sni = sn[i1];
-      float sdi = sd[i1];
-      if (sdi<=0.0f || sni<0.0f) {
-        s[i1] = 0.0f;
-      } else if (sdi<sni) {
-        s[i1] = 1.0f;
-      } else {
-        s[i1] = sni/sdi;
-      }
-    }
+    ratio(sn,sd,s);
   }
 
   /**
@@ -105,30 +112,37 @@ public class LocalSemblanceFilter {
    * @param s the array of output semblance values.
    */
   public void semblance(
-    Direction2 d, EigenTensors2 t, float[][] f, float[][] s) 
+    Direction2 d, EigenTensors2 t, final float[][] f, final float[][] s) 
   {
     int n1 = f[0].length;
     int n2 = f.length;
-    float[][] sn,sd;
-    sn = smooth1(d,t,f);
-    sn = mul(sn,sn);
-    sn = smooth2(d,t,sn);
-    sd = mul(f,f);
-    sd = smooth1(d,t,sd);
-    sd = smooth2(d,t,sd);
-    for (int i2=0; i2<n2; ++i2) {
-      for (int i1=0; i1<n1; ++i1) {
-        float sni = sn[i2][i1];
-        float sdi = sd[i2][i1];
-        if (sdi<=0.0f || sni<0.0f) {
-          s[i2][i1] = 0.0f;
-        } else if (sdi<sni) {
-          s[i2][i1] = 1.0f;
-        } else {
-          s[i2][i1] = sni/sdi;
-        }
+    float[][][] w = takeWork(n1,n2);
+    final float[][] au = w[0], av = w[1];
+    final float[][] xn = w[2], xd = w[3];
+    final float[][] sn = w[4], sd = w[5];
+    t.getEigenvalues(au,av);
+    Parallel.loop(n2,new Parallel.LoopInt() {
+      public void compute(int i2) {
+        copy(f[i2],xn[i2]);
+        mul(f[i2],f[i2],xd[i2]);
       }
-    }
+    });
+    setEigenvalues(d,t);
+    _smoother1.apply(t,xn,xd,sn,sd);
+    Parallel.loop(n2,new Parallel.LoopInt() {
+      public void compute(int i2) {
+        mul(sn[i2],sn[i2],sn[i2]);
+      }
+    });
+    setEigenvalues(orthogonal(d),t);
+    _smoother2.apply(t,sn,sd,xn,xd);
+    t.setEigenvalues(au,av);
+    Parallel.loop(n2,new Parallel.LoopInt() {
+      public void compute(int i2) {
+        ratio(xn[i2],xd[i2],s[i2]);
+      }
+    });
+    giveWork(w);
   }
 
   /**
@@ -152,33 +166,39 @@ public class LocalSemblanceFilter {
    * @param s the array of output semblance values.
    */
   public void semblance(
-    Direction3 d, EigenTensors3 t, float[][][] f, float[][][] s) 
+    Direction3 d, EigenTensors3 t, final float[][][] f, final float[][][] s) 
   {
     int n1 = f[0][0].length;
     int n2 = f[0].length;
-    int n3 = f.length;
-    float[][][] sn,sd;
-    sn = smooth1(d,t,f);
-    sn = mul(sn,sn);
-    sn = smooth2(d,t,sn);
-    sd = mul(f,f);
-    sd = smooth1(d,t,sd);
-    sd = smooth2(d,t,sd);
-    for (int i3=0; i3<n3; ++i3) {
-      for (int i2=0; i2<n2; ++i2) {
-        for (int i1=0; i1<n1; ++i1) {
-          float sni = sn[i3][i2][i1];
-          float sdi = sd[i3][i2][i1];
-          if (sdi<=0.0f || sni<0.0f) {
-            s[i3][i2][i1] = 0.0f;
-          } else if (sdi<sni) {
-            s[i3][i2][i1] = 1.0f;
-          } else {
-            s[i3][i2][i1] = sni/sdi;
-          }
-        }
+    final int n3 = f.length;
+    float[][][][] w = takeWork(n1,n2,n3);
+    final float[][][] au = w[0], av = w[1], aw = w[2];
+    final float[][][] xn = w[3], xd = w[4];
+    final float[][][] sn = w[5], sd = w[6];
+    t.getEigenvalues(au,av,aw);
+    Parallel.loop(n3,new Parallel.LoopInt() {
+      public void compute(int i3) {
+        copy(f[i3],xn[i3]);
+        mul(f[i3],f[i3],xd[i3]);
       }
-    }
+    });
+    setEigenvalues(d,t);
+    _smoother1.apply(t,xn,xd,sn,sd);
+    Parallel.loop(n3,new Parallel.LoopInt() {
+      public void compute(int i3) {
+        mul(sn[i3],sn[i3],sn[i3]);
+      }
+    });
+    setEigenvalues(orthogonal(d),t);
+    _smoother2.apply(t,sn,sd,xn,xd);
+    t.setEigenvalues(au,av,aw);
+    Parallel.loop(n3,new Parallel.LoopInt() {
+      public void compute(int i3) {
+        for (int i2=0; i2<xn[i3].length; ++i2)
+          ratio(xn[i3][i2],xd[i3][i2],s[i3][i2]);
+      }
+    });
+    giveWork(w);
   }
 
   /**
@@ -392,6 +412,51 @@ public class LocalSemblanceFilter {
         t.setEigenvalues(au,av,aw);
       }
     }
+
+    // Applies this smoother to two pairs of arrays, for tensors with 
+    // eigenvalues already set. Input arrays fa and fb are overwritten.
+    public void apply(
+      final EigenTensors2 t, final float[][] fa, final float[][] fb, 
+      final float[][] ga, final float[][] gb) 
+    {
+      if (_scale==0.0f) {
+        copy(fa,ga);
+        copy(fb,gb);
+      } else {
+        _lsf.applySmoothL(_kmax,fa,fa);
+        _lsf.applySmoothL(_kmax,fb,fb);
+        Parallel.loop(2,new Parallel.LoopInt() {
+          public void compute(int i) {
+            if (i==0) {
+              _lsf.apply(t,_scale,fa,ga);
+            } else {
+              _lsf.apply(t,_scale,fb,gb);
+            }
+          }
+        });
+      }
+    }
+    public void apply(
+      final EigenTensors3 t, final float[][][] fa, final float[][][] fb, 
+      final float[][][] ga, final float[][][] gb) 
+    {
+      if (_scale==0.0f) {
+        copy(fa,ga);
+        copy(fb,gb);
+      } else {
+        _lsf.applySmoothL(_kmax,fa,fa);
+        _lsf.applySmoothL(_kmax,fb,fb);
+        Parallel.loop(2,new Parallel.LoopInt() {
+          public void compute(int i) {
+            if (i==0) {
+              _lsf.apply(t,_scale,fa,ga);
+            } else {
+              _lsf.apply(t,_scale,fb,gb);
+            }
+          }
+        });
+      }
+    }
     private float _scale;
     private static final double _small = 0.001;
     private static final int _niter = 1000;
@@ -404,6 +469,53 @@ public class LocalSemblanceFilter {
   }
 
   private LaplacianSmoother _smoother1,_smoother2;
+  private float[][][] _work2; // work arrays for 2D semblance
+  private float[][][][] _work3; // work arrays for 3D semblance
+
+  // Takes work arrays, if any, left by a previous semblance computation.
+  private float[][][] takeWork(int n1, int n2) {
+    float[][][] w;
+    synchronized (this) {
+      w = _work2;
+      _work2 = null;
+    }
+    if (w==null || w[0].length!=n2 || w[0][0].length!=n1)
+      w = new float[6][n2][n1];
+    return w;
+  }
+  private float[][][][] takeWork(int n1, int n2, int n3) {
+    float[][][][] w;
+    synchronized (this) {
+      w = _work3;
+      _work3 = null;
+    }
+    if (w==null || 
+        w[0].length!=n3 || w[0][0].length!=n2 || w[0][0][0].length!=n1)
+      w = new float[7][n3][n2][n1];
+    return w;
+  }
+  private synchronized void giveWork(float[][][] w) {
+    _work2 = w;
+  }
+  private synchronized void giveWork(float[][][][] w) {
+    _work3 = w;
+  }
+
+  // Computes semblance from smoothed numerator and denominator.
+  private static void ratio(float[] sn, float[] sd, float[] s) {
+    int n1 = s.length;
+    for (int i1=0; i1<n1; ++i1) {
+      float sni = sn[i1];
+      float sdi = sd[i1];
+      if (sdi<=0.0f || sni<0.0f) {
+        s[i1] = 0.0f;
+      } else if (sdi<sni) {
+        s[i1] = 1.0f;
+      } else {
+        s[i1] = sni/sdi;
+      }
+    }
+  }
 
   private static void setEigenvalues(Direction2 d, EigenTensors2 t) {
     float au = 0.0f;
@@ -16,6 +16,7 @@ package edu.mines.jtk.dsp;
 
 import static edu.mines.jtk.util.ArrayMath.*;
 import edu.mines.jtk.util.Check;
+import edu.mines.jtk.util.Parallel;
 
 /**
  * Estimates displacement vector fields for two images. For example, given 
@@ -55,6 +56,15 @@ import edu.mines.jtk.util.Check;
  * displacements parallel to image features that may be otherwise poorly
  * resolved. Whitening is performed with local prediction error filters
  * computed from local auto-correlations.
+ * <p>
+ * Lags are scanned in parallel, in contiguous blocks of lags. For each
+ * block, only correlations for three consecutive lags are stored, along
+ * with the peak correlation and shift found so far for each sample.
+ * Peaks from different blocks are then merged, such that results do not
+ * depend on the number of blocks. Each block after the first requires
+ * memory for up to six arrays with the size of the input arrays, so the
+ * number of blocks is limited by default to a small number; see
+ * {@link #setMaxThreads(int)}.
  *
  * @author Dave Hale, Colorado School of Mines
  * @version 2006.11.18
@@ -119,6 +129,23 @@ public class LocalShiftFinder {
     _interpolateDisplacements = enable;
   }
 
+  /**
+   * Sets the maximum number of threads used to scan lags when finding
+   * shifts. The default is the smaller of four and the number of available
+   * processors. Each thread requires memory for three arrays of
+   * correlations with the size of the input arrays, and each thread after
+   * the first requires memory for two or three more such arrays of peaks
+   * and shifts. For example, with eight threads, finding shifts for
+   * a 1 GB array requires up to 45 GB of additional memory. More threads
+   * may be faster when memory is plentiful; fewer threads may be specified
+   * to limit memory used. Results do not depend on the number of threads.
+   * @param nthread the maximum number of threads; must be positive.
+   */
+  public void setMaxThreads(int nthread) {
+    Check.argument(nthread>0,"nthread>0");
+    _nthread = nthread;
+  }
+
   /**
    * Finds shifts in the 1st (and only) dimension.
    * @param min1 the minimum shift.
@@ -130,7 +157,7 @@ public class LocalShiftFinder {
   public void find1(
     int min1, int max1, float[] f, float[] g, float[] u) 
   {
-    findShifts(min1,max1,f,g,u,null,null);
+    findShifts(1,1,min1,max1,a3(f),a3(g),a3(u),null,null);
   }
 
   /**
@@ -149,7 +176,7 @@ public class LocalShiftFinder {
     int min1, int max1, float[] f, float[] g, 
     float[] u, float[] c, float[] d)
   {
-    findShifts(min1,max1,f,g,u,c,d);
+    findShifts(1,1,min1,max1,a3(f),a3(g),a3(u),a3(c),a3(d));
   }
 
   /**
@@ -163,7 +190,7 @@ public class LocalShiftFinder {
   public void find1(
     int min1, int max1, float[][] f, float[][] g, float[][] u) 
   {
-    findShifts(1,min1,max1,f,g,u);
+    findShifts(2,1,min1,max1,a3(f),a3(g),a3(u),null,null);
   }
 
   /**
@@ -177,7 +204,7 @@ public class LocalShiftFinder {
   public void find2(
     int min2, int max2, float[][] f, float[][] g, float[][] u) 
   {
-    findShifts(2,min2,max2,f,g,u);
+    findShifts(2,2,min2,max2,a3(f),a3(g),a3(u),null,null);
   }
 
   /**
@@ -191,7 +218,7 @@ public class LocalShiftFinder {
   public void find1(
     int min1, int max1, float[][][] f, float[][][] g, float[][][] u) 
   {
-    findShifts(1,min1,max1,f,g,u);
+    findShifts(3,1,min1,max1,f,g,u,null,null);
   }
 
   /**
@@ -205,7 +232,7 @@ public class LocalShiftFinder {
   public void find2(
     int min2, int max2, float[][][] f, float[][][] g, float[][][] u) 
   {
-    findShifts(2,min2,max2,f,g,u);
+    findShifts(3,2,min2,max2,f,g,u,null,null);
   }
 
   /**
@@ -219,7 +246,7 @@ public class LocalShiftFinder {
   public void find3(
     int min3, int max3, float[][][] f, float[][][] g, float[][][] u) 
   {
-    findShifts(3,min3,max3,f,g,u);
+    findShifts(3,3,min3,max3,f,g,u,null,null);
   }
 
   /**
@@ -503,50 +530,52 @@ public class LocalShiftFinder {
    * @param f the input array.
    * @param g the output array.
    */
-  public void whiten(double sigma, float[][] f, float[][] g) {
-    int n1 = f[0].length;
-    int n2 = f.length;
-    float[][] r00 = new float[n2][n1];
-    float[][] rpm = new float[n2][n1];
-    float[][] rm0 = new float[n2][n1];
-    float[][] r0m = new float[n2][n1];
-    _lcfSimple.setInputs(f,f);
-    _lcfSimple.correlate( 0, 0,r00);
-    _lcfSimple.correlate( 1,-1,rpm);
-    _lcfSimple.correlate(-1, 0,rm0);
-    _lcfSimple.correlate( 0,-1,r0m);
-    float[][] s = rm0;
+  public void whiten(double sigma, final float[][] f, float[][] g) {
+    final int n1 = f[0].length;
+    final int n2 = f.length;
+    final float[][] r00 = new float[n2][n1];
+    final float[][] rpm = new float[n2][n1];
+    final float[][] rm0 = new float[n2][n1];
+    final float[][] r0m = new float[n2][n1];
+    final float[][] s = rm0;
     float[][] t = r0m;
-    for (int i2=0; i2<n2; ++i2)
-      s[i2][0] = 0.0f;
-    for (int i1=0; i1<n1; ++i1)
-      s[0][i1] = 0.0f;
-    for (int i2=1; i2<n2; ++i2) {
-      for (int i1=1; i1<n1; ++i1) {
-        double b1 = rm0[i2][i1];
-        double b2 = r0m[i2][i1];
-        double a11 = r00[i2][i1-1];
-        double a21 = rpm[i2][i1-1];
-        double a22 = r00[i2-1][i1];
-        double l11 = sqrt(a11);
-        double l21 = a21/l11;
-        double d22 = a22-l21*l21;
-        double x1 = 0.0;
-        double x2 = 0.0;
-        if (d22>0.0) {
-          double l22 = sqrt(d22);
-          double v1 = b1/l11;
-          double v2 = (b2-l21*v1)/l22;
-          x2 = v2/l22;
-          x1 = (v1-l21*x2)/l11;
+    _lcfSimple.setInputs(f,f);
+    correlate(new int[][]{{0,0},{1,-1},{-1,0},{0,-1}},
+              new float[][][][]{{r00},{rpm},{rm0},{r0m}});
+    Parallel.loop(n2,new Parallel.LoopInt() {
+      public void compute(int i2) {
+        float[] s2 = s[i2];
+        if (i2==0) {
+          zero(s2);
+          return;
+        }
+        s2[0] = 0.0f;
+        for (int i1=1; i1<n1; ++i1) {
+          double b1 = rm0[i2][i1];
+          double b2 = r0m[i2][i1];
+          double a11 = r00[i2][i1-1];
+          double a21 = rpm[i2][i1-1];
+          double a22 = r00[i2-1][i1];
+          double l11 = sqrt(a11);
+          double l21 = a21/l11;
+          double d22 = a22-l21*l21;
+          double x1 = 0.0;
+          double x2 = 0.0;
+          if (d22>0.0) {
+            double l22 = sqrt(d22);
+            double v1 = b1/l11;
+            double v2 = (b2-l21*v1)/l22;
+            x2 = v2/l22;
+            x1 = (v1-l21*x2)/l11;
+          }
+          float a1 = (float)x1;
+          float a2 = (float)x2;
+          s2[i1] = f[i2][i1]
+                   - a1*f[i2][i1-1]
+                   - a2*f[i2-1][i1];
         }
-        float a1 = (float)x1;
-        float a2 = (float)x2;
-        s[i2][i1] = f[i2][i1]
-                    - a1*f[i2][i1-1]
-                    - a2*f[i2-1][i1];
       }
-    }
+    });
     if (sigma>=1.0) {
       RecursiveGaussianFilter rgf = new RecursiveGaussianFilter(sigma);
       rgf.apply0X(s,t);
@@ -575,79 +604,75 @@ public class LocalShiftFinder {
    * @param f the input array.
    * @param g the output array.
    */
-  public void whiten(double sigma, float[][][] f, float[][][] g) {
-    int n1 = f[0][0].length;
-    int n2 = f[0].length;
-    int n3 = f.length;
-    float[][][] r000 = new float[n3][n2][n1];
-    float[][][] rpm0 = new float[n3][n2][n1];
-    float[][][] rp0m = new float[n3][n2][n1];
-    float[][][] r0pm = new float[n3][n2][n1];
-    float[][][] rm00 = new float[n3][n2][n1];
-    float[][][] r0m0 = new float[n3][n2][n1];
-    float[][][] r00m = new float[n3][n2][n1];
-    float[][][] s = rm00;
+  public void whiten(double sigma, final float[][][] f, float[][][] g) {
+    final int n1 = f[0][0].length;
+    final int n2 = f[0].length;
+    final int n3 = f.length;
+    final float[][][] r000 = new float[n3][n2][n1];
+    final float[][][] rpm0 = new float[n3][n2][n1];
+    final float[][][] rp0m = new float[n3][n2][n1];
+    final float[][][] r0pm = new float[n3][n2][n1];
+    final float[][][] rm00 = new float[n3][n2][n1];
+    final float[][][] r0m0 = new float[n3][n2][n1];
+    final float[][][] r00m = new float[n3][n2][n1];
+    final float[][][] s = rm00;
     float[][][] t = r0m0;
     _lcfSimple.setInputs(f,f);
-    _lcfSimple.correlate( 0, 0, 0,r000);
-    _lcfSimple.correlate( 1,-1, 0,rpm0);
-    _lcfSimple.correlate( 1, 0,-1,rp0m);
-    _lcfSimple.correlate( 0, 1,-1,r0pm);
-    _lcfSimple.correlate(-1, 0, 0,rm00);
-    _lcfSimple.correlate( 0,-1, 0,r0m0);
-    _lcfSimple.correlate( 0, 0,-1,r00m);
-    for (int i3=0; i3<n3; ++i3)
-      for (int i2=0; i2<n2; ++i2)
-        s[i3][i2][0] = 0.0f;
-    for (int i3=0; i3<n3; ++i3)
-      for (int i1=0; i1<n1; ++i1)
-        s[i3][0][i1] = 0.0f;
-    for (int i2=0; i2<n2; ++i2)
-      for (int i1=0; i1<n1; ++i1)
-        s[0][i2][i1] = 0.0f;
-    for (int i3=1; i3<n3; ++i3) {
-      for (int i2=1; i2<n2; ++i2) {
-        for (int i1=1; i1<n1; ++i1) {
-          double b1 = rm00[i3][i2][i1];
-          double b2 = r0m0[i3][i2][i1];
-          double b3 = r00m[i3][i2][i1];
-          double a11 = r000[i3][i2][i1-1];
-          double a21 = rpm0[i3][i2][i1-1];
-          double a22 = r000[i3][i2-1][i1];
-          double a31 = rp0m[i3][i2][i1-1];
-          double a32 = r0pm[i3][i2-1][i1];
-          double a33 = r000[i3-1][i2][i1];
-          double x1 = 0.0;
-          double x2 = 0.0;
-          double x3 = 0.0;
-          double l11 = sqrt(a11);
-          double l21 = a21/l11;
-          double l31 = a31/l11;
-          double d22 = a22-l21*l21;
-          if (d22>0.0) {
-            double l22 = sqrt(d22);
-            double l32 = (a32-l31*l21)/l22;
-            double d33 = a33-l31*l31-l32*l32;
-            if (d33>0.0) {
-              double l33 = sqrt(d33);
-              double v1 = b1/l11;
-              double v2 = (b2-l21*v1)/l22;
-              double v3 = (b3-l31*v1-l32*v2)/l33;
-              x3 = v3/l33;
-              x2 = (v2-l32*x3)/l22;
-              x1 = (v1-l21*x2-l31*x3)/l11;
+    correlate(new int[][]{{ 0, 0, 0},{ 1,-1, 0},{ 1, 0,-1},{ 0, 1,-1},
+                          {-1, 0, 0},{ 0,-1, 0},{ 0, 0,-1}},
+              new float[][][][]{r000,rpm0,rp0m,r0pm,rm00,r0m0,r00m});
+    Parallel.loop(n3,new Parallel.LoopInt() {
+      public void compute(int i3) {
+        float[][] s3 = s[i3];
+        if (i3==0) {
+          zero(s3);
+          return;
+        }
+        zero(s3[0]);
+        for (int i2=1; i2<n2; ++i2) {
+          s3[i2][0] = 0.0f;
+          for (int i1=1; i1<n1; ++i1) {
+            double b1 = rm00[i3][i2][i1];
+            double b2 = r0m0[i3][i2][i1];
+            double b3 = r00m[i3][i2][i1];
+            double a11 = r000[i3][i2][i1-1];
+            double a21 = rpm0[i3][i2][i1-1];
+            double a22 = r000[i3][i2-1][i1];
+            double a31 = rp0m[i3][i2][i1-1];
+            double a32 = r0pm[i3][i2-1][i1];
+            double a33 = r000[i3-1][i2][i1];
+            double x1 = 0.0;
+            double x2 = 0.0;
+            double x3 = 0.0;
+            double l11 = sqrt(a11);
+            double l21 = a21/l11;
+            double l31 = a31/l11;
+            double d22 = a22-l21*l21;
+            if (d22>0.0) {
+              double l22 = sqrt(d22);
+              double l32 = (a32-l31*l21)/l22;
+              double d33 = a33-l31*l31-l32*l32;
+              if (d33>0.0) {
+                double l33 = sqrt(d33);
+                double v1 = b1/l11;
+                double v2 = (b2-l21*v1)/l22;
+                double v3 = (b3-l31*v1-l32*v2)/l33;
+                x3 = v3/l33;
+                x2 = (v2-l32*x3)/l22;
+                x1 = (v1-l21*x2-l31*x3)/l11;
+              }
             }
+            float a1 = (float)x1;
+            float a2 = (float)x2;
+            float a3 = (float)x3;
+            s3[i2][i1] = f[i3][i2][i1]
+                         - a1*f[i3][i2][i1-1]
+                         - a2*f[i3][i2-1][i1]
+                         - a3*f[i3-1][i2][i1];
           }
-          float a1 = (float)x1;
-          float a2 = (float)x2;
-          float a3 = (float)x3;
-          s[i3][i2][i1] = f[i3][i2][i1]
-                          - a1*f[i3][i2][i1-1]
-                          - a2*f[i3][i2-1][i1]
-                          - a3*f[i3-1][i2][i1];
         }
       }
-    }
+    });
     if (sigma>=1.0) {
       RecursiveGaussianFilter rgf = new RecursiveGaussianFilter(sigma);
       rgf.apply0XX(s,t);
@@ -665,258 +690,187 @@ public class LocalShiftFinder {
   private LocalCorrelationFilter _lcfSimple;
   private SincInterpolator _si;
   private boolean _interpolateDisplacements = true;
+  private int _nthread = 
+    min(NTHREAD,Runtime.getRuntime().availableProcessors());
 
-  private void findShifts(
-    int min, int max, float[] f, float[] g, float[] u, float[] c, float[] d) 
-  {
-    int n1 = f.length;
-
-    // Initially shifts, correlations, and differences are zero.
-    zero(u);
-    if (c!=null) 
-      zero(c);
-    else
-      c = zerofloat(n1);
-    if (d!=null) 
-      zero(d);
-
-    // Arrays to contain cross-correlations for three consecutive lags.
-    float[][] c3 = new float[3][n1];
+  // Default maximum number of threads (blocks of lags) used to scan lags.
+  private static final int NTHREAD = 4;
 
-    // Correlate for min lag.
-    LocalCorrelationFilter lcf = _lcfSimple;
-    lcf.setInputs(f,g);
-    int lag1 = min;
-    lcf.correlate(lag1,c3[1]);
-    lcf.normalize(lag1,c3[1]);
+  // Minimum number of lags per block. Except at the min and max lags,
+  // correlations for the lags adjacent to a block are computed twice.
+  private static final int NLAG = 4;
 
-    // For all lags in range [min,max], ...
-    for (int lag=min; lag<=max; ++lag) {
-
-      // Arrays ca, cb, and cc will contain three cross-correlations. For 
-      // first and last lags, buffers a and c are the same. In other words, 
-      // assume that correlation values are symmetric about the min and max 
-      // lags scanned. This assumption enables local maxima to occur at the 
-      // specified min and max lags, but forces displacements to lie within 
-      // the range [min,max].
-      int i = lag-min;
-      float[] ca = (lag>min)?c3[(i  )%3]:c3[(i+2)%3];
-      float[] cb =           c3[(i+1)%3];
-      float[] cc = (lag<max)?c3[(i+2)%3]:c3[(i  )%3];
-
-      // Except for last lag, compute correlation for next lag in array cc.
-      if (lag<max) {
-        lag1 = lag+1;
-        lcf.correlate(lag1,cc);
-        lcf.normalize(lag1,cc);
-      }
+  // Views of 1D and 2D arrays as 3D arrays.
+  private static float[][][] a3(float[] x) {
+    return (x!=null)?new float[][][]{{x}}:null;
+  }
+  private static float[][][] a3(float[][] x) {
+    return (x!=null)?new float[][][]{x}:null;
+  }
 
-      // For each sample, check for a local max correlation value. For each 
-      // local max, update the correlation maximum value and displacement
-      // using quadratic interpolation of three correlation values.
-      for (int i1=0; i1<n1; ++i1) {
-        float ai = ca[i1];
-        float bi = cb[i1];
-        float ci = cc[i1];
-        if (bi>=ai && bi>=ci) {
-          double c0 = bi;
-          double c1 = 0.5*(ci-ai);
-          double c2 = 0.5*(ci+ai)-bi;
-          double up = (c2<0.0)?-0.5*c1/c2:0.0;
-          double cp = c0+up*(c1+up*c2);
-          if (cp>c[i1]) {
-            if (d!=null) d[i1] = (float)cp-c[i1];
-            c[i1] = (float)cp;
-            u[i1] = (float)(lag+up);
-          }
+  // Computes correlations for specified lags, in parallel.
+  private void correlate(final int[][] lags, final float[][][][] r) {
+    final LocalCorrelationFilter lcf = _lcfSimple;
+    Parallel.loop(lags.length,new Parallel.LoopInt() {
+      public void compute(int k) {
+        int[] l = lags[k];
+        if (l.length==2) {
+          lcf.correlate(l[0],l[1],r[k][0]);
+        } else {
+          lcf.correlate(l[0],l[1],l[2],r[k]);
         }
       }
-    }
+    });
   }
 
-  private void findShifts(
-    int min, int max, float[] f, float[] g, float[] u) 
-  {
-    int n1 = f.length;
-
-    // Default shifts are zero.
-    zero(u);
-
-    // Arrays to contain cross-correlations for three consecutive lags.
-    float[][] c = new float[3][n1];
-
-    // Array for current correlation maximum values.
-    float[] cmax = new float[n1];
-
-    // Correlate for min lag.
+  // Computes normalized correlation for one lag in dimension dim of 
+  // arrays with ndim dimensions.
+  private void correlate(int ndim, int dim, int lag, float[][][] c) {
     LocalCorrelationFilter lcf = _lcfSimple;
-    lcf.setInputs(f,g);
-    int lag1 = min;
-    lcf.correlate(lag1,c[1]);
-    lcf.normalize(lag1,c[1]);
-
-    // For all lags in range [min,max], ...
-    for (int lag=min; lag<=max; ++lag) {
-
-      // Arrays ca, cb, and cc will contain three cross-correlations. For 
-      // first and last lags, buffers a and c are the same. In other words, 
-      // assume that correlation values are symmetric about the min and max 
-      // lags scanned. This assumption enables local maxima to occur at the 
-      // specified min and max lags, but forces displacements to lie within 
-      // the range [min,max].
-      int i = lag-min;
-      float[] ca = (lag>min)?c[(i  )%3]:c[(i+2)%3];
-      float[] cb =           c[(i+1)%3];
-      float[] cc = (lag<max)?c[(i+2)%3]:c[(i  )%3];
-
-      // Except for last lag, compute correlation for next lag in array cc.
-      if (lag<max) {
-        lag1 = lag+1;
-        lcf.correlate(lag1,cc);
-        lcf.normalize(lag1,cc);
-      }
-
-      // For each sample, check for a local max correlation value. For each 
-      // local max, update the correlation maximum value and displacement
-      // using quadratic interpolation of three correlation values.
-      for (int i1=0; i1<n1; ++i1) {
-        float ai = ca[i1];
-        float bi = cb[i1];
-        float ci = cc[i1];
-        if (bi>=ai && bi>=ci) {
-          double c0 = bi;
-          double c1 = 0.5*(ci-ai);
-          double c2 = 0.5*(ci+ai)-bi;
-          double up = (c2<0.0)?-0.5*c1/c2:0.0;
-          double cp = c0+up*(c1+up*c2);
-          if (cp>cmax[i1]) {
-            cmax[i1] = (float)cp;
-            u[i1] = (float)(lag+up);
-          }
-        }
-      }
+    int lag1 = (dim==1)?lag:0;
+    int lag2 = (dim==2)?lag:0;
+    int lag3 = (dim==3)?lag:0;
+    if (ndim==1) {
+      lcf.correlate(lag1,c[0][0]);
+      lcf.normalize(lag1,c[0][0]);
+    } else if (ndim==2) {
+      lcf.correlate(lag1,lag2,c[0]);
+      lcf.normalize(lag1,lag2,c[0]);
+    } else {
+      lcf.correlate(lag1,lag2,lag3,c);
+      lcf.normalize(lag1,lag2,lag3,c);
     }
   }
 
+  // Peak correlations and shifts found for one block of lags. For each 
+  // sample, p is the peak correlation found before that in c; p is used 
+  // only to compute differences between peak and next-highest peak.
+  private static class Peaks {
+    int lmin,lmax; // range of lags scanned
+    float[][][][] r; // correlations for three consecutive lags
+    float[][][] c,u,p; // peak correlations, shifts, and previous peaks
+  }
+
   private void findShifts(
-    int dim, int min, int max, float[][] f, float[][] g, float[][] u) 
+    int ndim, final int dim, final int min, final int max, 
+    float[][][] f, float[][][] g, float[][][] u, 
+    float[][][] c, float[][][] d) 
   {
-    int n1 = f[0].length;
-    int n2 = f.length;
-
-    // Default shifts are zero.
-    zero(u);
-
-    // Arrays to contain cross-correlations for three consecutive lags.
-    float[][][] c = new float[3][n2][n1];
-
-    // Array for current correlation maximum values.
-    float[][] cmax = new float[n2][n1];
+    final int n1 = f[0][0].length;
+    final int n2 = f[0].length;
+    final int n3 = f.length;
+    final int nd = ndim;
+    if (ndim==1) {
+      _lcfSimple.setInputs(f[0][0],g[0][0]);
+    } else if (ndim==2) {
+      _lcfSimple.setInputs(f[0],g[0]);
+    } else {
+      _lcfSimple.setInputs(f,g);
+    }
 
-    // Correlate for min lag.
-    LocalCorrelationFilter lcf = _lcfSimple;
-    lcf.setInputs(f,g);
-    int lag1 = (dim==1)?min:0;
-    int lag2 = (dim==2)?min:0;
-    lcf.correlate(lag1,lag2,c[1]);
-    lcf.normalize(lag1,lag2,c[1]);
+    // Contiguous blocks of lags, one per thread.
+    int nlag = max-min+1;
+    int nb = max(1,min(_nthread,nlag/NLAG));
+    final Peaks[] pk = new Peaks[nb];
+    for (int ib=0; ib<nb; ++ib) {
+      Peaks pb = pk[ib] = new Peaks();
+      pb.lmin = min+(int)((long)nlag*ib/nb);
+      pb.lmax = min+(int)((long)nlag*(ib+1)/nb)-1;
+      pb.r = new float[3][][][];
+      pb.c = (ib==0 && c!=null)?c:new float[n3][n2][n1];
+      pb.u = (ib==0)?u:new float[n3][n2][n1];
+      if (d!=null)
+        pb.p = (ib==0)?d:new float[n3][n2][n1];
+    }
 
-    // For all lags in range [min,max], ...
-    for (int lag=min; lag<=max; ++lag) {
+    // Correlation for the min lag computes normalization scale factors,
+    // which are then shared by all threads.
+    pk[0].r[1] = new float[n3][n2][n1];
+    correlate(nd,dim,min,pk[0].r[1]);
 
-      // Arrays ca, cb, and cc will contain three cross-correlations. For 
-      // first and last lags, buffers a and c are the same. In other words, 
-      // assume that correlation values are symmetric about the min and max 
-      // lags scanned. This assumption enables local maxima to occur at the 
-      // specified min and max lags, but forces displacements to lie within 
-      // the range [min,max].
-      int i = lag-min;
-      float[][] ca = (lag>min)?c[(i  )%3]:c[(i+2)%3];
-      float[][] cb =           c[(i+1)%3];
-      float[][] cc = (lag<max)?c[(i+2)%3]:c[(i  )%3];
-
-      // Except for last lag, compute correlation for next lag in array cc.
-      if (lag<max) {
-        lag1 = (dim==1)?lag+1:0;
-        lag2 = (dim==2)?lag+1:0;
-        lcf.correlate(lag1,lag2,cc);
-        lcf.normalize(lag1,lag2,cc);
+    // Scan lags in each block.
+    Parallel.loop(nb,new Parallel.LoopInt() {
+      public void compute(int ib) {
+        scan(nd,dim,min,max,pk[ib]);
       }
-
-      // For each sample, check for a local max correlation value. For each 
-      // local max, update the correlation maximum value and displacement
-      // using quadratic interpolation of three correlation values.
-      for (int i2=0; i2<n2; ++i2) {
-        float[] ca2 = ca[i2];
-        float[] cb2 = cb[i2];
-        float[] cc2 = cc[i2];
-        for (int i1=0; i1<n1; ++i1) {
-          float ai = ca2[i1];
-          float bi = cb2[i1];
-          float ci = cc2[i1];
-          if (bi>=ai && bi>=ci) {
-            double c0 = bi;
-            double c1 = 0.5*(ci-ai);
-            double c2 = 0.5*(ci+ai)-bi;
-            double up = (c2<0.0)?-0.5*c1/c2:0.0;
-            double cp = c0+up*(c1+up*c2);
-            if (cp>cmax[i2][i1]) {
-              cmax[i2][i1] = (float)cp;
-              u[i2][i1] = (float)(lag+up);
+    });
+
+    // Merge peaks, in order of increasing lags. The first block with the
+    // highest peak wins, as when scanning all lags in one block.
+    final boolean diff = d!=null;
+    Parallel.loop(n3*n2,new Parallel.LoopInt() {
+      public void compute(int i32) {
+        int i3 = i32/n2, i2 = i32%n2;
+        float[] c0 = pk[0].c[i3][i2];
+        float[] u0 = pk[0].u[i3][i2];
+        float[] p0 = diff?pk[0].p[i3][i2]:null;
+        for (int ib=1; ib<pk.length; ++ib) {
+          float[] cb = pk[ib].c[i3][i2];
+          float[] ub = pk[ib].u[i3][i2];
+          float[] pb = diff?pk[ib].p[i3][i2]:null;
+          for (int i1=0; i1<n1; ++i1) {
+            if (cb[i1]>c0[i1]) {
+              if (diff) p0[i1] = max(c0[i1],pb[i1]);
+              c0[i1] = cb[i1];
+              u0[i1] = ub[i1];
             }
           }
         }
+        if (diff) {
+          for (int i1=0; i1<n1; ++i1)
+            p0[i1] = c0[i1]-p0[i1];
+        }
       }
-    }
+    });
   }
 
-  private void findShifts(
-    int dim, int min, int max, float[][][] f, float[][][] g, float[][][] u) 
-  {
-    int n1 = f[0][0].length;
-    int n2 = f[0].length;
-    int n3 = f.length;
-
-    // Default shifts are zero.
+  // Scans all lags in one block for peak correlations.
+  private void scan(int ndim, int dim, int min, int max, Peaks pk) {
+    int n1 = pk.u[0][0].length;
+    int n2 = pk.u[0].length;
+    int n3 = pk.u.length;
+    int lmin = pk.lmin;
+    int lmax = pk.lmax;
+    float[][][][] r = pk.r;
+    float[][][] cmax = pk.c;
+    float[][][] u = pk.u;
+    float[][][] p = pk.p;
+
+    // Initially shifts, correlations, and previous peaks are zero.
     zero(u);
+    zero(cmax);
+    if (p!=null)
+      zero(p);
+
+    // Arrays to contain cross-correlations for three consecutive lags. 
+    // The correlation for lag is in array r[(lag-lmin+1)%3]. Except for 
+    // the min lag, correlations for lags lmin-1 and lmin are computed 
+    // here.
+    for (int i=0; i<3; ++i)
+      if (r[i]==null)
+        r[i] = new float[n3][n2][n1];
+    if (lmin>min) {
+      correlate(ndim,dim,lmin-1,r[0]);
+      correlate(ndim,dim,lmin,r[1]);
+    }
 
-    // Arrays to contain cross-correlations for three consecutive lags.
-    float[][][][] c = new float[3][n3][n2][n1];
-
-    // Array for current correlation maximum values.
-    float[][][] cmax = new float[n3][n2][n1];
-
-    // Correlate for min lag.
-    LocalCorrelationFilter lcf = _lcfSimple;
-    lcf.setInputs(f,g);
-    int lag1 = (dim==1)?min:0;
-    int lag2 = (dim==2)?min:0;
-    int lag3 = (dim==3)?min:0;
-    lcf.correlate(lag1,lag2,lag3,c[1]);
-    lcf.normalize(lag1,lag2,lag3,c[1]);
-
-    // For all lags in range [min,max], ...
-    for (int lag=min; lag<=max; ++lag) {
+    // For all lags in range [lmin,lmax], ...
+    for (int lag=lmin; lag<=lmax; ++lag) {
 
       // Arrays ca, cb, and cc will contain three cross-correlations. For 
-      // first and last lags, buffers a and c are the same. In other words, 
+      // min and max lags, buffers a and c are the same. In other words, 
       // assume that correlation values are symmetric about the min and max 
       // lags scanned. This assumption enables local maxima to occur at the 
       // specified min and max lags, but forces displacements to lie within 
       // the range [min,max].
-      int i = lag-min;
-      float[][][] ca = (lag>min)?c[(i  )%3]:c[(i+2)%3];
-      float[][][] cb =           c[(i+1)%3];
-      float[][][] cc = (lag<max)?c[(i+2)%3]:c[(i  )%3];
-
-      // Except for last lag, compute correlation for next lag in array cc.
-      if (lag<max) {
-        lag1 = (dim==1)?lag+1:0;
-        lag2 = (dim==2)?lag+1:0;
-        lag3 = (dim==3)?lag+1:0;
-        lcf.correlate(lag1,lag2,lag3,cc);
-        lcf.normalize(lag1,lag2,lag3,cc);
-      }
+      int i = lag-lmin;
+      float[][][] ca = (lag>min)?r[(i  )%3]:r[(i+2)%3];
+      float[][][] cb =           r[(i+1)%3];
+      float[][][] cc = (lag<max)?r[(i+2)%3]:r[(i  )%3];
+
+      // Except for max lag, compute correlation for next lag in array cc.
+      if (lag<max)
+        correlate(ndim,dim,lag+1,cc);
 
       // For each sample, check for a local max correlation value. For each 
       // local max, update the correlation maximum value and displacement
@@ -926,6 +880,9 @@ public class LocalShiftFinder {
           float[] ca32 = ca[i3][i2];
           float[] cb32 = cb[i3][i2];
           float[] cc32 = cc[i3][i2];
+          float[] cm32 = cmax[i3][i2];
+          float[] u32 = u[i3][i2];
+          float[] p32 = (p!=null)?p[i3][i2]:null;
           for (int i1=0; i1<n1; ++i1) {
             float ai = ca32[i1];
             float bi = cb32[i1];
@@ -935,10 +892,11 @@ public class LocalShiftFinder {
               double c1 = 0.5*(ci-ai);
               double c2 = 0.5*(ci+ai)-bi;
               double up = (c2<0.0)?-0.5*c1/c2:0.0;
-              double cp = c0+up*(c1+up*c2);
-              if (cp>cmax[i3][i2][i1]) {
-                cmax[i3][i2][i1] = (float)cp;
-                u[i3][i2][i1] = (float)(lag+up);
+              float cp = (float)(c0+up*(c1+up*c2));
+              if (cp>cm32[i1]) {
+                if (p32!=null) p32[i1] = cm32[i1];
+                cm32[i1] = cp;
+                u32[i1] = (float)(lag+up);
               }
             }
           }
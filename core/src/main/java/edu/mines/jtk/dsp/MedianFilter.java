@@ -0,0 +1,220 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.dsp;
+
+import java.util.Arrays;
+
+import edu.mines.jtk.util.Check;
+import edu.mines.jtk.util.Parallel;
+
+/**
+ * A sliding-window median filter for 1D, 2D and 3D arrays.
+ * Each output sample is the median of input samples in a rectangular
+ * window centered on the corresponding input sample. The window has
+ * 2*h1+1 samples in the 1st dimension, 2*h2+1 samples in the 2nd
+ * dimension, and so on. Near array bounds, the window is truncated to
+ * include only samples inside the array. As for the class
+ * {@link edu.mines.jtk.util.MedianFinder}, when the number of samples
+ * in a truncated window is even, the median is the average of the two
+ * middle values.
+ * <p>
+ * For each line of output samples in the 1st dimension, the filter keeps
+ * a sorted copy of the values in the window. When the window slides by
+ * one sample, only the values that leave and enter the window (one slice
+ * of the window) are sorted, and these are merged with the sorted copy.
+ * The cost per output sample is therefore proportional to the number
+ * of samples in the window, instead of that number times its logarithm.
+ * Lines (or, for 1D arrays, long segments of lines) are filtered in
+ * parallel, and results do not depend on the number of threads.
+ * <p>
+ * Input values must not be NaN. Input and output arrays must be distinct.
+ * @author agent
+ * @version 2026.10.19
+ */
+public class MedianFilter {
+
+  /**
+   * Constructs a median filter with the same half-width in all dimensions.
+   * @param h half-width of window, in samples.
+   */
+  public MedianFilter(int h) {
+    this(h,h,h);
+  }
+
+  /**
+   * Constructs a median filter with specified half-widths.
+   * The half-widths h2 and h3 are ignored when filtering arrays with
+   * fewer than two or three dimensions, respectively.
+   * @param h1 half-width of window in 1st dimension, in samples.
+   * @param h2 half-width of window in 2nd dimension, in samples.
+   * @param h3 half-width of window in 3rd dimension, in samples.
+   */
+  public MedianFilter(int h1, int h2, int h3) {
+    Check.argument(h1>=0,"h1>=0");
+    Check.argument(h2>=0,"h2>=0");
+    Check.argument(h3>=0,"h3>=0");
+    _h1 = h1;
+    _h2 = h2;
+    _h3 = h3;
+  }
+
+  /**
+   * Applies this filter.
+   * @param x input array.
+   * @param y output array.
+   */
+  public void apply(float[] x, float[] y) {
+    Check.argument(x!=y,"x!=y");
+    final float[][][] xx = {{x}};
+    final float[][][] yy = {{y}};
+    final int n1 = x.length;
+    final int ns = (n1+NSEGMENT-1)/NSEGMENT;
+    final Parallel.Unsafe<Window> wu = new Parallel.Unsafe<Window>();
+    Parallel.loop(ns,new Parallel.LoopInt() {
+      public void compute(int is) {
+        int i1a = is*NSEGMENT;
+        int i1b = Math.min(i1a+NSEGMENT,n1);
+        filter(_h1,0,0,xx,yy,0,0,i1a,i1b,wu);
+      }
+    });
+  }
+
+  /**
+   * Applies this filter.
+   * @param x input array.
+   * @param y output array.
+   */
+  public void apply(float[][] x, float[][] y) {
+    Check.argument(x!=y,"x!=y");
+    final float[][][] xx = {x};
+    final float[][][] yy = {y};
+    final int n1 = x[0].length;
+    final int n2 = x.length;
+    final Parallel.Unsafe<Window> wu = new Parallel.Unsafe<Window>();
+    Parallel.loop(n2,new Parallel.LoopInt() {
+      public void compute(int i2) {
+        filter(_h1,_h2,0,xx,yy,i2,0,0,n1,wu);
+      }
+    });
+  }
+
+  /**
+   * Applies this filter.
+   * @param x input array.
+   * @param y output array.
+   */
+  public void apply(final float[][][] x, final float[][][] y) {
+    Check.argument(x!=y,"x!=y");
+    final int n1 = x[0][0].length;
+    final int n2 = x[0].length;
+    final int n3 = x.length;
+    final Parallel.Unsafe<Window> wu = new Parallel.Unsafe<Window>();
+    Parallel.loop(n2*n3,new Parallel.LoopInt() {
+      public void compute(int i23) {
+        filter(_h1,_h2,_h3,x,y,i23%n2,i23/n2,0,n1,wu);
+      }
+    });
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  private static final int NSEGMENT = 4096; // samples in 1D segments
+
+  private int _h1,_h2,_h3; // half-widths of window
+
+  // A sorted copy of values in a sliding window.
+  private static class Window {
+    float[] s; // sorted values in window
+    float[] t; // sorted values after update
+    float[] a; // values added
+    float[] r; // values removed
+    int m; // number of values in window
+    Window(int mmax, int cmax) {
+      s = new float[mmax];
+      t = new float[mmax];
+      a = new float[cmax];
+      r = new float[cmax];
+    }
+    void sort() {
+      Arrays.sort(s,0,m);
+    }
+
+    // Removes the first nr values in r and adds the first na values in a.
+    void update(int nr, int na) {
+      Arrays.sort(r,0,nr);
+      Arrays.sort(a,0,na);
+      int i = 0, j = 0, ir = 0, ia = 0;
+      while (i<m || ia<na) {
+        if (i<m && ir<nr && s[i]==r[ir]) {
+          ++i;
+          ++ir;
+        } else if (ia<na && (i>=m || a[ia]<=s[i])) {
+          t[j++] = a[ia++];
+        } else {
+          t[j++] = s[i++];
+        }
+      }
+      float[] u = s; s = t; t = u;
+      m = j;
+    }
+    float median() {
+      int k = m/2;
+      return (m%2==1)?s[k]:0.5f*(s[k-1]+s[k]);
+    }
+  }
+
+  // Filters samples [i1a,i1b) in the line with indices i2 and i3.
+  private static void filter(
+    int h1, int h2, int h3, float[][][] x, float[][][] y,
+    int i2, int i3, int i1a, int i1b, Parallel.Unsafe<Window> wu)
+  {
+    int n1 = x[0][0].length;
+    int n2 = x[0].length;
+    int n3 = x.length;
+    Window w = wu.get();
+    if (w==null) {
+      int nc = Math.min(2*h2+1,n2)*Math.min(2*h3+1,n3);
+      wu.set(w=new Window(Math.min(2*h1+1,n1)*nc,nc));
+    }
+    int j2a = Math.max(0,i2-h2), j2b = Math.min(n2-1,i2+h2);
+    int j3a = Math.max(0,i3-h3), j3b = Math.min(n3-1,i3+h3);
+    w.m = 0;
+    for (int j1=Math.max(0,i1a-h1); j1<=Math.min(n1-1,i1a+h1); ++j1)
+      w.m += gather(x,j1,j2a,j2b,j3a,j3b,w.s,w.m);
+    w.sort();
+    float[] y1 = y[i3][i2];
+    for (int i1=i1a; i1<i1b; ++i1) {
+      y1[i1] = w.median();
+      if (i1+1<i1b) {
+        int nr = (i1-h1>=0)?gather(x,i1-h1,j2a,j2b,j3a,j3b,w.r,0):0;
+        int na = (i1+1+h1<n1)?gather(x,i1+1+h1,j2a,j2b,j3a,j3b,w.a,0):0;
+        w.update(nr,na);
+      }
+    }
+  }
+
+  // Copies one slice of a window into c, beginning at index k.
+  private static int gather(
+    float[][][] x, int j1, int j2a, int j2b, int j3a, int j3b,
+    float[] c, int k)
+  {
+    int k0 = k;
+    for (int j3=j3a; j3<=j3b; ++j3)
+      for (int j2=j2a; j2<=j2b; ++j2)
+        c[k++] = x[j3][j2][j1];
+    return k-k0;
+  }
+}
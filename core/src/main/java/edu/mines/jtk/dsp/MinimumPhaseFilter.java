@@ -16,6 +16,7 @@ package edu.mines.jtk.dsp;
 
 import static edu.mines.jtk.util.ArrayMath.*;
 import edu.mines.jtk.util.Check;
+import edu.mines.jtk.util.Monitor;
 
 /**
  * A minimum-phase filter is a causal stable filter with a causal stable 
@@ -32,6 +33,10 @@ import edu.mines.jtk.util.Check;
  * <p>
  * Minimum-phase filters may be obtained through Wilson-Burg factorization
  * of specified auto-correlations.
+ * <p>
+ * For 2D and 3D arrays, the recursive inverse and inverse-transpose 
+ * filters are applied in parallel by pipelining rows of the arrays.
+ * Outputs do not depend on the number of threads.
  * @author Dave Hale, Colorado School of Mines
  * @version 2006.12.30
  */
@@ -272,9 +277,37 @@ public class MinimumPhaseFilter {
    *  converge within the specified maximum number of iterations.
    */
   public void factorWilsonBurg(int maxiter, float epsilon, float[][] r) {
+    factorWilsonBurg(maxiter,epsilon,r,null);
+  }
+
+  /**
+   * Wilson-Burg factorization for the specified 2-D auto-correlation.
+   * Reports progress after each iteration to the specified monitor.
+   * Modifies this filter using the iterative Wilson-Burg algorithm. If this 
+   * algorithm converges, the impulse response of this filter cascaded with 
+   * its transpose approximates the specified auto-correlation.
+   * @param maxiter maximum number of Wilson-Burg iterations.
+   * @param epsilon tolerance for convergence. Iterations have converged
+   *  when the change in all filter coefficients is less than this factor 
+   *  times the square root of the zero-lag of the auto correlation.
+   * @param r the auto-correlation. This 2-D array must have odd lengths.
+   *  The middle array element is the zero-lag of the auto-correlation,
+   *  and other elements are symmetric about the middle element.
+   * @param monitor the monitor of progress; null, for no monitor.
+   *  Iterations stop early if the monitor is canceled, and then this
+   *  filter has the coefficients computed in the last iteration.
+   * @exception IllegalStateException if Wilson-Burg iterations do not
+   *  converge within the specified maximum number of iterations.
+   */
+  public void factorWilsonBurg(
+    int maxiter, float epsilon, float[][] r, Monitor monitor)
+  {
     Check.argument(r[0].length%2==1,"r[0].length is odd");
     Check.argument(r.length%2==1,"r.length is odd");
 
+    if (monitor==null)
+      monitor = Monitor.NULL_MONITOR;
+
     // Maximum dimensions of this filter's impulse response A.
     int m1 = _max1-_min1;
     int m2 = _max2-_min2;
@@ -293,10 +326,9 @@ public class MinimumPhaseFilter {
     int k1 = n1-1-_max1;
     int k2 = n2-1-_max2;
 
-    // Workspace.
+    // Workspace, reused in all iterations.
     float[][] s = new float[n2][n1];
     float[][] t = new float[n2][n1];
-    float[][] u = new float[n2][n1];
 
     // S is R padded with zeros to reduce truncation of R/(AA').
     copy(r[0].length,r.length,0,0,r,k1-l1,k2-l2,s);
@@ -312,29 +344,31 @@ public class MinimumPhaseFilter {
     boolean converged = false;
     float eemax = s[k2][k1]*epsilon;
     for (niter=0; niter<maxiter && !converged; ++niter) {
+      if (monitor.isCanceled())
+        break;
       //dump(_a); // for debugging only
 
       // U(z) + U(1/z) = 1 + S(z)/(A(z)*A(1/z))
       this.applyInverseTranspose(s,t);
-      this.applyInverse(t,u);
-      u[k2][k1] += 1.0f;
+      this.applyInverse(t,t);
+      t[k2][k1] += 1.0f;
 
       // U(z) is the causal part we want; zero the anti-causal part.
-      u[k2][k1] *= 0.5f;
+      t[k2][k1] *= 0.5f;
       for (int i2=0; i2<k2; ++i2)
         for (int i1=0; i1<n1; ++i1)
-          u[i2][i1] = 0.0f;
+          t[i2][i1] = 0.0f;
       for (int i1=0; i1<k1; ++i1)
-        u[k2][i1] = 0.0f;
+        t[k2][i1] = 0.0f;
 
-      // The new A(z) is T(z)  = U(z)*A(z)
-      this.apply(u,t);
+      // The new A(z) is T(z) = U(z)*A(z), but only for lags of A.
+      float[] b = applyAtLags(zeroint(_m),k1,k2,0,new float[][][]{t});
       converged = true;
       for (int j=0; j<_m; ++j) {
         int j1 = k1+_lag1[j];
         int j2 = k2+_lag2[j];
         if (0<=j1 && j1<n1 && 0<=j2 && j2<n2) {
-          float aj = t[j2][j1];
+          float aj = b[j];
           if (converged) {
             float e = _a[j]-aj;
             converged = e*e<=eemax;
@@ -344,8 +378,12 @@ public class MinimumPhaseFilter {
       }
       _a0 = _a[0];
       _a0i = 1.0f/_a[0];
+      monitor.report((double)(niter+1)/maxiter);
     }
+    if (monitor.isCanceled())
+      return;
     Check.state(converged,"Wilson-Burg iterations converged");
+    monitor.report(1.0);
   }
 
   /**
@@ -364,10 +402,38 @@ public class MinimumPhaseFilter {
    *  converge within the specified maximum number of iterations.
    */
   public void factorWilsonBurg(int maxiter, float epsilon, float[][][] r) {
+    factorWilsonBurg(maxiter,epsilon,r,null);
+  }
+
+  /**
+   * Wilson-Burg factorization for the specified 3-D auto-correlation.
+   * Reports progress after each iteration to the specified monitor.
+   * Modifies this filter using the iterative Wilson-Burg algorithm. If this 
+   * algorithm converges, the impulse response of this filter cascaded with 
+   * its transpose approximates the specified auto-correlation.
+   * @param maxiter maximum number of Wilson-Burg iterations.
+   * @param epsilon tolerance for convergence. Iterations have converged
+   *  when the change in all filter coefficients is less than this factor 
+   *  times the square root of the zero-lag of the auto correlation.
+   * @param r the auto-correlation. This 3-D array must have odd lengths.
+   *  The middle array element is the zero-lag of the auto-correlation,
+   *  and other elements are symmetric about the middle element.
+   * @param monitor the monitor of progress; null, for no monitor.
+   *  Iterations stop early if the monitor is canceled, and then this
+   *  filter has the coefficients computed in the last iteration.
+   * @exception IllegalStateException if Wilson-Burg iterations do not
+   *  converge within the specified maximum number of iterations.
+   */
+  public void factorWilsonBurg(
+    int maxiter, float epsilon, float[][][] r, Monitor monitor)
+  {
     Check.argument(r[0][0].length%2==1,"r[0][0].length is odd");
     Check.argument(r[0].length%2==1,"r[0].length is odd");
     Check.argument(r.length%2==1,"r.length is odd");
 
+    if (monitor==null)
+      monitor = Monitor.NULL_MONITOR;
+
     // Maximum dimensions of this filter's impulse response A.
     int m1 = _max1-_min1;
     int m2 = _max2-_min2;
@@ -390,10 +456,9 @@ public class MinimumPhaseFilter {
     int k2 = n2-1-_max2;
     int k3 = n3-1-_max3;
 
-    // Workspace.
+    // Workspace, reused in all iterations.
     float[][][] s = new float[n3][n2][n1];
     float[][][] t = new float[n3][n2][n1];
-    float[][][] u = new float[n3][n2][n1];
 
     // S is R padded with zeros to reduce truncation of R/(AA').
     copy(r[0][0].length,r[0].length,r.length,0,0,0,r,k1-l1,k2-l2,k3-l3,s);
@@ -409,34 +474,36 @@ public class MinimumPhaseFilter {
     boolean converged = false;
     float eemax = s[k3][k2][k1]*epsilon;
     for (niter=0; niter<maxiter && !converged; ++niter) {
+      if (monitor.isCanceled())
+        break;
       //dump(_a); // for debugging only
 
       // U(z) + U(1/z) = 1 + S(z)/(A(z)*A(1/z))
       this.applyInverseTranspose(s,t);
-      this.applyInverse(t,u);
-      u[k3][k2][k1] += 1.0f;
+      this.applyInverse(t,t);
+      t[k3][k2][k1] += 1.0f;
 
       // U(z) is the causal part we want; zero the anti-causal part.
-      u[k3][k2][k1] *= 0.5f;
+      t[k3][k2][k1] *= 0.5f;
       for (int i3=0; i3<k3; ++i3)
         for (int i2=0; i2<n2; ++i2)
           for (int i1=0; i1<n1; ++i1)
-            u[i3][i2][i1] = 0.0f;
+            t[i3][i2][i1] = 0.0f;
       for (int i2=0; i2<k2; ++i2)
         for (int i1=0; i1<n1; ++i1)
-          u[k3][i2][i1] = 0.0f;
+          t[k3][i2][i1] = 0.0f;
       for (int i1=0; i1<k1; ++i1)
-        u[k3][k2][i1] = 0.0f;
+        t[k3][k2][i1] = 0.0f;
 
-      // The new A(z) is T(z)  = U(z)*A(z)
-      this.apply(u,t);
+      // The new A(z) is T(z) = U(z)*A(z), but only for lags of A.
+      float[] b = applyAtLags(_lag3,k1,k2,k3,t);
       converged = true;
       for (int j=0; j<_m; ++j) {
         int j1 = k1+_lag1[j];
         int j2 = k2+_lag2[j];
         int j3 = k3+_lag3[j];
         if (0<=j1 && j1<n1 && 0<=j2 && j2<n2 && 0<=j3 && j3<n3) {
-          float aj = t[j3][j2][j1];
+          float aj = b[j];
           if (converged) {
             float e = _a[j]-aj;
             converged = e*e<=eemax;
@@ -446,8 +513,12 @@ public class MinimumPhaseFilter {
       }
       _a0 = _a[0];
       _a0i = 1.0f/_a[0];
+      monitor.report((double)(niter+1)/maxiter);
     }
+    if (monitor.isCanceled())
+      return;
     Check.state(converged,"Wilson-Burg iterations converged");
+    monitor.report(1.0);
   }
 
   /**
@@ -977,54 +1048,7 @@ public class MinimumPhaseFilter {
    * @param y output array.
    */
   public void applyInverse(float[][] x, float[][] y) {
-    int n1 = y[0].length;
-    int n2 = y.length;
-    int i1lo = max(0,_max1);
-    int i1hi = min(n1,n1+_min1);
-    int i2lo = (i1lo<=i1hi)?min(_max2,n2):n2;
-    for (int i2=0; i2<i2lo; ++i2) {
-      for (int i1=0; i1<n1; ++i1) {
-        float yi = x[i2][i1];
-        for (int j=1; j<_m; ++j) {
-          int k1 = i1-_lag1[j];
-          int k2 = i2-_lag2[j];
-          if (0<=k1 && k1<n1 && 0<=k2)
-            yi -= _a[j]*y[k2][k1];
-        }
-        y[i2][i1] = _a0i*yi;
-      }
-    }
-    for (int i2=i2lo; i2<n2; ++i2) {
-      for (int i1=0; i1<i1lo; ++i1) {
-        float yi = x[i2][i1];
-        for (int j=1; j<_m; ++j) {
-          int k1 = i1-_lag1[j];
-          int k2 = i2-_lag2[j];
-          if (0<=k1)
-            yi -= _a[j]*y[k2][k1];
-        }
-        y[i2][i1] = _a0i*yi;
-      }
-      for (int i1=i1lo; i1<i1hi; ++i1) {
-        float yi = x[i2][i1];
-        for (int j=1; j<_m; ++j) {
-          int k1 = i1-_lag1[j];
-          int k2 = i2-_lag2[j];
-          yi -= _a[j]*y[k2][k1];
-        }
-        y[i2][i1] = _a0i*yi;
-      }
-      for (int i1=i1hi; i1<n1; ++i1) {
-        float yi = x[i2][i1];
-        for (int j=1; j<_m; ++j) {
-          int k1 = i1-_lag1[j];
-          int k2 = i2-_lag2[j];
-          if (k1<n1)
-            yi -= _a[j]*y[k2][k1];
-        }
-        y[i2][i1] = _a0i*yi;
-      }
-    }
+    applyInverse(zeroint(_m),0,new float[][][]{x},new float[][][]{y});
   }
 
   /**
@@ -1034,91 +1058,7 @@ public class MinimumPhaseFilter {
    * @param y output array.
    */
   public void applyInverse(float[][][] x, float[][][] y) {
-    int n1 = y[0][0].length;
-    int n2 = y[0].length;
-    int n3 = y.length;
-    int i1lo = max(0,_max1);
-    int i1hi = min(n1,n1+_min1);
-    int i2lo = max(0,_max2);
-    int i2hi = min(n2,n2+_min2);
-    int i3lo = (i1lo<=i1hi && i2lo<=i2hi)?min(_max3,n3):n3;
-    for (int i3=0; i3<i3lo; ++i3) {
-      for (int i2=0; i2<n2; ++i2) {
-        for (int i1=0; i1<n1; ++i1) {
-          float yi = x[i3][i2][i1];
-          for (int j=1; j<_m; ++j) {
-            int k1 = i1-_lag1[j];
-            int k2 = i2-_lag2[j];
-            int k3 = i3-_lag3[j];
-            if (0<=k1 && k1<n1 && 0<=k2 &&  k2<n2 && 0<=k3)
-              yi -= _a[j]*y[k3][k2][k1];
-          }
-          y[i3][i2][i1] = _a0i*yi;
-        }
-      }
-    }
-    for (int i3=i3lo; i3<n3; ++i3) {
-      for (int i2=0; i2<i2lo; ++i2) {
-        for (int i1=0; i1<n1; ++i1) {
-          float yi = x[i3][i2][i1];
-          for (int j=1; j<_m; ++j) {
-            int k1 = i1-_lag1[j];
-            int k2 = i2-_lag2[j];
-            int k3 = i3-_lag3[j];
-            if (0<=k2 && 0<=k1 && k1<n1)
-              yi -= _a[j]*y[k3][k2][k1];
-          }
-          y[i3][i2][i1] = _a0i*yi;
-        }
-      }
-      for (int i2=i2lo; i2<i2hi; ++i2) {
-        for (int i1=0; i1<i1lo; ++i1) {
-          float yi = x[i3][i2][i1];
-          for (int j=1; j<_m; ++j) {
-            int k1 = i1-_lag1[j];
-            int k2 = i2-_lag2[j];
-            int k3 = i3-_lag3[j];
-            if (0<=k1)
-              yi -= _a[j]*y[k3][k2][k1];
-          }
-          y[i3][i2][i1] = _a0i*yi;
-        }
-        for (int i1=i1lo; i1<i1hi; ++i1) {
-          float yi = x[i3][i2][i1];
-          for (int j=1; j<_m; ++j) {
-            int k1 = i1-_lag1[j];
-            int k2 = i2-_lag2[j];
-            int k3 = i3-_lag3[j];
-              yi -= _a[j]*y[k3][k2][k1];
-          }
-          y[i3][i2][i1] = _a0i*yi;
-        }
-        for (int i1=i1hi; i1<n1; ++i1) {
-          float yi = x[i3][i2][i1];
-          for (int j=1; j<_m; ++j) {
-            int k1 = i1-_lag1[j];
-            int k2 = i2-_lag2[j];
-            int k3 = i3-_lag3[j];
-            if (k1<n1)
-              yi -= _a[j]*y[k3][k2][k1];
-          }
-          y[i3][i2][i1] = _a0i*yi;
-        }
-      }
-      for (int i2=i2hi; i2<n2; ++i2) {
-        for (int i1=0; i1<n1; ++i1) {
-          float yi = x[i3][i2][i1];
-          for (int j=1; j<_m; ++j) {
-            int k1 = i1-_lag1[j];
-            int k2 = i2-_lag2[j];
-            int k3 = i3-_lag3[j];
-            if (k2<n2 && 0<=k1 && k1<n1)
-              yi -= _a[j]*y[k3][k2][k1];
-          }
-          y[i3][i2][i1] = _a0i*yi;
-        }
-      }
-    }
+    applyInverse(_lag3,_max3,x,y);
   }
 
   /**
@@ -1225,54 +1165,8 @@ public class MinimumPhaseFilter {
    * @param y output array.
    */
   public void applyInverseTranspose(float[][] x, float[][] y) {
-    int n1 = y[0].length;
-    int n2 = y.length;
-    int i1lo = max(0,-_min1);
-    int i1hi = min(n1,n1-_max1);
-    int i2hi = (i1lo<=i1hi)?max(n2-_max2,0):0;
-    for (int i2=n2-1; i2>=i2hi; --i2) {
-      for (int i1=n1-1; i1>=0; --i1) {
-        float yi = x[i2][i1];
-        for (int j=1; j<_m; ++j) {
-          int k1 = i1+_lag1[j];
-          int k2 = i2+_lag2[j];
-          if (0<=k1 && k1<n1 && k2<n2)
-            yi -= _a[j]*y[k2][k1];
-        }
-        y[i2][i1] = _a0i*yi;
-      }
-    }
-    for (int i2=i2hi-1; i2>=0; --i2) {
-      for (int i1=n1-1; i1>=i1hi; --i1) {
-        float yi = x[i2][i1];
-        for (int j=1; j<_m; ++j) {
-          int k1 = i1+_lag1[j];
-          int k2 = i2+_lag2[j];
-          if (k1<n1)
-            yi -= _a[j]*y[k2][k1];
-        }
-        y[i2][i1] = _a0i*yi;
-      }
-      for (int i1=i1hi-1; i1>=i1lo; --i1) {
-        float yi = x[i2][i1];
-        for (int j=1; j<_m; ++j) {
-          int k1 = i1+_lag1[j];
-          int k2 = i2+_lag2[j];
-          yi -= _a[j]*y[k2][k1];
-        }
-        y[i2][i1] = _a0i*yi;
-      }
-      for (int i1=i1lo-1; i1>=0; --i1) {
-        float yi = x[i2][i1];
-        for (int j=1; j<_m; ++j) {
-          int k1 = i1+_lag1[j];
-          int k2 = i2+_lag2[j];
-          if (0<=k1)
-            yi -= _a[j]*y[k2][k1];
-        }
-        y[i2][i1] = _a0i*yi;
-      }
-    }
+    applyInverseTranspose(zeroint(_m),0,
+      new float[][][]{x},new float[][][]{y});
   }
 
   /**
@@ -1282,91 +1176,7 @@ public class MinimumPhaseFilter {
    * @param y output array.
    */
   public void applyInverseTranspose(float[][][] x, float[][][] y) {
-    int n1 = y[0][0].length;
-    int n2 = y[0].length;
-    int n3 = y.length;
-    int i1lo = max(0,-_min1);
-    int i1hi = min(n1,n1-_max1);
-    int i2lo = max(0,-_min2);
-    int i2hi = min(n2,n2-_max2);
-    int i3hi = (i1lo<=i1hi && i2lo<=i2hi)?max(n3-_max3,0):0;
-    for (int i3=n3-1; i3>=i3hi; --i3) {
-      for (int i2=n2-1; i2>=0; --i2) {
-        for (int i1=n1-1; i1>=0; --i1) {
-          float yi = x[i3][i2][i1];
-          for (int j=1; j<_m; ++j) {
-            int k1 = i1+_lag1[j];
-            int k2 = i2+_lag2[j];
-            int k3 = i3+_lag3[j];
-            if (0<=k1 && k1<n1 && 0<=k2 && k2<n2 && k3<n3)
-              yi -= _a[j]*y[k3][k2][k1];
-          }
-          y[i3][i2][i1] = _a0i*yi;
-        }
-      }
-    }
-    for (int i3=i3hi-1; i3>=0; --i3) {
-      for (int i2=n2-1; i2>=i2hi; --i2) {
-        for (int i1=n1-1; i1>=0; --i1) {
-          float yi = x[i3][i2][i1];
-          for (int j=1; j<_m; ++j) {
-            int k1 = i1+_lag1[j];
-            int k2 = i2+_lag2[j];
-            int k3 = i3+_lag3[j];
-            if (k2<n2 && 0<=k1 && k1<n1)
-              yi -= _a[j]*y[k3][k2][k1];
-          }
-          y[i3][i2][i1] = _a0i*yi;
-        }
-      }
-      for (int i2=i2hi-1; i2>=i2lo; --i2) {
-        for (int i1=n1-1; i1>=i1hi; --i1) {
-          float yi = x[i3][i2][i1];
-          for (int j=1; j<_m; ++j) {
-            int k1 = i1+_lag1[j];
-            int k2 = i2+_lag2[j];
-            int k3 = i3+_lag3[j];
-            if (k1<n1)
-              yi -= _a[j]*y[k3][k2][k1];
-          }
-          y[i3][i2][i1] = _a0i*yi;
-        }
-        for (int i1=i1hi-1; i1>=i1lo; --i1) {
-          float yi = x[i3][i2][i1];
-          for (int j=1; j<_m; ++j) {
-            int k1 = i1+_lag1[j];
-            int k2 = i2+_lag2[j];
-            int k3 = i3+_lag3[j];
-            yi -= _a[j]*y[k3][k2][k1];
-          }
-          y[i3][i2][i1] = _a0i*yi;
-        }
-        for (int i1=i1lo-1; i1>=0; --i1) {
-          float yi = x[i3][i2][i1];
-          for (int j=1; j<_m; ++j) {
-            int k1 = i1+_lag1[j];
-            int k2 = i2+_lag2[j];
-            int k3 = i3+_lag3[j];
-            if (0<=k1)
-              yi -= _a[j]*y[k3][k2][k1];
-          }
-          y[i3][i2][i1] = _a0i*yi;
-        }
-      }
-      for (int i2=i2lo-1; i2>=0; --i2) {
-        for (int i1=n1-1; i1>=0; --i1) {
-          float yi = x[i3][i2][i1];
-          for (int j=1; j<_m; ++j) {
-            int k1 = i1+_lag1[j];
-            int k2 = i2+_lag2[j];
-            int k3 = i3+_lag3[j];
-            if (0<=k2 && 0<=k1 && k1<n1)
-              yi -= _a[j]*y[k3][k2][k1];
-          }
-          y[i3][i2][i1] = _a0i*yi;
-        }
-      }
-    }
+    applyInverseTranspose(_lag3,_max3,x,y);
   }
 
   /**
@@ -1537,4 +1347,187 @@ public class MinimumPhaseFilter {
       _ai0i[ii] = 1.0f/a[ii][0];
     }
   }
+
+  // Returns samples of this filter applied to u, as for the method apply,
+  // only for output indices equal to the lags of this filter plus the
+  // specified index (k1,k2,k3). Samples outside the array u are zero.
+  private float[] applyAtLags(
+    int[] lag3, int k1, int k2, int k3, float[][][] u)
+  {
+    int n1 = u[0][0].length;
+    int n2 = u[0].length;
+    int n3 = u.length;
+    float[] t = new float[_m];
+    for (int i=0; i<_m; ++i) {
+      int i1 = k1+_lag1[i];
+      int i2 = k2+_lag2[i];
+      int i3 = k3+lag3[i];
+      if (0<=i1 && i1<n1 && 0<=i2 && i2<n2 && 0<=i3 && i3<n3) {
+        float ti = _a0*u[i3][i2][i1];
+        for (int j=1; j<_m; ++j) {
+          int j1 = i1-_lag1[j];
+          int j2 = i2-_lag2[j];
+          int j3 = i3-lag3[j];
+          if (0<=j1 && j1<n1 && 0<=j2 && j2<n2 && 0<=j3 && j3<n3)
+            ti += _a[j]*u[j3][j2][j1];
+        }
+        t[i] = ti;
+      }
+    }
+    return t;
+  }
+
+  // Applies the inverse of this filter to a 3D array, with rows computed
+  // in parallel. For 2D arrays, n3 = 1 and lag3 contains only zeros.
+  private void applyInverse(
+    final int[] lag3, final int max3,
+    final float[][][] x, final float[][][] y)
+  {
+    int n1 = y[0][0].length;
+    int n2 = y[0].length;
+    int n3 = y.length;
+    RecursiveRows.loop(n1,n2,n3,_lag1,_lag2,lag3,false,
+      new RecursiveRows.Chunk() {
+      public void compute(int i2, int i3, int j1, int e1) {
+        applyInverse(lag3,max3,x,y,i2,i3,j1,e1);
+      }
+    });
+  }
+
+  // Applies the inverse of this filter for samples [j1,e1) in row (i2,i3).
+  private void applyInverse(
+    int[] lag3, int max3, float[][][] x, float[][][] y,
+    int i2, int i3, int j1, int e1)
+  {
+    int n1 = y[0][0].length;
+    int n2 = y[0].length;
+    int i1lo = max(0,_max1);
+    int i1hi = min(n1,n1+_min1);
+    float[] x32 = x[i3][i2];
+    float[] y32 = y[i3][i2];
+    if (i1lo<=i1hi && max3<=i3 && _max2<=i2 && i2<n2+_min2) {
+      for (int i1=j1; i1<min(e1,i1lo); ++i1) {
+        float yi = x32[i1];
+        for (int j=1; j<_m; ++j) {
+          int k1 = i1-_lag1[j];
+          int k2 = i2-_lag2[j];
+          int k3 = i3-lag3[j];
+          if (0<=k1)
+            yi -= _a[j]*y[k3][k2][k1];
+        }
+        y32[i1] = _a0i*yi;
+      }
+      for (int i1=max(j1,i1lo); i1<min(e1,i1hi); ++i1) {
+        float yi = x32[i1];
+        for (int j=1; j<_m; ++j) {
+          int k1 = i1-_lag1[j];
+          int k2 = i2-_lag2[j];
+          int k3 = i3-lag3[j];
+          yi -= _a[j]*y[k3][k2][k1];
+        }
+        y32[i1] = _a0i*yi;
+      }
+      for (int i1=max(j1,i1hi); i1<e1; ++i1) {
+        float yi = x32[i1];
+        for (int j=1; j<_m; ++j) {
+          int k1 = i1-_lag1[j];
+          int k2 = i2-_lag2[j];
+          int k3 = i3-lag3[j];
+          if (k1<n1)
+            yi -= _a[j]*y[k3][k2][k1];
+        }
+        y32[i1] = _a0i*yi;
+      }
+    } else {
+      for (int i1=j1; i1<e1; ++i1) {
+        float yi = x32[i1];
+        for (int j=1; j<_m; ++j) {
+          int k1 = i1-_lag1[j];
+          int k2 = i2-_lag2[j];
+          int k3 = i3-lag3[j];
+          if (0<=k1 && k1<n1 && 0<=k2 && k2<n2 && 0<=k3)
+            yi -= _a[j]*y[k3][k2][k1];
+        }
+        y32[i1] = _a0i*yi;
+      }
+    }
+  }
+
+  // Applies the inverse transpose of this filter to a 3D array, with rows
+  // computed in parallel. For 2D arrays, n3 = 1 and lag3 contains only zeros.
+  private void applyInverseTranspose(
+    final int[] lag3, final int max3,
+    final float[][][] x, final float[][][] y)
+  {
+    int n1 = y[0][0].length;
+    int n2 = y[0].length;
+    int n3 = y.length;
+    RecursiveRows.loop(n1,n2,n3,_lag1,_lag2,lag3,true,
+      new RecursiveRows.Chunk() {
+      public void compute(int i2, int i3, int j1, int e1) {
+        applyInverseTranspose(lag3,max3,x,y,i2,i3,j1,e1);
+      }
+    });
+  }
+
+  // Applies the inverse transpose of this filter for samples [j1,e1) in
+  // row (i2,i3). Samples are computed in decreasing order.
+  private void applyInverseTranspose(
+    int[] lag3, int max3, float[][][] x, float[][][] y,
+    int i2, int i3, int j1, int e1)
+  {
+    int n1 = y[0][0].length;
+    int n2 = y[0].length;
+    int n3 = y.length;
+    int i1lo = max(0,-_min1);
+    int i1hi = min(n1,n1-_max1);
+    float[] x32 = x[i3][i2];
+    float[] y32 = y[i3][i2];
+    if (i1lo<=i1hi && i3<n3-max3 && -_min2<=i2 && i2<n2-_max2) {
+      for (int i1=e1-1; i1>=max(j1,i1hi); --i1) {
+        float yi = x32[i1];
+        for (int j=1; j<_m; ++j) {
+          int k1 = i1+_lag1[j];
+          int k2 = i2+_lag2[j];
+          int k3 = i3+lag3[j];
+          if (k1<n1)
+            yi -= _a[j]*y[k3][k2][k1];
+        }
+        y32[i1] = _a0i*yi;
+      }
+      for (int i1=min(e1,i1hi)-1; i1>=max(j1,i1lo); --i1) {
+        float yi = x32[i1];
+        for (int j=1; j<_m; ++j) {
+          int k1 = i1+_lag1[j];
+          int k2 = i2+_lag2[j];
+          int k3 = i3+lag3[j];
+          yi -= _a[j]*y[k3][k2][k1];
+        }
+        y32[i1] = _a0i*yi;
+      }
+      for (int i1=min(e1,i1lo)-1; i1>=j1; --i1) {
+        float yi = x32[i1];
+        for (int j=1; j<_m; ++j) {
+          int k1 = i1+_lag1[j];
+          int k2 = i2+_lag2[j];
+          int k3 = i3+lag3[j];
+          if (0<=k1)
+            yi -= _a[j]*y[k3][k2][k1];
+        }
+        y32[i1] = _a0i*yi;
+      }
+    } else {
+      for (int i1=e1-1; i1>=j1; --i1) {
+        float yi = x32[i1];
+        for (int j=1; j<_m; ++j) {
+          int k1 = i1+_lag1[j];
+          int k2 = i2+_lag2[j];
+          int k3 = i3+lag3[j];
+          if (0<=k1 && k1<n1 && 0<=k2 && k2<n2 && k3<n3)
+            yi -= _a[j]*y[k3][k2][k1];
+        }
+        y32[i1] = _a0i*yi;
+      }
+    }
+  }
 }
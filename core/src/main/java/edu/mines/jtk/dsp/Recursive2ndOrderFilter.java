@@ -765,14 +765,26 @@ public class Recursive2ndOrderFilter {
    * @param y the output array.
    */
   public void accumulate2Forward(float[][] x, float[][] y) {
+    accumulate2Forward(x,y,new float[6][y[0].length]);
+  }
+
+  /**
+   * As for {@link #accumulate2Forward(float[][],float[][])}, but with
+   * caller-supplied scratch arrays, so that repeated calls need not
+   * allocate temporary rows.
+   * @param x the input array.
+   * @param y the output array.
+   * @param w array of six scratch rows, each with length at least y[0].length.
+   */
+  void accumulate2Forward(float[][] x, float[][] y, float[][] w) {
     checkArrays(x,y);
     int n2 = y.length;
     int n1 = y[0].length;
 
     // Special case b1 = b2 = a2 = 0.
     if (_b1==0.0f && _b2==0.0f && _a2==0.0f) {
-      float[] yim1 = new float[n1];
-      float[] yi = new float[n1];
+      float[] yim1 = row(w,0);
+      float[] yi = row(w,1);
       for (int i2=0; i2<n2; ++i2) {
         float[] xi = x[i2];
         float[] y2 = y[i2];
@@ -789,10 +801,10 @@ public class Recursive2ndOrderFilter {
 
     // Special case b2 = a2 = 0.
     else if (_b2==0.0f && _a2==0.0f) {
-      float[] yim1 = new float[n1];
-      float[] yi = new float[n1];
-      float[] xim1 = new float[n1];
-      float[] xi = new float[n1];
+      float[] yim1 = row(w,0);
+      float[] yi = row(w,1);
+      float[] xim1 = row(w,2);
+      float[] xi = row(w,3);
       for (int i2=0; i2<n2; ++i2) {
         float[] x2 = x[i2];
         float[] y2 = y[i2];
@@ -813,11 +825,11 @@ public class Recursive2ndOrderFilter {
 
     // Special case b2 = 0.
     else if (_b2==0.0f) {
-      float[] yim2 = new float[n1];
-      float[] yim1 = new float[n1];
-      float[] yi = new float[n1];
-      float[] xim1 = new float[n1];
-      float[] xi = new float[n1];
+      float[] yim2 = row(w,0);
+      float[] yim1 = row(w,1);
+      float[] yi = row(w,2);
+      float[] xim1 = row(w,3);
+      float[] xi = row(w,4);
       for (int i2=0; i2<n2; ++i2) {
         float[] x2 = x[i2];
         float[] y2 = y[i2];
@@ -839,12 +851,12 @@ public class Recursive2ndOrderFilter {
 
     // Special case b0 = 0.
     else if (_b0==0.0f) {
-      float[] yim2 = new float[n1];
-      float[] yim1 = new float[n1];
-      float[] yi = new float[n1];
-      float[] xim2 = new float[n1];
-      float[] xim1 = new float[n1];
-      float[] xi = new float[n1];
+      float[] yim2 = row(w,0);
+      float[] yim1 = row(w,1);
+      float[] yi = row(w,2);
+      float[] xim2 = row(w,3);
+      float[] xim1 = row(w,4);
+      float[] xi = row(w,5);
       for (int i2=0; i2<n2; ++i2) {
         float[] x2 = x[i2];
         float[] y2 = y[i2];
@@ -867,12 +879,12 @@ public class Recursive2ndOrderFilter {
 
     // General case.
     else {
-      float[] yim2 = new float[n1];
-      float[] yim1 = new float[n1];
-      float[] yi = new float[n1];
-      float[] xim2 = new float[n1];
-      float[] xim1 = new float[n1];
-      float[] xi = new float[n1];
+      float[] yim2 = row(w,0);
+      float[] yim1 = row(w,1);
+      float[] yi = row(w,2);
+      float[] xim2 = row(w,3);
+      float[] xim1 = row(w,4);
+      float[] xi = row(w,5);
       for (int i2=0; i2<n2; ++i2) {
         float[] x2 = x[i2];
         float[] y2 = y[i2];
@@ -906,14 +918,26 @@ public class Recursive2ndOrderFilter {
    * @param y the output array.
    */
   public void accumulate2Reverse(float[][] x, float[][] y) {
+    accumulate2Reverse(x,y,new float[6][y[0].length]);
+  }
+
+  /**
+   * As for {@link #accumulate2Reverse(float[][],float[][])}, but with
+   * caller-supplied scratch arrays, so that repeated calls need not
+   * allocate temporary rows.
+   * @param x the input array.
+   * @param y the output array.
+   * @param w array of six scratch rows, each with length at least y[0].length.
+   */
+  void accumulate2Reverse(float[][] x, float[][] y, float[][] w) {
     checkArrays(x,y);
     int n2 = y.length;
     int n1 = y[0].length;
 
     // Special case b1 = b2 = a2 = 0.
     if (_b1==0.0f && _b2==0.0f && _a2==0.0f) {
-      float[] yip1 = new float[n1];
-      float[] yi = new float[n1];
+      float[] yip1 = row(w,0);
+      float[] yi = row(w,1);
       for (int i2=n2-1; i2>=0; --i2) {
         float[] xi = x[i2];
         float[] y2 = y[i2];
@@ -930,10 +954,10 @@ public class Recursive2ndOrderFilter {
 
     // Special case b2 = a2 = 0.
     else if (_b2==0.0f && _a2==0.0f) {
-      float[] yip1 = new float[n1];
-      float[] yi = new float[n1];
-      float[] xip1 = new float[n1];
-      float[] xi = new float[n1];
+      float[] yip1 = row(w,0);
+      float[] yi = row(w,1);
+      float[] xip1 = row(w,2);
+      float[] xi = row(w,3);
       for (int i2=n2-1; i2>=0; --i2) {
         float[] x2 = x[i2];
         float[] y2 = y[i2];
@@ -954,11 +978,11 @@ public class Recursive2ndOrderFilter {
 
     // Special case b2 = 0.
     else if (_b2==0.0f) {
-      float[] yip2 = new float[n1];
-      float[] yip1 = new float[n1];
-      float[] yi = new float[n1];
-      float[] xip1 = new float[n1];
-      float[] xi = new float[n1];
+      float[] yip2 = row(w,0);
+      float[] yip1 = row(w,1);
+      float[] yi = row(w,2);
+      float[] xip1 = row(w,3);
+      float[] xi = row(w,4);
       for (int i2=n2-1; i2>=0; --i2) {
         float[] x2 = x[i2];
         float[] y2 = y[i2];
@@ -980,12 +1004,12 @@ public class Recursive2ndOrderFilter {
 
     // Special case b0 = 0.
     else if (_b0==0.0f) {
-      float[] yip2 = new float[n1];
-      float[] yip1 = new float[n1];
-      float[] yi = new float[n1];
-      float[] xip2 = new float[n1];
-      float[] xip1 = new float[n1];
-      float[] xi = new float[n1];
+      float[] yip2 = row(w,0);
+      float[] yip1 = row(w,1);
+      float[] yi = row(w,2);
+      float[] xip2 = row(w,3);
+      float[] xip1 = row(w,4);
+      float[] xi = row(w,5);
       for (int i2=n2-1; i2>=0; --i2) {
         float[] x2 = x[i2];
         float[] y2 = y[i2];
@@ -1008,12 +1032,12 @@ public class Recursive2ndOrderFilter {
 
     // General case.
     else {
-      float[] yip2 = new float[n1];
-      float[] yip1 = new float[n1];
-      float[] yi = new float[n1];
-      float[] xip2 = new float[n1];
-      float[] xip1 = new float[n1];
-      float[] xi = new float[n1];
+      float[] yip2 = row(w,0);
+      float[] yip1 = row(w,1);
+      float[] yi = row(w,2);
+      float[] xip2 = row(w,3);
+      float[] xip1 = row(w,4);
+      float[] xi = row(w,5);
       for (int i2=n2-1; i2>=0; --i2) {
         float[] x2 = x[i2];
         float[] y2 = y[i2];
@@ -1272,6 +1296,14 @@ public class Recursive2ndOrderFilter {
     Check.argument(x.length==y.length,"x.length==y.length");
   }
 
+  // Returns the specified scratch row, zeroed.
+  private static float[] row(float[][] w, int k) {
+    float[] r = w[k];
+    for (int i=0; i<r.length; ++i)
+      r[i] = 0.0f;
+    return r;
+  }
+
   private static void checkArrays(float[][] x, float[][] y) {
     Check.argument(x.length==y.length,"x.length==y.length");
     Check.argument(x[0].length==y[0].length,"x[0].length==y[0].length");
@@ -269,6 +269,18 @@ public class RecursiveExponentialFilter {
     });
   }
 
+  /**
+   * Applies this filter along the 2nd dimension of a 2D slice (with
+   * constant index i2) of a 3D array, as for the 3rd array dimension.
+   * Used by {@link RecursiveFilterChain}.
+   * Input and output arrays can be the same array.
+   * @param x input array.
+   * @param y output array.
+   */
+  void apply3(float[][] x, float[][] y) {
+    smooth2(_ei,_zs,_a3,x,y);
+  }
+
   ///////////////////////////////////////////////////////////////////////////
   // private
 
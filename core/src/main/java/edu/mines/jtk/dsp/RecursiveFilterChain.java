@@ -0,0 +1,488 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.dsp;
+
+import java.util.ArrayList;
+
+import edu.mines.jtk.util.Check;
+import edu.mines.jtk.util.Parallel;
+
+/**
+ * A chain of separable recursive filters and point-wise operations,
+ * applied in sequence to the same array. Each filter in the chain is
+ * applied along one axis (dimension) of arrays. For example, a chain
+ * might apply a Butterworth filter along the 1st axis, then a Gaussian
+ * derivative filter along the 2nd axis, then an exponential smoothing
+ * filter along the 3rd axis, and finally scale all samples.
+ * <p>
+ * Applying such filters one at a time requires one or more passes over
+ * entire arrays for each filter, and often temporary arrays as well.
+ * Instead, this chain applies consecutive filters together, in as few
+ * passes as possible. For 3D arrays, filters along the 1st and 2nd axes
+ * are applied together to each slab with constant index i3, and filters
+ * along the 1st and 3rd axes are applied together to each slice with
+ * constant index i2. For 2D arrays, filters along the 1st axis are
+ * applied together to each row, and filters along the 2nd axis are
+ * applied together to blocks of columns. Point-wise operations are
+ * applied within any pass. Within each pass, slabs, slices, rows or
+ * blocks are filtered in parallel. Each thread uses two work arrays with
+ * the size of one row, slab or slice, or three with the size of one
+ * block of 256 columns. Except for rows, these work arrays are often too
+ * large to remain in cache; the savings come from fewer passes over
+ * entire arrays and fewer temporary arrays, not from cache blocking.
+ * <p>
+ * The outputs of this chain are exactly the same as those computed by
+ * applying the same filters and operations, in sequence, to entire
+ * arrays. Filters and operations in a chain must be thread-safe. Those
+ * provided by this package are.
+ * @author agent
+ * @version 2026.10.19
+ */
+public class RecursiveFilterChain {
+
+  /**
+   * A filter that can be applied along one axis of arrays.
+   */
+  public interface Filter {
+
+    /**
+     * Applies this filter along a 1D array.
+     * Input and output arrays are distinct arrays.
+     * @param x input array.
+     * @param y output array.
+     */
+    public void apply(float[] x, float[] y);
+
+    /**
+     * Applies this filter along the 2nd dimension of a 2D array.
+     * Input and output arrays are distinct arrays.
+     * @param x input array.
+     * @param y output array.
+     */
+    public void apply2(float[][] x, float[][] y);
+  }
+
+  /**
+   * An operation applied to each sample, independently of sample indices.
+   */
+  public interface Operation {
+
+    /**
+     * Applies this operation in place to all samples of an array.
+     * @param x input/output array.
+     */
+    public void apply(float[] x);
+  }
+
+  /**
+   * Constructs an empty chain.
+   */
+  public RecursiveFilterChain() {
+  }
+
+  /**
+   * Appends the specified filter to this chain.
+   * @param axis the axis along which to apply the filter; 1, 2 or 3.
+   * @param filter the filter.
+   */
+  public void add(int axis, Filter filter) {
+    Check.argument(1<=axis && axis<=3,"1 <= axis <= 3");
+    _stages.add(new Stage(axis,filter,null));
+  }
+
+  /**
+   * Appends the specified point-wise operation to this chain.
+   * @param operation the operation.
+   */
+  public void add(Operation operation) {
+    _stages.add(new Stage(0,null,operation));
+  }
+
+  /**
+   * Appends a recursive cascade filter, applied in the forward direction.
+   * @param axis the axis along which to apply the filter; 1, 2 or 3.
+   * @param rcf the recursive cascade filter.
+   */
+  public void addForward(int axis, final RecursiveCascadeFilter rcf) {
+    add(axis,new Filter() {
+      public void apply(float[] x, float[] y) {
+        rcf.applyForward(x,y);
+      }
+      public void apply2(float[][] x, float[][] y) {
+        rcf.apply2Forward(x,y);
+      }
+    });
+  }
+
+  /**
+   * Appends a recursive cascade filter, applied in the reverse direction.
+   * @param axis the axis along which to apply the filter; 1, 2 or 3.
+   * @param rcf the recursive cascade filter.
+   */
+  public void addReverse(int axis, final RecursiveCascadeFilter rcf) {
+    add(axis,new Filter() {
+      public void apply(float[] x, float[] y) {
+        rcf.applyReverse(x,y);
+      }
+      public void apply2(float[][] x, float[][] y) {
+        rcf.apply2Reverse(x,y);
+      }
+    });
+  }
+
+  /**
+   * Appends a recursive cascade filter, applied in the forward and
+   * reverse directions.
+   * @param axis the axis along which to apply the filter; 1, 2 or 3.
+   * @param rcf the recursive cascade filter.
+   */
+  public void addForwardReverse(int axis, final RecursiveCascadeFilter rcf) {
+    add(axis,new Filter() {
+      public void apply(float[] x, float[] y) {
+        rcf.applyForwardReverse(x,y);
+      }
+      public void apply2(float[][] x, float[][] y) {
+        rcf.apply2ForwardReverse(x,y);
+      }
+    });
+  }
+
+  /**
+   * Appends a recursive Gaussian filter or one of its derivatives.
+   * @param axis the axis along which to apply the filter; 1, 2 or 3.
+   * @param rgf the recursive Gaussian filter.
+   * @param nd order of derivative; 0, 1 or 2.
+   */
+  public void add(
+    int axis, final RecursiveGaussianFilter rgf, final int nd)
+  {
+    Check.argument(0<=nd && nd<=2,"0 <= nd <= 2");
+    add(axis,new Filter() {
+      public void apply(float[] x, float[] y) {
+        if (nd==0) {
+          rgf.apply0(x,y);
+        } else if (nd==1) {
+          rgf.apply1(x,y);
+        } else {
+          rgf.apply2(x,y);
+        }
+      }
+      public void apply2(float[][] x, float[][] y) {
+        if (nd==0) {
+          rgf.applyX0(x,y);
+        } else if (nd==1) {
+          rgf.applyX1(x,y);
+        } else {
+          rgf.applyX2(x,y);
+        }
+      }
+    });
+  }
+
+  /**
+   * Appends a recursive exponential filter. The filter is applied with
+   * the half-width that it has for the specified axis.
+   * @param axis the axis along which to apply the filter; 1, 2 or 3.
+   * @param ref the recursive exponential filter.
+   */
+  public void add(final int axis, final RecursiveExponentialFilter ref) {
+    add(axis,new Filter() {
+      public void apply(float[] x, float[] y) {
+        ref.apply1(x,y);
+      }
+      public void apply2(float[][] x, float[][] y) {
+        if (axis==2) {
+          ref.apply2(x,y);
+        } else {
+          ref.apply3(x,y);
+        }
+      }
+    });
+  }
+
+  /**
+   * Appends a point-wise operation that multiplies samples by a scale.
+   * @param s the scale.
+   */
+  public void addScale(final float s) {
+    add(new Operation() {
+      public void apply(float[] x) {
+        int n = x.length;
+        for (int i=0; i<n; ++i)
+          x[i] *= s;
+      }
+    });
+  }
+
+  /**
+   * Applies this chain to a 1D array.
+   * Input and output arrays may be the same array.
+   * @param x input array.
+   * @param y output array.
+   */
+  public void apply(float[] x, float[] y) {
+    checkAxes(1);
+    Check.argument(x.length==y.length,"x.length==y.length");
+    int n1 = x.length;
+    int ns = _stages.size();
+    apply(0,ns,new float[][]{x},new float[][]{y},
+          new float[1][n1],new float[1][n1]);
+  }
+
+  /**
+   * Applies this chain to a 2D array.
+   * Input and output arrays may be the same array.
+   * @param x input array.
+   * @param y output array.
+   */
+  public void apply(float[][] x, float[][] y) {
+    checkAxes(2);
+    checkArrays(x,y);
+    if (_stages.isEmpty())
+      copy(x,y);
+    for (int[] pass:passes(2)) {
+      if (pass[2]==2) {
+        applyColumns(pass[0],pass[1],x,y);
+      } else {
+        applyRows(pass[0],pass[1],x,y);
+      }
+      x = y;
+    }
+  }
+
+  /**
+   * Applies this chain to a 3D array.
+   * Input and output arrays may be the same array.
+   * @param x input array.
+   * @param y output array.
+   */
+  public void apply(float[][][] x, float[][][] y) {
+    checkAxes(3);
+    checkArrays(x,y);
+    if (_stages.isEmpty()) {
+      for (int i3=0; i3<x.length; ++i3)
+        copy(x[i3],y[i3]);
+    }
+    for (int[] pass:passes(3)) {
+      if (pass[2]==3) {
+        applySlices(pass[0],pass[1],x,y);
+      } else {
+        applySlabs(pass[0],pass[1],x,y);
+      }
+      x = y;
+    }
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  // Number of columns in blocks of 2D arrays.
+  private static final int NBLOCK1 = 256;
+
+  // A filter along one axis, or a point-wise operation if axis is zero.
+  private static class Stage {
+    int axis;
+    Filter filter;
+    Operation operation;
+    Stage(int axis, Filter filter, Operation operation) {
+      this.axis = axis;
+      this.filter = filter;
+      this.operation = operation;
+    }
+  }
+
+  // Per-thread work arrays.
+  private static class Work {
+    float[][] a,b,c; // panels
+    float[][] xv,yv; // views of input and output arrays
+    Work(int n1, int n2) {
+      a = new float[n2][n1];
+      b = new float[n2][n1];
+      xv = new float[n2][];
+      yv = new float[n2][];
+    }
+  }
+
+  private ArrayList<Stage> _stages = new ArrayList<Stage>();
+
+  private void checkAxes(int n) {
+    for (Stage stage:_stages)
+      Check.argument(stage.axis<=n,"axes of filters do not exceed "+n);
+  }
+
+  private static void checkArrays(float[][] x, float[][] y) {
+    Check.argument(x.length==y.length,"x.length==y.length");
+    Check.argument(x[0].length==y[0].length,"x[0].length==y[0].length");
+  }
+
+  private static void checkArrays(float[][][] x, float[][][] y) {
+    Check.argument(x.length==y.length,"x.length==y.length");
+    Check.argument(x[0].length==y[0].length,"x[0].length==y[0].length");
+    Check.argument(x[0][0].length==y[0][0].length,
+      "x[0][0].length==y[0][0].length");
+  }
+
+  // Returns passes {js,je,axis} for stages [js,je) applied to arrays
+  // with the specified number of dimensions. The stages in each pass are
+  // point-wise operations and filters along only one axis. For 3D arrays,
+  // that axis is the 2nd or 3rd, and each pass may also include filters
+  // along the 1st axis. The axis of the pass is 1 if there is no other.
+  private ArrayList<int[]> passes(int ndim) {
+    ArrayList<int[]> passes = new ArrayList<int[]>();
+    int ns = _stages.size();
+    for (int js=0,je=0; js<ns; js=je) {
+      int axis = 0;
+      for (je=js; je<ns; ++je) {
+        int a = _stages.get(je).axis;
+        if (ndim==3 && a==1)
+          a = 0;
+        if (a!=0) {
+          if (axis==0) {
+            axis = a;
+          } else if (axis!=a) {
+            break;
+          }
+        }
+      }
+      passes.add(new int[]{js,je,(axis==0)?1:axis});
+    }
+    return passes;
+  }
+
+  // Applies stages [js,je) to a panel of rows x, with output rows y.
+  // Filters along the 1st axis are applied to each row, and other
+  // filters along the 2nd dimension of the panel. Intermediate outputs
+  // alternate between work panels a and b. The input panel x is not
+  // modified, unless it is the same as the output panel y.
+  private void apply(
+    int js, int je, float[][] x, float[][] y, float[][] a, float[][] b)
+  {
+    int m = x.length;
+    float[][] c = x;
+    for (int js1=js; js1<je; ++js1) {
+      Stage stage = _stages.get(js1);
+      if (stage.axis==0) {
+        if (c==x) {
+          copy(x,a);
+          c = a;
+        }
+        for (int i=0; i<m; ++i)
+          stage.operation.apply(c[i]);
+      } else {
+        float[][] d = (c==a)?b:a;
+        if (stage.axis==1) {
+          for (int i=0; i<m; ++i)
+            stage.filter.apply(c[i],d[i]);
+        } else {
+          stage.filter.apply2(c,d);
+        }
+        c = d;
+      }
+    }
+    copy(c,y);
+  }
+
+  private void applyRows(
+    final int js, final int je, final float[][] x, final float[][] y)
+  {
+    final int n1 = x[0].length;
+    final Parallel.Unsafe<Work> wu = new Parallel.Unsafe<Work>();
+    Parallel.loop(x.length,new Parallel.LoopInt() {
+      public void compute(int i2) {
+        Work w = work(wu,n1,1);
+        w.xv[0] = x[i2];
+        w.yv[0] = y[i2];
+        apply(js,je,w.xv,w.yv,w.a,w.b);
+      }
+    });
+  }
+
+  // Blocks of columns are copied to and from work panels c, which are
+  // padded with zeros if a block is narrower than those panels.
+  private void applyColumns(
+    final int js, final int je, final float[][] x, final float[][] y)
+  {
+    final int n1 = x[0].length;
+    final int n2 = x.length;
+    final int mb = Math.min(n1,NBLOCK1);
+    final int nb = (n1+mb-1)/mb;
+    final Parallel.Unsafe<Work> wu = new Parallel.Unsafe<Work>();
+    Parallel.loop(nb,new Parallel.LoopInt() {
+      public void compute(int ib) {
+        Work w = work(wu,mb,n2);
+        if (w.c==null)
+          w.c = new float[n2][mb];
+        float[][] c = w.c;
+        int j1 = ib*mb;
+        int m1 = Math.min(mb,n1-j1);
+        for (int i2=0; i2<n2; ++i2) {
+          System.arraycopy(x[i2],j1,c[i2],0,m1);
+          for (int i1=m1; i1<mb; ++i1)
+            c[i2][i1] = 0.0f;
+        }
+        apply(js,je,c,c,w.a,w.b);
+        for (int i2=0; i2<n2; ++i2)
+          System.arraycopy(c[i2],0,y[i2],j1,m1);
+      }
+    });
+  }
+
+  private void applySlabs(
+    final int js, final int je, final float[][][] x, final float[][][] y)
+  {
+    final int n1 = x[0][0].length;
+    final int n2 = x[0].length;
+    final Parallel.Unsafe<Work> wu = new Parallel.Unsafe<Work>();
+    Parallel.loop(x.length,new Parallel.LoopInt() {
+      public void compute(int i3) {
+        Work w = work(wu,n1,n2);
+        apply(js,je,x[i3],y[i3],w.a,w.b);
+      }
+    });
+  }
+
+  private void applySlices(
+    final int js, final int je, final float[][][] x, final float[][][] y)
+  {
+    final int n1 = x[0][0].length;
+    final int n3 = x.length;
+    final Parallel.Unsafe<Work> wu = new Parallel.Unsafe<Work>();
+    Parallel.loop(x[0].length,new Parallel.LoopInt() {
+      public void compute(int i2) {
+        Work w = work(wu,n1,n3);
+        for (int i3=0; i3<n3; ++i3) {
+          w.xv[i3] = x[i3][i2];
+          w.yv[i3] = y[i3][i2];
+        }
+        apply(js,je,w.xv,w.yv,w.a,w.b);
+      }
+    });
+  }
+
+  private static Work work(Parallel.Unsafe<Work> wu, int n1, int n2) {
+    Work w = wu.get();
+    if (w==null)
+      wu.set(w=new Work(n1,n2));
+    return w;
+  }
+
+  private static void copy(float[][] x, float[][] y) {
+    if (x!=y) {
+      int n = x.length;
+      for (int i=0; i<n; ++i)
+        System.arraycopy(x[i],0,y[i],0,x[i].length);
+    }
+  }
+}
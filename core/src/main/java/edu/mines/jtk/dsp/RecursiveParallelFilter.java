@@ -16,6 +16,7 @@ package edu.mines.jtk.dsp;
 
 import edu.mines.jtk.util.Cdouble;
 import edu.mines.jtk.util.Check;
+import edu.mines.jtk.util.Parallel;
 
 /**
  * A recursive parallel filter is implemented as a sum of 2nd-order filters.
@@ -33,6 +34,10 @@ import edu.mines.jtk.util.Check;
  * Also, in the current implementation, the number of non-zero zeros
  * cannot exceed the number of non-zero poles, and all poles must be
  * unique.
+ * <p>
+ * Filters for 2D and 3D arrays are applied in parallel, to rows, columns
+ * or slices of those arrays. Results do not depend on the number of
+ * threads.
  * @author Dave Hale, Colorado School of Mines
  * @version 2005.04.19
  */
@@ -61,9 +66,7 @@ public class RecursiveParallelFilter {
    * @param y the output array.
    */
   public void applyForward(float[] x, float[] y) {
-    scale(_c,x,y);
-    for (int i1=0; i1<_n1; ++i1)
-      _f1[i1].accumulateForward(x,y);
+    accumulate(FORWARD,x,y);
   }
 
   /**
@@ -74,9 +77,7 @@ public class RecursiveParallelFilter {
    * @param y the output array.
    */
   public void applyReverse(float[] x, float[] y) {
-    scale(_c,x,y);
-    for (int i1=0; i1<_n1; ++i1)
-      _f1[i1].accumulateReverse(x,y);
+    accumulate(REVERSE,x,y);
   }
 
   /**
@@ -90,11 +91,7 @@ public class RecursiveParallelFilter {
    * @param y the output array.
    */
   public void applyForwardReverse(float[] x, float[] y) {
-    scale(_c*_g,x,y);
-    for (int i2=0; i2<_n2; i2+=2) {
-      _f2[i2  ].accumulateForward(x,y);
-      _f2[i2+1].accumulateReverse(x,y);
-    }
+    accumulate(FORWARD_REVERSE,x,y);
   }
 
   /**
@@ -105,9 +102,7 @@ public class RecursiveParallelFilter {
    * @param y the output array.
    */
   public void apply1Forward(float[][] x, float[][] y) {
-    scale(_c,x,y);
-    for (int i1=0; i1<_n1; ++i1)
-      _f1[i1].accumulate1Forward(x,y);
+    apply1(FORWARD,x,y);
   }
 
   /**
@@ -118,9 +113,7 @@ public class RecursiveParallelFilter {
    * @param y the output array.
    */
   public void apply1Reverse(float[][] x, float[][] y) {
-    scale(_c,x,y);
-    for (int i1=0; i1<_n1; ++i1)
-      _f1[i1].accumulate1Reverse(x,y);
+    apply1(REVERSE,x,y);
   }
 
   /**
@@ -132,11 +125,7 @@ public class RecursiveParallelFilter {
    * @param y the output array.
    */
   public void apply1ForwardReverse(float[][] x, float[][] y) {
-    scale(_c*_g,x,y);
-    for (int i2=0; i2<_n2; i2+=2) {
-      _f2[i2  ].accumulate1Forward(x,y);
-      _f2[i2+1].accumulate1Reverse(x,y);
-    }
+    apply1(FORWARD_REVERSE,x,y);
   }
 
   /**
@@ -147,9 +136,7 @@ public class RecursiveParallelFilter {
    * @param y the output array.
    */
   public void apply2Forward(float[][] x, float[][] y) {
-    scale(_c,x,y);
-    for (int i1=0; i1<_n1; ++i1)
-      _f1[i1].accumulate2Forward(x,y);
+    apply2(FORWARD,x,y);
   }
 
   /**
@@ -160,9 +147,7 @@ public class RecursiveParallelFilter {
    * @param y the output array.
    */
   public void apply2Reverse(float[][] x, float[][] y) {
-    scale(_c,x,y);
-    for (int i1=0; i1<_n1; ++i1)
-      _f1[i1].accumulate2Reverse(x,y);
+    apply2(REVERSE,x,y);
   }
 
   /**
@@ -174,11 +159,7 @@ public class RecursiveParallelFilter {
    * @param y the output array.
    */
   public void apply2ForwardReverse(float[][] x, float[][] y) {
-    scale(_c*_g,x,y);
-    for (int i2=0; i2<_n2; i2+=2) {
-      _f2[i2  ].accumulate2Forward(x,y);
-      _f2[i2+1].accumulate2Reverse(x,y);
-    }
+    apply2(FORWARD_REVERSE,x,y);
   }
 
   /**
@@ -189,9 +170,7 @@ public class RecursiveParallelFilter {
    * @param y the output array.
    */
   public void apply1Forward(float[][][] x, float[][][] y) {
-    scale(_c,x,y);
-    for (int i1=0; i1<_n1; ++i1)
-      _f1[i1].accumulate1Forward(x,y);
+    apply1(FORWARD,x,y);
   }
 
   /**
@@ -202,9 +181,7 @@ public class RecursiveParallelFilter {
    * @param y the output array.
    */
   public void apply1Reverse(float[][][] x, float[][][] y) {
-    scale(_c,x,y);
-    for (int i1=0; i1<_n1; ++i1)
-      _f1[i1].accumulate1Reverse(x,y);
+    apply1(REVERSE,x,y);
   }
 
   /**
@@ -216,11 +193,7 @@ public class RecursiveParallelFilter {
    * @param y the output array.
    */
   public void apply1ForwardReverse(float[][][] x, float[][][] y) {
-    scale(_c*_g,x,y);
-    for (int i2=0; i2<_n2; i2+=2) {
-      _f2[i2  ].accumulate1Forward(x,y);
-      _f2[i2+1].accumulate1Reverse(x,y);
-    }
+    apply1(FORWARD_REVERSE,x,y);
   }
 
   /**
@@ -231,9 +204,7 @@ public class RecursiveParallelFilter {
    * @param y the output array.
    */
   public void apply2Forward(float[][][] x, float[][][] y) {
-    scale(_c,x,y);
-    for (int i1=0; i1<_n1; ++i1)
-      _f1[i1].accumulate2Forward(x,y);
+    apply2(FORWARD,x,y);
   }
 
   /**
@@ -244,9 +215,7 @@ public class RecursiveParallelFilter {
    * @param y the output array.
    */
   public void apply2Reverse(float[][][] x, float[][][] y) {
-    scale(_c,x,y);
-    for (int i1=0; i1<_n1; ++i1)
-      _f1[i1].accumulate2Reverse(x,y);
+    apply2(REVERSE,x,y);
   }
 
   /**
@@ -258,11 +227,7 @@ public class RecursiveParallelFilter {
    * @param y the output array.
    */
   public void apply2ForwardReverse(float[][][] x, float[][][] y) {
-    scale(_c*_g,x,y);
-    for (int i2=0; i2<_n2; i2+=2) {
-      _f2[i2  ].accumulate2Forward(x,y);
-      _f2[i2+1].accumulate2Reverse(x,y);
-    }
+    apply2(FORWARD_REVERSE,x,y);
   }
 
   /**
@@ -273,9 +238,7 @@ public class RecursiveParallelFilter {
    * @param y the output array.
    */
   public void apply3Forward(float[][][] x, float[][][] y) {
-    scale(_c,x,y);
-    for (int i1=0; i1<_n1; ++i1)
-      _f1[i1].accumulate3Forward(x,y);
+    apply3(FORWARD,x,y);
   }
 
   /**
@@ -286,9 +249,7 @@ public class RecursiveParallelFilter {
    * @param y the output array.
    */
   public void apply3Reverse(float[][][] x, float[][][] y) {
-    scale(_c,x,y);
-    for (int i1=0; i1<_n1; ++i1)
-      _f1[i1].accumulate3Reverse(x,y);
+    apply3(REVERSE,x,y);
   }
 
   /**
@@ -300,11 +261,7 @@ public class RecursiveParallelFilter {
    * @param y the output array.
    */
   public void apply3ForwardReverse(float[][][] x, float[][][] y) {
-    scale(_c*_g,x,y);
-    for (int i2=0; i2<_n2; i2+=2) {
-      _f2[i2  ].accumulate3Forward(x,y);
-      _f2[i2+1].accumulate3Reverse(x,y);
-    }
+    apply3(FORWARD_REVERSE,x,y);
   }
 
   /**
@@ -428,6 +385,15 @@ public class RecursiveParallelFilter {
   ///////////////////////////////////////////////////////////////////////////
   // private
 
+  // Directions in which 2nd-order filters are applied.
+  private static final int FORWARD = 0;
+  private static final int REVERSE = 1;
+  private static final int FORWARD_REVERSE = 2;
+
+  // Number of samples in 1st dimension per block of columns, when 2D
+  // arrays are filtered along the 2nd dimension in parallel.
+  private static final int NBLOCK1 = 256;
+
   private int _np; // number of poles
   private int _nz; // number of zeros
   private int _nc; // number of complex poles (must be even)
@@ -551,6 +517,159 @@ public class RecursiveParallelFilter {
     return cs;
   }
 
+  // Scales the input and accumulates outputs of all 2nd-order filters.
+  private void accumulate(int mode, float[] x, float[] y) {
+    if (mode==FORWARD) {
+      scale(_c,x,y);
+      for (int i1=0; i1<_n1; ++i1)
+        _f1[i1].accumulateForward(x,y);
+    } else if (mode==REVERSE) {
+      scale(_c,x,y);
+      for (int i1=0; i1<_n1; ++i1)
+        _f1[i1].accumulateReverse(x,y);
+    } else {
+      scale(_c*_g,x,y);
+      for (int i2=0; i2<_n2; i2+=2) {
+        _f2[i2  ].accumulateForward(x,y);
+        _f2[i2+1].accumulateReverse(x,y);
+      }
+    }
+  }
+
+  // As above, but along the 2nd dimension of 2D arrays, with six scratch
+  // rows w for the 2nd-order filters.
+  private void accumulate2(
+    int mode, float[][] x, float[][] y, float[][] w) 
+  {
+    if (mode==FORWARD) {
+      scale(_c,x,y);
+      for (int i1=0; i1<_n1; ++i1)
+        _f1[i1].accumulate2Forward(x,y,w);
+    } else if (mode==REVERSE) {
+      scale(_c,x,y);
+      for (int i1=0; i1<_n1; ++i1)
+        _f1[i1].accumulate2Reverse(x,y,w);
+    } else {
+      scale(_c*_g,x,y);
+      for (int i2=0; i2<_n2; i2+=2) {
+        _f2[i2  ].accumulate2Forward(x,y,w);
+        _f2[i2+1].accumulate2Reverse(x,y,w);
+      }
+    }
+  }
+
+  private void apply1(final int mode, final float[][] x, final float[][] y) {
+    checkArrays(x,y);
+    Parallel.loop(y.length,new Parallel.LoopInt() {
+      public void compute(int i2) {
+        accumulate(mode,x[i2],y[i2]);
+      }
+    });
+  }
+
+  private void apply1(
+    final int mode, final float[][][] x, final float[][][] y) 
+  {
+    checkArrays(x,y);
+    final int n2 = y[0].length;
+    final int n3 = y.length;
+    Parallel.loop(n2*n3,new Parallel.LoopInt() {
+      public void compute(int i23) {
+        int i2 = i23%n2;
+        int i3 = i23/n2;
+        accumulate(mode,x[i3][i2],y[i3][i2]);
+      }
+    });
+  }
+
+  // Columns of 2D arrays are filtered in blocks, in parallel. Each block
+  // is copied to and from per-thread work arrays, which are padded with
+  // zeros if the block is narrower than those arrays.
+  private void apply2(final int mode, final float[][] x, final float[][] y) {
+    checkArrays(x,y);
+    final int n1 = y[0].length;
+    final int n2 = y.length;
+    if (n1<2*NBLOCK1) {
+      accumulate2(mode,x,y,new float[6][n1]);
+      return;
+    }
+    final int mb = NBLOCK1;
+    final int nb = (n1+mb-1)/mb;
+    final Parallel.Unsafe<float[][][]> wu = new Parallel.Unsafe<float[][][]>();
+    Parallel.loop(nb,new Parallel.LoopInt() {
+      public void compute(int ib) {
+        float[][][] w = wu.get();
+        if (w==null) wu.set(w=new float[][][]{
+          new float[n2][mb],new float[n2][mb],new float[6][mb]});
+        float[][] xb = w[0];
+        float[][] yb = w[1];
+        int j1 = ib*mb;
+        int m1 = Math.min(mb,n1-j1);
+        for (int i2=0; i2<n2; ++i2) {
+          System.arraycopy(x[i2],j1,xb[i2],0,m1);
+          for (int i1=m1; i1<mb; ++i1)
+            xb[i2][i1] = 0.0f;
+        }
+        accumulate2(mode,xb,yb,w[2]);
+        for (int i2=0; i2<n2; ++i2)
+          System.arraycopy(yb[i2],0,y[i2],j1,m1);
+      }
+    });
+  }
+
+  private void apply2(
+    final int mode, final float[][][] x, final float[][][] y) 
+  {
+    checkArrays(x,y);
+    final int n1 = y[0][0].length;
+    final Parallel.Unsafe<float[][]> wu = new Parallel.Unsafe<float[][]>();
+    Parallel.loop(y.length,new Parallel.LoopInt() {
+      public void compute(int i3) {
+        float[][] w = wu.get();
+        if (w==null) wu.set(w=new float[6][n1]);
+        accumulate2(mode,x[i3],y[i3],w);
+      }
+    });
+  }
+
+  // Slices of 3D arrays with constant i2 are copied to and from per-thread
+  // work arrays, and then filtered along their 2nd dimension.
+  private void apply3(
+    final int mode, final float[][][] x, final float[][][] y) 
+  {
+    checkArrays(x,y);
+    final int n1 = y[0][0].length;
+    final int n2 = y[0].length;
+    final int n3 = y.length;
+    final Parallel.Unsafe<float[][][]> wu = new Parallel.Unsafe<float[][][]>();
+    Parallel.loop(n2,new Parallel.LoopInt() {
+      public void compute(int i2) {
+        float[][][] w = wu.get();
+        if (w==null) wu.set(w=new float[][][]{
+          new float[n3][n1],new float[n3][n1],new float[6][n1]});
+        float[][] xs = w[0];
+        float[][] ys = w[1];
+        for (int i3=0; i3<n3; ++i3)
+          System.arraycopy(x[i3][i2],0,xs[i3],0,n1);
+        accumulate2(mode,xs,ys,w[2]);
+        for (int i3=0; i3<n3; ++i3)
+          System.arraycopy(ys[i3],0,y[i3][i2],0,n1);
+      }
+    });
+  }
+
+  private static void checkArrays(float[][] x, float[][] y) {
+    Check.argument(x.length==y.length,"x.length==y.length");
+    Check.argument(x[0].length==y[0].length,"x[0].length==y[0].length");
+  }
+
+  private static void checkArrays(float[][][] x, float[][][] y) {
+    Check.argument(x.length==y.length,"x.length==y.length");
+    Check.argument(x[0].length==y[0].length,"x[0].length==y[0].length");
+    Check.argument(x[0][0].length==y[0][0].length,
+      "x[0][0].length==y[0][0].length");
+  }
+
   private static void scale(float s, float[] x, float[] y) {
     int n1 = y.length;
     for (int i1=0; i1<n1; ++i1)
@@ -567,20 +686,4 @@ public class RecursiveParallelFilter {
         y2[i1] = s*x2[i1];
     }
   }
-
-  private static void scale(float s, float[][][] x, float[][][] y) {
-    int n3 = y.length;
-    int n2 = y[0].length;
-    int n1 = y[0][0].length;
-    for (int i3=0; i3<n3; ++i3) {
-      float[][] x3 = x[i3];
-      float[][] y3 = y[i3];
-      for (int i2=0; i2<n2; ++i2) {
-        float[] x32 = x3[i2];
-        float[] y32 = y3[i2];
-        for (int i1=0; i1<n1; ++i1)
-          y32[i1] = s*x32[i1];
-      }
-    }
-  }
 }
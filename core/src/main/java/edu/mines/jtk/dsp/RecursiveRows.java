@@ -0,0 +1,145 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.dsp;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import edu.mines.jtk.util.Parallel;
+
+/**
+ * Pipelined parallel loops over rows of 2D and 3D arrays for recursive
+ * filters with causal (or anti-causal) lags, such as the inverses of
+ * causal and minimum-phase filters. Rows are the 1st-dimension arrays
+ * with indices (i2,i3). For 2D arrays, n3 = 1 and all lag3 are zero.
+ * <p>
+ * Each output sample of a causal recursion depends on output samples
+ * that precede it in array order: samples earlier in the same row, and
+ * samples in rows with lags (lag2,lag3) that precede that row. Those
+ * earlier rows are offset from the row by a fixed number of rows. Rows
+ * are taken in order by threads, and each row is computed in chunks of
+ * samples. Before computing a chunk, a thread waits until every earlier
+ * row on which the chunk depends has completed all samples that the
+ * chunk needs. The lag1 of those samples may be negative, so the chunk
+ * may need samples beyond its own end.
+ * <p>
+ * Every output sample is computed by the same arithmetic, in the same
+ * order, as in a serial loop over rows. Therefore, results are exactly
+ * the same for any number of threads. Anti-causal recursions, such as
+ * inverse transposes, are computed in the reverse order.
+ * @author agent
+ * @version 2026.10.19
+ */
+class RecursiveRows {
+
+  /**
+   * Computes samples with indices [j1,e1) in the row (i2,i3). For causal
+   * recursions, samples are computed in increasing order, and for
+   * anti-causal recursions, in decreasing order.
+   */
+  public interface Chunk {
+    public void compute(int i2, int i3, int j1, int e1);
+  }
+
+  /**
+   * Computes all chunks in all rows of an array, in parallel if possible.
+   * @param n1 number of samples in 1st dimension.
+   * @param n2 number of samples in 2nd dimension.
+   * @param n3 number of samples in 3rd dimension.
+   * @param lag1 array of lags in 1st dimension.
+   * @param lag2 array of lags in 2nd dimension.
+   * @param lag3 array of lags in 3rd dimension.
+   * @param reverse true, for anti-causal; false, for causal recursion.
+   * @param chunk the chunk computation.
+   */
+  public static void loop(
+    final int n1, final int n2, final int n3,
+    int[] lag1, int[] lag2, int[] lag3,
+    final boolean reverse, final Chunk chunk)
+  {
+    final int nr = n2*n3;
+    final int[] d = offsets(n2,lag1,lag2,lag3);
+    int nt = Math.min(nr,Runtime.getRuntime().availableProcessors());
+    if (d==null || nt<2 || (long)n1*nr<NPARALLEL) {
+      for (int ir=0; ir<nr; ++ir) {
+        int r = reverse?nr-1-ir:ir;
+        chunk.compute(r%n2,r/n2,0,n1);
+      }
+      return;
+    }
+    int min1 = 0;
+    for (int j=0; j<lag1.length; ++j)
+      min1 = Math.min(min1,lag1[j]);
+    final int m1 = min1;
+    final AtomicInteger next = new AtomicInteger();
+    final AtomicIntegerArray done = new AtomicIntegerArray(nr);
+    Parallel.loop(nt,new Parallel.LoopInt() {
+      public void compute(int it) {
+        for (int ir=next.getAndIncrement(); ir<nr; ir=next.getAndIncrement()) {
+          int r = reverse?nr-1-ir:ir;
+          int i2 = r%n2;
+          int i3 = r/n2;
+          for (int c=0; c<n1; c+=NCHUNK) {
+            int e = Math.min(n1,c+NCHUNK);
+            int need = Math.min(n1,e-m1);
+            for (int id=0; id<d.length && d[id]<=ir; ++id) {
+              int jr = ir-d[id];
+              while (done.get(jr)<need)
+                Thread.yield();
+            }
+            if (reverse) {
+              chunk.compute(i2,i3,n1-e,n1-c);
+            } else {
+              chunk.compute(i2,i3,c,e);
+            }
+            done.set(ir,e);
+          }
+        }
+      }
+    });
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  // Number of samples per chunk of a row.
+  private static final int NCHUNK = 256;
+
+  // Minimum number of samples for which rows are computed in parallel.
+  private static final int NPARALLEL = 1<<16;
+
+  // Returns sorted distinct positive offsets of rows on which each row
+  // depends, or null, if any lag refers to a row that follows a row.
+  private static int[] offsets(int n2, int[] lag1, int[] lag2, int[] lag3) {
+    int m = lag1.length;
+    int[] d = new int[m];
+    int nd = 0;
+    for (int j=1; j<m; ++j) {
+      if (lag3[j]==0 && lag2[j]<0)
+        return null;
+      int dj = lag2[j]+n2*lag3[j];
+      if (dj>0)
+        d[nd++] = dj;
+    }
+    java.util.Arrays.sort(d,0,nd);
+    int nu = 0;
+    for (int id=0; id<nd; ++id)
+      if (nu==0 || d[id]!=d[nu-1])
+        d[nu++] = d[id];
+    int[] u = new int[nu];
+    System.arraycopy(d,0,u,0,nu);
+    return u;
+  }
+}
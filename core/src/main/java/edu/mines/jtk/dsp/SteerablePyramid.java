@@ -14,6 +14,7 @@ limitations under the License.
 ****************************************************************************/
 package edu.mines.jtk.dsp;
 
+import edu.mines.jtk.util.Parallel;
 import static edu.mines.jtk.util.ArrayMath.*;
 
 /**
@@ -168,38 +169,7 @@ public class SteerablePyramid {
    * 3D image.
    */
   public float[][][][][] makePyramid(float[][][] x) {
-    nx3 = x.length;
-    nx2 = x[0].length;
-    nx1 = x[0][0].length;
-    // Compute number of levels in pyramid from size of input image.  Also
-    // determine dimensions n1,n2,n3 for the finest-sampled pyramid level
-    // that will allow us to subsample each pyramid level without losing the
-    // last sample.  In our pyramid images we will carry this number of 
-    // samples and copy the original number of samples only for final output.
-    nlev = 1;
-    int nlev2 = 1;
-    int nlev3 = 1;
-    n1 = 9;
-    n2 = 9;
-    n3 = 9;
-    while (nx1>n1) {
-      n1 = (n1-1)*2+1;
-      nlev += 1;
-    }
-    while (nx2>n2) {
-      n2 = (n2-1)*2+1;
-      nlev2 += 1;
-    }
-    while (nx3>n3) {
-      n3 = (n3-1)*2+1;
-      nlev3 += 1;
-    }
-    if (nlev>nlev2) {
-      nlev = nlev2;
-    }
-    if (nlev>nlev3) {
-      nlev = nlev3;
-    }
+    initLevels(x);
     /**
      * Create output 5-dimensional array, consisting of:
      * Basis images: nlev*ndir 3D sub-arrays; for each pyramid level images
@@ -291,64 +261,13 @@ public class SteerablePyramid {
     }
     // Sum basis images to create filtered image.  Sinc interpolation is
     // performed on subsampled images prior to summing adjacent levels.
-    int lfactor = (int)pow(2.0,(double)(nlev-1));
-    int nl3 = (n3-1)/lfactor+1;
-    int nl2 = (n2-1)/lfactor+1;
-    int nl1 = (n1-1)/lfactor+1;
     for (int i=0; i<nlev; ++i) {
       lev = nlev-i-1;
       for (int dir=1; dir<NDIR3; ++dir) {
         add(spyr[lev][0],spyr[lev][dir],spyr[lev][0]);
       }
-      int m3 = (nl3-1)/2+1;
-      int m2 = (nl2-1)/2+1;
-      int m1 = (nl1-1)/2+1;
-      int j1,j2,j3;
-      float[] lo11 = zerofloat(m1);
-      float[] lo12 = zerofloat(m2);
-      float[] lo13 = zerofloat(m3);
-      SincInterpolator si = SincInterpolator.fromErrorAndFrequency(0.001,0.4);
-      si.setExtrapolation(SincInterpolator.Extrapolation.CONSTANT);
-      for (int i3=0; i3<nl3; i3=i3+2) {
-        j3 = i3/2;
-        for (int i2=0; i2<nl2; i2=i2+2) {
-          j2 = i2/2;
-          for (int i1=0; i1<nl1; i1=i1+2) {
-            j1 = i1/2;
-            lo11[j1] = spyr[lev+1][0][j3][j2][j1];
-            spyr[lev][1][i3][i2][i1] = lo11[j1];
-          }
-          for (int i1=1; i1<nl1; i1=i1+2) {
-            spyr[lev][1][i3][i2][i1] = si.interpolate(m1,2,0,lo11,i1);
-          }
-        }
-      }
-      for (int i3=0; i3<nl3; i3=i3+2) {
-        for (int i1=0; i1<nl1; ++i1) {
-          for (int i2=0; i2<nl2; i2=i2+2) {
-            j2 = i2/2;
-            lo12[j2] = spyr[lev][1][i3][i2][i1];
-          }
-          for (int i2=1; i2<nl2; i2=i2+2) {
-            spyr[lev][1][i3][i2][i1] = si.interpolate(m2,2,0,lo12,i2);
-          }
-        }
-      }
-      for (int i2=0; i2<nl2; ++i2) {
-        for (int i1=0; i1<nl1; ++i1) {
-          for (int i3=0; i3<nl3; i3=i3+2) {
-            j3 = i3/2;
-            lo13[j3] = spyr[lev][1][i3][i2][i1];
-          }
-          for (int i3=1; i3<nl3; i3=i3+2) {
-            spyr[lev][1][i3][i2][i1] = si.interpolate(m3,2,0,lo13,i3);
-          }
-        }
-      }
+      spyr[lev][1] = upsample(spyr[lev+1][0],spyr[lev][0]);
       add(spyr[lev][0],spyr[lev][1],spyr[lev][0]);
-      nl3 = (nl3-1)*2+1;
-      nl2 = (nl2-1)*2+1;
-      nl1 = (nl1-1)*2+1;
     }
     float[][][] y = zerofloat(nx1,nx2,nx3);
     copy(nx1,nx2,nx3,spyr[0][0],y);
@@ -714,6 +633,146 @@ public class SteerablePyramid {
     }
   }
   
+  /**
+   * Sets the precision used to store images for each pyramid level in the 
+   * method {@link #steerScaleSum(boolean,double,int,float,float,boolean,
+   * float[][][])}. If reduced, preprocessed basis images and attributes 
+   * are stored as 16-bit floats, with 8 significant bits. Reduced 
+   * precision halves the memory required for these images, but outputs 
+   * are then only approximately equal to those computed with the full 
+   * steerable pyramid. The default is full (32-bit) precision.
+   * @param reduced true, for reduced precision; false, otherwise.
+   */
+  public void setReducedPrecision(boolean reduced) {
+    _reduced = reduced;
+  }
+
+  /**
+   * Filters a 3D image by steering and scaling the basis images of its
+   * steerable pyramid, one level at a time. With full precision, the 
+   * output image is the same as that computed by
+   * <pre><code>
+   *   spyr = makePyramid(x);
+   *   attr = estimateAttributes(forlinear,sigma,spyr);
+   *   steerScale(forlinear,linpowr,k,thresh,attr,spyr);
+   *   y = sumPyramid(keeplow,spyr);
+   * </code></pre>
+   * but the steerable pyramid and attributes are never stored for all 
+   * levels at once. Basis images for each level are preprocessed as soon 
+   * as they are computed, and attributes for a level are estimated as 
+   * soon as the next (subsampled) level is available. Basis images are 
+   * then recomputed from the wavenumber-domain image for that level, 
+   * steered, scaled and summed. Only that sum is kept for each level.
+   * <p>
+   * The memory required is dominated by the finest level, for which at 
+   * most about twelve images (nine, with reduced precision) are stored 
+   * at any time, instead of more than twenty for the four methods above. 
+   * Fourier transforms and filters are computed in parallel.
+   * @param forlinear true: enhance locally linear, false: planar features.
+   * @param sigma half-width of 3D Gaussian smoothing filter.
+   * @param linpowr linearity power and scaling type switch.
+   * @param k sigmoidal thresholding steepness.
+   * @param thresh threshold.
+   * @param keeplow if true:keep low-wavenumber energy, if false: zero it.
+   * @param x input 3D image.
+   * @return array containing output filtered 3D image.
+   */
+  public float[][][] steerScaleSum(
+    boolean forlinear, double sigma, int linpowr, float k, float thresh,
+    boolean keeplow, float[][][] x)
+  {
+    initLevels(x);
+    statelinear = forlinear;
+    int nb = (forlinear)?NDIR3+1:NDIR3; // with sum p of basis images
+    RecursiveGaussianFilter rgfb = new RecursiveGaussianFilter(sigma);
+    RecursiveGaussianFilter rgfa = new RecursiveGaussianFilter(2.0*sigma);
+    RecursiveGaussianFilter rgfc = new RecursiveGaussianFilter(0.5*sigma);
+    float[][][][] ys = new float[nlev+1][][][]; // sums for all levels
+    float[][][] cf = ftForward(0,x);
+    applyRadial(ka,kb,cf);
+    float[][][] cfa = null; // wavenumber-domain image for previous level
+    Basis pqa = null; // preprocessed basis images for previous level
+    float[][][][] pqs = null; // smoothed and subsampled from previous level
+    for (int lev=0; lev<nlev; ++lev) {
+      int lfactor = (int)pow(2.0,(double)lev);
+      int nl3 = (n3-1)/lfactor+1;
+      int nl2 = (n2-1)/lfactor+1;
+      int nl1 = (n1-1)/lfactor+1;
+      int ml3 = (nl3-1)/2+1;
+      int ml2 = (nl2-1)/2+1;
+      int ml1 = (nl1-1)/2+1;
+      int mpad = round(20.0f/(1.0f+(float)lev));
+
+      // Subsampled low-wavenumber image, the input for the next level.
+      float[][][] cw = copy(cf);
+      applyRadial(ka/2.0,kb/2.0,cw);
+      sub(cf,cw,cf);
+      fft3(-1,cw);
+      float[][][] lo = zerofloat(ml1,ml2,ml3);
+      copy(ml1,ml2,ml3,mpad,mpad,mpad,2,2,2,cw,0,0,0,1,1,1,lo);
+
+      // Basis images, preprocessed for estimation of attributes.
+      Basis pqb = new Basis(nb,nl1,nl2,nl3,_reduced);
+      float[][][] q = zerofloat(nl1,nl2,nl3);
+      for (int dir=0; dir<NDIR3; ++dir) {
+        applySteerableFilter(dir,cf,cw);
+        ftInverse(lev,cw,q);
+        pqb.set(dir,q);
+      }
+      cw = null;
+      pqjShift(pqb);
+
+      // Smooth preprocessed images and average adjacent levels, as in the 
+      // method estimateAttributes. Images for the previous level a are
+      // completed by adding images for this level b.
+      float[][][][] pqc = (lev+1<nlev)?new float[NDIR3][][][]:null;
+      for (int dir=0; dir<NDIR3; ++dir) {
+        float[][][] p = pqb.get(dir);
+        if (pqc!=null) {
+          copy(p,q);
+          rgfa.apply000(q,q);
+          pqc[dir] = zerofloat(ml1,ml2,ml3);
+          copy(ml1,ml2,ml3,0,0,0,2,2,2,q,0,0,0,1,1,1,pqc[dir]);
+        }
+        if (pqa!=null) {
+          copy(p,q);
+          rgfc.apply000(q,q);
+          pqa.addCoarse(dir,q);
+        }
+        rgfb.apply000(p,p);
+        if (pqs!=null)
+          add(p,pqs[dir],p);
+        pqb.set(dir,p);
+      }
+      q = null;
+
+      // Previous level is complete; steer, scale and sum its basis images.
+      if (pqa!=null)
+        ys[lev-1] = steerScaleSum(lev-1,linpowr,k,thresh,cfa,pqa);
+      cfa = cf;
+      pqa = pqb;
+      pqs = pqc;
+      if (lev+1<nlev) {
+        cf = ftForward(lev+1,lo);
+      } else {
+        ys[nlev] = lo;
+      }
+    }
+    ys[nlev-1] = steerScaleSum(nlev-1,linpowr,k,thresh,cfa,pqa);
+
+    // Sum levels, as in the method sumPyramid.
+    if (!keeplow) {
+      zero(ys[nlev]);
+    }
+    for (int lev=nlev-1; lev>=0; --lev) {
+      add(ys[lev],upsample(ys[lev+1],ys[lev]),ys[lev]);
+      ys[lev+1] = null;
+    }
+    float[][][] y = zerofloat(nx1,nx2,nx3);
+    copy(nx1,nx2,nx3,ys[0],y);
+    return y;
+  }
+  
   ///////////////////////////////////////////////////////////////////////////
   // private
   private static final double THETA0 = 0.0*PI/3.0;
@@ -733,6 +792,7 @@ public class SteerablePyramid {
   private static final double SIN_PIO3 = sin(PI/3.0);
   private int nlev,nx1,nx2,nx3,n1,n2,n3;
   private boolean statelinear;
+  private boolean _reduced;
   double ka,kb;
   
   /**
@@ -790,6 +850,349 @@ public class SteerablePyramid {
     }
   }
   
+  /**
+   * Computes numbers of levels and samples for a 3D steerable pyramid.
+   * @param x input 3D image.
+   */
+  private void initLevels(float[][][] x) {
+    nx3 = x.length;
+    nx2 = x[0].length;
+    nx1 = x[0][0].length;
+    // Compute number of levels in pyramid from size of input image.  Also
+    // determine dimensions n1,n2,n3 for the finest-sampled pyramid level
+    // that will allow us to subsample each pyramid level without losing the
+    // last sample.  In our pyramid images we will carry this number of 
+    // samples and copy the original number of samples only for final output.
+    nlev = 1;
+    int nlev2 = 1;
+    int nlev3 = 1;
+    n1 = 9;
+    n2 = 9;
+    n3 = 9;
+    while (nx1>n1) {
+      n1 = (n1-1)*2+1;
+      nlev += 1;
+    }
+    while (nx2>n2) {
+      n2 = (n2-1)*2+1;
+      nlev2 += 1;
+    }
+    while (nx3>n3) {
+      n3 = (n3-1)*2+1;
+      nlev3 += 1;
+    }
+    if (nlev>nlev2) {
+      nlev = nlev2;
+    }
+    if (nlev>nlev3) {
+      nlev = nlev3;
+    }
+  }
+
+  /**
+   * Images for a single 3D pyramid level, stored with full (32-bit) or 
+   * reduced (16-bit) precision. Reduced-precision floats are the high 
+   * 16 bits of 32-bit floats, rounded to nearest.
+   */
+  private static class Basis {
+    int n1,n2,n3;
+    float[][][][] f; // if full precision
+    short[][][][] h; // if reduced precision
+    Basis(int nj, int n1, int n2, int n3, boolean reduced) {
+      this.n1 = n1;
+      this.n2 = n2;
+      this.n3 = n3;
+      if (reduced) {
+        h = new short[nj][n3][n2][n1];
+      } else {
+        f = new float[nj][n3][n2][n1];
+      }
+    }
+    // Returns image j; for full precision, the stored image.
+    float[][][] get(int j) {
+      if (f!=null)
+        return f[j];
+      float[][][] x = new float[n3][n2][];
+      for (int i3=0; i3<n3; ++i3)
+        for (int i2=0; i2<n2; ++i2)
+          x[i3][i2] = getRow(j,i2,i3,new float[n1]);
+      return x;
+    }
+    // Stores image j.
+    void set(int j, float[][][] x) {
+      for (int i3=0; i3<n3; ++i3)
+        for (int i2=0; i2<n2; ++i2)
+          setRow(j,i2,i3,x[i3][i2]);
+    }
+    // Returns a row of image j; for full precision, the stored row.
+    float[] getRow(int j, int i2, int i3, float[] r) {
+      if (f!=null)
+        return f[j][i3][i2];
+      short[] s = h[j][i3][i2];
+      for (int i1=0; i1<n1; ++i1)
+        r[i1] = Float.intBitsToFloat(s[i1]<<16);
+      return r;
+    }
+    // Stores a row of image j.
+    void setRow(int j, int i2, int i3, float[] r) {
+      if (f!=null) {
+        if (f[j][i3][i2]!=r)
+          System.arraycopy(r,0,f[j][i3][i2],0,n1);
+        return;
+      }
+      short[] s = h[j][i3][i2];
+      for (int i1=0; i1<n1; ++i1) {
+        int b = Float.floatToIntBits(r[i1]);
+        s[i1] = (short)((r[i1]!=r[i1])?b>>>16:(b+0x7fff+((b>>>16)&1))>>>16);
+      }
+    }
+    // Adds to image j an image with half as many samples, not interpolated.
+    void addCoarse(final int j, final float[][][] c) {
+      Parallel.loop(n3,new Parallel.LoopInt() {
+        public void compute(int i3) {
+          float[] r = new float[n1];
+          for (int i2=0; i2<n2; ++i2) {
+            float[] ri = getRow(j,i2,i3,r);
+            float[] ci = c[i3/2][i2/2];
+            for (int i1=0; i1<n1; ++i1)
+              ri[i1] += ci[i1/2];
+            setRow(j,i2,i3,ri);
+          }
+        }
+      });
+    }
+    // Discards image j.
+    void free(int j) {
+      if (f!=null) {
+        f[j] = null;
+      } else {
+        h[j] = null;
+      }
+    }
+  }
+
+  /**
+   * Preprocesses 3D steerable pyramid basis images for input to orientation 
+   * and dimensionality estimation, as in the method pqjShiftSmooth, but in
+   * place and without smoothing. If the basis contains an extra image, the 
+   * sum p of the basis images is stored there.
+   * @param pq input/output basis images for a single pyramid level.
+   */
+  private static void pqjShift(final Basis pq) {
+    final int nl1 = pq.n1;
+    final int nl2 = pq.n2;
+    final int nl3 = pq.n3;
+    final boolean keepp = (pq.f!=null)?pq.f.length>NDIR3:pq.h.length>NDIR3;
+    Parallel.loop(nl3,new Parallel.LoopInt() {
+      public void compute(int i3) {
+        float[][] r = new float[NDIR3+1][nl1];
+        float[][] q = new float[NDIR3+1][];
+        for (int i2=0; i2<nl2; ++i2) {
+          for (int dir=0; dir<NDIR3; ++dir)
+            q[dir] = pq.getRow(dir,i2,i3,r[dir]);
+          float[] ps = r[NDIR3];
+          for (int i1=0; i1<nl1; ++i1) {
+            float p = q[0][i1]+q[1][i1];
+            for (int dir=2; dir<NDIR3; ++dir)
+              p += q[dir][i1];
+            ps[i1] = p;
+            float testmin = 0.0f;
+            for (int dir=0; dir<NDIR3; ++dir) {
+              q[dir][i1] *= p;
+              if (q[dir][i1]<testmin)
+                testmin = q[dir][i1];
+            }
+            if (testmin<0.0f) {
+              for (int dir=0; dir<NDIR3; ++dir)
+                q[dir][i1] -= testmin;
+            }
+          }
+          for (int dir=0; dir<NDIR3; ++dir)
+            pq.setRow(dir,i2,i3,q[dir]);
+          if (keepp)
+            pq.setRow(NDIR3,i2,i3,ps);
+        }
+      }
+    });
+  }
+
+  /**
+   * Estimates attributes from preprocessed basis images for a single 3D 
+   * pyramid level, and then steers, scales and sums the basis images for 
+   * that level, recomputed from the wavenumber-domain image. Results are 
+   * the same as those of the methods estimateAttributes, steerScale and 
+   * sumPyramid, for that level. The preprocessed images are replaced by 
+   * attributes.
+   * @param lev level number.
+   * @param linpowr linearity power and scaling type switch.
+   * @param k sigmoidal thresholding steepness.
+   * @param thresh threshold.
+   * @param cf input image in wavenumber domain (complex array).
+   * @param pq input basis images smoothed and averaged with adjacent levels.
+   * @return sum of steered and scaled basis images.
+   */
+  private float[][][] steerScaleSum(
+    int lev, final int linpowr, final float k, final float thresh,
+    float[][][] cf, final Basis pq)
+  {
+    final int nl1 = pq.n1;
+    final int nl2 = pq.n2;
+    final int nl3 = pq.n3;
+    final boolean forlinear = statelinear;
+    final int abcindx = (forlinear)?0:2;
+    final int e0indx = (forlinear)?1:2;
+    final int e1indx = (forlinear)?0:1;
+
+    // Compute steering direction cosines and dimensionality attribute.
+    Parallel.loop(nl3,new Parallel.LoopInt() {
+      public void compute(int i3) {
+        double[] f = zerodouble(NDIR3);
+        double[][] abcf = zerodouble(4,3);
+        float[][] r = new float[NDIR3][nl1];
+        float[][] q = new float[NDIR3][];
+        for (int i2=0; i2<nl2; ++i2) {
+          for (int j=0; j<NDIR3; ++j)
+            q[j] = pq.getRow(j,i2,i3,r[j]);
+          for (int i1=0; i1<nl1; ++i1) {
+            for (int j=0; j<NDIR3; ++j)
+              f[j] = q[j][i1];
+            findCriticalPoints(f,abcf);
+            q[0][i1] = (float)(abcf[abcindx][0]);
+            q[1][i1] = (float)(abcf[abcindx][1]);
+            q[2][i1] = (float)(abcf[abcindx][2]);
+            q[3][i1] = (float)((abcf[e0indx][3]-abcf[e1indx][3])/abcf[2][3]);
+          }
+          for (int j=0; j<4; ++j)
+            pq.setRow(j,i2,i3,q[j]);
+        }
+      }
+    });
+    pq.free(4);
+    pq.free(5);
+
+    // Recompute basis images, and apply steering weights and scaling.
+    float[][][] cw = new float[cf.length][cf[0].length][cf[0][0].length];
+    final float[][][] q = zerofloat(nl1,nl2,nl3);
+    final float[][][] y = zerofloat(nl1,nl2,nl3);
+    for (int dir=0; dir<NDIR3; ++dir) {
+      final int j0 = (dir<2)?0:(dir<4)?2:1;
+      final int j1 = (dir<2)?1:(dir<4)?0:2;
+      final int j2 = (dir<2)?2:(dir<4)?1:0;
+      final float signb = (dir%2==0)?1.0f:-1.0f;
+      final boolean first = dir==0;
+      applySteerableFilter(dir,cf,cw);
+      ftInverse(lev,cw,q);
+      Parallel.loop(nl3,new Parallel.LoopInt() {
+        public void compute(int i3) {
+          float[][] r = new float[4][nl1];
+          float[] s = new float[nl1];
+          for (int i2=0; i2<nl2; ++i2) {
+            float[] a = pq.getRow(j0,i2,i3,r[0]);
+            float[] b = pq.getRow(j1,i2,i3,r[1]);
+            float[] c = pq.getRow(j2,i2,i3,r[2]);
+            float[] d = pq.getRow(3,i2,i3,r[3]);
+            float[] p = (forlinear)?pq.getRow(NDIR3,i2,i3,s):null;
+            float[] qi = q[i3][i2];
+            float[] yi = y[i3][i2];
+            for (int i1=0; i1<nl1; ++i1) {
+              float ai = a[i1];
+              float bi = b[i1]*signb;
+              float ci = c[i1];
+              float wi = (ai+bi)*(ai+bi)-ci*ci;
+              float qs = (forlinear)?0.5f*p[i1]-qi[i1]:qi[i1];
+              qs *= scale(linpowr,k,thresh,d[i1])*wi;
+              yi[i1] = (first)?qs:yi[i1]+qs;
+            }
+          }
+        }
+      });
+    }
+    return y;
+  }
+
+  /**
+   * Returns the scale factor for the dimensionality attribute d, for the 
+   * scaling options of the method steerScale.
+   */
+  private static float scale(int linpowr, float k, float thresh, float d) {
+    float scal = 0.0f;
+    if(linpowr==0) {
+      scal = 1.0f;
+    }
+    else if(linpowr==1) {
+      scal = d;
+    }
+    else if(linpowr>1&&linpowr<99) {
+      scal = pow(d,linpowr);
+    }
+    else if(linpowr==99) {
+      scal = 1.0f/(1.0f+exp(k*(thresh-d)));
+    }
+    return scal;
+  }
+
+  /**
+   * Interpolates a 3D image subsampled by a factor of two, as in the 
+   * method sumPyramid.
+   * @param lo input subsampled 3D image.
+   * @param hi 3D image with the dimensions of the output image.
+   * @return array containing the interpolated 3D image.
+   */
+  private static float[][][] upsample(final float[][][] lo, float[][][] hi) {
+    final int nl3 = hi.length;
+    final int nl2 = hi[0].length;
+    final int nl1 = hi[0][0].length;
+    final int m3 = (nl3-1)/2+1;
+    final int m2 = (nl2-1)/2+1;
+    final int m1 = (nl1-1)/2+1;
+    final float[][][] y = zerofloat(nl1,nl2,nl3);
+    final SincInterpolator si = 
+      SincInterpolator.fromErrorAndFrequency(0.001,0.4);
+    si.setExtrapolation(SincInterpolator.Extrapolation.CONSTANT);
+    Parallel.loop(0,nl3,2,new Parallel.LoopInt() {
+      public void compute(int i3) {
+        float[] lo11 = zerofloat(m1);
+        float[] lo12 = zerofloat(m2);
+        int j3 = i3/2;
+        for (int i2=0; i2<nl2; i2=i2+2) {
+          int j2 = i2/2;
+          for (int i1=0; i1<nl1; i1=i1+2) {
+            int j1 = i1/2;
+            lo11[j1] = lo[j3][j2][j1];
+            y[i3][i2][i1] = lo11[j1];
+          }
+          for (int i1=1; i1<nl1; i1=i1+2) {
+            y[i3][i2][i1] = si.interpolate(m1,2,0,lo11,i1);
+          }
+        }
+        for (int i1=0; i1<nl1; ++i1) {
+          for (int i2=0; i2<nl2; i2=i2+2) {
+            int j2 = i2/2;
+            lo12[j2] = y[i3][i2][i1];
+          }
+          for (int i2=1; i2<nl2; i2=i2+2) {
+            y[i3][i2][i1] = si.interpolate(m2,2,0,lo12,i2);
+          }
+        }
+      }
+    });
+    Parallel.loop(nl2,new Parallel.LoopInt() {
+      public void compute(int i2) {
+        float[] lo13 = zerofloat(m3);
+        for (int i1=0; i1<nl1; ++i1) {
+          for (int i3=0; i3<nl3; i3=i3+2) {
+            int j3 = i3/2;
+            lo13[j3] = y[i3][i2][i1];
+          }
+          for (int i3=1; i3<nl3; i3=i3+2) {
+            y[i3][i2][i1] = si.interpolate(m3,2,0,lo13,i3);
+          }
+        }
+      }
+    });
+    return y;
+  }
+  
   /**
    * Apply radial low-pass filter in wavenumber domain.  Filter response is
    * unity in passband, zero outside, with cosine taper.
@@ -837,43 +1240,46 @@ public class SteerablePyramid {
    * @param k2 wavenumber at start of taper (Amp(k2)=0.0).
    * @param cf input/output 3D image in wavenumber domain (complex array).
    */
-  private void applyRadial(double k1,double k2,float[][][] cf) {
+  private void applyRadial(final double k1,final double k2,
+                           final float[][][] cf) {
     int nf3 = cf.length;
-    int nf2 = cf[0].length;
-    int nf1 = cf[0][0].length/2;
-    int ir,ii;
-    double m1 = (double)(nf1-1);
-    double m2 = (double)(nf2-1)/2.0;
-    double m3 = (double)(nf3-1)/2.0;
-    double w1,w2,w3;
-    double mf1 = 1.0/m1;
-    double mf2 = 1.0/m2;
-    double mf3 = 1.0/m3;
-    double wd,a;
-    double denom = 1.0/(k2-k1);
-    float b;
-    for (int i3=0; i3<nf3; ++i3) {
-      for (int i2=0; i2<nf2; ++i2) {
-        for (int i1=0; i1<nf1; ++i1) {
-          w1 = ((double)i1)*mf1;
-          w2 = ((double)i2-m2)*mf2;
-          w3 = ((double)i3-m3)*mf3;
-          wd = Math.sqrt(w1*w1+w2*w2+w3*w3);
-          ir = 2*i1;
-          ii = ir + 1;
-          if (wd >= k2) {
-            cf[i3][i2][ir] = 0.0f;
-            cf[i3][i2][ii] = 0.0f;
-          }
-          else if (wd>k1&&wd<k2) {
-            a = (wd-k1)*denom*PI;
-            b = (float)(0.5*(1.0+cos(a)));
-            cf[i3][i2][ir] *= b;
-            cf[i3][i2][ii] *= b;
-          }
-        }      
+    final int nf2 = cf[0].length;
+    final int nf1 = cf[0][0].length/2;
+    final double m1 = (double)(nf1-1);
+    final double m2 = (double)(nf2-1)/2.0;
+    final double m3 = (double)(nf3-1)/2.0;
+    final double mf1 = 1.0/m1;
+    final double mf2 = 1.0/m2;
+    final double mf3 = 1.0/m3;
+    final double denom = 1.0/(k2-k1);
+    Parallel.loop(nf3,new Parallel.LoopInt() {
+      public void compute(int i3) {
+        int ir,ii;
+        double w1,w2,w3;
+        double wd,a;
+        float b;
+        for (int i2=0; i2<nf2; ++i2) {
+          for (int i1=0; i1<nf1; ++i1) {
+            w1 = ((double)i1)*mf1;
+            w2 = ((double)i2-m2)*mf2;
+            w3 = ((double)i3-m3)*mf3;
+            wd = Math.sqrt(w1*w1+w2*w2+w3*w3);
+            ir = 2*i1;
+            ii = ir + 1;
+            if (wd >= k2) {
+              cf[i3][i2][ir] = 0.0f;
+              cf[i3][i2][ii] = 0.0f;
+            }
+            else if (wd>k1&&wd<k2) {
+              a = (wd-k1)*denom*PI;
+              b = (float)(0.5*(1.0+cos(a)));
+              cf[i3][i2][ir] *= b;
+              cf[i3][i2][ii] *= b;
+            }
+          }      
+        }
       }
-    }
+    });
   }
   
   /**
@@ -920,48 +1326,52 @@ public class SteerablePyramid {
    * @param dir filter direction index.
    * @param cfout output 3D image in wavenumber domain (complex array).
    */
-  private void applySteerableFilter(int dir,float[][][] cfin,
-                                           float[][][] cfout) {
+  private void applySteerableFilter(int dir,final float[][][] cfin,
+                                           final float[][][] cfout) {
     int nf3 = cfin.length;
-    int nf2 = cfin[0].length;
-    int nf1 = cfin[0][0].length/2;
+    final int nf2 = cfin[0].length;
+    final int nf1 = cfin[0][0].length/2;
     int ir,ii;
     //double m1 = (double)(nf1-1); // not used
-    double m2 = (double)(nf2-1)/2.0;
-    double m3 = (double)(nf3-1)/2.0;
+    final double m2 = (double)(nf2-1)/2.0;
+    final double m3 = (double)(nf3-1)/2.0;
     double v1=0.0,v2=0.0,v3=0.0;
-    double w1,w2,w3;
-    double flt1,flt2;
     double s = 1.0;
-    double s2 = 1.0 + s*s;
+    final double s2 = 1.0 + s*s;
     if      (dir==0) {v1=0.0; v2=1.0; v3=  s;}
     else if (dir==1) {v1=0.0; v2=1.0; v3= -s;}
     else if (dir==2) {v1=1.0; v2=  s; v3=0.0;}
     else if (dir==3) {v1=1.0; v2= -s; v3=0.0;}
     else if (dir==4) {v1=  s; v2=0.0; v3=1.0;}
     else if (dir==5) {v1= -s; v2=0.0; v3=1.0;}
-    for (int i3=0; i3<nf3; ++i3) {
-      for (int i2=0; i2<nf2; ++i2) {
-        for (int i1=0; i1<nf1; ++i1) {
-          w1 = (double)i1;
-          w2 = (double)i2-m2;
-          w3 = (double)i3-m3;
-          ir = 2*i1;
-          ii = ir+1;
-          flt1 = w1*v1 + w2*v2 + w3*v3;
-          flt1 = flt1*flt1;
-          flt2 = (w1*w1 + w2*w2 + w3*w3)*2.0*s2;
-          flt1 = flt1/flt2;
-          cfout[i3][i2][ir] = cfin[i3][i2][ir]*(float)flt1;
-          cfout[i3][i2][ii] = cfin[i3][i2][ii]*(float)flt1;
-        }      
+    final double u1 = v1, u2 = v2, u3 = v3;
+    Parallel.loop(nf3,new Parallel.LoopInt() {
+      public void compute(int i3) {
+        int ir,ii;
+        double w1,w2,w3;
+        double flt1,flt2;
+        for (int i2=0; i2<nf2; ++i2) {
+          for (int i1=0; i1<nf1; ++i1) {
+            w1 = (double)i1;
+            w2 = (double)i2-m2;
+            w3 = (double)i3-m3;
+            ir = 2*i1;
+            ii = ir+1;
+            flt1 = w1*u1 + w2*u2 + w3*u3;
+            flt1 = flt1*flt1;
+            flt2 = (w1*w1 + w2*w2 + w3*w3)*2.0*s2;
+            flt1 = flt1/flt2;
+            cfout[i3][i2][ir] = cfin[i3][i2][ir]*(float)flt1;
+            cfout[i3][i2][ii] = cfin[i3][i2][ii]*(float)flt1;
+          }      
+        }
       }
-    }
+    });
     /**
      * Following section is to avoid divide-by-zero.
      * It sets amplitude to zero for zero wavenumber.
      */
-    if ((int)m2*2 == nf2 && (int)m3*2 == nf3) {
+    if ((int)m2*2+1 == nf2 && (int)m3*2+1 == nf3) {
       ir = 0;
       ii = ir+1;
       cfout[(int)m3][(int)m2][ir] = 0.0f;
@@ -1424,7 +1834,7 @@ public class SteerablePyramid {
     return cx;
   }
   
-    /**
+  /**
    * Applies forward 3D Fourier transform.
    * @param level level number.
    * @param x input 3D image.
@@ -1432,9 +1842,6 @@ public class SteerablePyramid {
    * the input image.
    */
   private float[][][] ftForward(int level,float[][][] x) {
-    FftReal fft1;
-    FftComplex fft2;
-    FftComplex fft3;
     int ny3 = x.length;
     int ny2 = x[0].length;
     int ny1 = x[0][0].length;
@@ -1446,89 +1853,139 @@ public class SteerablePyramid {
     int nf3 = FftComplex.nfftSmall(nl3+mpad*2);
     int nf2 = FftComplex.nfftSmall(nl2+mpad*2);
     int nf1 = FftReal.nfftSmall(nl1+mpad*2);
-    int nf1c = nf1/2+1;
-    float[][][] xr = zerofloat(nf1,nf2,nf3);
-    copy(ny1,ny2,ny3,0,0,0,x,mpad,mpad,mpad,xr);
-    float[][][] cx = czerofloat(nf1c,nf2,nf3);
-    fft1 = new FftReal(nf1);
-    fft2 = new FftComplex(nf2);
-    fft3 = new FftComplex(nf3);
-    fft1.realToComplex1(1,nf2,nf3,xr,cx);
-    flipSign(2, cx);
-    fft2.complexToComplex2(1,nf1c,nf3,cx,cx);
-    flipSign(3, cx);
-    fft3.complexToComplex3(1,nf1c,nf2,cx,cx);
+    float[][][] cx = zerofloat(nf1+2,nf2,nf3);
+    copy(ny1,ny2,ny3,0,0,0,x,mpad,mpad,mpad,cx);
+    fft3(1,cx);
     return cx;
   }
   
   /**
-   * Applies inverse 2D Fourier transform to an input wavenumber-domain image.
+   * Applies inverse 3D Fourier transform to an input wavenumber-domain image.
    * The output space-domain image is written to the appropriate part of the
    * steerable pyramid array.
    * @param lev level number.
    * @param dir basis filter orientation index for the input image.
    * @param cf input image in wavenumber domain (complex array).
-   * @param spyr input/output 2D steerable pyramid.
+   * @param spyr input/output 3D steerable pyramid.
    */
   private void ftInverse(int lev,int dir,
-                         float[][] cf,float spyr[][][][]) {
-    FftReal fft1;
-    FftComplex fft2;
-    int nf2 = cf.length;
-    int nf1c = cf[0].length/2;
-    int nf1 = (nf1c-1)*2;
+                         float[][][] cf,float spyr[][][][][]) {
+    ftInverse(lev,cf,spyr[lev][dir]);
+  }
+
+  /**
+   * Applies inverse 3D Fourier transform to an input wavenumber-domain image.
+   * @param lev level number.
+   * @param cf input image in wavenumber domain (complex array).
+   * @param x output 3D image for the level.
+   */
+  private void ftInverse(int lev,float[][][] cf,float[][][] x) {
     int mpad = round(20.0f/(1.0f+(float)lev));
     int lfactor = (int)pow(2.0,(double)lev);
+    int nl3 = (n3-1)/lfactor+1;
     int nl2 = (n2-1)/lfactor+1;
     int nl1 = (n1-1)/lfactor+1;
-    fft1 = new FftReal(nf1);
-    fft2 = new FftComplex(nf2);
-    fft2.complexToComplex2(-1,nf1c,cf,cf);
-    flipSign(2,cf);
-    fft2.scale(nf1c,nf2,cf);
-    fft1.complexToReal1(-1,nf2,cf,cf);
-    fft1.scale(nf1,nf2,cf);
-    copy(nl1,nl2,mpad,mpad,1,1,cf,0,0,1,1,spyr[lev][dir]);
+    fft3(-1,cf);
+    copy(nl1,nl2,nl3,mpad,mpad,mpad,1,1,1,cf,
+        0,0,0,1,1,1,x);
+  }
+
+  /**
+   * Applies a forward or inverse 3D Fourier transform in place, with sign 
+   * flips that center the transform in the 2nd and 3rd dimensions. Slabs
+   * and columns of the array are transformed in parallel. For the forward 
+   * transform, the first nf1 floats in each row of the array are real 
+   * input samples. For the inverse transform, those floats are real output
+   * samples, and the transform is scaled.
+   * @param sign sign of the transform; 1, for forward, -1 for inverse.
+   * @param cx input/output array[nf3][nf2][nf1+2].
+   */
+  private void fft3(int sign,final float[][][] cx) {
+    final int nf3 = cx.length;
+    final int nf2 = cx[0].length;
+    final int nf1 = cx[0][0].length-2;
+    final int nf1c = nf1/2+1;
+    final FftReal fft1 = new FftReal(nf1);
+    final FftComplex fft2 = new FftComplex(nf2);
+    final FftComplex fft3 = new FftComplex(nf3);
+    final int mf3 = 2*(nf3/2); // slabs with sign flips are even and < mf3
+    Parallel.LoopInt dim12 = new Parallel.LoopInt() {
+      public void compute(int i3) {
+        fft1.realToComplex1(1,nf2,cx[i3],cx[i3]);
+        flipSign(2,cx[i3]);
+        fft2.complexToComplex2(1,nf1c,cx[i3],cx[i3]);
+        if (i3%2==0 && i3<mf3)
+          mul(-1.0f,cx[i3],cx[i3]);
+      }
+    };
+    Parallel.LoopInt dim3 = new Parallel.LoopInt() {
+      public void compute(int i2) {
+        float[][] cx2 = new float[nf3][];
+        for (int i3=0; i3<nf3; ++i3)
+          cx2[i3] = cx[i3][i2];
+        fft3.complexToComplex2(1,nf1c,cx2,cx2);
+      }
+    };
+    Parallel.LoopInt idim3 = new Parallel.LoopInt() {
+      public void compute(int i2) {
+        float[][] cx2 = new float[nf3][];
+        for (int i3=0; i3<nf3; ++i3)
+          cx2[i3] = cx[i3][i2];
+        fft3.complexToComplex2(-1,nf1c,cx2,cx2);
+        for (int i3=0; i3<mf3; i3+=2)
+          mul(-1.0f,cx2[i3],cx2[i3]);
+        fft3.scale(nf1c,nf3,cx2);
+      }
+    };
+    Parallel.LoopInt idim12 = new Parallel.LoopInt() {
+      public void compute(int i3) {
+        fft2.complexToComplex2(-1,nf1c,cx[i3],cx[i3]);
+        flipSign(2,cx[i3]);
+        fft2.scale(nf1c,nf2,cx[i3]);
+        fft1.complexToReal1(-1,nf2,cx[i3],cx[i3]);
+        fft1.scale(nf1,nf2,cx[i3]);
+      }
+    };
+    if (sign>0) {
+      Parallel.loop(nf3,dim12);
+      Parallel.loop(nf2,dim3);
+    } else {
+      Parallel.loop(nf2,idim3);
+      Parallel.loop(nf3,idim12);
+    }
   }
   
   /**
-   * Applies inverse 3D Fourier transform to an input wavenumber-domain image.
+   * Applies inverse 2D Fourier transform to an input wavenumber-domain image.
    * The output space-domain image is written to the appropriate part of the
    * steerable pyramid array.
    * @param lev level number.
    * @param dir basis filter orientation index for the input image.
    * @param cf input image in wavenumber domain (complex array).
-   * @param spyr input/output 3D steerable pyramid.
+   * @param spyr input/output 2D steerable pyramid.
    */
   private void ftInverse(int lev,int dir,
-                         float[][][] cf,float spyr[][][][][]) {
+                         float[][] cf,float spyr[][][][]) {
     FftReal fft1;
     FftComplex fft2;
-    FftComplex fft3;
-    int nf3 = cf.length;
-    int nf2 = cf[0].length;
-    int nf1c = cf[0][0].length/2;
+    int nf2 = cf.length;
+    int nf1c = cf[0].length/2;
     int nf1 = (nf1c-1)*2;
     int mpad = round(20.0f/(1.0f+(float)lev));
     int lfactor = (int)pow(2.0,(double)lev);
-    int nl3 = (n3-1)/lfactor+1;
     int nl2 = (n2-1)/lfactor+1;
     int nl1 = (n1-1)/lfactor+1;
     fft1 = new FftReal(nf1);
     fft2 = new FftComplex(nf2);
-    fft3 = new FftComplex(nf3);
-    fft3.complexToComplex3(-1,nf1c,nf2,cf,cf);
-    flipSign(3, cf);
-    fft3.scale(nf1c,nf2,nf3,cf);
-    fft2.complexToComplex2(-1,nf1c,nf3,cf,cf);
-    flipSign(2, cf);
-    fft2.scale(nf1c,nf2,nf3,cf);
-    fft1.complexToReal1(-1,nf2,nf3,cf,cf);
-    fft1.scale(nf1,nf2,nf3,cf);
-    copy(nl1,nl2,nl3,mpad,mpad,mpad,1,1,1,cf,
-        0,0,0,1,1,1,spyr[lev][dir]);
+    fft2.complexToComplex2(-1,nf1c,cf,cf);
+    flipSign(2,cf);
+    fft2.scale(nf1c,nf2,cf);
+    fft1.complexToReal1(-1,nf2,cf,cf);
+    fft1.scale(nf1,nf2,cf);
+    copy(nl1,nl2,mpad,mpad,1,1,cf,0,0,1,1,spyr[lev][dir]);
   }
   
+  
   /**
    * Multiplies every other sample in input space-domain image by -1. 
    * Applied before forward Fourier transform where it has the effect of
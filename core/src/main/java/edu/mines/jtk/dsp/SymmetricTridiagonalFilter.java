@@ -123,34 +123,12 @@ public class SymmetricTridiagonalFilter {
    * @param y output array y; may be the same as the input array x.
    */
   public void apply2(final float[][] x, final float[][] y) {
-    int n1 = x[0].length;
-    int n2 = x.length;
-    int n2m1 = n2-1;
-    float af = (float)_af;
-    float ai = (float)_ai;
-    float al = (float)_al;
-    float b = (float)_b;
-    float[] xi2m1 = new float[n1];
-    float[] xi2 = copy(x[0]);
-    float[] xi2p1 = copy(x[1]);
-    float[] yi2 = y[0];
-    for (int i1=0; i1<n1; ++i1)
-      yi2[i1] = af*xi2[i1]+b*xi2p1[i1];
-    for (int i2=1; i2<n2m1; ++i2) {
-      float[] xtemp = xi2m1;
-      xi2m1 = xi2;
-      xi2 = xi2p1;
-      xi2p1 = xtemp;
-      copy(x[i2+1],xi2p1);
-      yi2 = y[i2];
-      for (int i1=0; i1<n1; ++i1)
-        yi2[i1] = ai*xi2[i1]+b*(xi2m1[i1]+xi2p1[i1]);
-    }
-    xi2m1 = xi2;
-    xi2 = xi2p1;
-    yi2 = y[n2-1];
-    for (int i1=0; i1<n1; ++i1)
-      yi2[i1] = al*xi2[i1]+b*xi2m1[i1];
+    final int n1 = x[0].length;
+    final Parallel.Unsafe<float[][]> wu = new Parallel.Unsafe<float[][]>();
+    Parallel.loop(0,n1,NBLOCK1,new Parallel.LoopInt() {
+    public void compute(int i1) {
+      apply2(x,y,i1,min(i1+NBLOCK1,n1),work(wu,3,n1));
+    }});
   }
 
   /**
@@ -173,9 +151,11 @@ public class SymmetricTridiagonalFilter {
    */
   public void apply2(final float[][][] x, final float[][][] y) {
     int n = x.length;
+    final int n1 = x[0][0].length;
+    final Parallel.Unsafe<float[][]> wu = new Parallel.Unsafe<float[][]>();
     Parallel.loop(n,new Parallel.LoopInt() {
     public void compute(int i) {
-      apply2(x[i],y[i]);
+      apply2(x[i],y[i],0,n1,work(wu,3,n1));
     }});
   }
 
@@ -352,23 +332,139 @@ public class SymmetricTridiagonalFilter {
    * @param x input array x; may be the same as the output array y.
    * @param y output array y; may be the same as the input array x.
    */
-  public void applyInverse2(float[][] x, float[][] y) {
+  public void applyInverse2(final float[][] x, final float[][] y) {
+    checkInvertible();
+    final int n1 = x[0].length;
+    final Parallel.Unsafe<float[][]> wu = new Parallel.Unsafe<float[][]>();
+    Parallel.loop(0,n1,NBLOCK1,new Parallel.LoopInt() {
+    public void compute(int i1) {
+      applyInverse2(x,y,i1,min(i1+NBLOCK1,n1),work(wu,1,n1));
+    }});
+  }
+
+  /**
+   * Applies the inverse of this filter along the 1st dimension of a 3D array.
+   * @param x input array x; may be the same as the output array y.
+   * @param y output array y; may be the same as the input array x.
+   */
+  public void applyInverse1(final float[][][] x, final float[][][] y) {
+    int n = x.length;
+    Parallel.loop(n,new Parallel.LoopInt() {
+    public void compute(int i) {
+      applyInverse1(x[i],y[i]);
+    }});
+  }
+
+  /**
+   * Applies the inverse of this filter along the 2nd dimension of a 3D array.
+   * @param x input array x; may be the same as the output array y.
+   * @param y output array y; may be the same as the input array x.
+   */
+  public void applyInverse2(final float[][][] x, final float[][][] y) {
     checkInvertible();
-    int n1 = x[0].length;
+    int n = x.length;
+    final int n1 = x[0][0].length;
+    final Parallel.Unsafe<float[][]> wu = new Parallel.Unsafe<float[][]>();
+    Parallel.loop(n,new Parallel.LoopInt() {
+    public void compute(int i) {
+      applyInverse2(x[i],y[i],0,n1,work(wu,1,n1));
+    }});
+  }
+
+  /**
+   * Applies the inverse of this filter along the 3rd dimension of a 3D array.
+   * @param x input array x; may be the same as the output array y.
+   * @param y output array y; may be the same as the input array x.
+   */
+  public void applyInverse3(float[][][] x, float[][][] y) {
+    int n2 = x[0].length;
+    int n3 = x.length;
+    float[][][] xt = new float[n2][n3][];
+    float[][][] yt = new float[n2][n3][];
+    for (int i2=0; i2<n2; ++i2) {
+      for (int i3=0; i3<n3; ++i3) {
+        xt[i2][i3] = x[i3][i2];
+        yt[i2][i3] = y[i3][i2];
+      }
+    }
+    applyInverse2(xt,yt);
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  // Number of samples in 1st dimension per block of columns, when 2D
+  // arrays are filtered along the 2nd dimension in parallel.
+  private static final int NBLOCK1 = 256;
+
+  private double _af,_ai,_al,_b; // coefficients
+
+  private void checkInvertible() {
+    Check.state(abs(_ai)>=2.0*abs(_b),"filter is invertible");
+  }
+
+  // Returns work arrays for the current thread.
+  private static float[][] work(Parallel.Unsafe<float[][]> wu, int m, int n) {
+    float[][] w = wu.get();
+    if (w==null)
+      wu.set(w=new float[m][n]);
+    return w;
+  }
+
+  // Applies this filter along the 2nd dimension for samples [i1a,i1b).
+  private void apply2(
+    float[][] x, float[][] y, int i1a, int i1b, float[][] w)
+  {
+    int n2 = x.length;
+    int n2m1 = n2-1;
+    float af = (float)_af;
+    float ai = (float)_ai;
+    float al = (float)_al;
+    float b = (float)_b;
+    float[] xi2m1 = w[0];
+    float[] xi2 = w[1];
+    float[] xi2p1 = w[2];
+    copy(i1b-i1a,i1a,x[0],i1a,xi2);
+    copy(i1b-i1a,i1a,x[1],i1a,xi2p1);
+    float[] yi2 = y[0];
+    for (int i1=i1a; i1<i1b; ++i1)
+      yi2[i1] = af*xi2[i1]+b*xi2p1[i1];
+    for (int i2=1; i2<n2m1; ++i2) {
+      float[] xtemp = xi2m1;
+      xi2m1 = xi2;
+      xi2 = xi2p1;
+      xi2p1 = xtemp;
+      copy(i1b-i1a,i1a,x[i2+1],i1a,xi2p1);
+      yi2 = y[i2];
+      for (int i1=i1a; i1<i1b; ++i1)
+        yi2[i1] = ai*xi2[i1]+b*(xi2m1[i1]+xi2p1[i1]);
+    }
+    xi2m1 = xi2;
+    xi2 = xi2p1;
+    yi2 = y[n2-1];
+    for (int i1=i1a; i1<i1b; ++i1)
+      yi2[i1] = al*xi2[i1]+b*xi2m1[i1];
+  }
+
+  // Applies the inverse of this filter along the 2nd dimension for
+  // samples [i1a,i1b).
+  private void applyInverse2(
+    float[][] x, float[][] y, int i1a, int i1b, float[][] w)
+  {
     int n2 = x.length;
     int n2m1 = n2-1;
 
     // The trivial special case where b is zero.
     if (_b==0.0f) {
       float oa = 1.0f/(float)_af;
-      for (int i1=0; i1<n1; ++i1)
+      for (int i1=i1a; i1<i1b; ++i1)
         y[0][i1] = x[0][i1]*oa;
       oa = 1.0f/(float)_ai;
       for (int i2=1; i2<n2m1; ++i2)
-        for (int i1=0; i1<n1; ++i1)
+        for (int i1=i1a; i1<i1b; ++i1)
           y[i2][i1] = x[i2][i1]*oa;
       oa = 1.0f/(float)_al;
-      for (int i1=0; i1<n1; ++i1)
+      for (int i1=i1a; i1<i1b; ++i1)
         y[n2m1][i1] = x[n2m1][i1]*oa;
       return;
     }
@@ -388,51 +484,53 @@ public class SymmetricTridiagonalFilter {
     // Rescale, while copying input array to output array.
     float scale = (1.0f+bb)/(float)_ai;
     for (int i2=0; i2<n2; ++i2)
-      for (int i1=0; i1<n1; ++i1)
+      for (int i1=i1a; i1<i1b; ++i1)
         y[i2][i1] = scale*x[i2][i1];
 
     // If -1 < beta < 1, ...
     if (bb<1.0f) {
 
       // Factorization.
-      float[] yn2m1 = new float[n1];
+      float[] yn2m1 = w[0];
+      for (int i1=i1a; i1<i1b; ++i1)
+        yn2m1[i1] = 0.0f;
       float c = (1.0f-bb-ss)/ss;
       float d = 1.0f-bb+gg*(1.0f+c*pow(bb,n2-1));
       float e = pow(1.0f-abs(b),2.0f)*FLT_EPSILON/4.0f;
       int k2 = min((int)ceil(log(e)/log(abs(b))),2*(n2-1));
       int m2 = k2-n2+1; // 2-n2<= m2 <= n2-1
       for (int i2=m2; i2>0; --i2)
-        for (int i1=0; i1<n1; ++i1)
+        for (int i1=i1a; i1<i1b; ++i1)
           yn2m1[i1] = b*yn2m1[i1]+y[i2][i1];
-      for (int i1=0; i1<n1; ++i1)
+      for (int i1=i1a; i1<i1b; ++i1)
         yn2m1[i1] *= c;
       if (n2-k2<1) {
-        for (int i1=0; i1<n1; ++i1)
+        for (int i1=i1a; i1<i1b; ++i1)
           yn2m1[i1] = b*yn2m1[i1]+(1.0f+c)*y[0][i1];
       }
       m2 = max(n2-k2,1); // 1 <= m2 <= n2-1
       for (int i2=m2; i2<n2; ++i2)
-        for (int i1=0; i1<n1; ++i1)
+        for (int i1=i1a; i1<i1b; ++i1)
           yn2m1[i1] = b*yn2m1[i1]+y[i2][i1];
-      for (int i1=0; i1<n1; ++i1)
+      for (int i1=i1a; i1<i1b; ++i1)
         yn2m1[i1] /= d;
 
       // Backward substitution.
-      for (int i1=0; i1<n1; ++i1)
+      for (int i1=i1a; i1<i1b; ++i1)
         y[n2-1][i1] -= gg*yn2m1[i1];
       for (int i2=n2-2; i2>=0; --i2)
-        for (int i1=0; i1<n1; ++i1)
+        for (int i1=i1a; i1<i1b; ++i1)
           y[i2][i1] += b*y[i2+1][i1];
 
       // First y.
-      for (int i1=0; i1<n1; ++i1)
+      for (int i1=i1a; i1<i1b; ++i1)
         y[0][i1] /= ss;
 
       // Forward substitution.
       for (int i2=1; i2<n2m1; ++i2)
-        for (int i1=0; i1<n1; ++i1)
+        for (int i1=i1a; i1<i1b; ++i1)
           y[i2][i1] += b*y[i2-1][i1];
-      for (int i1=0; i1<n1; ++i1)
+      for (int i1=i1a; i1<i1b; ++i1)
         y[n2m1][i1] = yn2m1[i1];
     }
      
@@ -444,31 +542,33 @@ public class SymmetricTridiagonalFilter {
       if (ss>0.0f && gg>0.0f) {
 
         // Compute y[n2-1] using special case of Boisvert's equation 9.
-        float[] yn2m1 = new float[n1];
+        float[] yn2m1 = w[0];
+        for (int i1=i1a; i1<i1b; ++i1)
+          yn2m1[i1] = 0.0f;
         float oss = 1.0f/ss;
         float sum = 0.0f;
         for (int i2=0; i2<n2m1; ++i2)
-          for (int i1=0; i1<n1; ++i1)
+          for (int i1=i1a; i1<i1b; ++i1)
             yn2m1[i1] = (yn2m1[i1]+(i2+oss)*y[i2][i1])*b;
-        for (int i1=0; i1<n1; ++i1) {
+        for (int i1=i1a; i1<i1b; ++i1) {
           yn2m1[i1] += (n2m1+oss)*y[n2m1][i1];
           yn2m1[i1] /= 1.0f+gg*(n2m1)+gg/ss;
         }
 
         // Back substitution.
-        for (int i1=0; i1<n1; ++i1)
+        for (int i1=i1a; i1<i1b; ++i1)
           y[n2m1][i1] -= gg*yn2m1[i1];
         for (int i2=n2-2; i2>=0; --i2)
-          for (int i1=0; i1<n1; ++i1)
+          for (int i1=i1a; i1<i1b; ++i1)
             y[i2][i1] += b*y[i2+1][i1];
-        for (int i1=0; i1<n1; ++i1)
+        for (int i1=i1a; i1<i1b; ++i1)
           y[0][i1] /= ss;
 
         // Forward substitution.
         for (int i2=1; i2<n2m1; ++i2)
-          for (int i1=0; i1<n1; ++i1)
+          for (int i1=i1a; i1<i1b; ++i1)
             y[i2][i1] += b*y[i2-1][i1];
-        for (int i1=0; i1<n1; ++i1)
+        for (int i1=i1a; i1<i1b; ++i1)
           y[n2-1][i1] = yn2m1[i1];
       }
 
@@ -476,19 +576,19 @@ public class SymmetricTridiagonalFilter {
       else if (ss==0.0f) {
 
         // Forward substitution.
-        for (int i1=0; i1<n1; ++i1)
+        for (int i1=i1a; i1<i1b; ++i1)
           y[0][i1] *= -b;
         for (int i2=1; i2<n2m1; ++i2)
-          for (int i1=0; i1<n1; ++i1)
+          for (int i1=i1a; i1<i1b; ++i1)
             y[i2][i1] = b*(y[i2-1][i1]-y[i2][i1]);
 
         // Last y.
-        for (int i1=0; i1<n1; ++i1)
+        for (int i1=i1a; i1<i1b; ++i1)
           y[n2m1][i1] = (y[n2-1][i1]-y[n2-2][i1])/gg;
 
         // Backward substitution.
         for (int i2=n2-2; i2>=0; --i2)
-          for (int i1=0; i1<n1; ++i1)
+          for (int i1=i1a; i1<i1b; ++i1)
             y[i2][i1] = b*(y[i2+1][i1]-y[i2][i1]);
       } 
 
@@ -497,16 +597,16 @@ public class SymmetricTridiagonalFilter {
 
         // Backward substitution.
         for (int i2=n2-2; i2>0; --i2)
-          for (int i1=0; i1<n1; ++i1)
+          for (int i1=i1a; i1<i1b; ++i1)
             y[i2][i1] += b*y[i2+1][i1];
 
         // First y.
-        for (int i1=0; i1<n1; ++i1)
+        for (int i1=i1a; i1<i1b; ++i1)
           y[0][i1] = (y[0][i1]+b*y[1][i1])/ss;
 
         // Forward substitution.
         for (int i2=1; i2<n2; ++i2)
-          for (int i1=0; i1<n1; ++i1)
+          for (int i1=i1a; i1<i1b; ++i1)
             y[i2][i1] += b*y[i2-1][i1];
       } 
       
@@ -517,60 +617,6 @@ public class SymmetricTridiagonalFilter {
     }
   }
 
-  /**
-   * Applies the inverse of this filter along the 1st dimension of a 3D array.
-   * @param x input array x; may be the same as the output array y.
-   * @param y output array y; may be the same as the input array x.
-   */
-  public void applyInverse1(final float[][][] x, final float[][][] y) {
-    int n = x.length;
-    Parallel.loop(n,new Parallel.LoopInt() {
-    public void compute(int i) {
-      applyInverse1(x[i],y[i]);
-    }});
-  }
-
-  /**
-   * Applies the inverse of this filter along the 2nd dimension of a 3D array.
-   * @param x input array x; may be the same as the output array y.
-   * @param y output array y; may be the same as the input array x.
-   */
-  public void applyInverse2(final float[][][] x, final float[][][] y) {
-    int n = x.length;
-    Parallel.loop(n,new Parallel.LoopInt() {
-    public void compute(int i) {
-      applyInverse2(x[i],y[i]);
-    }});
-  }
-
-  /**
-   * Applies the inverse of this filter along the 3rd dimension of a 3D array.
-   * @param x input array x; may be the same as the output array y.
-   * @param y output array y; may be the same as the input array x.
-   */
-  public void applyInverse3(float[][][] x, float[][][] y) {
-    int n2 = x[0].length;
-    int n3 = x.length;
-    float[][][] xt = new float[n2][n3][];
-    float[][][] yt = new float[n2][n3][];
-    for (int i2=0; i2<n2; ++i2) {
-      for (int i3=0; i3<n3; ++i3) {
-        xt[i2][i3] = x[i3][i2];
-        yt[i2][i3] = y[i3][i2];
-      }
-    }
-    applyInverse2(xt,yt);
-  }
-
-  ///////////////////////////////////////////////////////////////////////////
-  // private
-
-  private double _af,_ai,_al,_b; // coefficients
-
-  private void checkInvertible() {
-    Check.state(abs(_ai)>=2.0*abs(_b),"filter is invertible");
-  }
-
   ///////////////////////////////////////////////////////////////////////////
   // testing
 
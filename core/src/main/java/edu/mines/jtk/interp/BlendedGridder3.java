@@ -159,6 +159,18 @@ public class BlendedGridder3 implements Gridder3 {
     _tmax = (float)tmax;
   }
 
+  /**
+   * Enables or disables parallel fast sweeping to compute times.
+   * If true, nearest-neighbor gridding uses a {@link TimeSweeper3},
+   * which scales with the number of threads and requires less memory
+   * than the default {@link TimeMarker3}. Times are then within a
+   * small tolerance of those computed by the default time marker.
+   * @param sweeping true, for fast sweeping; false, otherwise.
+   */
+  public void setTimeSweeping(boolean sweeping) {
+    _tsw = sweeping;
+  }
+
   /**
    * Experimental use only.
    */
@@ -348,6 +360,7 @@ public class BlendedGridder3 implements Gridder3 {
   ///////////////////////////////////////////////////////////////////////////
   // private
 
+  private boolean _tsw; // true if using parallel fast sweeping
   private boolean _tmx; // true if using experimental time marker
   private double _tms; // time marker CPU time in seconds
 
@@ -383,7 +396,12 @@ public class BlendedGridder3 implements Gridder3 {
 
     // Use the time marker to compute both times and marks.
     edu.mines.jtk.util.Stopwatch sw = new edu.mines.jtk.util.Stopwatch();
-    if (_tmx) {
+    if (_tsw) {
+      TimeSweeper3 ts = new TimeSweeper3(n1,n2,n3,_tensors);
+      sw.start();
+      ts.apply(t,m);
+      sw.stop();
+    } else if (_tmx) {
       TimeMarker3X tm = new TimeMarker3X(n1,n2,n3,_tensors);
       sw.start();
       tm.apply(t,m);
@@ -157,40 +157,18 @@ public class DiscreteSibsonGridder2 implements Gridder2 {
       }
     }
 
-    // For all uniform sample bins (centers of scattering circles), ...
+    // For all uniform sample bins (centers of scattering circles), find
+    // the circles that extend to nearest known samples. These searches
+    // only read known samples, and are performed in parallel.
+    final int[][] kn = new int[n2][n1];
+    final float[][] fn = new float[n2][n1];
+    searchTiles(k1,k2,c,g,kn,fn);
+
+    // Scatter the nearest function values into all bins inside circles.
     for (int i2=0; i2<n2; ++i2) {
       for (int i1=0; i1<n1; ++i1) {
-
-        // Which bins are inside circle extending to nearest known sample?
-        // Determine the function value for that nearest known sample.
-        int kn = -1;
-        float fn = 0.0f;
-        for (int k=0; k<nk && kn<0; ++k) {
-          int k1k = k1[k];
-          int k2k = k2[k];
-          for (int m2=0,j2=i2-k2k; m2<2; ++m2,j2=i2+k2k) {
-            if (j2<0 || j2>=n2) continue;
-            for (int m1=0,j1=i1-k1k; m1<2; ++m1,j1=i1+k1k) {
-              if (j1<0 || j1>=n1) continue;
-              if (c[j2][j1]<0.0f) { // if sample is known, ...
-                kn = k;
-                fn = g[j2][j1];
-              }
-            }
-          }
-        }
-
-        // By symmetry, each pair of offset indices (k1,k2) actually 
-        // represents four uniformly sampled points. In a rectangular 
-        // sampling grid, either four or eight such points lie equidistant 
-        // from the origin. If eight offsets, then four of them may 
-        // immediately follow the four that we found in the search 
-        // above. Here we include these next four, if necessary.
-        if (kn<nk-1 && k1[kn]==k2[kn+1] && k2[kn]==k1[kn+1])
-          ++kn;
-
-        // Scatter the nearest function value into all bins inside the circle.
-        for (int k=0; k<=kn; ++k) {
+        float fni = fn[i2][i1];
+        for (int k=0; k<=kn[i2][i1]; ++k) {
           int k1k = k1[k];
           int k2k = k2[k];
           for (int m2=0,j2=i2-k2k; m2<2; ++m2,j2=i2+k2k) {
@@ -198,7 +176,7 @@ public class DiscreteSibsonGridder2 implements Gridder2 {
             for (int m1=0,j1=i1-k1k; m1<2; ++m1,j1=i1+k1k) {
               if (j1<0 || j1>=n1) continue;
               if (c[j2][j1]>=0.0f) { // if sample is unknown, ...
-                g[j2][j1] += fn;
+                g[j2][j1] += fni;
                 c[j2][j1] += 1.0f;
               }
             }
@@ -252,4 +230,54 @@ public class DiscreteSibsonGridder2 implements Gridder2 {
   private int _n;
   private float[] _f,_x1,_x2;
   private int _nsmooth;
+
+  // For all bins, finds the number kn of offsets in circles that extend
+  // to nearest known samples, and the values fn of those known samples.
+  private static void searchTiles(
+    final int[] k1, final int[] k2, 
+    final float[][] c, final float[][] g,
+    final int[][] kn, final float[][] fn)
+  {
+    final int n1 = c[0].length;
+    final int n2 = c.length;
+    final int nk = k1.length;
+    GridTiles.loop(n1,n2,new GridTiles.Tile2() {
+      public void compute(int l1, int e1, int l2, int e2) {
+        for (int i2=l2; i2<e2; ++i2) {
+          for (int i1=l1; i1<e1; ++i1) {
+
+            // Which bins are inside circle extending to nearest known 
+            // sample? Determine the value for that nearest known sample.
+            int kni = -1;
+            float fni = 0.0f;
+            for (int k=0; k<nk && kni<0; ++k) {
+              int k1k = k1[k];
+              int k2k = k2[k];
+              for (int m2=0,j2=i2-k2k; m2<2; ++m2,j2=i2+k2k) {
+                if (j2<0 || j2>=n2) continue;
+                for (int m1=0,j1=i1-k1k; m1<2; ++m1,j1=i1+k1k) {
+                  if (j1<0 || j1>=n1) continue;
+                  if (c[j2][j1]<0.0f) { // if sample is known, ...
+                    kni = k;
+                    fni = g[j2][j1];
+                  }
+                }
+              }
+            }
+
+            // By symmetry, each pair of offset indices (k1,k2) actually 
+            // represents four uniformly sampled points. In a rectangular 
+            // sampling grid, either four or eight such points lie 
+            // equidistant from the origin. If eight offsets, then four of 
+            // them may immediately follow the four that we found in the 
+            // search above. Here we include these next four, if necessary.
+            if (kni<nk-1 && k1[kni]==k2[kni+1] && k2[kni]==k1[kni+1])
+              ++kni;
+            kn[i2][i1] = kni;
+            fn[i2][i1] = fni;
+          }
+        }
+      }
+    });
+  }
 }
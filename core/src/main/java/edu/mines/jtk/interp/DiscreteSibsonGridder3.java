@@ -164,45 +164,19 @@ public class DiscreteSibsonGridder3 implements Gridder3 {
     }
     quickIndexSort(ds,kk);
 
-    // For all uniform sample bins (centers of scattering circles), ...
+    // For all uniform sample bins (centers of scattering circles), find
+    // the circles that extend to nearest known samples. These searches
+    // only read known samples, and are performed in parallel.
+    final int[][][] kn = new int[n3][n2][n1];
+    final float[][][] fn = new float[n3][n2][n1];
+    searchTiles(kk,ds,c,g,kn,fn);
+
+    // Scatter the nearest function values into all bins inside circles.
     for (int i3=0; i3<n3; ++i3) {
       for (int i2=0; i2<n2; ++i2) {
         for (int i1=0; i1<n1; ++i1) {
-
-          // Which bins are inside circle extending to nearest known sample?
-          // Determine the function value for that nearest known sample.
-          int kn = -1;
-          float fn = 0.0f;
-          for (int k=0; k<nk && kn<0; ++k) {
-            int ik = kk[k];
-            int k1 = ik%n1; ik /= n1;
-            int k2 = ik%n2; ik /= n2;
-            int k3 = ik;
-            for (int m3=0,j3=i3-k3; m3<3; ++m3,j3=i3+k3) {
-              if (j3==i3 && m3>0) continue;
-              if (j3<0 || j3>=n3) continue;
-              for (int m2=0,j2=i2-k2; m2<2; ++m2,j2=i2+k2) {
-                if (j2==i2 && m2>0) continue;
-                if (j2<0 || j2>=n2) continue;
-                for (int m1=0,j1=i1-k1; m1<2; ++m1,j1=i1+k1) {
-                  if (j1==i1 && m1>0) continue;
-                  if (j1<0 || j1>=n1) continue;
-                  if (c[j3][j2][j1]<0.0f) { // if sample is known, ...
-                    kn = k;
-                    fn = g[j3][j2][j1];
-                  }
-                }
-              }
-            }
-          }
-
-
-          // Look for more bins that are at the same distance.
-          for (float dsk=ds[kk[kn]]; kn+1<nk && dsk==ds[kk[kn+1]]; ++kn)
-            ;
-
-          // Scatter the nearest value into all bins inside the circle.
-          for (int k=0; k<=kn; ++k) {
+          float fni = fn[i3][i2][i1];
+          for (int k=0; k<=kn[i3][i2][i1]; ++k) {
             int ik = kk[k];
             int k1 = ik%n1; ik /= n1;
             int k2 = ik%n2; ik /= n2;
@@ -217,7 +191,7 @@ public class DiscreteSibsonGridder3 implements Gridder3 {
                   if (j1==i1 && m1>0) continue;
                   if (j1<0 || j1>=n1) continue;
                   if (c[j3][j2][j1]>=0.0f) { // if sample is unknown, ...
-                    g[j3][j2][j1] += fn;
+                    g[j3][j2][j1] += fni;
                     c[j3][j2][j1] += 1.0f;
                   }
                 }
@@ -277,4 +251,61 @@ public class DiscreteSibsonGridder3 implements Gridder3 {
   private int _n;
   private float[] _f,_x1,_x2,_x3;
   private int _nsmooth;
+
+  // For all bins, finds the number kn of offsets in circles that extend
+  // to nearest known samples, and the values fn of those known samples.
+  private static void searchTiles(
+    final int[] kk, final float[] ds,
+    final float[][][] c, final float[][][] g,
+    final int[][][] kn, final float[][][] fn)
+  {
+    final int n1 = c[0][0].length;
+    final int n2 = c[0].length;
+    final int n3 = c.length;
+    final int nk = kk.length;
+    GridTiles.loop(n1,n2,n3,new GridTiles.Tile3() {
+      public void compute(int l1, int e1, int l2, int e2, int l3, int e3) {
+        for (int i3=l3; i3<e3; ++i3) {
+          for (int i2=l2; i2<e2; ++i2) {
+            for (int i1=l1; i1<e1; ++i1) {
+
+              // Which bins are inside circle extending to nearest known 
+              // sample? Determine the value for that nearest known sample.
+              int kni = -1;
+              float fni = 0.0f;
+              for (int k=0; k<nk && kni<0; ++k) {
+                int ik = kk[k];
+                int k1 = ik%n1; ik /= n1;
+                int k2 = ik%n2; ik /= n2;
+                int k3 = ik;
+                for (int m3=0,j3=i3-k3; m3<2; ++m3,j3=i3+k3) {
+                  if (j3==i3 && m3>0) continue;
+                  if (j3<0 || j3>=n3) continue;
+                  for (int m2=0,j2=i2-k2; m2<2; ++m2,j2=i2+k2) {
+                    if (j2==i2 && m2>0) continue;
+                    if (j2<0 || j2>=n2) continue;
+                    for (int m1=0,j1=i1-k1; m1<2; ++m1,j1=i1+k1) {
+                      if (j1==i1 && m1>0) continue;
+                      if (j1<0 || j1>=n1) continue;
+                      if (c[j3][j2][j1]<0.0f) { // if sample is known, ...
+                        kni = k;
+                        fni = g[j3][j2][j1];
+                      }
+                    }
+                  }
+                }
+              }
+
+              // Look for more bins that are at the same distance.
+              for (float dsk=ds[kk[kni]]; 
+                   kni+1<nk && dsk==ds[kk[kni+1]]; ++kni)
+                ;
+              kn[i3][i2][i1] = kni;
+              fn[i3][i2][i1] = fni;
+            }
+          }
+        }
+      }
+    });
+  }
 }
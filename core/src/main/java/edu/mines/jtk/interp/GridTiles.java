@@ -0,0 +1,203 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.interp;
+
+import edu.mines.jtk.dsp.Sampling;
+import edu.mines.jtk.util.Parallel;
+
+/**
+ * Parallel processing of 2D and 3D grids in rectangular tiles.
+ * Implementations of {@link Gridder2} and {@link Gridder3} use this
+ * class to compute gridded values in parallel. A grid is partitioned
+ * into non-overlapping tiles, and the tiles are processed concurrently.
+ * Any state required to compute gridded values, such as a cache of
+ * recently found samples, should be constructed for each tile and not
+ * shared among tiles.
+ * <p>
+ * Tiles have a fixed size, so that tiles and the samples within them
+ * do not depend on the number of threads. Therefore, when the values
+ * computed for each grid sample depend only on the tile that contains
+ * it, parallel and serial results are the same.
+ * @author agent
+ * @version 2026.10.19
+ */
+class GridTiles {
+
+  /** Number of grid samples in both dimensions of 2D tiles. */
+  public static final int NTILE2 = 64;
+
+  /** Number of grid samples in all dimensions of 3D tiles. */
+  public static final int NTILE3 = 16;
+
+  /**
+   * A tile in a 2D grid, with sample indices [j1,k1) and [j2,k2).
+   */
+  public interface Tile2 {
+    public void compute(int j1, int k1, int j2, int k2);
+  }
+
+  /**
+   * A tile in a 3D grid, with sample indices [j1,k1), [j2,k2) and [j3,k3).
+   */
+  public interface Tile3 {
+    public void compute(int j1, int k1, int j2, int k2, int j3, int k3);
+  }
+
+  /**
+   * Computes all tiles in a 2D grid.
+   * @param n1 number of samples in 1st dimension.
+   * @param n2 number of samples in 2nd dimension.
+   * @param tile the tile computation.
+   */
+  public static void loop(
+    final int n1, final int n2, final Tile2 tile)
+  {
+    final int m1 = count(n1,NTILE2);
+    final int m2 = count(n2,NTILE2);
+    if (m1*m2==0) return;
+    Parallel.loop(m1*m2,new Parallel.LoopInt() {
+      public void compute(int it) {
+        int j1 = (it%m1)*NTILE2;
+        int j2 = (it/m1)*NTILE2;
+        int k1 = Math.min(j1+NTILE2,n1);
+        int k2 = Math.min(j2+NTILE2,n2);
+        tile.compute(j1,k1,j2,k2);
+      }
+    });
+  }
+
+  /**
+   * Computes all tiles in a 3D grid.
+   * @param n1 number of samples in 1st dimension.
+   * @param n2 number of samples in 2nd dimension.
+   * @param n3 number of samples in 3rd dimension.
+   * @param tile the tile computation.
+   */
+  public static void loop(
+    final int n1, final int n2, final int n3, final Tile3 tile)
+  {
+    final int m1 = count(n1,NTILE3);
+    final int m2 = count(n2,NTILE3);
+    final int m3 = count(n3,NTILE3);
+    if (m1*m2*m3==0) return;
+    Parallel.loop(m1*m2*m3,new Parallel.LoopInt() {
+      public void compute(int it) {
+        int j1 = (it%m1)*NTILE3; it /= m1;
+        int j2 = (it%m2)*NTILE3; it /= m2;
+        int j3 = it*NTILE3;
+        int k1 = Math.min(j1+NTILE3,n1);
+        int k2 = Math.min(j2+NTILE3,n2);
+        int k3 = Math.min(j3+NTILE3,n3);
+        tile.compute(j1,k1,j2,k2,j3,k3);
+      }
+    });
+  }
+
+  /**
+   * Returns the index of the tile that contains the specified sample.
+   * The index is consistent with the tiles computed by the method
+   * {@link #loop(int,int,GridTiles.Tile2)}.
+   * @param n1 number of samples in 1st dimension.
+   * @param i1 sample index in 1st dimension.
+   * @param i2 sample index in 2nd dimension.
+   * @return the tile index.
+   */
+  public static int tileIndex(int n1, int i1, int i2) {
+    return i1/NTILE2+count(n1,NTILE2)*(i2/NTILE2);
+  }
+
+  /**
+   * Returns the index of the tile that contains the specified sample.
+   * The index is consistent with the tiles computed by the method
+   * {@link #loop(int,int,int,GridTiles.Tile3)}.
+   * @param n1 number of samples in 1st dimension.
+   * @param n2 number of samples in 2nd dimension.
+   * @param i1 sample index in 1st dimension.
+   * @param i2 sample index in 2nd dimension.
+   * @param i3 sample index in 3rd dimension.
+   * @return the tile index.
+   */
+  public static int tileIndex(int n1, int n2, int i1, int i2, int i3) {
+    int m1 = count(n1,NTILE3);
+    int m2 = count(n2,NTILE3);
+    return i1/NTILE3+m1*(i2/NTILE3+m2*(i3/NTILE3));
+  }
+
+  /**
+   * Returns the number of tiles in a 2D grid.
+   * @param n1 number of samples in 1st dimension.
+   * @param n2 number of samples in 2nd dimension.
+   * @return the number of tiles.
+   */
+  public static int tileCount(int n1, int n2) {
+    return count(n1,NTILE2)*count(n2,NTILE2);
+  }
+
+  /**
+   * Returns the number of tiles in a 3D grid.
+   * @param n1 number of samples in 1st dimension.
+   * @param n2 number of samples in 2nd dimension.
+   * @param n3 number of samples in 3rd dimension.
+   * @return the number of tiles.
+   */
+  public static int tileCount(int n1, int n2, int n3) {
+    return count(n1,NTILE3)*count(n2,NTILE3)*count(n3,NTILE3);
+  }
+
+  /**
+   * Sorts items, such as scattered samples, by tile index. The sort is 
+   * stable, so that items within each tile remain in their original order.
+   * Items with negative tile indices are not included in the sort.
+   * @param ntile the number of tiles.
+   * @param it array of tile indices, one for each item.
+   * @return array {start,index}; items in tile t have indices index[j] 
+   *  for j in [start[t],start[t+1]).
+   */
+  public static int[][] sort(int ntile, int[] it) {
+    int n = it.length;
+    int[] start = new int[ntile+1];
+    for (int i=0; i<n; ++i)
+      if (it[i]>=0) ++start[it[i]+1];
+    for (int t=0; t<ntile; ++t)
+      start[t+1] += start[t];
+    int[] next = new int[ntile];
+    System.arraycopy(start,0,next,0,ntile);
+    int[] index = new int[start[ntile]];
+    for (int i=0; i<n; ++i)
+      if (it[i]>=0) index[next[it[i]]++] = i;
+    return new int[][]{start,index};
+  }
+
+  /**
+   * Returns values of the specified sampling, converted to floats.
+   * Gridders use these values for the coordinates of grid samples.
+   * @param s the sampling.
+   * @return array of sample values.
+   */
+  public static float[] values(Sampling s) {
+    int n = s.getCount();
+    float[] x = new float[n];
+    for (int i=0; i<n; ++i)
+      x[i] = (float)s.getValue(i);
+    return x;
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  private static int count(int n, int ntile) {
+    return (n+ntile-1)/ntile;
+  }
+}
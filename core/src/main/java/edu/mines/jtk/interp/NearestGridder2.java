@@ -15,14 +15,16 @@ limitations under the License.
 package edu.mines.jtk.interp;
 
 import edu.mines.jtk.dsp.Sampling;
-import edu.mines.jtk.mesh.TriMesh;
 import edu.mines.jtk.util.Check;
+import edu.mines.jtk.util.KdTree;
 import static edu.mines.jtk.util.ArrayMath.*;
 
 /**
  * Nearest neighbor gridding of scattered samples of 2D functions f(x1,x2).
  * Each gridded value is the value of the nearest known (scattered) sample.
  * This gridder can also compute distances to those nearest known samples.
+ * If two or more known samples are equally near, the value of the sample
+ * with the lowest index is used.
  * @author Dave Hale, Colorado School of Mines
  * @version 2009.07.22
  */
@@ -47,38 +49,39 @@ public class NearestGridder2 implements Gridder2 {
    * @param g array of nearest known sample values.
    */
   public void computeDistancesAndValues(
-    Sampling s1, Sampling s2, float[][] d, float[][] g) 
+    Sampling s1, Sampling s2, final float[][] d, final float[][] g) 
   {
-    int n1 = s1.getCount();
-    int n2 = s2.getCount();
-    for (int i2=0; i2<n2; ++i2) {
-      float x2 = (float)s2.getValue(i2);
-      for (int i1=0; i1<n1; ++i1) {
-        float x1 = (float)s1.getValue(i1);
-        TriMesh.Node node = _mesh.findNodeNearest(x1,x2);
-        float d1 = x1-node.x();
-        float d2 = x2-node.y();
-        if (g!=null)
-          g[i2][i1] = _f[node.index];
-        if (d!=null) 
-          d[i2][i1] = sqrt(d1*d1+d2*d2);
+    final float[] x1s = GridTiles.values(s1);
+    final float[] x2s = GridTiles.values(s2);
+    GridTiles.loop(x1s.length,x2s.length,new GridTiles.Tile2() {
+      public void compute(int j1, int k1, int j2, int k2) {
+        float[] p = new float[2];
+        for (int i2=j2; i2<k2; ++i2) {
+          float x2 = p[1] = x2s[i2];
+          for (int i1=j1,ki=-1; i1<k1; ++i1) {
+            float x1 = p[0] = x1s[i1];
+            ki = _tree.findNearest(p,ki);
+            float d1 = x1-_x1[ki];
+            float d2 = x2-_x2[ki];
+            if (g!=null)
+              g[i2][i1] = _f[ki];
+            if (d!=null) 
+              d[i2][i1] = sqrt(d1*d1+d2*d2);
+          }
+        }
       }
-    }
+    });
   }
 
   ///////////////////////////////////////////////////////////////////////////
   // interface Gridder2
 
   public void setScattered(float[] f, float[] x1, float[] x2) {
+    Check.argument(f.length>0,"at least one known sample");
     _f = copy(f);
-    _mesh = new TriMesh();
-    int n = f.length;
-    for (int i=0; i<n; ++i) {
-      TriMesh.Node node = new TriMesh.Node(x1[i],x2[i]);
-      node.index = i;
-      boolean added = _mesh.addNode(node);
-      Check.argument(added,"samples have unique coordinates (x1,x2)");
-    }
+    _x1 = copy(x1);
+    _x2 = copy(x2);
+    _tree = new KdTree(new float[][]{_x1,_x2});
   }
 
   public float[][] grid(Sampling s1, Sampling s2) {
@@ -92,6 +95,6 @@ public class NearestGridder2 implements Gridder2 {
   ///////////////////////////////////////////////////////////////////////////
   // private
 
-  private float[] _f;
-  private TriMesh _mesh;
+  private float[] _f,_x1,_x2;
+  private KdTree _tree;
 }
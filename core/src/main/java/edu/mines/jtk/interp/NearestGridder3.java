@@ -17,14 +17,16 @@ package edu.mines.jtk.interp;
 import java.util.logging.Logger;
 
 import edu.mines.jtk.dsp.Sampling;
-import edu.mines.jtk.mesh.TetMesh;
 import edu.mines.jtk.util.Check;
+import edu.mines.jtk.util.KdTree;
 import static edu.mines.jtk.util.ArrayMath.*;
 
 /**
  * Nearest neighbor gridding of scattered samples of 3D functions f(x1,x2,x3).
  * Each gridded value is the value of the nearest known (scattered) sample.
  * This gridder can also compute distances to those nearest known samples.
+ * If two or more known samples are equally near, the value of the sample
+ * with the lowest index is used.
  * @author Dave Hale, Colorado School of Mines
  * @version 2009.07.22
  */
@@ -51,46 +53,51 @@ public class NearestGridder3 implements Gridder3 {
    * @param g array of nearest known sample values.
    */
   public void computeDistancesAndValues(
-    Sampling s1, Sampling s2, Sampling s3, float[][][] d, float[][][] g) 
+    Sampling s1, Sampling s2, Sampling s3, 
+    final float[][][] d, final float[][][] g) 
   {
-    int n1 = s1.getCount();
-    int n2 = s2.getCount();
-    int n3 = s3.getCount();
-    for (int i3=0; i3<n3; ++i3) {
-      log.fine("computeDistancesAndValues: i3="+i3);
-      float x3 = (float)s3.getValue(i3);
-      for (int i2=0; i2<n2; ++i2) {
-        log.finer("computeDistancesAndValues: i2="+i2);
-        float x2 = (float)s2.getValue(i2);
-        for (int i1=0; i1<n1; ++i1) {
-          float x1 = (float)s1.getValue(i1);
-          TetMesh.Node node = _mesh.findNodeNearest(x1,x2,x3);
-          if (g!=null)
-            g[i3][i2][i1] = _f[node.index];
-          if (d!=null) {
-            float d1 = x1-node.x();
-            float d2 = x2-node.y();
-            float d3 = x3-node.z();
-            d[i3][i2][i1] = sqrt(d1*d1+d2*d2+d3*d3);
+    final float[] x1s = GridTiles.values(s1);
+    final float[] x2s = GridTiles.values(s2);
+    final float[] x3s = GridTiles.values(s3);
+    int n1 = x1s.length;
+    int n2 = x2s.length;
+    int n3 = x3s.length;
+    log.fine("computeDistancesAndValues: n1="+n1+" n2="+n2+" n3="+n3);
+    GridTiles.loop(n1,n2,n3,new GridTiles.Tile3() {
+      public void compute(int j1, int k1, int j2, int k2, int j3, int k3) {
+        float[] p = new float[3];
+        for (int i3=j3; i3<k3; ++i3) {
+          float x3 = p[2] = x3s[i3];
+          for (int i2=j2; i2<k2; ++i2) {
+            float x2 = p[1] = x2s[i2];
+            for (int i1=j1,ki=-1; i1<k1; ++i1) {
+              float x1 = p[0] = x1s[i1];
+              ki = _tree.findNearest(p,ki);
+              if (g!=null)
+                g[i3][i2][i1] = _f[ki];
+              if (d!=null) {
+                float d1 = x1-_x1[ki];
+                float d2 = x2-_x2[ki];
+                float d3 = x3-_x3[ki];
+                d[i3][i2][i1] = sqrt(d1*d1+d2*d2+d3*d3);
+              }
+            }
           }
         }
       }
-    }
+    });
   }
 
   ///////////////////////////////////////////////////////////////////////////
   // interface Gridder2
 
   public void setScattered(float[] f, float[] x1, float[] x2, float[] x3) {
+    Check.argument(f.length>0,"at least one known sample");
     _f = copy(f);
-    _mesh = new TetMesh();
-    int n = f.length;
-    for (int i=0; i<n; ++i) {
-      TetMesh.Node node = new TetMesh.Node(x1[i],x2[i],x3[i]);
-      node.index = i;
-      boolean added = _mesh.addNode(node);
-      Check.argument(added,"samples have unique coordinates (x1,x2,x3)");
-    }
+    _x1 = copy(x1);
+    _x2 = copy(x2);
+    _x3 = copy(x3);
+    _tree = new KdTree(new float[][]{_x1,_x2,_x3});
   }
 
   public float[][][] grid(Sampling s1, Sampling s2, Sampling s3) {
@@ -108,6 +115,6 @@ public class NearestGridder3 implements Gridder3 {
   private static Logger log = 
     Logger.getLogger(NearestGridder3.class.getName());
 
-  private float[] _f;
-  private TetMesh _mesh;
+  private float[] _f,_x1,_x2,_x3;
+  private KdTree _tree;
 }
@@ -18,10 +18,21 @@ import edu.mines.jtk.la.DMatrix;
 import edu.mines.jtk.la.DMatrixLud;
 import edu.mines.jtk.dsp.Sampling;
 import edu.mines.jtk.util.Check;
+import edu.mines.jtk.util.Parallel;
 import static edu.mines.jtk.util.ArrayMath.*;
 
 /**
  * Interpolation of scattered data f(x1,x2) with radial basis functions.
+ * <p>
+ * For basis functions with global support, such as the biharmonic and
+ * Wessel-Bercovici functions, weights are computed by solving a dense
+ * system of equations with cost O(N^3) and memory O(N^2) for N known
+ * samples. These costs are prohibitive for more than about ten thousand
+ * samples. For larger numbers of samples, the compactly supported
+ * Wendland basis function yields a sparse positive-definite system of
+ * equations that is solved iteratively, with cost and memory that grow
+ * only linearly with N for fixed sample density. Interpolated values
+ * then depend only on known samples within the support radius.
  * @author Dave Hale, Colorado School of Mines
  * @version 2010.01.15
  */
@@ -167,6 +178,54 @@ public class RadialInterpolator2 {
     private static final double EULER_GAMMA = 0.577215664901532860606512;
   }
 
+  /**
+   * Wendland's compactly supported basis function g(r) = (1-r)^4*(1+4*r)
+   * for r&lt;1, and g(r) = 0 otherwise. This basis function has two
+   * continuous derivatives, and is positive definite in 2D and 3D.
+   * <p>
+   * A support radius s must be specified; it divides all distances r,
+   * so that the basis function becomes g(r/s), which is zero for r&gt;=s.
+   * With this basis function, weights are computed by solving a sparse
+   * system of equations. The number of non-zero coefficients in each
+   * equation is the number of known samples within distance s, so the
+   * support radius should typically be several times larger than the
+   * average distance between known samples. Larger radii yield smoother
+   * interpolants at the cost of more work to compute weights.
+   * <p>
+   * See Wendland, 1995, Piecewise polynomial, positive definite and
+   * compactly supported radial functions of minimal degree: Advances
+   * in Computational Mathematics, 4, 389-396.
+   */
+  public static class Wendland implements Basis {
+    /**
+     * Constructs a basis for the specified support radius.
+     * @param support the support radius; must be positive.
+     */
+    public Wendland(double support) {
+      Check.argument(support>0.0,"support>0.0");
+      _r = support;
+      _s = 1.0/support;
+    }
+    /**
+     * Gets the support radius for this basis function.
+     * @return the support radius.
+     */
+    public double getSupport() {
+      return _r;
+    }
+    public double evaluate(double r) {
+      double g = 0.0;
+      r *= _s;
+      if (r<1.0) {
+        double q = 1.0-r;
+        q *= q;
+        g = q*q*(1.0+4.0*r);
+      }
+      return g;
+    }
+    private double _r,_s;
+  }
+
   /**
    * Constructs a gridder with specified known (scattered) samples.
    * @param basis the radial basis function.
@@ -185,6 +244,25 @@ public class RadialInterpolator2 {
    */
   public void setBasis(Basis basis) {
     _basis = basis;
+    _w = null;
+  }
+
+  /**
+   * Sets parameters that control the iterative computation of weights.
+   * These parameters are used only for compactly supported basis
+   * functions, for which weights are computed by the method of
+   * conjugate gradients. Iterations end when the norm of the residual
+   * is less than the specified small fraction of the norm of the known
+   * sample values, or when the maximum number of iterations is reached.
+   * The defaults are 0.000001 and 10000, respectively.
+   * @param small stop when norm of residual is less than this factor
+   *  times the norm of the known sample values.
+   * @param niter stop when number of iterations exceeds this limit.
+   */
+  public void setIterations(double small, int niter) {
+    _small = small;
+    _niter = niter;
+    _w = null;
   }
 
   /**
@@ -262,14 +340,7 @@ public class RadialInterpolator2 {
    */
   public float interpolate(float x1, float x2) {
     ensureWeights();
-    double f = 0.0;
-    double x1i = x1;
-    double x2i = x2;
-    for (int k=0; k<_n; ++k) {
-      double x1k = _x1[k];
-      double x2k = _x2[k];
-      f += _w[k]*g(x1k,x2k,x1i,x2i);
-    }
+    double f = (_cells!=null)?sumLocal(x1,x2):sumGlobal(x1,x2);
     float ff = (float)f;
     if (_trend!=null)
       ff = _trend.restore(ff,x1,x2);
@@ -283,16 +354,17 @@ public class RadialInterpolator2 {
    * @return array[n2][n1] of interpolated values.
    */
   public float[][] interpolate(Sampling s1, Sampling s2) {
-    int n1 = s1.getCount();
-    int n2 = s2.getCount();
-    float[][] f = new float[n2][n1];
-    for (int i2=0; i2<n2; ++i2) {
-      float x2 = (float)s2.getValue(i2);
-      for (int i1=0; i1<n1; ++i1) {
-        float x1 = (float)s1.getValue(i1);
-        f[i2][i1] = interpolate(x1,x2);
+    ensureWeights();
+    final float[] x1s = GridTiles.values(s1);
+    final float[] x2s = GridTiles.values(s2);
+    final float[][] f = new float[x2s.length][x1s.length];
+    GridTiles.loop(x1s.length,x2s.length,new GridTiles.Tile2() {
+      public void compute(int j1, int k1, int j2, int k2) {
+        for (int i2=j2; i2<k2; ++i2)
+          for (int i1=j1; i1<k1; ++i1)
+            f[i2][i1] = interpolate(x1s[i1],x2s[i2]);
       }
-    }
+    });
     return f;
   }
 
@@ -316,6 +388,9 @@ public class RadialInterpolator2 {
   private boolean _mt; // true iff using a metric tensor
   private PolyTrend2 _trend; // polynomial trend; null, if none
   private int _order = -1; // order of poly trend; -1, if none
+  private double _small = 0.000001; // stop CG iterations when this small
+  private int _niter = 10000; // maximum number of CG iterations
+  private Cells _cells; // cells of samples, for compact support only
 
   private double g(double x1a, double x2a, double x1b, double x2b) {
     return _basis.evaluate(r(x1a,x2a,x1b,x2b));
@@ -334,6 +409,16 @@ public class RadialInterpolator2 {
   private void ensureWeights() {
     if (_w!=null)
       return;
+    _cells = makeCells();
+    if (_cells!=null) {
+      solveSparse();
+    } else {
+      solveDense();
+    }
+  }
+
+  // Solves for weights with a dense LU decomposition.
+  private void solveDense() {
     DMatrix a = new DMatrix(_n,_n);
     DMatrix b = new DMatrix(_n,1);
     for (int i=0; i<_n; ++i) {
@@ -352,4 +437,220 @@ public class RadialInterpolator2 {
     for (int i=0; i<_n; ++i)
       _w[i] = (float)w.get(i,0);
   }
+
+  // Sum of weighted basis functions for all known samples.
+  private double sumGlobal(double x1, double x2) {
+    double f = 0.0;
+    for (int k=0; k<_n; ++k)
+      f += _w[k]*g(_x1[k],_x2[k],x1,x2);
+    return f;
+  }
+
+  // Sum of weighted basis functions for known samples within support.
+  private double sumLocal(double x1, double x2) {
+    Cells c = _cells;
+    double rs = c.rs;
+    double f = 0.0;
+    int j1 = c.cell1(x1);
+    int j2 = c.cell2(x2);
+    int j1lo = max(j1-1,0), j1hi = min(j1+1,c.nc1-1);
+    int j2lo = max(j2-1,0), j2hi = min(j2+1,c.nc2-1);
+    for (int k2=j2lo; k2<=j2hi; ++k2) {
+      for (int k1=j1lo; k1<=j1hi; ++k1) {
+        int kc = k1+k2*c.nc1;
+        for (int kk=c.start[kc]; kk<c.start[kc+1]; ++kk) {
+          int k = c.index[kk];
+          double r = r(_x1[k],_x2[k],x1,x2);
+          if (r<rs)
+            f += _w[k]*_basis.evaluate(r);
+        }
+      }
+    }
+    return f;
+  }
+
+  // Uniform cells of known samples, each cell at least as large as the
+  // support of the basis in both dimensions, so that all samples within
+  // the support of a point lie in its cell or in the eight neighbor cells.
+  private static class Cells {
+    double rs; // support radius
+    double x1min,x2min; // minimum sample coordinates
+    double d1,d2; // cell dimensions
+    int nc1,nc2; // numbers of cells
+    int[] start; // index of first sample in each cell, plus one
+    int[] index; // indices of samples, sorted by cell
+    int cell1(double x1) {
+      return (int)max(-2.0,min(nc1+1.0,floor((x1-x1min)/d1)));
+    }
+    int cell2(double x2) {
+      return (int)max(-2.0,min(nc2+1.0,floor((x2-x2min)/d2)));
+    }
+  }
+
+  // Makes cells for a compactly supported basis; otherwise, returns null.
+  private Cells makeCells() {
+    if (!(_basis instanceof Wendland) || _n==0)
+      return null;
+    double rs = ((Wendland)_basis).getSupport();
+
+    // Extents of the support in x1 and x2, for any metric tensor.
+    double e1 = rs, e2 = rs;
+    if (_mt) {
+      double det = _m11*_m22-_m12*_m12;
+      if (det<=0.0) // unbounded support, so
+        return null; // use dense solver
+      e1 = rs*sqrt(_m22/det);
+      e2 = rs*sqrt(_m11/det);
+    }
+
+    // Cell dimensions, enlarged if necessary to limit the number of cells.
+    Cells c = new Cells();
+    c.rs = rs;
+    c.x1min = min(_x1);
+    c.x2min = min(_x2);
+    double x1max = max(_x1);
+    double x2max = max(_x2);
+    c.d1 = e1;
+    c.d2 = e2;
+    for (;;) {
+      c.nc1 = 1+(int)floor((x1max-c.x1min)/c.d1);
+      c.nc2 = 1+(int)floor((x2max-c.x2min)/c.d2);
+      if ((long)c.nc1*(long)c.nc2<=4L*_n+16L)
+        break;
+      c.d1 *= 2.0;
+      c.d2 *= 2.0;
+    }
+
+    // Sort sample indices by cell.
+    int nc = c.nc1*c.nc2;
+    int[] kc = new int[_n];
+    c.start = new int[nc+1];
+    for (int k=0; k<_n; ++k) {
+      kc[k] = c.cell1(_x1[k])+c.cell2(_x2[k])*c.nc1;
+      ++c.start[kc[k]+1];
+    }
+    for (int j=0; j<nc; ++j)
+      c.start[j+1] += c.start[j];
+    int[] next = copy(c.start);
+    c.index = new int[_n];
+    for (int k=0; k<_n; ++k)
+      c.index[next[kc[k]]++] = k;
+    return c;
+  }
+
+  // Solves for weights with a sparse matrix and the method of
+  // conjugate gradients, preconditioned by the matrix diagonal.
+  private void solveSparse() {
+    final Cells c = _cells;
+    final int n = _n;
+
+    // Count non-zero coefficients in each row, and then compute them.
+    final int[] ia = new int[n+1];
+    Parallel.loop(n,new Parallel.LoopInt() {
+      public void compute(int i) {
+        ia[i+1] = neighbors(c,i,null,null);
+      }
+    });
+    for (int i=0; i<n; ++i)
+      ia[i+1] += ia[i];
+    final int[] ja = new int[ia[n]];
+    final float[] aa = new float[ia[n]];
+    Parallel.loop(n,new Parallel.LoopInt() {
+      public void compute(int i) {
+        neighbors(c,i,ja,aa,ia[i]);
+      }
+    });
+
+    // Jacobi-preconditioned conjugate gradients.
+    double[] d = new double[n];
+    for (int i=0; i<n; ++i) {
+      for (int k=ia[i]; k<ia[i+1]; ++k)
+        if (ja[k]==i) d[i] = 1.0/aa[k];
+    }
+    double[] x = new double[n];
+    double[] r = new double[n];
+    double[] s = new double[n];
+    double[] p = new double[n];
+    double[] q = new double[n];
+    for (int i=0; i<n; ++i) {
+      r[i] = _f[i];
+      s[i] = d[i]*r[i];
+      p[i] = s[i];
+    }
+    double bnorm = sqrt(dot(r,r));
+    double rs = dot(r,s);
+    for (int iter=0; iter<_niter && sqrt(dot(r,r))>_small*bnorm; ++iter) {
+      multiply(ia,ja,aa,p,q);
+      double alpha = rs/dot(p,q);
+      for (int i=0; i<n; ++i) {
+        x[i] += alpha*p[i];
+        r[i] -= alpha*q[i];
+        s[i] = d[i]*r[i];
+      }
+      double rsold = rs;
+      rs = dot(r,s);
+      double beta = rs/rsold;
+      for (int i=0; i<n; ++i)
+        p[i] = s[i]+beta*p[i];
+    }
+    _w = new float[n];
+    for (int i=0; i<n; ++i)
+      _w[i] = (float)x[i];
+  }
+
+  // Counts the known samples within the support of sample i. If the
+  // specified arrays are not null, stores their indices and basis
+  // function values beginning at the specified index.
+  private int neighbors(Cells c, int i, int[] ja, float[] aa) {
+    return neighbors(c,i,ja,aa,0);
+  }
+  private int neighbors(Cells c, int i, int[] ja, float[] aa, int k0) {
+    double x1 = _x1[i], x2 = _x2[i];
+    int j1 = c.cell1(x1);
+    int j2 = c.cell2(x2);
+    int j1lo = max(j1-1,0), j1hi = min(j1+1,c.nc1-1);
+    int j2lo = max(j2-1,0), j2hi = min(j2+1,c.nc2-1);
+    int k = k0;
+    for (int k2=j2lo; k2<=j2hi; ++k2) {
+      for (int k1=j1lo; k1<=j1hi; ++k1) {
+        int kc = k1+k2*c.nc1;
+        for (int kk=c.start[kc]; kk<c.start[kc+1]; ++kk) {
+          int j = c.index[kk];
+          double r = r(_x1[j],_x2[j],x1,x2);
+          if (r<c.rs) {
+            if (ja!=null) {
+              ja[k] = j;
+              aa[k] = (float)_basis.evaluate(r);
+            }
+            ++k;
+          }
+        }
+      }
+    }
+    return k-k0;
+  }
+
+  // Sparse matrix-vector multiply q = A*p, for A in compressed rows.
+  private static void multiply(
+    final int[] ia, final int[] ja, final float[] aa,
+    final double[] p, final double[] q)
+  {
+    int n = p.length;
+    Parallel.loop(0,n,1,1024,new Parallel.LoopInt() {
+      public void compute(int i) {
+        double qi = 0.0;
+        for (int k=ia[i]; k<ia[i+1]; ++k)
+          qi += aa[k]*p[ja[k]];
+        q[i] = qi;
+      }
+    });
+  }
+
+  private static double dot(double[] x, double[] y) {
+    int n = x.length;
+    double d = 0.0;
+    for (int i=0; i<n; ++i)
+      d += x[i]*y[i];
+    return d;
+  }
 }
@@ -15,6 +15,7 @@ limitations under the License.
 package edu.mines.jtk.interp;
 
 import edu.mines.jtk.dsp.Sampling;
+import edu.mines.jtk.util.Parallel;
 
 /**
  * Simple griding of scattered samples of 2D functions f(x1,x2).
@@ -212,40 +213,68 @@ public class SimpleGridder2 implements Gridder2 {
     _x2 = x2;
   }
 
-  public float[][] grid(Sampling s1, Sampling s2) {
-    int n1 = s1.getCount();
-    int n2 = s2.getCount();
+  public float[][] grid(final Sampling s1, final Sampling s2) {
+    final int n1 = s1.getCount();
+    final int n2 = s2.getCount();
     double d1 = s1.getDelta();
     double d2 = s2.getDelta();
-    double f1 = s1.getFirst();
-    double f2 = s2.getFirst();
-    double l1 = s1.getLast();
-    double l2 = s2.getLast();
-    f1 -= 0.5*d1; l1 += 0.5*d1;
-    f2 -= 0.5*d2; l2 += 0.5*d2;
-    float[][] g = new float[n2][n1];
-    float[][] c = new float[n2][n1];
-    for (int i=0; i<_n; ++i) {
-      double x1 = _x1[i];
-      double x2 = _x2[i];
-      if (f1<=x1 && x1<=l1 && f2<=x2 && x2<=l2) {
-        int i1 = s1.indexOfNearest(x1);
-        int i2 = s2.indexOfNearest(x2);
-        g[i2][i1] += _f[i];
-        c[i2][i1] += 1.0f;
-      }
+    final double f1 = s1.getFirst()-0.5*d1;
+    final double f2 = s2.getFirst()-0.5*d2;
+    final double l1 = s1.getLast()+0.5*d1;
+    final double l2 = s2.getLast()+0.5*d2;
+
+    // Grid indices and tile indices of known samples within bounds.
+    final int[] k1 = new int[_n];
+    final int[] k2 = new int[_n];
+    final int[] kt = new int[_n];
+    if (_n>0) {
+      Parallel.loop(0,_n,1,NCHUNK,new Parallel.LoopInt() {
+        public void compute(int i) {
+          double x1 = _x1[i];
+          double x2 = _x2[i];
+          if (f1<=x1 && x1<=l1 && f2<=x2 && x2<=l2) {
+            k1[i] = s1.indexOfNearest(x1);
+            k2[i] = s2.indexOfNearest(x2);
+            kt[i] = GridTiles.tileIndex(n1,k1[i],k2[i]);
+          } else {
+            kt[i] = -1;
+          }
+        }
+      });
     }
-    for (int i2=0; i2<n2; ++i2) {
-      for (int i1=0; i1<n1; ++i1) {
-        g[i2][i1] = (c[i2][i1]>0.0f)?g[i2][i1]/c[i2][i1]:_fnull;
+
+    // Accumulate known samples in each tile in their original order.
+    int[][] si = GridTiles.sort(GridTiles.tileCount(n1,n2),kt);
+    final int[] start = si[0];
+    final int[] index = si[1];
+    final float[][] g = new float[n2][n1];
+    GridTiles.loop(n1,n2,new GridTiles.Tile2() {
+      public void compute(int j1, int e1, int j2, int e2) {
+        int it = GridTiles.tileIndex(n1,j1,j2);
+        float[][] c = new float[e2-j2][e1-j1];
+        for (int k=start[it]; k<start[it+1]; ++k) {
+          int i = index[k];
+          int i1 = k1[i];
+          int i2 = k2[i];
+          g[i2][i1] += _f[i];
+          c[i2-j2][i1-j1] += 1.0f;
+        }
+        for (int i2=j2; i2<e2; ++i2) {
+          for (int i1=j1; i1<e1; ++i1) {
+            float ci = c[i2-j2][i1-j1];
+            g[i2][i1] = (ci>0.0f)?g[i2][i1]/ci:_fnull;
+          }
+        }
       }
-    }
+    });
     return g;
   }
 
   ///////////////////////////////////////////////////////////////////////////
   // private
 
+  private static final int NCHUNK = 1024; // samples per parallel chunk
+
   private int _n;
   private float _fnull;
   private float[] _f,_x1,_x2;
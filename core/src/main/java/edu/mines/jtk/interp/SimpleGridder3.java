@@ -15,6 +15,7 @@ limitations under the License.
 package edu.mines.jtk.interp;
 
 import edu.mines.jtk.dsp.Sampling;
+import edu.mines.jtk.util.Parallel;
 
 /**
  * Simple griding of scattered samples of 3D functions f(x1,x2,x3).
@@ -111,51 +112,80 @@ public class SimpleGridder3 implements Gridder3 {
     _x3 = x3;
   }
 
-  public float[][][] grid(Sampling s1, Sampling s2, Sampling s3) {
-    int n1 = s1.getCount();
-    int n2 = s2.getCount();
-    int n3 = s3.getCount();
+  public float[][][] grid(
+    final Sampling s1, final Sampling s2, final Sampling s3) 
+  {
+    final int n1 = s1.getCount();
+    final int n2 = s2.getCount();
+    final int n3 = s3.getCount();
     double d1 = s1.getDelta();
     double d2 = s2.getDelta();
     double d3 = s3.getDelta();
-    double f1 = s1.getFirst();
-    double f2 = s2.getFirst();
-    double f3 = s3.getFirst();
-    double l1 = s1.getLast();
-    double l2 = s2.getLast();
-    double l3 = s3.getLast();
-    f1 -= 0.5*d1; l1 += 0.5*d1;
-    f2 -= 0.5*d2; l2 += 0.5*d2;
-    f3 -= 0.5*d3; l3 += 0.5*d3;
-    float[][][] g = new float[n3][n2][n1];
-    float[][][] c = new float[n3][n2][n1];
-    for (int i=0; i<_n; ++i) {
-      double x1 = _x1[i];
-      double x2 = _x2[i];
-      double x3 = _x3[i];
-      if (f1<=x1 && x1<=l1 && f2<=x2 && x2<=l2 && f3<=x3 && x3<=l3) {
-        int i1 = s1.indexOfNearest(x1);
-        int i2 = s2.indexOfNearest(x2);
-        int i3 = s3.indexOfNearest(x3);
-        g[i3][i2][i1] += _f[i];
-        c[i3][i2][i1] += 1.0f;
-      }
+    final double f1 = s1.getFirst()-0.5*d1;
+    final double f2 = s2.getFirst()-0.5*d2;
+    final double f3 = s3.getFirst()-0.5*d3;
+    final double l1 = s1.getLast()+0.5*d1;
+    final double l2 = s2.getLast()+0.5*d2;
+    final double l3 = s3.getLast()+0.5*d3;
+
+    // Grid indices and tile indices of known samples within bounds.
+    final int[] k1 = new int[_n];
+    final int[] k2 = new int[_n];
+    final int[] k3 = new int[_n];
+    final int[] kt = new int[_n];
+    if (_n>0) {
+      Parallel.loop(0,_n,1,NCHUNK,new Parallel.LoopInt() {
+        public void compute(int i) {
+          double x1 = _x1[i];
+          double x2 = _x2[i];
+          double x3 = _x3[i];
+          if (f1<=x1 && x1<=l1 && f2<=x2 && x2<=l2 && f3<=x3 && x3<=l3) {
+            k1[i] = s1.indexOfNearest(x1);
+            k2[i] = s2.indexOfNearest(x2);
+            k3[i] = s3.indexOfNearest(x3);
+            kt[i] = GridTiles.tileIndex(n1,n2,k1[i],k2[i],k3[i]);
+          } else {
+            kt[i] = -1;
+          }
+        }
+      });
     }
-    for (int i3=0; i3<n3; ++i3) {
-      for (int i2=0; i2<n2; ++i2) {
-        for (int i1=0; i1<n1; ++i1) {
-          g[i3][i2][i1] = (c[i3][i2][i1]>0.0f) ?
-            g[i3][i2][i1]/c[i3][i2][i1] :
-            _fnull;
+
+    // Accumulate known samples in each tile in their original order.
+    int[][] si = GridTiles.sort(GridTiles.tileCount(n1,n2,n3),kt);
+    final int[] start = si[0];
+    final int[] index = si[1];
+    final float[][][] g = new float[n3][n2][n1];
+    GridTiles.loop(n1,n2,n3,new GridTiles.Tile3() {
+      public void compute(int j1, int e1, int j2, int e2, int j3, int e3) {
+        int it = GridTiles.tileIndex(n1,n2,j1,j2,j3);
+        float[][][] c = new float[e3-j3][e2-j2][e1-j1];
+        for (int k=start[it]; k<start[it+1]; ++k) {
+          int i = index[k];
+          int i1 = k1[i];
+          int i2 = k2[i];
+          int i3 = k3[i];
+          g[i3][i2][i1] += _f[i];
+          c[i3-j3][i2-j2][i1-j1] += 1.0f;
+        }
+        for (int i3=j3; i3<e3; ++i3) {
+          for (int i2=j2; i2<e2; ++i2) {
+            for (int i1=j1; i1<e1; ++i1) {
+              float ci = c[i3-j3][i2-j2][i1-j1];
+              g[i3][i2][i1] = (ci>0.0f)?g[i3][i2][i1]/ci:_fnull;
+            }
+          }
         }
       }
-    }
+    });
     return g;
   }
 
   ///////////////////////////////////////////////////////////////////////////
   // private
 
+  private static final int NCHUNK = 1024; // samples per parallel chunk
+
   private int _n;
   private float _fnull;
   private float[] _f,_x1,_x2,_x3;
@@ -19,6 +19,7 @@ import java.util.logging.Logger;
 
 import edu.mines.jtk.dsp.*;
 import edu.mines.jtk.util.Check;
+import edu.mines.jtk.util.Parallel;
 import static edu.mines.jtk.util.ArrayMath.*;
 
 /**
@@ -434,37 +435,52 @@ public class SplinesGridder2 implements Gridder2 {
   private static void scopy(float[][] x, float[][] y) {
     copy(x,y);
   }
-  private static float sdot(float[][] x, float[][] y) {
-    int n1 = x[0].length;
-    int n2 = x.length;
-    float d = 0.0f;
-    for (int i2=0; i2<n2; ++i2) {
-      float[] x2 = x[i2], y2 = y[i2];
-      for (int i1=0; i1<n1; ++i1) {
-        d += x2[i1]*y2[i1];
+  private static float sdot(final float[][] x, final float[][] y) {
+    final int n1 = x[0].length;
+    final int n2 = x.length;
+    final float[] d2 = new float[n2];
+    Parallel.loop(n2,new Parallel.LoopInt() {
+      public void compute(int i2) {
+        float[] x2 = x[i2], y2 = y[i2];
+        float d = 0.0f;
+        for (int i1=0; i1<n1; ++i1) {
+          d += x2[i1]*y2[i1];
+        }
+        d2[i2] = d;
       }
-    }
+    });
+    float d = 0.0f;
+    for (int i2=0; i2<n2; ++i2)
+      d += d2[i2];
     return d;
   }
-  private static void saxpy(float a, float[][] x, float[][] y) {
-    int n1 = x[0].length;
-    int n2 = x.length;
-    for (int i2=0; i2<n2; ++i2) {
-      float[] x2 = x[i2], y2 = y[i2];
-      for (int i1=0; i1<n1; ++i1) {
-        y2[i1] += a*x2[i1];
+  private static void saxpy(
+    final float a, final float[][] x, final float[][] y) 
+  {
+    final int n1 = x[0].length;
+    final int n2 = x.length;
+    Parallel.loop(n2,new Parallel.LoopInt() {
+      public void compute(int i2) {
+        float[] x2 = x[i2], y2 = y[i2];
+        for (int i1=0; i1<n1; ++i1) {
+          y2[i1] += a*x2[i1];
+        }
       }
-    }
+    });
   }
-  private static void sxpay(float a, float[][] x, float[][] y) {
-    int n1 = x[0].length;
-    int n2 = x.length;
-    for (int i2=0; i2<n2; ++i2) {
-      float[] x2 = x[i2], y2 = y[i2];
-      for (int i1=0; i1<n1; ++i1) {
-        y2[i1] = a*y2[i1]+x2[i1];
+  private static void sxpay(
+    final float a, final float[][] x, final float[][] y) 
+  {
+    final int n1 = x[0].length;
+    final int n2 = x.length;
+    Parallel.loop(n2,new Parallel.LoopInt() {
+      public void compute(int i2) {
+        float[] x2 = x[i2], y2 = y[i2];
+        for (int i1=0; i1<n1; ++i1) {
+          y2[i1] = a*y2[i1]+x2[i1];
+        }
       }
-    }
+    });
   }
   private static void smoothS(float[][] x, float[][] y) {
     int n1 = x[0].length;
@@ -104,7 +104,7 @@ class TimeMarker2X {
   public void apply(float[][] times, int[][] marks) {
 
     // Make a heap of the known samples.
-    TimeHeap2 theap = makeTimeHeap(times,marks);
+    TimeQueue2 theap = makeTimeHeap(times,marks);
     int nk = theap.size();
 
     // Initialize all times to infinity.
@@ -124,7 +124,7 @@ class TimeMarker2X {
     for (int ik=0; ik<nk; ++ik) {
 
       // Remove known sample with largest time from the heap.
-      TimeHeap2.Entry ek = theap.remove();
+      TimeQueue2.Entry ek = theap.remove();
       int k1 = ek.i1;
       int k2 = ek.i2;
       int m = ek.mark;
@@ -302,7 +302,7 @@ class TimeMarker2X {
    * Returns a heap of known samples. At the top of the heap is
    * the known sample nearest to the middle of the sampling grid.
    */
-  private TimeHeap2 makeTimeHeap(float[][] times, int[][] marks) {
+  private TimeQueue2 makeTimeHeap(float[][] times, int[][] marks) {
 
     // Marks and indices of known samples.
     int[][] kk = indexKnownSamples(times,marks);
@@ -330,7 +330,7 @@ class TimeMarker2X {
 
     // Build a heap of known samples. Ensure that the sample nearest 
     // the middle of the sampling grid is at the top of the heap.
-    TimeHeap2 theap = new TimeHeap2(TimeHeap2.Type.MAX,_n1,_n2);
+    TimeQueue2 theap = new TimeQueue2(TimeQueue2.Type.MAX,_n1,_n2);
     for (int ik=0; ik<nk; ++ik) {
       if (ik==ikmid) {
         theap.insert(k1[ik],k2[ik],INFINITY,km[ik]);
@@ -348,7 +348,7 @@ class TimeMarker2X {
    * to known samples that were activated by the solver.
    */
   private void updateTimeHeap(
-    float[][] times, int[][] marks, TimeHeap2.Entry ek, TimeHeap2 theap)
+    float[][] times, int[][] marks, TimeQueue2.Entry ek, TimeQueue2 theap)
   {
     if (theap.isEmpty()) 
       return;
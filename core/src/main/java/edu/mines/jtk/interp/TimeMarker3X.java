@@ -112,7 +112,7 @@ class TimeMarker3X {
     log.fine("TimeMarker3X.apply: begin time="+(int)sw.time());
 
     // Make a heap of the known samples.
-    TimeHeap3 theap = makeTimeHeap(times,marks);
+    TimeQueue3 theap = makeTimeHeap(times,marks);
     int nk = theap.size();
     log.fine("TimeMarker3X.apply: heap time="+(int)sw.time());
 
@@ -137,7 +137,7 @@ class TimeMarker3X {
         log.fine("  apply: ik/nk="+ik+"/"+nk+" time="+(int)sw.time());
 
       // Remove known sample with largest time from the heap.
-      TimeHeap3.Entry ek = theap.remove();
+      TimeQueue3.Entry ek = theap.remove();
       int k1 = ek.i1;
       int k2 = ek.i2;
       int k3 = ek.i3;
@@ -348,7 +348,7 @@ class TimeMarker3X {
    * Returns a heap of known samples. At the top of the heap is
    * the known sample nearest to the middle of the sampling grid.
    */
-  private TimeHeap3 makeTimeHeap(float[][][] times, int[][][] marks) {
+  private TimeQueue3 makeTimeHeap(float[][][] times, int[][][] marks) {
 
     // Marks and indices of known samples.
     int[][] kk = indexKnownSamples(times,marks);
@@ -380,7 +380,7 @@ class TimeMarker3X {
 
     // Build a heap of known samples. Ensure that the sample nearest 
     // the middle of the sampling grid is at the top of the heap.
-    TimeHeap3 theap = new TimeHeap3(TimeHeap3.Type.MAX,_n1,_n2,_n3);
+    TimeQueue3 theap = new TimeQueue3(TimeQueue3.Type.MAX,_n1,_n2,_n3);
     for (int ik=0; ik<nk; ++ik) {
       if (ik==ikmid) {
         theap.insert(k1[ik],k2[ik],k3[ik],INFINITY,km[ik]);
@@ -398,7 +398,7 @@ class TimeMarker3X {
    * to known samples that were activated by the solver.
    */
   private void updateTimeHeap(
-    float[][][] times, int[][][] marks, TimeHeap3.Entry ek, TimeHeap3 theap)
+    float[][][] times, int[][][] marks, TimeQueue3.Entry ek, TimeQueue3 theap)
   {
     if (theap.isEmpty()) 
       return;
@@ -0,0 +1,369 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.interp;
+
+import edu.mines.jtk.util.Check;
+
+/**
+ * A monotone min- or max-priority queue of times sampled in a 2D array.
+ * This queue is an alternative to {@link TimeHeap2} with the same methods,
+ * and may be used wherever the sequence of times removed is monotonic,
+ * as in fast marching methods. Specifically, for a min-queue, times
+ * inserted or reduced must not be less than the time most recently
+ * removed. For a max-queue, times inserted must not be greater than
+ * the time most recently removed; times reduced may have any value.
+ * These constraints are removed when the queue becomes empty.
+ * <p>
+ * This queue is a radix heap. Times are mapped to 32-bit integer keys
+ * that preserve their order, and entries are kept in 33 buckets, where
+ * the bucket for each entry is the position of the most significant bit
+ * in which its key differs from that of the entry most recently removed.
+ * Insertions and reductions are O(1). Removals have amortized complexity
+ * O(log C), where C is the range of keys, independent of the number of
+ * entries in the queue.
+ * <p>
+ * All entries are stored in arrays of primitive values. Like the heap,
+ * this queue maintains a map of entries in a 2D array of indices that
+ * enables O(1) access to entries with specified array indices.
+ *
+ * @author agent
+ * @version 2026.10.19
+ */
+class TimeQueue2 {
+
+  /**
+   * The queue type determines whether the entry removed has the minimum
+   * or maximum time.
+   */
+  public enum Type {MIN,MAX}
+
+  /**
+   * An entry removed from the queue has sample indices (i1,i2), a time
+   * and a mark. The mark is for external use and is not used by the queue.
+   */
+  public static class Entry {
+    public int i1,i2;
+    public float time;
+    public int mark;
+  }
+
+  /**
+   * Constructs a queue with specified type and array dimensions.
+   * @param type the type of queue.
+   * @param n1 number of samples in 1st dimension.
+   * @param n2 number of samples in 2nd dimension.
+   */
+  public TimeQueue2(Type type, int n1, int n2) {
+    _type = type;
+    _n1 = n1;
+    _n2 = n2;
+    _imap = new int[n2][n1];
+    clear();
+  }
+
+  /**
+   * Gets the type of this queue.
+   * @return the type.
+   */
+  public Type getType() {
+    return _type;
+  }
+
+  /**
+   * Gets the number of samples in the 1st dimension.
+   * @return the number of samples.
+   */
+  public int getN1() {
+    return _n1;
+  }
+
+  /**
+   * Gets the number of samples in the 2nd dimension.
+   * @return the number of samples.
+   */
+  public int getN2() {
+    return _n2;
+  }
+
+  /**
+   * Inserts a new entry into this queue with specified time and indices.
+   * The queue must not already contain an entry with those indices.
+   * @param i1 the sample index in 1st dimension.
+   * @param i2 the sample index in 2nd dimension.
+   * @param time the time.
+   */
+  public void insert(int i1, int i2, float time) {
+    insert(i1,i2,time,0);
+  }
+
+  /**
+   * Inserts a new entry into this queue with specified time and indices.
+   * The queue must not already contain an entry with those indices.
+   * @param i1 the sample index in 1st dimension.
+   * @param i2 the sample index in 2nd dimension.
+   * @param time the time.
+   * @param mark a mark to associate with the new entry.
+   */
+  public void insert(int i1, int i2, float time, int mark) {
+    int i = indexOf(i1,i2);
+    Check.argument(i<0,"entry with indices (i1,i2) is not in the queue");
+    int key = keyOf(time);
+    Check.argument(!less(key,_last),"time is consistent with last removed");
+    if (_n==_k.length) // if necessary, ...
+      grow(_n+1); // increase the capacity of this queue
+    i = _n++;
+    _i1[i] = i1;
+    _i2[i] = i2;
+    _t[i] = time;
+    _m[i] = mark;
+    _k[i] = key;
+    _imap[i2][i1] = i;
+    link(i,bucketOf(key));
+  }
+
+  /**
+   * Reduces the time of the entry in this queue with specified indices.
+   * This queue must already contain an entry with those indices, and
+   * the specified time must be less than the time for that entry.
+   * @param i1 the sample index in 1st dimension.
+   * @param i2 the sample index in 2nd dimension.
+   * @param time the reduced time.
+   */
+  public void reduce(int i1, int i2, float time) {
+    int i = indexOf(i1,i2);
+    Check.argument(i>=0,"entry with indices (i1,i2) is in the queue");
+    Check.argument(time<_t[i],"specified time less than time in queue");
+    int key = keyOf(time);
+    Check.argument(!less(key,_last),"time is consistent with last removed");
+    unlink(i);
+    _t[i] = time;
+    _k[i] = key;
+    link(i,bucketOf(key));
+  }
+
+  /**
+   * Removes and returns the entry with smallest/largest time.
+   * The queue must not be empty. The returned entry is owned by
+   * this queue, and is overwritten by the next call to this method.
+   * @return the removed entry.
+   */
+  public Entry remove() {
+    Check.state(_n>0,"queue is not empty");
+
+    // If bucket zero is empty, find the first non-empty bucket and
+    // its smallest key, which becomes the last key removed. Then move
+    // all entries in that bucket into buckets with lower indices.
+    if (_head[0]<0) {
+      int b = 1;
+      while (_head[b]<0)
+        ++b;
+      int kmin = _k[_head[b]];
+      for (int i=_next[_head[b]]; i>=0; i=_next[i])
+        if (less(_k[i],kmin)) kmin = _k[i];
+      _last = kmin;
+      int i = _head[b];
+      _head[b] = -1;
+      while (i>=0) {
+        int inext = _next[i];
+        link(i,bucketOf(_k[i]));
+        i = inext;
+      }
+    }
+
+    // Remove an entry from bucket zero.
+    int i = _head[0];
+    _entry.i1 = _i1[i];
+    _entry.i2 = _i2[i];
+    _entry.time = _t[i];
+    _entry.mark = _m[i];
+    unlink(i);
+    move(--_n,i);
+    if (_n==0)
+      _last = 0;
+    return _entry;
+  }
+
+  /**
+   * Determines whether this queue contains an entry with specified indices.
+   * @param i1 the sample index in 1st dimension.
+   * @param i2 the sample index in 2nd dimension.
+   * @return true, if in the queue; false, otherwise.
+   */
+  public boolean contains(int i1, int i2) {
+    return indexOf(i1,i2)>=0;
+  }
+
+  /**
+   * Removes all entries from this queue.
+   */
+  public void clear() {
+    _n = 0;
+    _last = 0;
+    for (int b=0; b<NBUCKET; ++b)
+      _head[b] = -1;
+  }
+
+  /**
+   * Returns the number of entries in this queue.
+   */
+  public int size() {
+    return _n;
+  }
+
+  /**
+   * Returns true if this queue is empty; false, otherwise.
+   */
+  public boolean isEmpty() {
+    return _n==0;
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  private static final int NBUCKET = 33; // one more than bits per key
+
+  private Type _type; // queue type, either MIN or MAX
+  private int _n1,_n2; // array dimensions
+  private int _n; // number of entries in this queue
+  private int _last; // key of the entry most recently removed
+  private int[][] _imap; // maps array indices (i1,i2) to entry index i
+  private int[] _head = new int[NBUCKET]; // first entry in each bucket
+  private Entry _entry = new Entry(); // the entry returned by remove
+  private int[] _i1 = new int[1024]; // entry sample indices i1
+  private int[] _i2 = new int[1024]; // entry sample indices i2
+  private float[] _t = new float[1024]; // entry times
+  private int[] _m = new int[1024]; // entry marks
+  private int[] _k = new int[1024]; // entry keys
+  private int[] _b = new int[1024]; // entry buckets
+  private int[] _next = new int[1024]; // next entry in bucket, or -1
+  private int[] _prev = new int[1024]; // previous entry in bucket, or -1
+
+  /**
+   * Returns the index of the entry with array indices (i1,i2).
+   * If such an entry is not in the queue, this method returns -1, but
+   * throws an exception if the indices are out of bounds.
+   */
+  private int indexOf(int i1, int i2) {
+    int i = _imap[i2][i1];
+    if (i<0 || i>=_n)
+      return -1;
+    if (_i1[i]!=i1 || _i2[i]!=i2)
+      return -1;
+    return i;
+  }
+
+  /**
+   * Returns a key with unsigned order consistent with the type of queue.
+   * Keys for a min-queue increase with time; keys for a max-queue
+   * decrease with time.
+   */
+  private int keyOf(float time) {
+    int bits = Float.floatToIntBits(time);
+    if (bits<0) bits ^= 0x7fffffff; // signed order now same as time
+    return (_type==Type.MIN)?bits^0x80000000:bits^0x7fffffff;
+  }
+
+  /**
+   * Returns true if key ka is less than key kb, both unsigned.
+   */
+  private static boolean less(int ka, int kb) {
+    return (ka^0x80000000)<(kb^0x80000000);
+  }
+
+  /**
+   * Returns the bucket for the specified key.
+   */
+  private int bucketOf(int key) {
+    return 32-Integer.numberOfLeadingZeros(key^_last);
+  }
+
+  /**
+   * Puts the entry with index i at the front of bucket b.
+   */
+  private void link(int i, int b) {
+    int h = _head[b];
+    _b[i] = b;
+    _prev[i] = -1;
+    _next[i] = h;
+    if (h>=0) _prev[h] = i;
+    _head[b] = i;
+  }
+
+  /**
+   * Removes the entry with index i from its bucket.
+   */
+  private void unlink(int i) {
+    int p = _prev[i];
+    int n = _next[i];
+    if (p>=0) {
+      _next[p] = n;
+    } else {
+      _head[_b[i]] = n;
+    }
+    if (n>=0) _prev[n] = p;
+  }
+
+  /**
+   * Moves the entry with index i to index j, overwriting entry j.
+   */
+  private void move(int i, int j) {
+    if (i==j)
+      return;
+    _i1[j] = _i1[i];
+    _i2[j] = _i2[i];
+    _t[j] = _t[i];
+    _m[j] = _m[i];
+    _k[j] = _k[i];
+    _b[j] = _b[i];
+    int p = _prev[j] = _prev[i];
+    int n = _next[j] = _next[i];
+    if (p>=0) {
+      _next[p] = j;
+    } else {
+      _head[_b[j]] = j;
+    }
+    if (n>=0) _prev[n] = j;
+    _imap[_i2[j]][_i1[j]] = j;
+  }
+
+  /**
+   * Grows this queue to have at least the specified capacity.
+   */
+  private void grow(int minCapacity) {
+    if (minCapacity<0) // overflow
+      throw new OutOfMemoryError();
+    int oldCapacity = _k.length;
+    int newCapacity = oldCapacity*2;
+    if (newCapacity<0) // overflow
+      newCapacity = Integer.MAX_VALUE;
+    if (newCapacity<minCapacity)
+      newCapacity = minCapacity;
+    _i1 = copy(_i1,newCapacity);
+    _i2 = copy(_i2,newCapacity);
+    _m = copy(_m,newCapacity);
+    _k = copy(_k,newCapacity);
+    _b = copy(_b,newCapacity);
+    _next = copy(_next,newCapacity);
+    _prev = copy(_prev,newCapacity);
+    float[] t = new float[newCapacity];
+    System.arraycopy(_t,0,t,0,_n);
+    _t = t;
+  }
+  private int[] copy(int[] a, int capacity) {
+    int[] b = new int[capacity];
+    System.arraycopy(a,0,b,0,_n);
+    return b;
+  }
+}
@@ -0,0 +1,415 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.interp;
+
+import java.util.logging.Logger;
+
+import edu.mines.jtk.dsp.Tensors3;
+import edu.mines.jtk.util.Parallel;
+import edu.mines.jtk.util.Stopwatch;
+import static edu.mines.jtk.util.ArrayMath.*;
+
+/**
+ * A parallel fast-sweeping time and closest-point transform for 3D
+ * anisotropic eikonal equations. Like {@link TimeMarker3}, this transform
+ * converts an array of times and marks for known samples into an array
+ * of times and marks for all samples. Known samples are those for which
+ * times are zero, and times and marks for known samples are not modified.
+ * <p>
+ * Times for unknown samples are computed by solving the anisotropic
+ * eikonal equation grad(t) dot W grad(t) = 1, where W denotes a
+ * positive-definite (velocity-squared) metric tensor field. Unlike
+ * {@link TimeMarker3}, which computes a separate solution for each
+ * known sample, this transform computes one solution for which all
+ * known samples are sources. Marks propagate with times; when the time
+ * for an unknown sample decreases, that sample gets the mark of the
+ * neighbors used to compute the new time. Only neighbors with the same
+ * mark are used together to compute a time.
+ * <p>
+ * Times are computed with Gauss-Seidel sweeps in eight alternating
+ * directions. Within each sweep, samples are visited plane by plane,
+ * where planes are defined by constant sums of sample indices. Because
+ * the six-neighbor stencil couples no two samples in the same plane,
+ * samples within each plane are processed in parallel, and the output
+ * does not depend on the number of threads. Sweeps are repeated until
+ * no time decreases by more than a small fraction. This transform
+ * requires no memory beyond the arrays of times and marks.
+ * <p>
+ * Output times are typically within a small fraction of a percent of
+ * those computed by {@link TimeMarker3}. Differences are largest near
+ * boundaries between regions with different marks, and output marks may
+ * differ for samples that are nearly equidistant (in time) from two or
+ * more known samples.
+ * <p>
+ * Reference: Detrixhe, M., F. Gibou, and C. Min, 2013, A parallel fast
+ * sweeping method for the eikonal equation: Journal of Computational
+ * Physics, 237, 46-55.
+ * @author agent
+ * @version 2026.10.19
+ */
+public class TimeSweeper3 {
+
+  /**
+   * Constructs a time sweeper for the specified tensor field.
+   * @param n1 number of samples in 1st dimension.
+   * @param n2 number of samples in 2nd dimension.
+   * @param n3 number of samples in 3rd dimension.
+   * @param tensors velocity-squared tensors.
+   */
+  public TimeSweeper3(int n1, int n2, int n3, Tensors3 tensors) {
+    _n1 = n1;
+    _n2 = n2;
+    _n3 = n3;
+    _tensors = tensors;
+  }
+
+  /**
+   * Sets the tensors used by this time sweeper.
+   * @param tensors the tensors.
+   */
+  public void setTensors(Tensors3 tensors) {
+    _tensors = tensors;
+  }
+
+  /**
+   * Sets the maximum number of iterations. In each iteration, this
+   * transform sweeps eight times through all samples. The default
+   * maximum is large enough that iterations typically end only when
+   * times have converged.
+   * @param niter the maximum number of iterations.
+   */
+  public void setMaxIterations(int niter) {
+    _niter = niter;
+  }
+
+  /**
+   * Transforms the specified array of times and marks.
+   * Known samples are those for which times are zero, and times
+   * and marks for these known samples are used to compute times
+   * and marks for unknown samples.
+   * @param times input/output array of times.
+   * @param marks input/output array of marks.
+   */
+  public void apply(float[][][] times, int[][][] marks) {
+
+    // Measure elapsed time in seconds.
+    Stopwatch sw = new Stopwatch();
+    sw.start();
+    log.fine("TimeSweeper3.apply: begin time="+(int)sw.time());
+
+    // Initialize all unknown times to infinity.
+    for (int i3=0; i3<_n3; ++i3) {
+      for (int i2=0; i2<_n2; ++i2) {
+        for (int i1=0; i1<_n1; ++i1) {
+          if (times[i3][i2][i1]!=0.0f)
+            times[i3][i2][i1] = INFINITY;
+        }
+      }
+    }
+
+    // Sweep in all eight directions until times have converged.
+    boolean changed = true;
+    for (int iter=0; iter<_niter && changed; ++iter) {
+      changed = false;
+      for (int d3=-1; d3<=1; d3+=2) {
+        for (int d2=-1; d2<=1; d2+=2) {
+          for (int d1=-1; d1<=1; d1+=2) {
+            if (sweep(d1,d2,d3,times,marks))
+              changed = true;
+          }
+        }
+      }
+      log.fine("  apply: iter="+iter+" time="+(int)sw.time());
+    }
+
+    // Log elapsed time.
+    sw.stop();
+    log.fine("TimeSweeper3.apply: end time="+(int)sw.time());
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  private static Logger log =
+    Logger.getLogger(TimeSweeper3.class.getName());
+
+  // Default time for samples not yet computed.
+  private static final float INFINITY = Float.MAX_VALUE;
+
+  // Times are converged when the fractional change is less than this value.
+  private static final float EPSILON = 0.001f;
+  private static final float ONE_MINUS_EPSILON = 1.0f-EPSILON;
+
+  private int _n1,_n2,_n3;
+  private Tensors3 _tensors;
+  private int _niter = 1000;
+
+  // Sets of neighbor sample offsets used to compute times, ordered
+  // so that tets are first, tris next, and edges last. Tets are
+  // defined by three non-zero offsets, tris by two, and edges by one.
+  private static final int[] K1S = {
+    -1, 1,-1, 1,-1, 1,-1, 1,             //    8 tets
+    -1, 1,-1, 1,-1, 1,-1, 1, 0, 0, 0, 0, // + 12 tris
+    -1, 1, 0, 0, 0, 0};                  // +  6 edges = 26 cases
+  private static final int[] K2S = {
+    -1,-1, 1, 1,-1,-1, 1, 1,
+    -1,-1, 1, 1, 0, 0, 0, 0,-1, 1,-1, 1,
+     0, 0,-1, 1, 0, 0};
+  private static final int[] K3S = {
+    -1,-1,-1,-1, 1, 1, 1, 1,
+     0, 0, 0, 0,-1,-1, 1, 1,-1,-1, 1, 1,
+     0, 0, 0, 0,-1, 1};
+
+  /*
+   * Sweeps once through all samples in the specified direction. Samples
+   * are visited in planes j1+j2+j3 = k, where sample indices j1, j2 and
+   * j3 increase in the direction of the sweep. Returns true if any time
+   * decreased significantly; false, otherwise.
+   */
+  private boolean sweep(
+    final int d1, final int d2, final int d3,
+    final float[][][] times, final int[][][] marks)
+  {
+    final int n1m = _n1-1, n2m = _n2-1, n3m = _n3-1;
+    boolean changed = false;
+    for (int k=0; k<=n1m+n2m+n3m; ++k) {
+      final int kk = k;
+      int j3lo = max(0,k-n1m-n2m);
+      int j3hi = min(n3m,k);
+      Boolean c = Parallel.reduce(j3lo,j3hi+1,
+        new Parallel.ReduceInt<Boolean>() {
+        public Boolean compute(int j3) {
+          float[] d = new float[6];
+          int i3 = (d3>0)?j3:n3m-j3;
+          int j2lo = max(0,kk-j3-n1m);
+          int j2hi = min(n2m,kk-j3);
+          boolean changed = false;
+          for (int j2=j2lo; j2<=j2hi; ++j2) {
+            int j1 = kk-j3-j2;
+            int i2 = (d2>0)?j2:n2m-j2;
+            int i1 = (d1>0)?j1:n1m-j1;
+            if (update(i1,i2,i3,d,times,marks))
+              changed = true;
+          }
+          return changed;
+        }
+        public Boolean combine(Boolean c1, Boolean c2) {
+          return c1 || c2;
+        }
+      });
+      if (c)
+        changed = true;
+    }
+    return changed;
+  }
+
+  /*
+   * Updates the time and mark for one sample, if not a known sample.
+   * Returns true if the time decreased significantly; false, otherwise.
+   */
+  private boolean update(
+    int i1, int i2, int i3, float[] d,
+    float[][][] times, int[][][] marks)
+  {
+    float tc = times[i3][i2][i1];
+    if (tc==0.0f)
+      return false;
+
+    // Times and marks for the six neighbors.
+    float t1m = INFINITY, t1p = INFINITY;
+    float t2m = INFINITY, t2p = INFINITY;
+    float t3m = INFINITY, t3p = INFINITY;
+    int m1m = 0, m1p = 0, m2m = 0, m2p = 0, m3m = 0, m3p = 0;
+    if (i1>0) {
+      t1m = times[i3][i2][i1-1];
+      m1m = marks[i3][i2][i1-1];
+    }
+    if (i1<_n1-1) {
+      t1p = times[i3][i2][i1+1];
+      m1p = marks[i3][i2][i1+1];
+    }
+    if (i2>0) {
+      t2m = times[i3][i2-1][i1];
+      m2m = marks[i3][i2-1][i1];
+    }
+    if (i2<_n2-1) {
+      t2p = times[i3][i2+1][i1];
+      m2p = marks[i3][i2+1][i1];
+    }
+    if (i3>0) {
+      t3m = times[i3-1][i2][i1];
+      m3m = marks[i3-1][i2][i1];
+    }
+    if (i3<_n3-1) {
+      t3p = times[i3+1][i2][i1];
+      m3p = marks[i3+1][i2][i1];
+    }
+
+    // Skip this sample if no neighbor has yet been reached.
+    if (t1m==INFINITY && t1p==INFINITY &&
+        t2m==INFINITY && t2p==INFINITY &&
+        t3m==INFINITY && t3p==INFINITY)
+      return false;
+
+    // Tensor coefficients for tets, tris and edges.
+    _tensors.getTensor(i1,i2,i3,d);
+    float d11 = d[0];
+    float d12 = d[1];
+    float d13 = d[2];
+    float d22 = d[3];
+    float d23 = d[4];
+    float d33 = d[5];
+    float o11 = 1.0f/d11;
+    float o22 = 1.0f/d22;
+    float o33 = 1.0f/d33;
+    float d1212 = d12*d12;
+    float d1213 = d12*d13;
+    float d1223 = d12*d23;
+    float d1313 = d13*d13;
+    float d1323 = d13*d23;
+    float d2323 = d23*d23;
+    float a11 = d11-d1313*o33;
+    float a12 = d12-d1323*o33;
+    float a22 = d22-d2323*o33;
+    float b11 = d11-d1212*o22;
+    float b13 = d13-d1223*o22;
+    float b33 = d33-d2323*o22;
+    float c22 = d22-d1212*o11;
+    float c23 = d23-d1213*o11;
+    float c33 = d33-d1313*o11;
+    float e12 = 1.0f/(a11*a22-a12*a12);
+    float e13 = 1.0f/(b11*b33-b13*b13);
+
+    // Least time computed for all tets, tris and edges. Neighbors used
+    // to compute a time must have the same mark, so that times computed
+    // for different known samples are not mixed near the boundaries
+    // between regions with different marks.
+    float tmin = tc;
+    int mmin = 0;
+    for (int k=0; k<26; ++k) {
+      int k1 = K1S[k];
+      int k2 = K2S[k];
+      int k3 = K3S[k];
+      float t1 = (k1<0)?t1m:t1p;
+      float t2 = (k2<0)?t2m:t2p;
+      float t3 = (k3<0)?t3m:t3p;
+      int m1 = (k1<0)?m1m:m1p;
+      int m2 = (k2<0)?m2m:m2p;
+      int m3 = (k3<0)?m3m:m3p;
+      float t0;
+      int m0;
+      if (k1!=0 && k2!=0 && k3!=0) {
+        if (t1==INFINITY || t2==INFINITY || t3==INFINITY) continue;
+        if (m1!=m2 || m1!=m3) continue;
+        t0 = computeTime(d11,d12,d13,d22,d23,d33,k1,k2,k3,t1,t2,t3);
+        m0 = m1;
+      } else if (k1!=0 && k2!=0) {
+        if (t1==INFINITY || t2==INFINITY || m1!=m2) continue;
+        t0 = computeTime(a11,a12,a22,k1,k2,t1,t2);
+        m0 = m1;
+      } else if (k1!=0 && k3!=0) {
+        if (t1==INFINITY || t3==INFINITY || m1!=m3) continue;
+        t0 = computeTime(b11,b13,b33,k1,k3,t1,t3);
+        m0 = m1;
+      } else if (k2!=0 && k3!=0) {
+        if (t2==INFINITY || t3==INFINITY || m2!=m3) continue;
+        t0 = computeTime(c22,c23,c33,k2,k3,t2,t3);
+        m0 = m2;
+      } else if (k1!=0) {
+        if (t1==INFINITY) continue;
+        t0 = t1+sqrt(a22*e12);
+        m0 = m1;
+      } else if (k2!=0) {
+        if (t2==INFINITY) continue;
+        t0 = t2+sqrt(a11*e12);
+        m0 = m2;
+      } else { // k3!=0
+        if (t3==INFINITY) continue;
+        t0 = t3+sqrt(b11*e13);
+        m0 = m3;
+      }
+      if (t0<tmin) {
+        tmin = t0;
+        mmin = m0;
+      }
+    }
+
+    // If time decreased, update both time and mark.
+    if (tmin<tc) {
+      times[i3][i2][i1] = tmin;
+      marks[i3][i2][i1] = mmin;
+      return tmin<tc*ONE_MINUS_EPSILON;
+    }
+    return false;
+  }
+
+  /*
+   * Solves a 3D anisotropic eikonal equation for a positive time t0.
+   * See the comments for the equivalent method in TimeMarker3.
+   */
+  private static float computeTime(
+    float d11, float d12, float d13, float d22, float d23, float d33,
+    float s1, float s2, float s3, float t1, float t2, float t3)
+  {
+    double ds11 = d11*s1*s1;
+    double ds22 = d22*s2*s2;
+    double ds33 = d33*s3*s3;
+    double ds12 = d12*s1*s2;
+    double ds13 = d13*s1*s3;
+    double ds23 = d23*s2*s3;
+    double t12 = t1-t2;
+    double t13 = t1-t3;
+    double a = ds11+ds22+ds33+2.0*(ds12+ds13+ds23);
+    double b = 2.0*((ds22+ds12+ds23)*t12+(ds33+ds13+ds23)*t13);
+    double c = ds22*t12*t12+ds33*t13*t13+2.0*ds23*t12*t13-1.0;
+    double d = b*b-4.0*a*c;
+    if (d<0.0)
+      return INFINITY;
+    double u1 = (-b+sqrt(d))/(2.0*a);
+    double u2 = u1+t12;
+    double u3 = u1+t13;
+    if (ds11*u1+ds12*u2+ds13*u3 < 0.0 ||
+        ds12*u1+ds22*u2+ds23*u3 < 0.0 ||
+        ds13*u1+ds23*u2+ds33*u3 < 0.0)
+      return INFINITY;
+    return t1+(float)u1;
+  }
+
+  /*
+   * Solves a 2D anisotropic eikonal equation for a positive time t0.
+   * See the comments for the equivalent method in TimeMarker3.
+   */
+  private static float computeTime(
+    float d11, float d12, float d22,
+    float s1, float s2, float t1, float t2)
+  {
+    double ds11 = d11*s1*s1;
+    double ds12 = d12*s1*s2;
+    double ds22 = d22*s2*s2;
+    double t12 = t1-t2;
+    double a = ds11+2.0*ds12+ds22;
+    double b = 2.0*(ds12+ds22)*t12;
+    double c = ds22*t12*t12-1.0;
+    double d = b*b-4.0*a*c;
+    if (d<0.0)
+      return INFINITY;
+    double u1 = (-b+sqrt(d))/(2.0*a);
+    double u2 = u1+t12;
+    if (ds11*u1+ds12*u2 < 0.0 ||
+        ds12*u1+ds22*u2 < 0.0)
+      return INFINITY;
+    return t1+(float)u1;
+  }
+}
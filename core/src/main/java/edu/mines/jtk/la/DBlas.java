@@ -0,0 +1,253 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.la;
+
+import static java.lang.Math.min;
+
+import edu.mines.jtk.util.Parallel;
+
+/**
+ * Blocked and multi-threaded kernels for dense matrix operations.
+ * These kernels operate on sub-matrices of arrays double[][] with
+ * specified offsets, and are used to implement level-3 (matrix-matrix)
+ * operations in matrix multiplication and matrix factorizations.
+ * <p>
+ * Matrix multiplication is blocked in the style of Goto and van de Geijn
+ * (2008). Blocks of B with KC rows and NC columns are copied (packed) into
+ * contiguous arrays of NR-column slivers, and blocks of A with MC rows
+ * and KC columns are packed into MR-row slivers. A micro-kernel then
+ * accumulates each MR-by-NR block of C in local variables that the
+ * compiler can keep in registers. Blocks of A are processed in parallel,
+ * and each element of C is computed in the same order regardless of the
+ * number of threads, so that results do not depend on that number.
+ * <p>
+ * Reference: Goto, K., and van de Geijn, R., 2008, Anatomy of
+ * high-performance matrix multiplication: ACM Transactions on
+ * Mathematical Software, v. 34, n. 3, article 12.
+ * @author agent
+ * @version 2026.10.19
+ */
+class DBlas {
+
+  /**
+   * Minimum number of multiply-adds for which the blocked kernels
+   * are faster than simple loops.
+   */
+  static final long MIN_BLOCKED = 32L*32L*32L;
+
+  /**
+   * Computes C += alpha*op(A)*B, for sub-matrices of specified arrays.
+   * The m-by-n sub-matrix of C begins at c[ic][jc], and the k-by-n
+   * sub-matrix of B begins at b[ib][jb]. If ta is false, then op(A) = A
+   * is the m-by-k sub-matrix beginning at a[ia][ja]; otherwise, op(A)
+   * is the transpose of the k-by-m sub-matrix beginning at a[ia][ja].
+   * The sub-matrix of C must not overlap the sub-matrices of A and B.
+   * @param ta true, to use the transpose of A; false, otherwise.
+   * @param m number of rows in C and op(A).
+   * @param n number of columns in C and B.
+   * @param k number of columns in op(A) and rows in B.
+   * @param alpha the scale factor.
+   * @param a array containing A.
+   * @param ia row index of first element of A.
+   * @param ja column index of first element of A.
+   * @param b array containing B.
+   * @param ib row index of first element of B.
+   * @param jb column index of first element of B.
+   * @param c array containing C.
+   * @param ic row index of first element of C.
+   * @param jc column index of first element of C.
+   */
+  static void gemm(
+    final boolean ta, int m, int n, int k, final double alpha,
+    final double[][] a, final int ia, final int ja,
+    double[][] b, int ib, int jb,
+    final double[][] c, final int ic, int jc)
+  {
+    if (m<=0 || n<=0 || k<=0)
+      return;
+    final int nmb = (m+MC-1)/MC;
+    final double[] bp = new double[min(n,NC)*KC+NR*KC];
+    final Parallel.Unsafe<double[]> apu = new Parallel.Unsafe<double[]>();
+    for (int j=0; j<n; j+=NC) {
+      final int nc = min(NC,n-j);
+      final int jcj = jc+j;
+      for (int l=0; l<k; l+=KC) {
+        final int kc = min(KC,k-l);
+        final int ial = ta?ia+l:ia;
+        final int jal = ta?ja:ja+l;
+        packB(kc,nc,b,ib+l,jb+j,bp);
+        final int mm = m;
+        Parallel.loop(nmb,new Parallel.LoopInt() {
+          public void compute(int mb) {
+            double[] ap = apu.get();
+            if (ap==null) apu.set(ap=new double[MC*KC]);
+            int i = mb*MC;
+            int mc = min(MC,mm-i);
+            if (ta) {
+              packAT(mc,kc,a,ial,jal+i,ap);
+            } else {
+              packA(mc,kc,a,ial+i,jal,ap);
+            }
+            macro(mc,nc,kc,alpha,ap,bp,c,ic+i,jcj);
+          }
+        });
+      }
+    }
+  }
+
+  /**
+   * Computes C += alpha*op(A)*B with simple loops; for small matrices.
+   * Parameters are the same as those for the method gemm.
+   */
+  static void gemmSimple(
+    boolean ta, int m, int n, int k, double alpha,
+    double[][] a, int ia, int ja,
+    double[][] b, int ib, int jb,
+    double[][] c, int ic, int jc)
+  {
+    for (int i=0; i<m; ++i) {
+      double[] ci = c[ic+i];
+      for (int l=0; l<k; ++l) {
+        double ail = alpha*(ta?a[ia+l][ja+i]:a[ia+i][ja+l]);
+        if (ail!=0.0) {
+          double[] bl = b[ib+l];
+          for (int j=0; j<n; ++j)
+            ci[jc+j] += ail*bl[jb+j];
+        }
+      }
+    }
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  private static final int MR = 4; // rows in micro-kernel
+  private static final int NR = 4; // columns in micro-kernel
+  private static final int MC = 64; // rows in packed blocks of A
+  private static final int KC = 256; // columns (rows) in blocks of A (B)
+  private static final int NC = 2048; // columns in packed blocks of B
+
+  // Packs an mc-by-kc block of A into slivers of MR rows, padded with zeros.
+  private static void packA(
+    int mc, int kc, double[][] a, int ia, int ja, double[] ap)
+  {
+    for (int i=0,p=0; i<mc; i+=MR) {
+      int mr = min(MR,mc-i);
+      for (int r=0; r<MR; ++r) {
+        if (r<mr) {
+          double[] ar = a[ia+i+r];
+          for (int l=0,q=p+r; l<kc; ++l,q+=MR)
+            ap[q] = ar[ja+l];
+        } else {
+          for (int l=0,q=p+r; l<kc; ++l,q+=MR)
+            ap[q] = 0.0;
+        }
+      }
+      p += MR*kc;
+    }
+  }
+
+  // Packs the transpose of a kc-by-mc block of A into slivers of MR rows.
+  private static void packAT(
+    int mc, int kc, double[][] a, int ia, int ja, double[] ap)
+  {
+    for (int i=0,p=0; i<mc; i+=MR) {
+      int mr = min(MR,mc-i);
+      for (int l=0,q=p; l<kc; ++l,q+=MR) {
+        double[] al = a[ia+l];
+        int r = 0;
+        for (; r<mr; ++r)
+          ap[q+r] = al[ja+i+r];
+        for (; r<MR; ++r)
+          ap[q+r] = 0.0;
+      }
+      p += MR*kc;
+    }
+  }
+
+  // Packs a kc-by-nc block of B into slivers of NR columns.
+  private static void packB(
+    int kc, int nc, double[][] b, int ib, int jb, double[] bp)
+  {
+    for (int j=0,p=0; j<nc; j+=NR) {
+      int nr = min(NR,nc-j);
+      for (int l=0,q=p; l<kc; ++l,q+=NR) {
+        double[] bl = b[ib+l];
+        int r = 0;
+        for (; r<nr; ++r)
+          bp[q+r] = bl[jb+j+r];
+        for (; r<NR; ++r)
+          bp[q+r] = 0.0;
+      }
+      p += NR*kc;
+    }
+  }
+
+  // Multiplies packed blocks of A and B, accumulating into C.
+  private static void macro(
+    int mc, int nc, int kc, double alpha, double[] ap, double[] bp,
+    double[][] c, int ic, int jc)
+  {
+    for (int j=0,pb=0; j<nc; j+=NR,pb+=NR*kc) {
+      int nr = min(NR,nc-j);
+      for (int i=0,pa=0; i<mc; i+=MR,pa+=MR*kc) {
+        int mr = min(MR,mc-i);
+        micro(kc,alpha,ap,pa,bp,pb,c,ic+i,jc+j,mr,nr);
+      }
+    }
+  }
+
+  // Accumulates a 4-by-4 block of C in local variables.
+  private static void micro(
+    int kc, double alpha, double[] ap, int pa, double[] bp, int pb,
+    double[][] c, int ic, int jc, int mr, int nr)
+  {
+    double c00 = 0.0, c01 = 0.0, c02 = 0.0, c03 = 0.0;
+    double c10 = 0.0, c11 = 0.0, c12 = 0.0, c13 = 0.0;
+    double c20 = 0.0, c21 = 0.0, c22 = 0.0, c23 = 0.0;
+    double c30 = 0.0, c31 = 0.0, c32 = 0.0, c33 = 0.0;
+    for (int l=0; l<kc; ++l,pa+=MR,pb+=NR) {
+      double a0 = ap[pa  ], a1 = ap[pa+1], a2 = ap[pa+2], a3 = ap[pa+3];
+      double b0 = bp[pb  ], b1 = bp[pb+1], b2 = bp[pb+2], b3 = bp[pb+3];
+      c00 += a0*b0; c01 += a0*b1; c02 += a0*b2; c03 += a0*b3;
+      c10 += a1*b0; c11 += a1*b1; c12 += a1*b2; c13 += a1*b3;
+      c20 += a2*b0; c21 += a2*b1; c22 += a2*b2; c23 += a2*b3;
+      c30 += a3*b0; c31 += a3*b1; c32 += a3*b2; c33 += a3*b3;
+    }
+    if (mr==MR && nr==NR) {
+      double[] r0 = c[ic], r1 = c[ic+1], r2 = c[ic+2], r3 = c[ic+3];
+      r0[jc] += alpha*c00; r0[jc+1] += alpha*c01;
+      r0[jc+2] += alpha*c02; r0[jc+3] += alpha*c03;
+      r1[jc] += alpha*c10; r1[jc+1] += alpha*c11;
+      r1[jc+2] += alpha*c12; r1[jc+3] += alpha*c13;
+      r2[jc] += alpha*c20; r2[jc+1] += alpha*c21;
+      r2[jc+2] += alpha*c22; r2[jc+3] += alpha*c23;
+      r3[jc] += alpha*c30; r3[jc+1] += alpha*c31;
+      r3[jc+2] += alpha*c32; r3[jc+3] += alpha*c33;
+    } else {
+      double[][] t = {
+        {c00,c01,c02,c03},
+        {c10,c11,c12,c13},
+        {c20,c21,c22,c23},
+        {c30,c31,c32,c33}
+      };
+      for (int i=0; i<mr; ++i) {
+        double[] ci = c[ic+i];
+        for (int j=0; j<nr; ++j)
+          ci[jc+j] += alpha*t[i][j];
+      }
+    }
+  }
+}
@@ -687,6 +687,10 @@ public class DMatrix {
     double[][] aa = _a;
     double[][] ba = b._a;
     double[][] ca = c._a;
+    if ((long)_m*(long)_n*(long)b._n>=DBlas.MIN_BLOCKED) {
+      DBlas.gemm(false,_m,b._n,_n,1.0,aa,0,0,ba,0,0,ca,0,0);
+      return c;
+    }
     double[] bj = new double[_n];
     for (int j=0; j<b._n; ++j) {
       for (int k=0; k<_n; ++k)
@@ -52,6 +52,10 @@ public class DMatrixLud {
     for (int i=0; i<m; ++i)
       _piv[i] = i;
     _pivsign = 1;
+    if (m>=n && n>=NBLOCK_MIN) {
+      factorBlocked();
+      return;
+    }
     double[] lurowi;
     double[] lucolj = new double[m];
 
@@ -231,4 +235,60 @@ public class DMatrixLud {
   double[][] _lu;
   int[] _piv;
   int _pivsign;
+
+  private static final int NBLOCK = 64; // number of columns in blocks
+  private static final int NBLOCK_MIN = 128; // min n for blocked algorithm
+
+  // A right-looking blocked algorithm, for m >= n. For each block of 
+  // columns, (1) factor the panel L11 and L21 with partial pivoting, 
+  // (2) solve L11*U12 = A12 for the block U12, and (3) update the 
+  // trailing matrix A22 -= L21*U12. Most of the work is in (3), which 
+  // is a matrix multiplication. Rows are exchanged by swapping arrays.
+  private void factorBlocked() {
+    int m = _m;
+    int n = _n;
+    double[][] lu = _lu;
+    for (int j=0; j<n; j+=NBLOCK) {
+      int nb = min(NBLOCK,n-j);
+      int jb = j+nb;
+
+      // Factor the panel.
+      for (int k=j; k<jb; ++k) {
+        int p = k;
+        for (int i=k+1; i<m; ++i) {
+          if (abs(lu[i][k])>abs(lu[p][k]))
+            p = i;
+        }
+        if (p!=k) {
+          double[] t = lu[p]; lu[p] = lu[k]; lu[k] = t;
+          int i = _piv[p]; _piv[p] = _piv[k]; _piv[k] = i;
+          _pivsign = -_pivsign;
+        }
+        double[] luk = lu[k];
+        if (luk[k]!=0.0) {
+          double s = 1.0/luk[k];
+          for (int i=k+1; i<m; ++i) {
+            double[] lui = lu[i];
+            double lik = lui[k] *= s;
+            for (int c=k+1; c<jb; ++c)
+              lui[c] -= lik*luk[c];
+          }
+        }
+      }
+
+      // Solve for U12 and update A22.
+      if (jb<n) {
+        for (int k=j; k<jb; ++k) {
+          double[] luk = lu[k];
+          for (int i=k+1; i<jb; ++i) {
+            double[] lui = lu[i];
+            double lik = lui[k];
+            for (int c=jb; c<n; ++c)
+              lui[c] -= lik*luk[c];
+          }
+        }
+        DBlas.gemm(false,m-jb,n-jb,nb,-1.0,lu,jb,j,lu,j,jb,lu,jb,jb);
+      }
+    }
+  }
 }
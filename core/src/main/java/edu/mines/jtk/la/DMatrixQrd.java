@@ -50,36 +50,11 @@ public class DMatrixQrd {
     int n = _n = a.getN();
     _qr = a.get();
     _rdiag = new double[_n];
-
-    // Main loop.
-    for (int k=0; k<n; ++k) {
-
-      // Compute 2-norm of k-th column without under/overflow.
-      double nrm = 0;
-      for (int i=k; i<m; ++i)
-        nrm = hypot(nrm,_qr[i][k]);
-
-      if (nrm!=0.0) {
-
-        // Form k-th Householder vector.
-        if (_qr[k][k]<0.0)
-          nrm = -nrm;
-        for (int i=k; i<m; ++i)
-          _qr[i][k] /= nrm;
-        _qr[k][k] += 1.0;
-
-        // Apply transformation to remaining columns.
-        for (int j=k+1; j<n; ++j) {
-          double s = 0.0; 
-          for (int i=k; i<m; ++i)
-            s += _qr[i][k]*_qr[i][j];
-          s = -s/_qr[k][k];
-          for (int i=k; i<m; ++i)
-            _qr[i][j] += s*_qr[i][k];
-        }
-      }
-      _rdiag[k] = -nrm;
+    if (n>=NBLOCK_MIN) {
+      factorBlocked();
+      return;
     }
+    factor(0,n,n);
   }
 
   /**
@@ -186,4 +161,106 @@ public class DMatrixQrd {
   int _m,_n;
   double[][] _qr;
   double[] _rdiag;
+
+  private static final int NBLOCK = 32; // number of columns in blocks
+  private static final int NBLOCK_MIN = 96; // min n for blocked algorithm
+
+  // Computes Householder vectors for columns in [k0,k1), and applies 
+  // the corresponding transformations to columns in [k0,j1).
+  private void factor(int k0, int k1, int j1) {
+    int m = _m;
+    for (int k=k0; k<k1; ++k) {
+
+      // Compute 2-norm of k-th column without under/overflow.
+      double nrm = 0;
+      for (int i=k; i<m; ++i)
+        nrm = hypot(nrm,_qr[i][k]);
+
+      if (nrm!=0.0) {
+
+        // Form k-th Householder vector.
+        if (_qr[k][k]<0.0)
+          nrm = -nrm;
+        for (int i=k; i<m; ++i)
+          _qr[i][k] /= nrm;
+        _qr[k][k] += 1.0;
+
+        // Apply transformation to remaining columns.
+        for (int j=k+1; j<j1; ++j) {
+          double s = 0.0; 
+          for (int i=k; i<m; ++i)
+            s += _qr[i][k]*_qr[i][j];
+          s = -s/_qr[k][k];
+          for (int i=k; i<m; ++i)
+            _qr[i][j] += s*_qr[i][k];
+        }
+      }
+      _rdiag[k] = -nrm;
+    }
+  }
+
+  // A blocked algorithm. Householder transformations for each block of 
+  // columns are accumulated in the compact WY representation 
+  // H(1)*H(2)*...*H(nb) = I-V*T*V', where the columns of V are the 
+  // Householder vectors, and T is upper triangular. The transformations 
+  // are then applied to all remaining columns A2 -= V*T'*(V'*A2), using 
+  // matrix multiplications.
+  private void factorBlocked() {
+    int m = _m;
+    int n = _n;
+    double[][] qr = _qr;
+    double[][] v = new double[m][NBLOCK];
+    double[][] t = new double[NBLOCK][NBLOCK];
+    double[] z = new double[NBLOCK];
+    for (int k=0; k<n; k+=NBLOCK) {
+      int nb = Math.min(NBLOCK,n-k);
+      int kb = k+nb;
+      factor(k,kb,kb);
+      if (kb==n)
+        break;
+
+      // Copy the Householder vectors, with zeros above the diagonal.
+      int mk = m-k;
+      for (int i=0; i<mk; ++i) {
+        double[] qri = qr[k+i];
+        double[] vi = v[i];
+        for (int j=0; j<nb; ++j)
+          vi[j] = (j<=i)?qri[k+j]:0.0;
+      }
+
+      // Compute the upper triangular matrix T.
+      for (int j=0; j<nb; ++j) {
+        double tau = (v[j][j]!=0.0)?1.0/v[j][j]:0.0;
+        for (int l=0; l<j; ++l) {
+          double s = 0.0;
+          for (int i=j; i<mk; ++i)
+            s += v[i][l]*v[i][j];
+          z[l] = s;
+        }
+        for (int l=0; l<j; ++l) {
+          double s = 0.0;
+          for (int p=l; p<j; ++p)
+            s += t[l][p]*z[p];
+          t[l][j] = -tau*s;
+        }
+        t[j][j] = tau;
+      }
+
+      // Apply the transformations to remaining columns.
+      int n2 = n-kb;
+      double[][] w = new double[nb][n2];
+      double[][] y = new double[nb][n2];
+      DBlas.gemm(true,nb,n2,mk,1.0,v,0,0,qr,k,kb,w,0,0);
+      for (int j=0; j<nb; ++j) {
+        double[] yj = y[j];
+        for (int l=0; l<=j; ++l) {
+          double tlj = t[l][j];
+          double[] wl = w[l];
+          for (int c=0; c<n2; ++c)
+            yj[c] += tlj*wl[c];
+        }
+      }
+      DBlas.gemm(false,mk,n2,nb,-1.0,v,0,0,y,0,0,qr,k,kb);
+    }
+  }
 }
@@ -31,7 +31,7 @@ import java.util.logging.Logger;
  *
  * @author W.S. Harlan
  */
-public class ArrayVect1 implements Vect {
+public class ArrayVect1 implements VectFused {
     /**
      * wrapped data
      */
@@ -164,6 +164,24 @@ public class ArrayVect1 implements Vect {
         }
     }
 
+    // VectFused
+    @Override
+    public boolean isFused() {return true;}
+
+    // VectFused
+    @Override
+    public double addDot(final double scaleThis, final double scaleOther,
+                         final VectConst other, final VectConst dotOther) {
+        final ArrayVect1 rhs = (ArrayVect1) other;
+        final ArrayVect1 dot = (ArrayVect1) dotOther;
+        double result = 0;
+        for (int i = 0; i < _data.length; ++i) {
+            _data[i] = scaleThis * _data[i] + scaleOther * rhs._data[i];
+            result += _data[i] * dot._data[i];
+        }
+        return result;
+    }
+
     // Vect
     @Override
     public void project(final double scaleThis, final double scaleOther, final VectConst other) {
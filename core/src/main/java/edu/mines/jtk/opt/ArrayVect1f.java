@@ -37,7 +37,7 @@ import java.util.logging.Logger;
  *
  * @author W.S. Harlan
  */
-public class ArrayVect1f implements Vect {
+public class ArrayVect1f implements VectFused {
     private static final Logger LOG = Logger.getLogger("edu.mines.jtk.opt");
     private static final long serialVersionUID = 2L;
     private static final int VERSION = 1;
@@ -238,6 +238,26 @@ public class ArrayVect1f implements Vect {
         }
     }
 
+    // VectFused
+    @Override
+    public boolean isFused() {return true;}
+
+    // VectFused
+    @Override
+    public double addDot(final double scaleThis, final double scaleOther,
+                         final VectConst other, final VectConst dotOther) {
+        final float s1 = (float) scaleThis;
+        final float s2 = (float) scaleOther;
+        final ArrayVect1f rhs = (ArrayVect1f) other;
+        final ArrayVect1f dot = (ArrayVect1f) dotOther;
+        double result = 0;
+        for (int i = 0; i < _data.length; ++i) {
+            _data[i] = s1 * _data[i] + s2 * rhs._data[i];
+            result += (double) _data[i] * dot._data[i];
+        }
+        return result;
+    }
+
     // Vect
     @Override
     public void project(final double scaleThis, final double scaleOther, final VectConst other) {
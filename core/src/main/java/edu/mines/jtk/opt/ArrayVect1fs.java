@@ -15,6 +15,7 @@ limitations under the License.
 package edu.mines.jtk.opt;
 
 import edu.mines.jtk.util.Almost;
+import edu.mines.jtk.util.Parallel;
 
 import java.io.IOException;
 import java.util.logging.Logger;
@@ -76,12 +77,18 @@ public class ArrayVect1fs implements Vect {
   // Vect
   @Override
   public double dot(VectConst other) {
-    double result = 0;
-    ArrayVect1fs rhs = (ArrayVect1fs) other;
-    for (int i=0; i<_data.length; ++i) {
-      result += _data[i].dot(rhs._data[i]);
+    final ArrayVect1f[] data = _data;
+    final ArrayVect1f[] rhs = ((ArrayVect1fs) other)._data;
+    if (!isParallel()) {
+      double result = 0;
+      for (int i=0; i<data.length; ++i) {
+        result += data[i].dot(rhs[i]);
+      }
+      return result;
     }
-    return result;
+    return VectParallel.sumInOrder(data.length, true, new VectParallel.Sum() {
+        public double sum(int i) {return data[i].dot(rhs[i]);}
+      });
   }
 
   // Object
@@ -129,11 +136,15 @@ public class ArrayVect1fs implements Vect {
 
   // Vect
   @Override
-  public void add(double scaleThis, double scaleOther, VectConst other)  {
-    ArrayVect1fs rhs = (ArrayVect1fs) other;
-    for (int i=0; i<_data.length; ++i) {
-      _data[i].add(scaleThis, scaleOther, rhs._data[i]);
-    }
+  public void add(final double scaleThis, final double scaleOther,
+                  VectConst other)  {
+    final ArrayVect1f[] data = _data;
+    final ArrayVect1f[] rhs = ((ArrayVect1fs) other)._data;
+    VectParallel.loop(data.length, isParallel(), new Parallel.LoopInt() {
+        public void compute(int i) {
+          data[i].add(scaleThis, scaleOther, rhs[i]);
+        }
+      });
   }
 
   // Vect
@@ -145,14 +156,32 @@ public class ArrayVect1fs implements Vect {
   // VectConst
   @Override
   public double magnitude() {
+    final ArrayVect1f[] data = _data;
     double result = 0.;
-      for (ArrayVect1f a_data : _data) {
+    if (isParallel()) {
+      result = VectParallel.sumInOrder
+        (data.length, true, new VectParallel.Sum() {
+          public double sum(int i) {return data[i].magnitude();}
+        });
+    } else {
+      for (ArrayVect1f a_data : data) {
           result += a_data.magnitude();
       }
+    }
     result = Almost.FLOAT.divide (result, getSize() , 0.);
     return result;
   }
 
+  // True if members are large enough to be evaluated in parallel.
+  private boolean isParallel() {
+    if (_data.length < 2) {return false;}
+    long size = 0;
+    for (ArrayVect1f a_data : _data) {
+      size += a_data.getSize();
+    }
+    return size >= VectParallel.MIN_PARALLEL;
+  }
+
   // Serializable
   private void writeObject(java.io.ObjectOutputStream out)
     throws IOException {
@@ -15,6 +15,7 @@ limitations under the License.
 package edu.mines.jtk.opt;
 
 import edu.mines.jtk.util.Almost;
+import edu.mines.jtk.util.Parallel;
 
 import java.util.Arrays;
 import java.util.logging.Logger;
@@ -31,7 +32,7 @@ import java.util.logging.Logger;
     and easily delegate all implemented methods.
     @author W.S. Harlan
 */
-public class ArrayVect2f implements Vect {
+public class ArrayVect2f implements VectFused {
   private static final Logger LOG = Logger.getLogger("edu.mines.jtk.opt");
   private static final long serialVersionUID = 2L;
 
@@ -111,14 +112,47 @@ public class ArrayVect2f implements Vect {
   // Vect interface
   @Override
   public void add(double scaleThis, double scaleOther, VectConst other) {
-    float s1 = (float) scaleThis;
-    float s2 = (float) scaleOther;
-    ArrayVect2f o = (ArrayVect2f) other;
-    for (int i=0; i<_data.length; ++i) {
-      for (int j=0; j<_data[i].length; ++j) {
-        _data[i][j] = s1*_data[i][j] + s2*o._data[i][j];
-      }
-    }
+    final float s1 = (float) scaleThis;
+    final float s2 = (float) scaleOther;
+    final float[][] o = ((ArrayVect2f) other)._data;
+    final float[][] data = _data;
+    VectParallel.loop(data.length, isParallel(), new Parallel.LoopInt() {
+        public void compute(int i) {
+          float[] d = data[i];
+          float[] r = o[i];
+          for (int j=0; j<d.length; ++j) {
+            d[j] = s1*d[j] + s2*r[j];
+          }
+        }
+      });
+  }
+
+  // VectFused interface
+  @Override
+  public boolean isFused() {return true;}
+
+  // VectFused interface
+  @Override
+  public double addDot(double scaleThis, double scaleOther,
+                       VectConst other, VectConst dotOther) {
+    final float s1 = (float) scaleThis;
+    final float s2 = (float) scaleOther;
+    final float[][] o = ((ArrayVect2f) other)._data;
+    final float[][] t = ((ArrayVect2f) dotOther)._data;
+    final float[][] data = _data;
+    return VectParallel.sum(data.length, isParallel(), new VectParallel.Sum() {
+        public double sum(int i) {
+          float[] d = data[i];
+          float[] r = o[i];
+          float[] u = t[i];
+          double result = 0.;
+          for (int j=0; j<d.length; ++j) {
+            d[j] = s1*d[j] + s2*r[j];
+            result += (double) d[j] * u[j];
+          }
+          return result;
+        }
+      });
   }
 
   // Vect interface
@@ -183,13 +217,23 @@ public class ArrayVect2f implements Vect {
   // VectConst interface
   @Override
   public double dot(VectConst other) {
-    ArrayVect2f rhs = (ArrayVect2f) other;
-    double result = 0.;
-    for (int i=0; i<_data.length; ++i) {
-      for (int j=0; j<_data[i].length; ++j) {
-        result += (double) this._data[i][j] * rhs._data[i][j];
-      }
-    }
-    return result;
+    final float[][] r = ((ArrayVect2f) other)._data;
+    final float[][] data = _data;
+    return VectParallel.sum(data.length, isParallel(), new VectParallel.Sum() {
+        public double sum(int i) {
+          float[] d = data[i];
+          float[] ri = r[i];
+          double result = 0.;
+          for (int j=0; j<d.length; ++j) {
+            result += (double) d[j] * ri[j];
+          }
+          return result;
+        }
+      });
+  }
+
+  // True if this vector is large enough for parallel loops.
+  private boolean isParallel() {
+    return _data.length > 1 && getSize() >= VectParallel.MIN_PARALLEL;
   }
 }
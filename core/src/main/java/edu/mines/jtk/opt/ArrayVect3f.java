@@ -15,6 +15,7 @@ limitations under the License.
 package edu.mines.jtk.opt;
 
 import edu.mines.jtk.util.Almost;
+import edu.mines.jtk.util.Parallel;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
@@ -37,7 +38,7 @@ import java.util.logging.Logger;
  * @author W.S. Harlan
  */
 
-public class ArrayVect3f implements Vect {
+public class ArrayVect3f implements VectFused {
 
     /**
      * wrapped data
@@ -116,13 +117,48 @@ public class ArrayVect3f implements Vect {
         final float s1 = (float) scaleThis;
         final float s2 = (float) scaleOther;
         final ArrayVect3f rhs = (ArrayVect3f) other;
-        for (int i = 0; i < _data.length; ++i) {
-            for (int j = 0; j < _data[0].length; ++j) {
-                for (int k = 0; k < _data[0][0].length; ++k) {
-                    _data[i][j][k] = s1 * _data[i][j][k] + s2 * rhs._data[i][j][k];
+        final float[][][] data = _data;
+        VectParallel.loop(data.length, isParallel(), new Parallel.LoopInt() {
+            public void compute(int i) {
+                for (int j = 0; j < data[0].length; ++j) {
+                    final float[] d = data[i][j];
+                    final float[] r = rhs._data[i][j];
+                    for (int k = 0; k < d.length; ++k) {
+                        d[k] = s1 * d[k] + s2 * r[k];
+                    }
                 }
             }
-        }
+        });
+    }
+
+    // VectFused interface
+    @Override
+    public boolean isFused() {return true;}
+
+    // VectFused interface
+    @Override
+    public double addDot(final double scaleThis, final double scaleOther,
+                         final VectConst other, final VectConst dotOther) {
+        final float s1 = (float) scaleThis;
+        final float s2 = (float) scaleOther;
+        final ArrayVect3f rhs = (ArrayVect3f) other;
+        final ArrayVect3f dot = (ArrayVect3f) dotOther;
+        final float[][][] data = _data;
+        return VectParallel.sum(data.length, isParallel(), new VectParallel.Sum() {
+            public double sum(int i) {
+                double result = 0.0;
+                for (int j = 0; j < data[0].length; ++j) {
+                    final float[] d = data[i][j];
+                    final float[] r = rhs._data[i][j];
+                    final float[] t = dot._data[i][j];
+                    for (int k = 0; k < d.length; ++k) {
+                        d[k] = s1 * d[k] + s2 * r[k];
+                        result += (double) d[k] * t[k];
+                    }
+                }
+                return result;
+            }
+        });
     }
 
     // Vect interface
@@ -183,16 +219,26 @@ public class ArrayVect3f implements Vect {
     // VectConst interface
     @Override
     public double dot(final VectConst other) {
-        double result = 0.0;
         final ArrayVect3f rhs = (ArrayVect3f) other;
-        for (int i = 0; i < _data.length; ++i) {
-            for (int j = 0; j < _data[0].length; ++j) {
-                for (int k = 0; k < _data[0][0].length; ++k) {
-                    result += (double) _data[i][j][k] * rhs._data[i][j][k];
+        final float[][][] data = _data;
+        return VectParallel.sum(data.length, isParallel(), new VectParallel.Sum() {
+            public double sum(int i) {
+                double result = 0.0;
+                for (int j = 0; j < data[0].length; ++j) {
+                    final float[] d = data[i][j];
+                    final float[] r = rhs._data[i][j];
+                    for (int k = 0; k < d.length; ++k) {
+                        result += (double) d[k] * r[k];
+                    }
                 }
+                return result;
             }
-        }
-        return result;
+        });
+    }
+
+    // True if this vector is large enough for parallel loops.
+    private boolean isParallel() {
+        return _data.length > 1 && getSize() >= VectParallel.MIN_PARALLEL;
     }
 
     private void writeObject(final ObjectOutputStream out)
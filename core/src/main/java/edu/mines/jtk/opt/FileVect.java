@@ -0,0 +1,401 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ ****************************************************************************/
+package edu.mines.jtk.opt;
+
+import edu.mines.jtk.io.ArrayFile;
+import edu.mines.jtk.util.Almost;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Implement a Vect as a one-dimensional array of floats stored in a
+    file, for vectors too large to keep in memory.
+    Samples are grouped in chunks of fixed size, and all operations
+    stream through the file one chunk at a time.  A small cache keeps
+    the most recently used chunks in memory; modified chunks are
+    written back to the file when evicted from the cache.
+    Chunks that have never been written contain zeros and are not
+    stored, so that a new vector costs nothing until it is used.
+    <p>
+    A FileVect can be used with QuadraticSolver and GaussNewtonSolver
+    like any other Vect.  Each clone creates a new temporary file,
+    which is deleted by dispose().  Vectors must be combined only
+    with other FileVects that have the same size and chunk size.
+    Instances are not safe for concurrent use by multiple threads.
+    @author agent
+*/
+public class FileVect implements VectFused {
+  private static final long serialVersionUID = 1L;
+
+  /** Default number of samples per chunk. */
+  public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+  /** Default number of chunks kept in memory. */
+  public static final int DEFAULT_CACHED_CHUNKS = 4;
+
+  private long _size = 0;
+  private int _chunkSize = DEFAULT_CHUNK_SIZE;
+  private int _cachedChunks = DEFAULT_CACHED_CHUNKS;
+  private double _variance = 1.;
+  private File _directory = null;
+
+  private transient File _file = null;
+  private transient ArrayFile _af = null;
+  private transient BitSet _stored = null; // chunks written to file
+  private transient BitSet _dirty = null; // cached chunks not yet written
+  private transient LinkedHashMap<Integer,float[]> _cache = null;
+
+  /** Construct a vector of zeros stored in the default temporary
+      directory, with default chunk and cache sizes.
+      @param size Number of samples in vector.
+      @param variance This variance will be used to divide data in
+      multiplyInverseCovariance.
+  */
+  public FileVect(long size, double variance) {
+    this(size, variance, null, DEFAULT_CHUNK_SIZE, DEFAULT_CACHED_CHUNKS);
+  }
+
+  /** Construct a vector of zeros.
+      @param size Number of samples in vector.
+      @param variance This variance will be used to divide data in
+      multiplyInverseCovariance.
+      @param directory Directory for temporary files; if null, use
+      the default temporary directory.
+      @param chunkSize Number of samples in each chunk.
+      @param cachedChunks Maximum number of chunks kept in memory.
+  */
+  public FileVect(long size, double variance, File directory,
+                  int chunkSize, int cachedChunks) {
+    if (size < 0 || chunkSize < 1 || cachedChunks < 1) {
+      throw new IllegalArgumentException
+        ("Require size>=0, chunkSize>=1, and cachedChunks>=1");
+    }
+    _size = size;
+    _variance = variance;
+    _directory = directory;
+    _chunkSize = chunkSize;
+    _cachedChunks = cachedChunks;
+    init();
+  }
+
+  /** Get the value of the variance passed to the constructor.
+      @return This variance will be used to divide data in
+      multiplyInverseCovariance.
+   */
+  public double getVariance() {return _variance;}
+
+  /** Return the number of samples in this vector.
+      @return number of samples.
+  */
+  public long getSize() {return _size;}
+
+  /** Return the number of samples in each chunk.
+      @return number of samples per chunk.
+  */
+  public int getChunkSize() {return _chunkSize;}
+
+  /** Copy samples from this vector into an array.
+      @param index Index of the first sample to copy.
+      @param values Array to receive values.length samples.
+  */
+  public void getValues(long index, float[] values) {
+    checkRange(index, values.length);
+    for (int i=0; i<values.length;) {
+      long j = index+i;
+      int ic = (int)(j/_chunkSize);
+      int k = (int)(j%_chunkSize);
+      float[] c = chunk(ic, false);
+      int n = Math.min(c.length-k, values.length-i);
+      System.arraycopy(c, k, values, i, n);
+      i += n;
+    }
+  }
+
+  /** Copy samples from an array into this vector.
+      @param index Index of the first sample to replace.
+      @param values Array of values.length samples to copy.
+  */
+  public void setValues(long index, float[] values) {
+    checkRange(index, values.length);
+    for (int i=0; i<values.length;) {
+      long j = index+i;
+      int ic = (int)(j/_chunkSize);
+      int k = (int)(j%_chunkSize);
+      float[] c = chunk(ic, true);
+      int n = Math.min(c.length-k, values.length-i);
+      System.arraycopy(values, i, c, k, n);
+      i += n;
+    }
+  }
+
+  // Vect interface
+  @Override
+  public void add(double scaleThis, double scaleOther, VectConst other) {
+    float s1 = (float) scaleThis;
+    float s2 = (float) scaleOther;
+    FileVect rhs = checkSame(other);
+    for (int ic=0; ic<getChunkCount(); ++ic) {
+      float[] a = chunk(ic, true);
+      float[] b = rhs.chunk(ic, false);
+      for (int i=0; i<a.length; ++i) {
+        a[i] = s1*a[i] + s2*b[i];
+      }
+    }
+  }
+
+  // VectFused interface
+  @Override
+  public boolean isFused() {return true;}
+
+  // VectFused interface
+  @Override
+  public double addDot(double scaleThis, double scaleOther,
+                       VectConst other, VectConst dotOther) {
+    float s1 = (float) scaleThis;
+    float s2 = (float) scaleOther;
+    FileVect rhs = checkSame(other);
+    FileVect dot = checkSame(dotOther);
+    double result = 0.;
+    for (int ic=0; ic<getChunkCount(); ++ic) {
+      float[] a = chunk(ic, true);
+      float[] b = rhs.chunk(ic, false);
+      float[] d = dot.chunk(ic, false);
+      double sum = 0.;
+      for (int i=0; i<a.length; ++i) {
+        a[i] = s1*a[i] + s2*b[i];
+        sum += (double) a[i] * d[i];
+      }
+      result += sum;
+    }
+    return result;
+  }
+
+  // Vect interface
+  @Override
+  public void project(double scaleThis, double scaleOther, VectConst other) {
+    add(scaleThis, scaleOther, other);
+  }
+
+  // VectConst interface
+  @Override
+  public double dot(VectConst other) {
+    FileVect rhs = checkSame(other);
+    double result = 0.;
+    for (int ic=0; ic<getChunkCount(); ++ic) {
+      if (isZero(ic) || rhs.isZero(ic)) {
+        continue;
+      }
+      float[] a = chunk(ic, false);
+      float[] b = rhs.chunk(ic, false);
+      double sum = 0.;
+      for (int i=0; i<a.length; ++i) {
+        sum += (double) a[i] * b[i];
+      }
+      result += sum;
+    }
+    return result;
+  }
+
+  // VectConst interface
+  @Override
+  public double magnitude() {
+    return Almost.FLOAT.divide (dot(this), _size*_variance, 0.);
+  }
+
+  // Vect interface
+  @Override
+  public void multiplyInverseCovariance() {
+    double scale = Almost.FLOAT.divide (1., _size*_variance, 0.);
+    VectUtil.scale(this, scale);
+  }
+
+  // Vect interface
+  @Override
+  public void constrain() {}
+
+  // Vect interface
+  @Override
+  public void postCondition() {}
+
+  // Vect interface
+  @Override
+  public void dispose() {
+    if (_af != null) {
+      try {
+        _af.close();
+      } catch (IOException ex) {
+        throw new RuntimeException(ex);
+      } finally {
+        _af = null;
+        _cache = null;
+        if (!_file.delete()) {
+          _file.deleteOnExit();
+        }
+      }
+    }
+  }
+
+  // Cloneable, VectConst interface
+  @Override public FileVect clone() {
+    try {
+      FileVect result = (FileVect) super.clone();
+      result.init();
+      for (int ic=0; ic<getChunkCount(); ++ic) {
+        if (!isZero(ic)) {
+          result.write(ic, chunk(ic, false));
+        }
+      }
+      return result;
+    } catch (CloneNotSupportedException ex) {
+      IllegalStateException e = new IllegalStateException(ex.getMessage());
+      e.initCause(ex);
+      throw e;
+    }
+  }
+
+  // Object
+  @Override public String toString() {
+    return "FileVect("+_size+" samples in "+_file+")";
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  // Create an empty file and cache.
+  private void init() {
+    try {
+      _file = File.createTempFile("FileVect", ".dat", _directory);
+      _file.deleteOnExit();
+      _af = new ArrayFile(_file, "rw");
+    } catch (IOException ex) {
+      throw new RuntimeException(ex);
+    }
+    _stored = new BitSet();
+    _dirty = new BitSet();
+    _cache = new LinkedHashMap<Integer,float[]>(16, 0.75f, true);
+  }
+
+  private int getChunkCount() {
+    return (int)((_size+_chunkSize-1)/_chunkSize);
+  }
+
+  private int getChunkLength(int ic) {
+    return (int) Math.min(_chunkSize, _size-(long)ic*_chunkSize);
+  }
+
+  // True if a chunk has never been modified.
+  private boolean isZero(int ic) {
+    return !_stored.get(ic) && !_dirty.get(ic);
+  }
+
+  // Get a chunk from the cache, reading it if necessary.
+  private float[] chunk(int ic, boolean modify) {
+    if (_cache == null) {
+      throw new IllegalStateException("Vect has been disposed");
+    }
+    float[] c = _cache.get(ic);
+    if (c == null) {
+      c = evict(getChunkLength(ic));
+      if (_stored.get(ic)) {
+        read(ic, c);
+      } else {
+        Arrays.fill(c, 0.f);
+      }
+      _cache.put(ic, c);
+    }
+    if (modify) {
+      _dirty.set(ic);
+    }
+    return c;
+  }
+
+  // Make room in the cache, and return an array for a chunk.
+  private float[] evict(int length) {
+    float[] c = null;
+    if (_cache.size() >= _cachedChunks) {
+      Iterator<Map.Entry<Integer,float[]>> it = _cache.entrySet().iterator();
+      Map.Entry<Integer,float[]> eldest = it.next();
+      int ic = eldest.getKey();
+      c = eldest.getValue();
+      it.remove();
+      if (_dirty.get(ic)) {
+        write(ic, c);
+        _dirty.clear(ic);
+      }
+    }
+    return (c != null && c.length == length) ? c : new float[length];
+  }
+
+  private void read(int ic, float[] c) {
+    try {
+      _af.seek(4L*_chunkSize*ic);
+      _af.readFloats(c, 0, c.length);
+    } catch (IOException ex) {
+      throw new RuntimeException(ex);
+    }
+  }
+
+  private void write(int ic, float[] c) {
+    try {
+      _af.seek(4L*_chunkSize*ic);
+      _af.writeFloats(c, 0, c.length);
+      _stored.set(ic);
+    } catch (IOException ex) {
+      throw new RuntimeException(ex);
+    }
+  }
+
+  private void checkRange(long index, int n) {
+    if (index < 0 || index+n > _size) {
+      throw new IndexOutOfBoundsException
+        ("Samples "+index+" to "+(index+n)+" exceed size "+_size);
+    }
+  }
+
+  private FileVect checkSame(VectConst other) {
+    FileVect rhs = (FileVect) other;
+    if (rhs._size != _size || rhs._chunkSize != _chunkSize) {
+      throw new IllegalArgumentException
+        ("FileVects must have the same size and chunk size");
+    }
+    return rhs;
+  }
+
+  // Serializable: write samples, not the temporary file.  Cached arrays
+  // are reused for different chunks, so they must be written unshared.
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    out.defaultWriteObject();
+    for (int ic=0; ic<getChunkCount(); ++ic) {
+      out.writeUnshared(chunk(ic, false));
+    }
+  }
+
+  // Serializable: copy samples into a new temporary file.
+  private void readObject(ObjectInputStream in)
+    throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    init();
+    for (int ic=0; ic<getChunkCount(); ++ic) {
+      write(ic, (float[]) in.readUnshared());
+    }
+  }
+}
@@ -67,6 +67,14 @@ public class GaussNewtonSolver {
      * "Line search error" is an acceptable fraction of imprecision
      * in the scale factor for the line search.  A very small value
      * will cause the maximum number of line seach iterations to be used.
+     * <p></p>
+     * Scratch vectors are borrowed from pools (see VectPool) that
+     * persist for all linearization iterations, so the number of
+     * model-sized and data-sized vectors allocated does not grow
+     * with the number of iterations.  If perturbModel is non-null,
+     * then perturbations and models are in different spaces, and
+     * scratch vectors for each are disposed before vectors in the other
+     * space are needed, so that they are not retained unused.
      *
      * @param data                    The data to be fit.
      * @param referenceModel          This is the starting velocity model.
@@ -127,6 +135,12 @@ public class GaussNewtonSolver {
             linearizationIterations = 1;
         }
 
+        // scratch vectors in the spaces of data, perturbations, and models
+        final VectPool dataPool = new VectPool(data);
+        final VectPool modelPool = new VectPool(m0);
+        final VectPool perturbPool = (perturbModel != null)
+                ? new VectPool(perturbModel) : modelPool;
+
         // iteratively linearize transform
         LINEARIZE:
         for (int iter = 0; iter < linearizationIterations && !monitor.isCanceled(); ++iter) {
@@ -139,18 +153,23 @@ public class GaussNewtonSolver {
             // best fitting quadratic for current reference model m0
             final TransformQuadratic transformQuadratic =
                     new TransformQuadratic(data, m0, perturbModel, transform,
-                            dampOnlyPerturbation);
+                            dampOnlyPerturbation, dataPool, perturbPool);
 
             // get perturbation
             final QuadraticSolver quadraticSolver
-                    = new QuadraticSolver(transformQuadratic);
+                    = new QuadraticSolver(transformQuadratic, perturbPool);
             final Vect perturbation = quadraticSolver.solve
                     (conjugateGradIterations, new PartialMonitor(monitor, begin, mid));
 
+            // free scratch perturbations that line searches cannot reuse
+            if (perturbPool != modelPool) {
+                perturbPool.dispose();
+            }
+
             // terminate if perturbation is negligible
             final double pp = perturbation.dot(perturbation);
             if (Almost.FLOAT.zero(pp)) {
-                perturbation.dispose();
+                perturbPool.release(perturbation);
                 transformQuadratic.dispose();
                 break LINEARIZE;
             }
@@ -160,7 +179,8 @@ public class GaussNewtonSolver {
             if (lineSearchIterations > 0) {
                 final TransformFunction transformFunction =
                         new TransformFunction(transform, data, m0,
-                                perturbation, dampOnlyPerturbation);
+                                perturbation, dampOnlyPerturbation,
+                                dataPool, modelPool);
                 final ScalarSolver scalarSolver = new ScalarSolver(transformFunction);
 
                 final double scalarMin = 0.0;
@@ -173,17 +193,25 @@ public class GaussNewtonSolver {
                 transformFunction.dispose();
             }
 
+            // free scratch models that perturbations cannot reuse
+            if (perturbPool != modelPool) {
+                modelPool.dispose();
+            }
+
             // add scaled perturbation to reference model
             m0.project(1.0, scalar, perturbation);
 
             // apply constraints to reference model
             m0.constrain();
 
-            perturbation.dispose();
+            perturbPool.release(perturbation);
             transformQuadratic.dispose();
 
             monitor.report(end);
         }
+        dataPool.dispose();
+        modelPool.dispose();
+        perturbPool.dispose();
         monitor.report(1.0);
         return m0;
     }
@@ -195,6 +223,7 @@ public class GaussNewtonSolver {
         private final VectConst _perturbation;
         private final Vect _model;
         private final TransformQuadratic _transformQuadratic;
+        private final VectPool _modelPool;
 
         /* Constructor
           @param transform
@@ -202,31 +231,37 @@ public class GaussNewtonSolver {
           @param referenceModel
           @param perturbation
           @param dampOnlyPerturbation
+          @param dataPool
+          @param modelPool
         */
         private TransformFunction(final Transform transform,
                                   final VectConst data,
                                   final VectConst referenceModel,
                                   final VectConst perturbation,
-                                  final boolean dampOnlyPerturbation) {
+                                  final boolean dampOnlyPerturbation,
+                                  final VectPool dataPool,
+                                  final VectPool modelPool) {
             _referenceModel = referenceModel;
-            _model = _referenceModel.clone();
+            _modelPool = modelPool;
+            _model = _modelPool.borrow();
             _perturbation = perturbation;
             _transformQuadratic = new TransformQuadratic
-                    (data, referenceModel, null, transform, dampOnlyPerturbation);
+                    (data, referenceModel, null, transform, dampOnlyPerturbation,
+                            dataPool, modelPool);
         }
 
         @Override
         public double function(final double scalar) {
             VectUtil.copy(_model, _referenceModel);
             _model.project(1.0, scalar, _perturbation);
-            return _transformQuadratic.evalFullObjectiveFunction(_model);
+            return _transformQuadratic.evalFullObjectiveFunctionInPlace(_model);
         }
 
         /**
          * Free resources
          */
         public void dispose() {
-            _model.dispose();
+            _modelPool.release(_model);
         }
     }
 
@@ -0,0 +1,234 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ ****************************************************************************/
+package edu.mines.jtk.opt;
+
+import edu.mines.jtk.util.Monitor;
+
+/** Minimize a VectFunction with the limited-memory BFGS (L-BFGS)
+    quasi-Newton method.  The inverse Hessian is approximated from the
+    m most recent pairs of changes in the vector and its gradient, so
+    that memory is bounded by 2m+9 vectors for any number of
+    iterations.  Steps are found with a Mor'e-Thuente line search that
+    reuses function and gradient evaluations, so that most iterations
+    require only one evaluation of the function.
+    <p>
+    Unlike GaussNewtonSolver, this solver does not linearize the
+    function; it requires only values and gradients, and often reaches
+    the same misfit with far fewer evaluations of an expensive
+    non-linear transform.  See TransformMisfit.
+    <p>
+    Reference: Nocedal, J., and Wright, S.J., 2006, Numerical
+    optimization, 2nd ed.: Springer, Algorithm 7.4.
+    @author agent
+*/
+public class LbfgsSolver {
+  private VectFunction _function;
+  private int _m;
+  private int _evaluations = 0;
+
+  /** Construct a solver.
+      @param function Function to be minimized.
+      @param m Number of pairs of vectors that approximate the inverse
+      Hessian; typically 3 to 20.
+  */
+  public LbfgsSolver(VectFunction function, int m) {
+    if (m < 1) {
+      throw new IllegalArgumentException("Require m>=1");
+    }
+    _function = function;
+    _m = m;
+  }
+
+  /** Minimize the function.
+      @param x0 Initial vector.  Unchanged.
+      @param iterations Maximum number of iterations.
+      @param gradientTolerance Stop when the magnitude of the gradient
+      is reduced by this factor from its initial value.
+      @param monitor Report progress here, if non-null.
+      @return Vector that minimizes the function, a clone of x0.
+  */
+  public Vect solve(VectConst x0, int iterations, double gradientTolerance,
+                    Monitor monitor) {
+    if (monitor == null) {
+      monitor = Monitor.NULL_MONITOR;
+    }
+    monitor.report(0.);
+    VectLineSearch search = new VectLineSearch(_function, FTOL, GTOL);
+    Vect x = x0.clone();
+    x.constrain();
+    Vect g = VectUtil.cloneZero(x);
+    double f = search.evaluate(x, g);
+    double gg0 = g.dot(g);
+    Vect p = VectUtil.cloneZero(x);
+    History history = new History(_m);
+
+    for (int iter=0; iter<iterations && !monitor.isCanceled(); ++iter) {
+      double gg = g.dot(g);
+      if (gg <= gradientTolerance*gradientTolerance*gg0 || gg == 0.) {
+        break;
+      }
+
+      // p = -H g
+      VectUtil.copy(p, g);
+      history.multiply(p);
+      VectUtil.scale(p, -1.);
+
+      // initial step of 1 is natural for quasi-Newton; else scale by |g|
+      double step = (history.size() > 0) ? 1. : 1./Math.sqrt(gg);
+      history.mark(x, g);
+      double[] sf = search.search(x, g, f, p, step, STEP_ITERATIONS);
+      if (sf == null && history.size() > 0) { // restart from steepest descent
+        history.clear();
+        VectUtil.copy(p, g);
+        VectUtil.scale(p, -1.);
+        sf = search.search(x, g, f, p, 1./Math.sqrt(gg), STEP_ITERATIONS);
+      }
+      if (sf == null) {
+        break;
+      }
+      f = sf[1];
+      history.update(x, g);
+      monitor.report((iter+1.)/iterations);
+    }
+    _evaluations = search.getEvaluationCount();
+    search.dispose();
+    history.dispose();
+    g.dispose();
+    p.dispose();
+    monitor.report(1.);
+    return x;
+  }
+
+  /** Return the number of function evaluations in the last solve.
+      @return number of evaluations.
+  */
+  public int getEvaluationCount() {return _evaluations;}
+
+  /** History of the m most recent pairs s = x-xOld and y = g-gOld,
+      in a ring buffer.  A new pair is computed in scratch vectors and
+      enters the ring only if s.dot(y) is positive, so that a rejected
+      pair never replaces the oldest pair.
+  */
+  static class History {
+    private int _m;
+    private Vect[] _s;
+    private Vect[] _y;
+    private double[] _rho;
+    private double[] _alpha;
+    private Vect _ss = null; // scratch for the next s, holds xOld
+    private Vect _ys = null; // scratch for the next y, holds gOld
+    private int _nh = 0; // number of pairs in history
+    private int _ih = 0; // index of next pair in ring buffer
+
+    /** Construct an empty history.
+        @param m Maximum number of pairs.
+    */
+    History(int m) {
+      _m = m;
+      _s = new Vect[m];
+      _y = new Vect[m];
+      _rho = new double[m];
+      _alpha = new double[m];
+    }
+
+    /** Return the number of pairs in the history.
+        @return number of pairs.
+    */
+    int size() {return _nh;}
+
+    /** Forget all pairs. */
+    void clear() {
+      _nh = 0;
+    }
+
+    /** Remember a vector and its gradient before a step.
+        @param x Vector before the step.
+        @param g Gradient at x.
+    */
+    void mark(VectConst x, VectConst g) {
+      if (_ss == null) {
+        _ss = VectUtil.cloneZero(x);
+        _ys = VectUtil.cloneZero(x);
+      }
+      VectUtil.copy(_ss, x);
+      VectUtil.copy(_ys, g);
+    }
+
+    /** Add the pair for a step from the vector last marked.
+        @param x Vector after the step.
+        @param g Gradient at x.
+        @return true, if the pair was added; false, if it was skipped
+        to keep the inverse Hessian positive-definite.
+    */
+    boolean update(VectConst x, VectConst g) {
+      _ss.add(-1., 1., x);
+      _ys.add(-1., 1., g);
+      double sy = _ss.dot(_ys);
+      if (!(sy > 0.)) {
+        return false;
+      }
+      // swap the new pair with the vectors of the oldest pair
+      Vect t = _s[_ih]; _s[_ih] = _ss; _ss = t;
+      t = _y[_ih]; _y[_ih] = _ys; _ys = t;
+      if (_ss == null) {
+        _ss = VectUtil.cloneZero(x);
+        _ys = VectUtil.cloneZero(x);
+      }
+      _rho[_ih] = 1./sy;
+      _ih = (_ih+1)%_m;
+      _nh = Math.min(_nh+1, _m);
+      return true;
+    }
+
+    /** Multiply by the approximate inverse Hessian, with the
+        two-loop recursion.
+        @param p Vector to be multiplied; replaced by H p.
+    */
+    void multiply(Vect p) {
+      for (int k=0; k<_nh; ++k) {
+        int j = (_ih-1-k+_m)%_m;
+        _alpha[j] = _rho[j]*_s[j].dot(p);
+        p.add(1., -_alpha[j], _y[j]);
+      }
+      double gamma = 1.;
+      if (_nh > 0) {
+        int j = (_ih-1+_m)%_m;
+        gamma = 1./(_rho[j]*_y[j].dot(_y[j]));
+      }
+      VectUtil.scale(p, gamma);
+      for (int k=_nh-1; k>=0; --k) {
+        int j = (_ih-1-k+_m)%_m;
+        double beta = _rho[j]*_y[j].dot(p);
+        p.add(1., _alpha[j]-beta, _s[j]);
+      }
+    }
+
+    /** Free all vectors. */
+    void dispose() {
+      for (int j=0; j<_m; ++j) {
+        if (_s[j] != null) {_s[j].dispose(); _y[j].dispose();}
+        _s[j] = null;
+        _y[j] = null;
+      }
+      if (_ss != null) {_ss.dispose(); _ys.dispose();}
+      _ss = null;
+      _ys = null;
+    }
+  }
+
+  private static final double FTOL = 1.e-4;
+  private static final double GTOL = 0.9;
+  private static final int STEP_ITERATIONS = 20;
+}
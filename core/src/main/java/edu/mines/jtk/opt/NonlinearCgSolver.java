@@ -0,0 +1,111 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ ****************************************************************************/
+package edu.mines.jtk.opt;
+
+import edu.mines.jtk.util.Monitor;
+
+/** Minimize a VectFunction with the Polak-Ribi&egrave;re non-linear
+    conjugate-gradient method.  Requires only a few vectors of memory.
+    The Polak-Ribi&egrave;re parameter is clipped at zero (PR+), which
+    restarts the method with a steepest-descent direction whenever
+    conjugacy is lost.  Steps are found with a Mor'e-Thuente line
+    search that reuses function and gradient evaluations.
+    <p>
+    Reference: Nocedal, J., and Wright, S.J., 2006, Numerical
+    optimization, 2nd ed.: Springer, Section 5.2.
+    @author agent
+*/
+public class NonlinearCgSolver {
+  private VectFunction _function;
+  private int _evaluations = 0;
+
+  /** Construct a solver.
+      @param function Function to be minimized.
+  */
+  public NonlinearCgSolver(VectFunction function) {
+    _function = function;
+  }
+
+  /** Minimize the function.
+      @param x0 Initial vector.  Unchanged.
+      @param iterations Maximum number of iterations.
+      @param gradientTolerance Stop when the magnitude of the gradient
+      is reduced by this factor from its initial value.
+      @param monitor Report progress here, if non-null.
+      @return Vector that minimizes the function, a clone of x0.
+  */
+  public Vect solve(VectConst x0, int iterations, double gradientTolerance,
+                    Monitor monitor) {
+    if (monitor == null) {
+      monitor = Monitor.NULL_MONITOR;
+    }
+    monitor.report(0.);
+    VectLineSearch search = new VectLineSearch(_function, FTOL, GTOL);
+    Vect x = x0.clone();
+    x.constrain();
+    Vect g = VectUtil.cloneZero(x);
+    double f = search.evaluate(x, g);
+    double gg = g.dot(g);
+    double gg0 = gg;
+    Vect gOld = VectUtil.cloneZero(x);
+    Vect p = g.clone();
+    VectUtil.scale(p, -1.);
+    double step = 1./Math.sqrt(gg);
+
+    for (int iter=0; iter<iterations && !monitor.isCanceled(); ++iter) {
+      if (gg <= gradientTolerance*gradientTolerance*gg0 || gg == 0.) {
+        break;
+      }
+      double pg = p.dot(g);
+      VectUtil.copy(gOld, g);
+      double[] sf = search.search(x, g, f, p, step, STEP_ITERATIONS);
+      if (sf == null) {
+        break;
+      }
+      f = sf[1];
+
+      // Polak-Ribiere+ update of the search direction
+      double ggNew = g.dot(g);
+      double beta = Math.max(0., (ggNew - g.dot(gOld))/gg);
+      p.add(beta, -1., g);
+      double pgNew = p.dot(g);
+      if (!(pgNew < 0.)) { // not a descent direction, so restart
+        VectUtil.copy(p, g);
+        VectUtil.scale(p, -1.);
+        pgNew = -ggNew;
+      }
+      // initial step from the change in directional derivative
+      step = Math.max(sf[0]*pg/pgNew, Double.MIN_NORMAL);
+      gg = ggNew;
+      monitor.report((iter+1.)/iterations);
+    }
+    _evaluations = search.getEvaluationCount();
+    search.dispose();
+    g.dispose();
+    gOld.dispose();
+    p.dispose();
+    monitor.report(1.);
+    return x;
+  }
+
+  /** Return the number of function evaluations in the last solve.
+      @return number of evaluations.
+  */
+  public int getEvaluationCount() {return _evaluations;}
+
+  private static final double FTOL = 1.e-4;
+  private static final double GTOL = 0.1;
+  private static final int STEP_ITERATIONS = 20;
+}
@@ -51,11 +51,16 @@ import java.util.logging.Logger;
  * <p></p>
  * Also contains a solver for a least-squares inverse of a linear
  * transform, using QuadraticTransform as a wrapper.
+ * <p></p>
+ * If constructed with a VectPool, then the solver borrows its scratch
+ * vectors from that pool and releases them when done, so that repeated
+ * solves do not clone new vectors.
  *
  * @author W.S. Harlan
  */
 public class QuadraticSolver {
     private Quadratic _quadratic = null;
+    private VectPool _pool = null;
     private static final Logger LOG = Logger.getLogger("edu.mines.jtk.opt");
 
     /**
@@ -70,6 +75,22 @@ public class QuadraticSolver {
         _quadratic = quadratic;
     }
 
+    /**
+     * Implement the Quadratic interface and pass to this constructor.
+     * Scratch vectors are borrowed from the specified pool, which must
+     * contain vectors in the same space as the gradient b.
+     * The gradient b returned by the Quadratic is released to the pool.
+     * The solution returned by solve() is also borrowed from the pool,
+     * and may be released by the caller when no longer needed.
+     *
+     * @param quadratic Defines the Hessian quadratic term.
+     * @param pool      Borrow scratch vectors from this pool.
+     */
+    public QuadraticSolver(final Quadratic quadratic, final VectPool pool) {
+        _quadratic = quadratic;
+        _pool = pool;
+    }
+
     /**
      * Return a new solution after the number of conjugate gradient
      * iterations.
@@ -90,22 +111,26 @@ public class QuadraticSolver {
         checkNaN(bb);
         if (Almost.FLOAT.zero(bb)) {
             LOG.fine("Gradient of quadratic is negligible.  Not solving");
-            final Vect result = VectUtil.cloneZero(b);
+            final Vect result = cloneZero(b);
+            if (_pool != null) {
+                _pool.release((Vect) b);
+            }
             monitor.report(1.0);
             return result;
         }
 
         final Vect g = (Vect) b;
         b = null;   // reuse b
-        final Vect x = VectUtil.cloneZero(g); // instance 2
-        final Vect p = x.clone();      // instance 3
-        final Vect u = x.clone();      // instance 4
+        final Vect x = cloneZero(g);   // instance 2
+        final Vect p = cloneZero(g);   // instance 3
+        final Vect u = cloneZero(g);   // instance 4
         double pu = 0.0;
-        final Vect qa = g.clone();     // double use for instance 5
+        final Vect qa = borrow(g);     // double use for instance 5
 
         SOLVE:
         for (int iter = 0; iter < numberIterations && !monitor.isCanceled(); iter++) {
             double beta = 0.0;
+            final double pg;
             {
                 final Vect q = qa;
                 VectUtil.copy(q, g);
@@ -131,9 +156,8 @@ public class QuadraticSolver {
                 VectUtil.copy(a, g);
                 _quadratic.inverseHessian(a);
                 a.postCondition();
-                p.add(beta, -1.0, a);
+                pg = VectUtil.addDot(p, beta, -1.0, a, g);
             }
-            final double pg = p.dot(g);
             checkNaN(pg);
             pu = p.dot(u);
             checkNaN(pu);
@@ -147,10 +171,10 @@ public class QuadraticSolver {
             }
             g.add(1.0, scalar, u);
         }
-        p.dispose();
-        u.dispose();
-        g.dispose();
-        qa.dispose();
+        release(p);
+        release(u);
+        release(g);
+        release(qa);
         monitor.report(1.0);
         return x;
     }
@@ -186,16 +210,40 @@ public class QuadraticSolver {
                              final Monitor monitor) {
         final Transform transform = new LinearTransformWrapper(linearTransform);
         final VectConst perturbModel = null;
+        final VectPool dataPool = new VectPool(data);
+        final VectPool modelPool = new VectPool(referenceModel);
         final TransformQuadratic transformQuadratic =
                 new TransformQuadratic(data, referenceModel, perturbModel, transform,
-                        dampOnlyPerturbation);
-        final QuadraticSolver quadraticSolver = new QuadraticSolver(transformQuadratic);
+                        dampOnlyPerturbation, dataPool, modelPool);
+        final QuadraticSolver quadraticSolver =
+                new QuadraticSolver(transformQuadratic, modelPool);
         final Vect result = quadraticSolver.solve(conjugateGradIterations, monitor);
         transformQuadratic.dispose();
+        dataPool.dispose();
+        modelPool.dispose();
         result.add(1, 1, referenceModel);
         return result;
     }
 
+    // Clone a zero vector, or borrow one from the pool.
+    private Vect cloneZero(final VectConst v) {
+        return (_pool != null) ? _pool.borrowZero() : VectUtil.cloneZero(v);
+    }
+
+    // Clone a vector with unspecified values, or borrow one from the pool.
+    private Vect borrow(final VectConst v) {
+        return (_pool != null) ? _pool.borrow() : v.clone();
+    }
+
+    // Dispose a vector, or release it to the pool.
+    private void release(final Vect v) {
+        if (_pool != null) {
+            _pool.release(v);
+        } else {
+            v.dispose();
+        }
+    }
+
     /**
      * Abort if NaN's appear.
      *
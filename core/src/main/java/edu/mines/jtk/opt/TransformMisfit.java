@@ -0,0 +1,83 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ ****************************************************************************/
+package edu.mines.jtk.opt;
+
+/** The objective function minimized by GaussNewtonSolver, as a
+    VectFunction for LbfgsSolver or NonlinearCgSolver.
+    The value for a model m is
+    <pre>
+      [f(m)-data]'N[f(m)-data] + [m-m0]'M[m-m0]
+    </pre>
+    where f is a non-linear transform, N and M are the inverse
+    covariances applied by multiplyInverseCovariance of the data and
+    models, and m0 is a reference model (or zero if not damping only
+    the perturbation).  Each evaluation requires one non-linear forward
+    transform and one transpose of the linearized transform.
+    Robust adjustments of errors are applied as fixed weights.
+    @author agent
+*/
+public class TransformMisfit implements VectFunction {
+  private VectConst _data;
+  private VectConst _referenceModel;
+  private Transform _transform;
+  private boolean _dampOnlyPerturbation;
+  private VectPool _dataPool;
+
+  /** Construct the objective function.
+      @param data The data to be fit.
+      @param referenceModel The reference model m0, used only if
+      dampOnlyPerturbation is true.
+      @param transform The non-linear transform f.
+      @param dampOnlyPerturbation If true, then damp only the difference
+      between a model and the reference model.  If false, damp the model.
+  */
+  public TransformMisfit(VectConst data, VectConst referenceModel,
+                         Transform transform, boolean dampOnlyPerturbation) {
+    _data = data;
+    _referenceModel = referenceModel;
+    _transform = transform;
+    _dampOnlyPerturbation = dampOnlyPerturbation;
+    _dataPool = new VectPool(data);
+  }
+
+  // VectFunction
+  @Override
+  public double evaluate(VectConst model, Vect gradient) {
+    Vect e = _dataPool.borrowZero();
+    _transform.forwardNonlinear(e, model);
+    e.add(1., -1., _data);   // e = f(m) - data
+    _transform.adjustRobustErrors(e);
+    double eNe = e.magnitude();
+    e.multiplyInverseCovariance(); // e = N e
+    VectUtil.zero(gradient);
+    _transform.addTranspose(e, gradient, model); // gradient = F'N e
+    _dataPool.release(e);
+
+    Vect m = model.clone();
+    if (_dampOnlyPerturbation) {
+      m.add(1., -1., _referenceModel); // m = m - m0
+    }
+    double mMm = m.magnitude();
+    m.multiplyInverseCovariance();
+    gradient.add(2., 2., m); // gradient = 2 F'N e + 2 M (m-m0)
+    m.dispose();
+    return eNe + mMm;
+  }
+
+  /** Free scratch vectors. */
+  public void dispose() {
+    _dataPool.dispose();
+  }
+}
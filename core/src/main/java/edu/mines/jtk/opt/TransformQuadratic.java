@@ -72,6 +72,8 @@ public class TransformQuadratic implements Quadratic {
   private VectConst _perturbModel;
   private Transform _transform;
   private boolean _dampOnlyPerturbation = false;
+  private VectPool _dataPool = null;
+  private VectPool _modelPool = null;
 
   /** Wrap known data, reference mode, and transform
       as a Gauss-Newton objectiveFunction.
@@ -98,6 +100,38 @@ public class TransformQuadratic implements Quadratic {
     _dampOnlyPerturbation = dampOnlyPerturbation;
   }
 
+  /** Wrap known data, reference mode, and transform
+      as a Gauss-Newton objectiveFunction, borrowing scratch
+      vectors from pools rather than cloning new vectors.
+      @param referenceModel This is the reference model
+      m in the objective function.
+      @param perturbModel  If non-null, then use instances
+      of this vector to perturb the reference model.
+      It must be possible to project the referenceModel
+      and perturbModel into each other.
+      @param data The data to be fit.
+      @param transform Optimize with this transform
+      @param dampOnlyPerturbation If true then use objective function
+      <code> [f(m)+Fx-data]'N[f(m)+Fx-data] + x'Mx </code>
+      @param dataPool If non-null, borrow vectors in the space
+      of the data from this pool.
+      @param modelPool If non-null, borrow vectors in the space
+      of the perturbModel (or of the referenceModel, if perturbModel
+      is null) from this pool.  The vector returned by getB() is
+      borrowed from this pool.
+   */
+  public TransformQuadratic(VectConst data,
+                            VectConst referenceModel,
+                            VectConst perturbModel,
+                            Transform transform,
+                            boolean dampOnlyPerturbation,
+                            VectPool dataPool,
+                            VectPool modelPool) {
+    this(data, referenceModel, perturbModel, transform, dampOnlyPerturbation);
+    _dataPool = dataPool;
+    _modelPool = modelPool;
+  }
+
   /** Run a few tests to ensure that transpose satisfies definition.
       This is expensive and intended only for test code.
       @return number of sigficant digits of precision in transpose.
@@ -180,12 +214,12 @@ public class TransformQuadratic implements Quadratic {
    */
   @Override
   public void multiplyHessian(Vect x) {
-    Vect data = _data.clone();
+    Vect data = borrowData();
     _transform.forwardLinearized(data, x,_referenceModel); // data is Fx
     data.multiplyInverseCovariance(); // data is NFx
     x.multiplyInverseCovariance(); // x is Mx
     _transform.addTranspose(data, x,_referenceModel);// x is (F'NF +M)x
-    data.dispose();
+    releaseData(data);
   }
 
   // Quadratic
@@ -203,20 +237,25 @@ public class TransformQuadratic implements Quadratic {
   */
   @Override
   public Vect getB() {
-    Vect data = VectUtil.cloneZero(_data); // data is data with zeros
+    Vect data = borrowDataZero(); // data is data with zeros
     _transform.forwardNonlinear(data, _referenceModel); // data is f(m)
     data.add(1., -1.,_data);                  // data is -e = -(d - f(m))
     _transform.adjustRobustErrors(data);      // (remove outliers from e)
     data.multiplyInverseCovariance();         // data is -Ne
     Vect b;
     if (_dampOnlyPerturbation) {
-      if (_perturbModel != null) {
+      if (_modelPool != null) {
+        b = _modelPool.borrowZero();
+      } else if (_perturbModel != null) {
         b = VectUtil.cloneZero(_perturbModel);  // b is 0
       } else {
         b = VectUtil.cloneZero(_referenceModel); // b is 0
       }
     } else {
-      if (_perturbModel != null) {
+      if (_modelPool != null) {
+        b = _modelPool.borrow();
+        b.project(0., 1., _referenceModel);      // b is m
+      } else if (_perturbModel != null) {
         b = _perturbModel.clone();
         b.project(0., 1., _referenceModel);      // b is m
       } else {
@@ -225,7 +264,7 @@ public class TransformQuadratic implements Quadratic {
       b.multiplyInverseCovariance();           // b is M m
     }
     _transform.addTranspose(data, b, _referenceModel);  // b is -F'Ne [+ Mm]
-    data.dispose();
+    releaseData(data);
     return b;
   }
 
@@ -246,10 +285,27 @@ public class TransformQuadratic implements Quadratic {
       @return Value of objective function.
    */
   public double evalFullObjectiveFunction(VectConst m) {
+    boolean pooled = _modelPool != null && _perturbModel == null;
+    Vect model = pooled ? _modelPool.borrowCopy(m) : m.clone(); // model is m
+    double result = evalFullObjectiveFunctionInPlace(model);
+    if (pooled) {
+      _modelPool.release(model);
+    } else {
+      model.dispose();
+    }
+    return result;
+  }
+
+  /** Evaluate the full objective function without approximation,
+      as for evalFullObjectiveFunction, but without a copy of the model.
+      @param model Model to be evaluated.  Values of this model
+      are changed by this method.
+      @return Value of objective function.
+   */
+  double evalFullObjectiveFunctionInPlace(Vect model) {
 
-    Vect data = VectUtil.cloneZero(_data); // data is zeros
+    Vect data = borrowDataZero(); // data is zeros
 
-    Vect model = m.clone(); // model is m
     model.constrain();          // may have been done already
 
     _transform.forwardNonlinear(data, model); // data is f(m)
@@ -257,7 +313,7 @@ public class TransformQuadratic implements Quadratic {
     _transform.adjustRobustErrors(data);
     double eNe = data.magnitude(); // eNe is e'Ne
     checkNaN(eNe);
-    data.dispose();
+    releaseData(data);
 
     // damp perturbation if requested
     if (_dampOnlyPerturbation) {
@@ -266,10 +322,29 @@ public class TransformQuadratic implements Quadratic {
 
     double mMm = model.magnitude(); // mMm is (m-m0)'M(m-m0)
     checkNaN(mMm);
-    model.dispose();
     return (eNe + mMm);
   }
 
+  // Borrow a vector in the space of the data, with unspecified values.
+  private Vect borrowData() {
+    return (_dataPool != null) ? _dataPool.borrow() : _data.clone();
+  }
+
+  // Borrow a vector in the space of the data, with zero values.
+  private Vect borrowDataZero() {
+    return (_dataPool != null) ?
+      _dataPool.borrowZero() : VectUtil.cloneZero(_data);
+  }
+
+  // Release or dispose a vector in the space of the data.
+  private void releaseData(Vect data) {
+    if (_dataPool != null) {
+      _dataPool.release(data);
+    } else {
+      data.dispose();
+    }
+  }
+
   /** Abort if NaN's appear.
       @param value Abort if this value is a NaN.
    */
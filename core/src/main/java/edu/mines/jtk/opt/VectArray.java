@@ -15,11 +15,18 @@ limitations under the License.
 package edu.mines.jtk.opt;
 
 import edu.mines.jtk.util.Almost;
+import edu.mines.jtk.util.Parallel;
 
 import java.util.logging.Logger;
 
 /** A VectContainer implemented as an array, with sequential indices.
     Keys will be returned in the index order.
+    <p>
+    By default, members are updated one at a time.  Call
+    setParallel(true) to evaluate dot products, magnitudes, and
+    additions of members concurrently.  Do so only if the members
+    are large, and if no two members share mutable state, because
+    methods of different members will then run in different threads.
     @author W.S. Harlan
  */
 public class VectArray implements VectContainer {
@@ -27,6 +34,7 @@ public class VectArray implements VectContainer {
   private static final Logger LOG = Logger.getLogger("edu.mines.jtk.opt");
   private Vect[] _vect = null;
   private int[] _keys = null;
+  private boolean _parallel = false;
 
   /** Specify the number of sequential indices.
       @param size Indices can range from 0 to size-1.
@@ -37,6 +45,17 @@ public class VectArray implements VectContainer {
     for (int i=0; i<size; ++i) {_keys[i] = i;}
   }
 
+  /** Specify whether members may be evaluated in parallel.
+      Sums over members are still added in index order, so results
+      do not depend on this setting.
+      @param parallel If true, methods of different members may be
+      called concurrently from different threads.  Members must then
+      be thread-safe with respect to each other.
+   */
+  public void setParallel(boolean parallel) {
+    _parallel = parallel;
+  }
+
   // VectContainer
   @Override
   public void put(int index, Vect vect) {
@@ -68,12 +87,12 @@ public class VectArray implements VectContainer {
   // VectConst
   @Override
   public double dot(VectConst other) {
-    VectArray otherMap = (VectArray) other;
-    double result = 0.;
-    for (int i=0; i<_vect.length; ++i) {
-      result += _vect[i].dot(otherMap._vect[i]);
-    }
-    return result;
+    final Vect[] vect = _vect;
+    final Vect[] otherVect = ((VectArray) other)._vect;
+    return VectParallel.sumInOrder
+      (vect.length, _parallel, new VectParallel.Sum() {
+        public double sum(int i) {return vect[i].dot(otherVect[i]);}
+      });
   }
 
   // VectConst
@@ -142,29 +161,34 @@ public class VectArray implements VectContainer {
 
   // implementation of both project and add.
   private void addOrProject
-    (double scaleThis, double scaleOther, VectConst other, boolean project)  {
+    (final double scaleThis, final double scaleOther, VectConst other,
+     final boolean project)  {
 
-    VectArray otherMap = (VectArray) other;
-    for (int i=0; i<_vect.length; ++i) {
-      Vect vectTo = _vect[i];
-      Vect vectFrom = otherMap._vect[i];
-      if (vectFrom == null) {
+    final Vect[] vect = _vect;
+    final Vect[] otherVect = ((VectArray) other)._vect;
+    for (int i=0; i<otherVect.length; ++i) {
+      if (otherVect[i] == null) {
         throw new IllegalStateException("Cannot scale missing Vect "+i);
       }
-      if (project)
-        vectTo.project(scaleThis, scaleOther, vectFrom);
-      else
-        vectTo.add(scaleThis, scaleOther, vectFrom);
     }
+    VectParallel.loop(vect.length, _parallel, new Parallel.LoopInt() {
+        public void compute(int i) {
+          if (project)
+            vect[i].project(scaleThis, scaleOther, otherVect[i]);
+          else
+            vect[i].add(scaleThis, scaleOther, otherVect[i]);
+        }
+      });
   }
 
   // Vect
   @Override
   public double magnitude() {
-    double result = 0.;
-      for (Vect a_vect : _vect) {
-          result += a_vect.magnitude();
-      }
+    final Vect[] vect = _vect;
+    double result = VectParallel.sumInOrder
+      (vect.length, _parallel, new VectParallel.Sum() {
+        public double sum(int i) {return vect[i].magnitude();}
+      });
     result = Almost.FLOAT.divide (result, _vect.length, 0.);
     return result;
   }
@@ -0,0 +1,34 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ ****************************************************************************/
+package edu.mines.jtk.opt;
+
+/** A differentiable scalar function of a vector, to be minimized by
+    solvers such as LbfgsSolver and NonlinearCgSolver.  Each evaluation
+    computes both the value and the gradient, because most expensive
+    functions (for example, data misfits of non-linear transforms)
+    can compute the gradient at little additional cost.
+    @author agent
+*/
+public interface VectFunction {
+  /** Evaluate the function and its gradient.
+      @param x Evaluate the function for this vector.  Unchanged.
+      @param gradient Output gradient of the function with respect to x.
+      Initial values are ignored.  The gradient must be consistent with
+      the dot product of x, so that the directional derivative along a
+      vector p is p.dot(gradient).
+      @return Value of the function.
+  */
+  double evaluate(VectConst x, Vect gradient);
+}
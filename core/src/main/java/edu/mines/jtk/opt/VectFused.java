@@ -0,0 +1,58 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ ****************************************************************************/
+package edu.mines.jtk.opt;
+
+/**
+ * Optionally implement fused operations that combine several Vect
+ * methods in a single pass over the data of a vector.
+ * Fused operations reduce memory traffic for large vectors.
+ * Each method must give the same result as the sequence of Vect
+ * methods that it replaces.
+ * Use {@link VectUtil#addDot(Vect,double,double,VectConst,VectConst)}
+ * to call these methods when available, and the equivalent
+ * Vect methods otherwise.
+ * That method uses fused methods only for vectors whose method
+ * isFused returns true.  A subclass that overrides add or dot must
+ * either also override addDot, or override isFused to return false,
+ * so that its overrides are not bypassed.
+ *
+ * @author agent
+ */
+public interface VectFused extends Vect {
+    /**
+     * Add a scaled version of another vector to a scaled version of this
+     * vector, and return the dot product of the result with a third vector.
+     * Equivalent to add(scaleThis, scaleOther, other)
+     * followed by dot(dotOther).
+     * The vector dotOther may be the same as other, but not this vector.
+     *
+     * @param scaleThis  Multiply this vector by this scalar before adding.
+     * @param scaleOther Multiply the other vector by this scalar before adding.
+     * @param other      The other vector to be multiplied.
+     * @param dotOther   The vector to be dotted with the result.
+     * @return The dot product of the result with dotOther.
+     */
+    double addDot(double scaleThis, double scaleOther,
+                  VectConst other, VectConst dotOther);
+
+    /**
+     * Return true if addDot may be called instead of add followed
+     * by dot.  Classes that implement addDot return true.  Subclasses
+     * that override add or dot, but not addDot, must return false.
+     *
+     * @return true if addDot is consistent with add and dot.
+     */
+    boolean isFused();
+}
@@ -0,0 +1,145 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ ****************************************************************************/
+package edu.mines.jtk.opt;
+
+/** Searches along a direction for a step that minimizes a VectFunction,
+    for solvers that require the gradient at each accepted step.
+    Uses the Mor'e-Thuente LineSearch, and reuses function and gradient
+    evaluations: the search evaluates each trial step only once, and the
+    accepted step and its gradient are taken from the evaluation of that
+    step, without evaluating the function again.  The lowest trial step
+    is also retained, because LineSearch may return to it.
+    Scratch vectors are allocated once and reused for all searches.
+    @author agent
+*/
+class VectLineSearch {
+  private VectFunction _function;
+  private double _ftol, _gtol;
+  private int _evaluations = 0;
+
+  // two trial steps, each with a vector, gradient, step, and value
+  private Vect[] _x = new Vect[2];
+  private Vect[] _g = new Vect[2];
+  private double[] _s = new double[2];
+  private double[] _f = new double[2];
+  private int _best = -1; // index of trial with lowest value
+
+  /** Construct a line search.
+      @param function Function to minimize.
+      @param ftol Tolerance for sufficient decrease, such as 0.0001.
+      @param gtol Tolerance for the curvature condition, such as 0.9
+      for quasi-Newton methods or 0.1 for conjugate gradients.
+  */
+  VectLineSearch(VectFunction function, double ftol, double gtol) {
+    _function = function;
+    _ftol = ftol;
+    _gtol = gtol;
+  }
+
+  /** Evaluate the function once, counting the evaluation.
+      @param x Evaluate the function here.
+      @param gradient Output gradient.
+      @return Value of function.
+  */
+  double evaluate(VectConst x, Vect gradient) {
+    ++_evaluations;
+    return _function.evaluate(x, gradient);
+  }
+
+  /** Return the number of function evaluations so far.
+      @return number of evaluations.
+  */
+  int getEvaluationCount() {return _evaluations;}
+
+  /** Search for a step s along direction p that decreases f(x+s*p).
+      @param x Starting vector; replaced by x+s*p for the step found.
+      @param gradient Gradient at x; replaced by the gradient at x+s*p.
+      @param f Value of function at x.
+      @param p Direction of search; p.dot(gradient) must be negative.
+      @param s0 Initial estimate of the step; must be positive.
+      @param stepIterations Maximum number of function evaluations.
+      @return array {s,f} with step found and value of the function at
+      x+s*p, or null if no step decreases the function.  If null, x and
+      gradient are unchanged.
+  */
+  double[] search(final Vect x, Vect gradient, double f, final VectConst p,
+                  double s0, final int stepIterations) {
+    final double fp = p.dot(gradient);
+    if (!(fp < 0.)) {
+      return null;
+    }
+    if (_x[0] == null) {
+      for (int i=0; i<2; ++i) {
+        _x[i] = x.clone();
+        _g[i] = gradient.clone();
+      }
+    }
+    _best = -1;
+    final int[] count = {0};
+    LineSearch.Function lf = new LineSearch.Function() {
+        public double[] evaluate(double s) {
+          if (_best >= 0 && _s[_best] == s) {
+            return new double[]{_f[_best], p.dot(_g[_best])};
+          }
+          int i = (_best == 0) ? 1 : 0;
+          if (count[0]++ >= stepIterations) {
+            throw new SearchEnded();
+          }
+          VectUtil.copy(_x[i], x);
+          _x[i].add(1., s, p);
+          _s[i] = s;
+          _f[i] = VectLineSearch.this.evaluate(_x[i], _g[i]);
+          if (_best < 0 || _f[i] < _f[_best]) {
+            _best = i;
+          }
+          return new double[]{_f[i], p.dot(_g[i])};
+        }
+      };
+    LineSearch ls = new LineSearch(lf, STOL, _ftol, _gtol);
+    LineSearch.Result r = null;
+    try {
+      r = ls.search(s0, f, fp, 0., Math.max(SMAX, s0));
+    } catch (SearchEnded e) {
+      // too many evaluations; use the lowest trial
+    }
+    if (_best < 0 || !(_f[_best] < f)) {
+      return null;
+    }
+    // accept the search result if evaluated, else the lowest trial
+    int i = _best;
+    for (int j=0; r!=null && j<2; ++j) {
+      if (_s[j] == r.s && _f[j] == r.f && _f[j] < f) {i = j;}
+    }
+    VectUtil.copy(x, _x[i]);
+    VectUtil.copy(gradient, _g[i]);
+    return new double[]{_s[i], _f[i]};
+  }
+
+  /** Free scratch vectors. */
+  void dispose() {
+    for (int i=0; i<2; ++i) {
+      if (_x[i] != null) {_x[i].dispose(); _x[i] = null;}
+      if (_g[i] != null) {_g[i].dispose(); _g[i] = null;}
+    }
+  }
+
+  private static final double STOL = 1.e-10;
+
+  // Thrown to end a search that exceeds its number of evaluations.
+  private static class SearchEnded extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+  }
+  private static final double SMAX = 1.e20;
+}
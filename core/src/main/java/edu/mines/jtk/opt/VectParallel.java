@@ -0,0 +1,101 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.opt;
+
+import edu.mines.jtk.util.Parallel;
+
+/** Loops over the slabs (outer array elements) of vectors in parallel.
+    Sums over slabs are deterministic: each slab is summed in double
+    precision in a fixed order, and partial sums of slabs are then
+    combined pairwise, so that results do not depend on the number
+    of threads. Small vectors are processed serially.
+    @author agent
+*/
+class VectParallel {
+
+  /** Minimum number of samples for which loops are parallel. */
+  static final int MIN_PARALLEL = 1 << 16;
+
+  /** Computes a sum for one slab. */
+  interface Sum {
+    /** Compute the sum for one slab.
+        @param i Index of the slab.
+        @return Sum for this slab.
+    */
+    double sum(int i);
+  }
+
+  /** Loop over slabs.
+      @param n Number of slabs.
+      @param parallel If true, slabs may be processed in parallel.
+      @param body Computation for each slab.
+  */
+  static void loop(int n, boolean parallel, Parallel.LoopInt body) {
+    if (parallel && n > 1) {
+      Parallel.loop(n, body);
+    } else {
+      for (int i=0; i<n; ++i) {body.compute(i);}
+    }
+  }
+
+  /** Sum over slabs.  Each slab is summed separately and slab sums
+      are then added pairwise, so that results may differ in the last
+      bits from those of one running sum, but do not depend on the
+      number of threads.
+      @param n Number of slabs.
+      @param parallel If true, slabs may be summed in parallel.
+      @param body Sum for each slab.
+      @return Sum of all slabs.
+  */
+  static double sum(int n, boolean parallel, Sum body) {
+    double[] s = new double[n];
+    loop(n, parallel, sums(s, body));
+    return pairwise(s, 0, n);
+  }
+
+  /** Sum over members of a container, added in index order, so that
+      results are the same as those of a serial loop.
+      @param n Number of members.
+      @param parallel If true, members may be evaluated in parallel.
+      @param body Value for each member.
+      @return Sum of all values.
+  */
+  static double sumInOrder(int n, boolean parallel, Sum body) {
+    double[] s = new double[n];
+    loop(n, parallel, sums(s, body));
+    double result = 0.;
+    for (int i=0; i<n; ++i) {result += s[i];}
+    return result;
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  private static Parallel.LoopInt sums(final double[] s, final Sum body) {
+    return new Parallel.LoopInt() {
+        public void compute(int i) {s[i] = body.sum(i);}
+      };
+  }
+
+  private static double pairwise(double[] s, int i0, int i1) {
+    if (i1-i0 <= 2) {
+      double result = 0.;
+      for (int i=i0; i<i1; ++i) {result += s[i];}
+      return result;
+    }
+    int im = (i0+i1)>>>1;
+    return pairwise(s, i0, im) + pairwise(s, im, i1);
+  }
+}
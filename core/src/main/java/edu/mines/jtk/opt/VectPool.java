@@ -0,0 +1,117 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ ****************************************************************************/
+package edu.mines.jtk.opt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A pool of reusable scratch vectors, all in the same vector space.
+ * Solvers borrow vectors from a pool and release them when no longer
+ * needed, so that later iterations reuse the same instances instead
+ * of cloning new ones.  A new instance is cloned from a prototype
+ * only when no released instance is available.
+ * Borrowed vectors must not be disposed while the pool is in use;
+ * {@link #dispose()} disposes all released vectors.
+ * This class is thread-safe.
+ *
+ * @author agent
+ */
+public class VectPool {
+    private final VectConst _prototype;
+    private final List<Vect> _free = new ArrayList<Vect>();
+    private int _allocated = 0;
+
+    /**
+     * Construct a pool for vectors in the same space as a prototype.
+     * The prototype is cloned as necessary, and its values are ignored.
+     * A reference to the prototype is kept, so it should not
+     * be disposed before this pool.
+     *
+     * @param prototype Clone new vectors from this instance.
+     */
+    public VectPool(final VectConst prototype) {
+        _prototype = prototype;
+    }
+
+    /**
+     * Borrow a vector with unspecified values.
+     *
+     * @return A vector in the space of the prototype.
+     */
+    public synchronized Vect borrow() {
+        if (_free.isEmpty()) {
+            ++_allocated;
+            return _prototype.clone();
+        }
+        return _free.remove(_free.size() - 1);
+    }
+
+    /**
+     * Borrow a vector with zero magnitude.
+     *
+     * @return A vector in the space of the prototype, set to zero.
+     */
+    public Vect borrowZero() {
+        final Vect result = borrow();
+        VectUtil.zero(result);
+        return result;
+    }
+
+    /**
+     * Borrow a vector with a copy of the values of another vector.
+     *
+     * @param from Copy the state of this vector.
+     * @return A vector in the space of the prototype.
+     */
+    public Vect borrowCopy(final VectConst from) {
+        final Vect result = borrow();
+        VectUtil.copy(result, from);
+        return result;
+    }
+
+    /**
+     * Return a borrowed vector to this pool, for later reuse.
+     * The vector must not be used after it is released.
+     *
+     * @param vect A vector borrowed from this pool, or another
+     *             vector in the same space.  Ignored if null.
+     */
+    public synchronized void release(final Vect vect) {
+        if (vect != null) {
+            _free.add(vect);
+        }
+    }
+
+    /**
+     * Get the number of vectors cloned by this pool.
+     *
+     * @return number of vectors cloned from the prototype.
+     */
+    public synchronized int getAllocatedCount() {
+        return _allocated;
+    }
+
+    /**
+     * Dispose all released vectors.  Vectors that were borrowed and
+     * not released are unaffected.  The pool may be used again.
+     */
+    public synchronized void dispose() {
+        for (final Vect vect : _free) {
+            vect.dispose();
+        }
+        _free.clear();
+    }
+}
@@ -79,6 +79,32 @@ public class VectUtil {
         return result;
     }
 
+    /**
+     * Add a scaled version of another vector to a scaled version of a
+     * vector, and return the dot product of the result with a third vector.
+     * Uses a single pass over the data if the vector implements VectFused
+     * and its method isFused returns true; otherwise uses the methods add
+     * and dot.
+     *
+     * @param v          Vector to be modified.
+     * @param scaleThis  Multiply v by this scalar before adding.
+     * @param scaleOther Multiply the other vector by this scalar before adding.
+     * @param other      The other vector to be multiplied.
+     * @param dotOther   The vector to be dotted with the result.
+     *                   Must not be the same as v.
+     * @return The dot product of the modified v with dotOther.
+     */
+    public static double addDot(final Vect v, final double scaleThis,
+                                final double scaleOther,
+                                final VectConst other,
+                                final VectConst dotOther) {
+        if (v instanceof VectFused && ((VectFused) v).isFused()) {
+            return ((VectFused) v).addDot(scaleThis, scaleOther, other, dotOther);
+        }
+        v.add(scaleThis, scaleOther, other);
+        return v.dot(dotOther);
+    }
+
     static final Almost ALMOST_DOT = new Almost(0.000015);
 
     /**
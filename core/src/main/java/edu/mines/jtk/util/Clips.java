@@ -36,6 +36,14 @@ import static edu.mines.jtk.util.ArrayMath.*;
  * updated when percentiles are changed. If not using percentiles, because 
  * clipMin and clipMax are specified explicitly, then these arrays are 
  * ignored.
+ * <p>
+ * For arrays with more than about one million values, clips for
+ * percentiles are computed in one parallel pass, without copying the 
+ * array, from a {@link QuantileSketch} with normalized rank error 
+ * less than 0.001 (0.1 percent).
+ * <p>
+ * For any number of values, NaN values are ignored when computing clips
+ * for percentiles other than 0 and 100.
  *
  * @author Dave Hale, Colorado School of Mines
  * @version 2007.01.10
@@ -290,6 +298,8 @@ public class Clips {
           int n2 = f3.getN2();
           int n3 = f3.getN3();
           float[][] a = new float[n2][n1];
+          _clipMin = Float.MAX_VALUE;
+          _clipMax = -Float.MAX_VALUE;
           for (int i3=0; i3<n3; ++i3) {
             f3.get12(n1,n2,0,0,i3,a);
             _clipMin = min(_clipMin,min(a));
@@ -299,6 +309,27 @@ public class Clips {
         }
       }
 
+      // Else if we must compute percentiles for many values, ...
+      else if (count(_f)>EXACT_MAX) {
+        QuantileSketch qs = null;
+        if (_f instanceof float[]) {
+          qs = QuantileSketch.sketch((float[])_f,RANK_ERROR);
+        } else if (_f instanceof float[][]) {
+          qs = QuantileSketch.sketch((float[][])_f,RANK_ERROR);
+        } else if (_f instanceof float[][][]) {
+          qs = QuantileSketch.sketch((float[][][])_f,RANK_ERROR);
+        } else if (_f instanceof Float3) {
+          qs = QuantileSketch.sketch((Float3)_f,RANK_ERROR);
+        }
+        if (qs!=null) {
+          float[] q = qs.getQuantiles(new double[]{
+            0.01*_percMin,0.01*_percMax});
+          _clipMin = q[0];
+          _clipMax = q[1];
+          clipsComputed = true;
+        }
+      }
+
       // Else if we must compute percentiles, ...
       else {
         float[] a = null;
@@ -316,7 +347,13 @@ public class Clips {
           a = new float[n1*n2*n3];
           f3.get123(n1,n2,n3,0,0,0,a);
         }
-        if (a!=null) {
+        if (a!=null)
+          a = removeNaN(a);
+        if (a!=null && a.length==0) {
+          _clipMin = Float.NaN;
+          _clipMax = Float.NaN;
+          clipsComputed = true;
+        } else if (a!=null) {
           int n = a.length;
           int kmin = (int)rint(_percMin*0.01*(n-1));
           if (kmin<=0) {
@@ -343,6 +380,44 @@ public class Clips {
       }
     }
   }
+
+  private static final long EXACT_MAX = 1L<<20; // max for exact percentiles
+  private static final double RANK_ERROR = 0.001; // for quantile sketches
+
+  // Returns the number of values in an array, or zero if not an array.
+  private static long count(Object f) {
+    if (f instanceof float[]) {
+      return ((float[])f).length;
+    } else if (f instanceof float[][]) {
+      long n = 0;
+      for (float[] fi:(float[][])f)
+        n += fi.length;
+      return n;
+    } else if (f instanceof float[][][]) {
+      long n = 0;
+      for (float[][] fi:(float[][][])f)
+        for (float[] fij:fi)
+          n += fij.length;
+      return n;
+    } else if (f instanceof Float3) {
+      Float3 f3 = (Float3)f;
+      return (long)f3.getN1()*f3.getN2()*f3.getN3();
+    }
+    return 0;
+  }
+
+  // Returns the values in the specified array that are not NaN, as do
+  // quantile sketches. Returns the same array if none is NaN.
+  private static float[] removeNaN(float[] a) {
+    int n = a.length;
+    int m = 0;
+    for (int i=0; i<n; ++i) {
+      if (!Float.isNaN(a[i]))
+        a[m++] = a[i];
+    }
+    return (m<n)?copy(m,a):a;
+  }
+
   private void makeClipsValid() {
     if (_clipMin>=_clipMax) {
       double clipAvg = 0.5*(_clipMin+_clipMax);
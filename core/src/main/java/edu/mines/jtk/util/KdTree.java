@@ -0,0 +1,494 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.util;
+
+/**
+ * A k-d tree of points, for fast searches of points nearest to others.
+ * Points are referenced by their integer indices, and their coordinates
+ * are stored in arrays of primitive values. Unlike an {@link RTree}, a
+ * k-d tree is static; points cannot be added or removed after the tree
+ * is constructed. Construction costs O(N log N) for N points, and is
+ * performed in parallel.
+ * <p>
+ * After construction, a k-d tree is not modified by any queries, so that
+ * queries may be performed concurrently in multiple threads. Batched
+ * queries for points nearest to all points in a 2D or 3D grid are
+ * performed in parallel.
+ * <p>
+ * When two or more points are equally distant from a query point, the
+ * point with the lowest index is considered nearest. Results of queries
+ * therefore do not depend on the structure of the tree.
+ * <p>
+ * Reference: Friedman, J.H., Bentley, J.L., and Finkel, R.A., 1977,
+ * An algorithm for finding best matches in logarithmic expected time:
+ * ACM Transactions on Mathematical Software, v. 3, n. 3, p. 209-226.
+ *
+ * @author agent
+ * @version 2026.10.19
+ */
+public class KdTree {
+
+  /**
+   * Constructs a tree for points with specified coordinates. The number
+   * of coordinate arrays is the number of dimensions of the tree, and all
+   * coordinate arrays must have the same length, the number of points.
+   * The specified arrays are copied; not referenced.
+   * @param x array[ndim][npoint] of point coordinates; by convention,
+   *  x[0] contains 1st coordinates, x[1] contains 2nd coordinates, etc.
+   */
+  public KdTree(float[][] x) {
+    int k = x.length;
+    Check.argument(k>0,"number of dimensions is positive");
+    int n = x[0].length;
+    for (int j=1; j<k; ++j)
+      Check.argument(x[j].length==n,"coordinate arrays have same length");
+    _k = k;
+    _n = n;
+    _i = new int[n];
+    _d = new byte[n];
+    for (int i=0; i<n; ++i)
+      _i[i] = i;
+    build(x,0,n);
+    _x = new float[n*k];
+    _j = new int[n];
+    for (int i=0; i<n; ++i) {
+      for (int j=0; j<k; ++j)
+        _x[i*k+j] = x[j][_i[i]];
+      _j[_i[i]] = i;
+    }
+  }
+
+  /**
+   * Returns the number of dimensions for points in this tree.
+   * @return the number of dimensions.
+   */
+  public int getDimensions() {
+    return _k;
+  }
+
+  /**
+   * Returns the number of points in this tree.
+   * @return the number of points.
+   */
+  public int size() {
+    return _n;
+  }
+
+  /**
+   * Finds the point nearest to the specified point.
+   * @param p array of point coordinates.
+   * @return the index of the nearest point; -1, if this tree is empty.
+   */
+  public int findNearest(float[] p) {
+    Check.argument(p.length==_k,"p.length equals tree ndim");
+    return findNearest(p,-1);
+  }
+
+  /**
+   * Finds the point nearest to the specified point, beginning with a
+   * guess, such as the point nearest to an adjacent point in a grid.
+   * A good guess makes this search faster, but does not change its result.
+   * @param p array of point coordinates.
+   * @param guess index of a point in this tree; -1, for no guess.
+   * @return the index of the nearest point; -1, if this tree is empty.
+   */
+  public int findNearest(float[] p, int guess) {
+    Check.argument(p.length==_k,"p.length equals tree ndim");
+    Check.argument(-1<=guess && guess<_n,"guess is -1 or a point index");
+    if (_n==0)
+      return -1;
+    Best best = new Best(p);
+    if (guess>=0)
+      best.update(distanceSquared(p,_j[guess]),guess);
+    findNearest(best,0,_n);
+    return best.i;
+  }
+
+  /**
+   * Finds the k points nearest to the specified point.
+   * If this tree has fewer than k points, then all points are found.
+   * @param k the number of nearest points to find.
+   * @param p array of point coordinates.
+   * @return array of point indices, ordered by increasing distance.
+   */
+  public int[] findNearest(int k, float[] p) {
+    Check.argument(p.length==_k,"p.length equals tree ndim");
+    Check.argument(k>=0,"k is non-negative");
+    Heap heap = new Heap(Math.min(k,_n),p);
+    if (heap.k>0)
+      findNearest(heap,0,_n);
+    return heap.toArray();
+  }
+
+  /**
+   * Finds all points within a sphere with specified center and radius.
+   * A point is in the sphere if its distance to the center is less than
+   * or equal to the radius.
+   * @param p array of sphere center coordinates.
+   * @param r the sphere radius.
+   * @return array of point indices, in increasing order.
+   */
+  public int[] findInSphere(float[] p, float r) {
+    Check.argument(p.length==_k,"p.length equals tree ndim");
+    List list = new List();
+    findInSphere(p,r*r,list,0,_n);
+    int[] a = list.trim();
+    ArrayMath.quickSort(a);
+    return a;
+  }
+
+  /**
+   * Finds points nearest to all points in a 2D grid. Grid points have
+   * coordinates (x1[i1],x2[i2]). This tree must have two dimensions.
+   * @param x1 array[n1] of grid coordinates in 1st dimension.
+   * @param x2 array[n2] of grid coordinates in 2nd dimension.
+   * @return array[n2][n1] of indices of nearest points; -1, if this
+   *  tree is empty.
+   */
+  public int[][] findNearest(final float[] x1, final float[] x2) {
+    Check.argument(_k==2,"tree has two dimensions");
+    final int n1 = x1.length;
+    final int n2 = x2.length;
+    final int[][] k = new int[n2][n1];
+    if (n2==0) return k;
+    Parallel.loop(n2,new Parallel.LoopInt() {
+      public void compute(int i2) {
+        float[] p = new float[2];
+        p[1] = x2[i2];
+        for (int i1=0,ki=-1; i1<n1; ++i1) {
+          p[0] = x1[i1];
+          k[i2][i1] = ki = findNearest(p,ki);
+        }
+      }
+    });
+    return k;
+  }
+
+  /**
+   * Finds points nearest to all points in a 3D grid. Grid points have
+   * coordinates (x1[i1],x2[i2],x3[i3]). This tree must have three
+   * dimensions.
+   * @param x1 array[n1] of grid coordinates in 1st dimension.
+   * @param x2 array[n2] of grid coordinates in 2nd dimension.
+   * @param x3 array[n3] of grid coordinates in 3rd dimension.
+   * @return array[n3][n2][n1] of indices of nearest points; -1, if this
+   *  tree is empty.
+   */
+  public int[][][] findNearest(
+    final float[] x1, final float[] x2, final float[] x3)
+  {
+    Check.argument(_k==3,"tree has three dimensions");
+    final int n1 = x1.length;
+    final int n2 = x2.length;
+    final int n3 = x3.length;
+    final int[][][] k = new int[n3][n2][n1];
+    if (n2*n3==0) return k;
+    Parallel.loop(n2*n3,new Parallel.LoopInt() {
+      public void compute(int i23) {
+        int i2 = i23%n2;
+        int i3 = i23/n2;
+        float[] p = new float[3];
+        p[1] = x2[i2];
+        p[2] = x3[i3];
+        for (int i1=0,ki=-1; i1<n1; ++i1) {
+          p[0] = x1[i1];
+          k[i3][i2][i1] = ki = findNearest(p,ki);
+        }
+      }
+    });
+    return k;
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  // Maximum number of points in leaf ranges, which are not split.
+  private static final int NLEAF = 8;
+
+  // Minimum number of points in ranges that are split in parallel.
+  private static final int NPARALLEL = 32768;
+
+  private int _k; // number of dimensions
+  private int _n; // number of points
+  private int[] _i; // indices of points, in tree order
+  private int[] _j; // tree positions of points, the inverse of _i
+  private byte[] _d; // split dimensions for middles of ranges
+  private float[] _x; // packed point coordinates, in tree order
+
+  // The tree is implicit in the order of points. Each range [lo,hi) with
+  // more than NLEAF points is split at its middle m = (lo+hi)/2 into a
+  // left range [lo,m) and a right range [m+1,hi). The split dimension
+  // d[m] is that for which the range has the largest extent, and the
+  // points in the left (right) range have coordinates x[d[m]] that are
+  // not greater (less) than that for the middle point m.
+  private void build(final float[][] x, final int lo, final int hi) {
+    if (hi-lo<=NLEAF)
+      return;
+    int d = 0;
+    float emax = -1.0f;
+    for (int j=0; j<_k; ++j) {
+      float[] xj = x[j];
+      float xmin = xj[_i[lo]], xmax = xmin;
+      for (int i=lo+1; i<hi; ++i) {
+        float xi = xj[_i[i]];
+        if (xi<xmin) xmin = xi;
+        if (xi>xmax) xmax = xi;
+      }
+      if (xmax-xmin>emax) {
+        emax = xmax-xmin;
+        d = j;
+      }
+    }
+    final int m = (lo+hi)>>>1;
+    select(x[d],lo,hi,m);
+    _d[m] = (byte)d;
+    if (hi-lo<NPARALLEL) {
+      build(x,lo,m);
+      build(x,m+1,hi);
+    } else {
+      Parallel.loop(2,new Parallel.LoopInt() {
+        public void compute(int i) {
+          if (i==0) {
+            build(x,lo,m);
+          } else {
+            build(x,m+1,hi);
+          }
+        }
+      });
+    }
+  }
+
+  // Partially sorts indices in [lo,hi) such that the point at index m has
+  // coordinate x not less than those in [lo,m), and not greater than
+  // those in [m+1,hi).
+  private void select(float[] x, int lo, int hi, int m) {
+    int[] a = _i;
+    int l = lo, h = hi-1;
+    while (l<h) {
+      int j = (l+h)>>>1;
+      if (x[a[j]]<x[a[l]]) swap(a,l,j);
+      if (x[a[h]]<x[a[l]]) swap(a,l,h);
+      if (x[a[h]]<x[a[j]]) swap(a,j,h);
+      float xp = x[a[j]];
+      int p = l, q = h;
+      while (p<=q) {
+        while (x[a[p]]<xp) ++p;
+        while (xp<x[a[q]]) --q;
+        if (p<=q) {
+          swap(a,p,q);
+          ++p;
+          --q;
+        }
+      }
+      if (m<=q) {
+        h = q;
+      } else if (m>=p) {
+        l = p;
+      } else {
+        break;
+      }
+    }
+  }
+  private static void swap(int[] a, int i, int j) {
+    int ai = a[i];
+    a[i] = a[j];
+    a[j] = ai;
+  }
+
+  // Returns the distance squared between point p and point j in the tree.
+  private float distanceSquared(float[] p, int j) {
+    float ds = 0.0f;
+    for (int d=0,jk=j*_k; d<_k; ++d,++jk) {
+      float e = p[d]-_x[jk];
+      ds += e*e;
+    }
+    return ds;
+  }
+
+  // The nearest point found so far, for one query point p.
+  private static class Best {
+    float[] p;
+    float ds = Float.MAX_VALUE;
+    int i = -1;
+    Best(float[] p) {
+      this.p = p;
+    }
+    void update(float dsj, int ij) {
+      if (dsj<ds || dsj==ds && ij<i) {
+        ds = dsj;
+        i = ij;
+      }
+    }
+  }
+
+  private void findNearest(Best best, int lo, int hi) {
+    float[] p = best.p;
+    if (hi-lo<=NLEAF) {
+      for (int j=lo; j<hi; ++j)
+        best.update(distanceSquared(p,j),_i[j]);
+      return;
+    }
+    int m = (lo+hi)>>>1;
+    int d = _d[m];
+    float e = p[d]-_x[m*_k+d];
+    best.update(distanceSquared(p,m),_i[m]);
+    if (e<0.0f) {
+      findNearest(best,lo,m);
+      if (e*e<=best.ds)
+        findNearest(best,m+1,hi);
+    } else {
+      findNearest(best,m+1,hi);
+      if (e*e<=best.ds)
+        findNearest(best,lo,m);
+    }
+  }
+
+  // A max-heap of the k nearest points found so far, ordered by distance
+  // and then by index, so that the farthest point is on top. Also used
+  // by the class PackedRTree.
+  static class Heap {
+    float[] p;
+    int k,n;
+    float[] ds;
+    int[] i;
+    Heap(int k, float[] p) {
+      this.k = k;
+      this.p = p;
+      ds = new float[k];
+      i = new int[k];
+    }
+    boolean full() {
+      return n==k;
+    }
+    float top() {
+      return ds[0];
+    }
+    void add(float dsj, int ij) {
+      if (n<k) {
+        int c = n++;
+        while (c>0) {
+          int q = (c-1)/2;
+          if (!greater(dsj,ij,ds[q],i[q]))
+            break;
+          ds[c] = ds[q];
+          i[c] = i[q];
+          c = q;
+        }
+        ds[c] = dsj;
+        i[c] = ij;
+      } else if (greater(ds[0],i[0],dsj,ij)) {
+        int c = 0;
+        for (int q=1; q<n; q=2*c+1) {
+          if (q+1<n && greater(ds[q+1],i[q+1],ds[q],i[q]))
+            ++q;
+          if (!greater(ds[q],i[q],dsj,ij))
+            break;
+          ds[c] = ds[q];
+          i[c] = i[q];
+          c = q;
+        }
+        ds[c] = dsj;
+        i[c] = ij;
+      }
+    }
+    int[] toArray() {
+      int[] a = new int[n];
+      float[] da = new float[n];
+      int m = n;
+      while (n>0) {
+        a[n-1] = i[0];
+        da[n-1] = ds[0];
+        float dsl = ds[n-1];
+        int il = i[n-1];
+        --n;
+        int c = 0;
+        for (int q=1; q<n; q=2*c+1) {
+          if (q+1<n && greater(ds[q+1],i[q+1],ds[q],i[q]))
+            ++q;
+          if (!greater(ds[q],i[q],dsl,il))
+            break;
+          ds[c] = ds[q];
+          i[c] = i[q];
+          c = q;
+        }
+        ds[c] = dsl;
+        i[c] = il;
+      }
+      n = m;
+      return a;
+    }
+    private static boolean greater(float dsa, int ia, float dsb, int ib) {
+      return dsa>dsb || dsa==dsb && ia>ib;
+    }
+  }
+
+  private void findNearest(Heap heap, int lo, int hi) {
+    float[] p = heap.p;
+    if (hi-lo<=NLEAF) {
+      for (int j=lo; j<hi; ++j)
+        heap.add(distanceSquared(p,j),_i[j]);
+      return;
+    }
+    int m = (lo+hi)>>>1;
+    int d = _d[m];
+    float e = p[d]-_x[m*_k+d];
+    heap.add(distanceSquared(p,m),_i[m]);
+    if (e<0.0f) {
+      findNearest(heap,lo,m);
+      if (!heap.full() || e*e<=heap.top())
+        findNearest(heap,m+1,hi);
+    } else {
+      findNearest(heap,m+1,hi);
+      if (!heap.full() || e*e<=heap.top())
+        findNearest(heap,lo,m);
+    }
+  }
+
+  // A growable list of point indices. Also used by the class PackedRTree.
+  static class List {
+    int n;
+    int[] a = new int[16];
+    void add(int i) {
+      if (n==a.length) {
+        int[] t = new int[2*n];
+        System.arraycopy(a,0,t,0,n);
+        a = t;
+      }
+      a[n++] = i;
+    }
+    int[] trim() {
+      int[] t = new int[n];
+      System.arraycopy(a,0,t,0,n);
+      return t;
+    }
+  }
+
+  private void findInSphere(float[] p, float rs, List list, int lo, int hi) {
+    if (hi-lo<=NLEAF) {
+      for (int j=lo; j<hi; ++j)
+        if (distanceSquared(p,j)<=rs) list.add(_i[j]);
+      return;
+    }
+    int m = (lo+hi)>>>1;
+    int d = _d[m];
+    float e = p[d]-_x[m*_k+d];
+    if (distanceSquared(p,m)<=rs)
+      list.add(_i[m]);
+    if (e<=0.0f || e*e<=rs)
+      findInSphere(p,rs,list,lo,m);
+    if (e>=0.0f || e*e<=rs)
+      findInSphere(p,rs,list,m+1,hi);
+  }
+}
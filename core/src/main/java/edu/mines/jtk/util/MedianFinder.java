@@ -17,7 +17,7 @@ package edu.mines.jtk.util;
 import static edu.mines.jtk.util.ArrayMath.*;
 
 /**
- * Computes medians or weighted medians.
+ * Computes medians or weighted medians, and other quantiles.
  * <p>
  * The weighted median of n values x[i] is the value x that minimizes 
  * the following function:
@@ -60,6 +60,17 @@ import static edu.mines.jtk.util.ArrayMath.*;
  * about 16 times more costly than a simple mean, and the cost of a 
  * weighted median is about 1.5 times more costly than an unweighted 
  * median.
+ * <p>
+ * For large n, a median finder first sorts a small regular sample of 
+ * the values to choose two pivots that likely bracket the median (or 
+ * quantile). In one parallel pass over blocks of values, it then counts 
+ * (and sums the weights of) values less than, between, and greater than 
+ * those pivots, and copies the values between the pivots to an internal 
+ * buffer. Only that much smaller buffer is partitioned to complete the 
+ * selection. If the pivots fail to bracket the median, the finder simply 
+ * partitions all values, as for small n. Either way, the results do not 
+ * depend on the number of threads. Buffers are allocated once and reused 
+ * in subsequent calls.
  *
  * @author Dave Hale, Colorado School of Mines
  * @version 2010.10.11
@@ -82,8 +93,13 @@ public class MedianFinder {
    */
   public float findMedian(float[] x) {
     Check.argument(_n==x.length,"length of x is valid");
-    copy(x,_x);
     int k = (_n-1)/2;
+    if (_n>=PARALLEL_MIN) {
+      float[] v = selectParallel(x,k,(_n%2==0)?k+1:k);
+      if (v!=null)
+        return (_n%2==0)?0.5f*(v[0]+v[1]):v[0];
+    }
+    copy(x,_x);
     quickPartialSort(k,_x);
     float xmed = _x[k];
     if (_n%2==0) {
@@ -107,13 +123,72 @@ public class MedianFinder {
     Check.argument(_n==x.length,"length of x is valid");
     if (_w==null)
       _w = new float[_n];
+    if (_n>=PARALLEL_MIN) {
+      int m = bracketParallel(w,x,0.5);
+      if (m>0)
+        return findMedianLargeN(_w,_x,m,_wl-_wr);
+    }
     copy(w,_w);
     copy(x,_x);
     if (_n<16) {
       return findMedianSmallN(_w,_x);
     } else {
-      return findMedianLargeN(_w,_x);
+      return findMedianLargeN(_w,_x,_n,0.0);
+    }
+  }
+
+  /**
+   * Returns the specified quantile of the specified array of values.
+   * The q'th quantile is the value with zero-based index k = rint(q*(n-1))
+   * in an ordered copy of the n values. For example, the 0.5'th quantile 
+   * equals the median only when n is odd; otherwise, it is the larger of 
+   * the two values averaged to compute the median.
+   * @param q the quantile, in the range [0,1].
+   * @param x array of values.
+   * @return the quantile.
+   */
+  public float findQuantile(double q, float[] x) {
+    Check.argument(0.0<=q && q<=1.0,"0 <= q <= 1");
+    Check.argument(_n==x.length,"length of x is valid");
+    int k = (int)Math.rint(q*(_n-1));
+    if (_n>=PARALLEL_MIN) {
+      float[] v = selectParallel(x,k,k);
+      if (v!=null)
+        return v[0];
+    }
+    copy(x,_x);
+    quickPartialSort(k,_x);
+    return _x[k];
+  }
+
+  /**
+   * Returns the specified weighted quantile of the specified array of 
+   * values. The q'th weighted quantile is the smallest value x such that 
+   * the sum of weights for values less than or equal to x is not less 
+   * than q times the sum of all weights. Unlike the weighted median, the 
+   * weighted quantile is never an average of two values.
+   * @param q the quantile, in the range [0,1].
+   * @param w array of positive weights.
+   * @param x array of values.
+   * @return the weighted quantile.
+   */
+  public float findQuantile(double q, float[] w, float[] x) {
+    Check.argument(0.0<=q && q<=1.0,"0 <= q <= 1");
+    Check.argument(_n==w.length,"length of w is valid");
+    Check.argument(_n==x.length,"length of x is valid");
+    if (_w==null)
+      _w = new float[_n];
+    if (_n>=PARALLEL_MIN) {
+      int m = bracketParallel(w,x,q);
+      if (m>0)
+        return findQuantile(_w,_x,m,_wl,_wt);
     }
+    copy(w,_w);
+    copy(x,_x);
+    double ws = 0.0;
+    for (int i=0; i<_n; ++i)
+      ws += _w[i];
+    return findQuantile(_w,_x,_n,0.0,q*ws);
   }
 
   ///////////////////////////////////////////////////////////////////////////
@@ -124,6 +199,18 @@ public class MedianFinder {
   private float[] _w; // copy of weights for partial sorting
   private float[] _x; // copy of values for partial sorting
 
+  // Constants and buffers for parallel selection.
+  private static final int PARALLEL_MIN = 1<<18; // min n for parallel
+  private static final int NBLOCK = 1<<14; // values per parallel block
+  private static final int NSAMPLE = 4096; // values sampled for pivots
+  private static final int NSLACK = 256; // sample ranks between pivots
+  private static final double WSLACK = 1.0e-4; // margin for sums of weights
+  private int[] _bc; // for each block, counts of values low and between
+  private double[] _bw; // for each block, sums of weights low, mid, high
+  private float[] _sx,_sw; // sampled values and weights
+  private int[] _sk; // indices of sampled values, for sorting
+  private double _wl,_wr,_wt; // weights left, right, and target quantile
+
   private static int med3(float[] a, int i, int j, int k) {
     return a[i]<a[j] ? 
            (a[j]<a[k] ? j : a[i]<a[k] ? k : i) :
@@ -223,10 +310,11 @@ public class MedianFinder {
       return 0.5f*(x[kl]+x[kr]);
   }
  
-  private float findMedianLargeN(float[] w, float[] x) {
-    int p =    0, p0 = p;
-    int q = _n-1, q0 = q;
-    float wc = 0.0f; // compensates for weights outside the [p:q] window.
+  // Weighted median of n values, where wc compensates for weights of 
+  // values (not included in x) that are outside the [p:q] window.
+  private float findMedianLargeN(float[] w, float[] x, int n, double wc) {
+    int p =   0, p0 = p;
+    int q = n-1, q0 = q;
     float xnot = Float.MAX_VALUE;
     float xmed = xnot;
     while (p<q && xmed==xnot) {
@@ -235,30 +323,30 @@ public class MedianFinder {
       quickPartition(w,x,_m); // partition into left, middle, right
       int pp = _m[0];
       int qq = _m[1];
-      float wl = 0.0f; // sum left weights
+      double wl = 0.0; // sum left weights
       for (int i=p; i<pp; ++i)
         wl += w[i];
-      float wm = 0.0f; // sum middle weights
+      double wm = 0.0; // sum middle weights
       for (int i=pp; i<=qq; ++i)
         wm += w[i];
-      float wr = 0.0f; // sum right weights
+      double wr = 0.0; // sum right weights
       for (int i=qq+1; i<=q; ++i)
         wr += w[i];
-      float dl = wc+wl-wm-wr; // left derivative
-      float dr = wc+wl+wm-wr; // right derivative
-      if (dl>0.0f) { // if left derivative > 0, ...
+      double dl = wc+wl-wm-wr; // left derivative
+      double dr = wc+wl+wm-wr; // right derivative
+      if (dl>0.0) { // if left derivative > 0, ...
         q = pp-1; // minimum lies to the left
         wc -= wm+wr; // decrease weight compensation
-      } else if (dr<0.0f) { // if right derivative < 0, ...
+      } else if (dr<0.0) { // if right derivative < 0, ...
         p = qq+1; // minimum lies to the right
         wc += wl+wm; // increase weight compensation
-      } else if (dl==0.0f) { // if left-derivative = 0, ...
+      } else if (dl==0.0) { // if left-derivative = 0, ...
         float xmax = x[p0]; // find largest value in the left partition
         for (int i=pp-1; i>p0; --i)
           if (x[i]>xmax)
             xmax = x[i];
         xmed = 0.5f*(x[pp]+xmax); // median = average of two values 
-      } else if (dr==0.0f) { // if right-derivative = 0, ...
+      } else if (dr==0.0) { // if right-derivative = 0, ...
         float xmin = x[q0]; // find smallest value in the right partition
         for (int i=qq+1; i<q0; ++i)
           if (x[i]<xmin)
@@ -272,4 +360,216 @@ public class MedianFinder {
       xmed = x[p]; // = x[q]
     return xmed;
   }
+
+  // Weighted quantile of n values, the smallest value for which the sum 
+  // of weights of values less than or equal to that value, plus the 
+  // compensating weight wc, is not less than the target weight wt.
+  private float findQuantile(
+    float[] w, float[] x, int n, double wc, double wt)
+  {
+    int p = 0;
+    int q = n-1;
+    while (p<q) {
+      _m[0] = p;
+      _m[1] = q;
+      quickPartition(w,x,_m);
+      int pp = _m[0];
+      int qq = _m[1];
+      double wl = 0.0;
+      for (int i=p; i<pp; ++i)
+        wl += w[i];
+      double wm = 0.0;
+      for (int i=pp; i<=qq; ++i)
+        wm += w[i];
+      if (pp>p && wc+wl>=wt) {
+        q = pp-1;
+      } else if (qq==q || wc+wl+wm>=wt) {
+        return x[pp];
+      } else {
+        p = qq+1;
+        wc += wl+wm;
+      }
+    }
+    return x[p];
+  }
+
+  // Partially sorts a[p:q] so that a[k] is the value that would be there 
+  // if a[p:q] were sorted; values to the left (right) are not greater 
+  // (less) than a[k].
+  private static void select(float[] a, int p, int q, int k) {
+    while (p<q) {
+      float y = a[med3(a,p,(p+q)/2,q)];
+      int i = p;
+      int j = q;
+      while (i<=j) {
+        while (a[i]<y) ++i;
+        while (a[j]>y) --j;
+        if (i<=j) {
+          float ai = a[i];
+          a[i++] = a[j];
+          a[j--] = ai;
+        }
+      }
+      if (k<=j) {
+        q = j;
+      } else if (k>=i) {
+        p = i;
+      } else {
+        return;
+      }
+    }
+  }
+
+  // Returns the values with ranks k0 and k1 = k0 or k0+1 in an ordered 
+  // copy of x, or null if sampled pivots fail to bracket those values.
+  private float[] selectParallel(final float[] x, int k0, int k1) {
+    int n = _n;
+    if (_sx==null)
+      _sx = new float[NSAMPLE];
+    for (int i=0; i<NSAMPLE; ++i)
+      _sx[i] = x[(int)((long)i*n/NSAMPLE)];
+    java.util.Arrays.sort(_sx);
+    int ilo = (int)((long)k0*NSAMPLE/n)-NSLACK;
+    int ihi = (int)((long)k1*NSAMPLE/n)+NSLACK;
+    float xlo = (ilo>0)?_sx[ilo]:Float.NEGATIVE_INFINITY;
+    float xhi = (ihi<NSAMPLE)?_sx[ihi]:Float.POSITIVE_INFINITY;
+    int nlo = countParallel(null,x,xlo,xhi);
+    int nmid = _bc[1];
+    if (nlo>k0 || nlo+nmid<=k1)
+      return null;
+    select(_x,0,nmid-1,k0-nlo);
+    float v0 = _x[k0-nlo];
+    float v1 = v0;
+    if (k1>k0) {
+      v1 = _x[nmid-1];
+      for (int i=nmid-2; i>k0-nlo; --i)
+        if (_x[i]<v1)
+          v1 = _x[i];
+    }
+    return new float[]{v0,v1};
+  }
+
+  // Copies to buffers the values (and weights) between pivots chosen so 
+  // that the sum of weights for values less than the lower pivot is less 
+  // than the fraction f of the total weight, and the sum of weights for 
+  // values not greater than the upper pivot is more than that fraction. 
+  // Returns the number of values copied, or zero if the pivots fail.
+  private int bracketParallel(float[] w, float[] x, double f) {
+    int n = _n;
+    if (_sx==null)
+      _sx = new float[NSAMPLE];
+    if (_sw==null) {
+      _sw = new float[NSAMPLE];
+      _sk = new int[NSAMPLE];
+    }
+    for (int i=0; i<NSAMPLE; ++i) {
+      int j = (int)((long)i*n/NSAMPLE);
+      _sx[i] = x[j];
+      _sw[i] = w[j];
+      _sk[i] = i;
+    }
+    quickIndexSort(_sx,_sk);
+    double ws = 0.0;
+    for (int i=0; i<NSAMPLE; ++i)
+      ws += _sw[i];
+    double wt = f*ws;
+    int it = 0;
+    double wc = _sw[_sk[0]];
+    while (wc<wt && it<NSAMPLE-1)
+      wc += _sw[_sk[++it]];
+    int ilo = it-NSLACK;
+    int ihi = it+NSLACK;
+    float xlo = (ilo>0)?_sx[_sk[ilo]]:Float.NEGATIVE_INFINITY;
+    float xhi = (ihi<NSAMPLE)?_sx[_sk[ihi]]:Float.POSITIVE_INFINITY;
+    countParallel(w,x,xlo,xhi);
+    int nmid = _bc[1];
+    double wl = _bw[0];
+    double wm = _bw[1];
+    double wr = _bw[2];
+    double wa = wl+wm+wr;
+    double we = WSLACK*wa;
+    _wl = wl;
+    _wr = wr;
+    _wt = f*wa;
+    if (nmid==0 || wl>=_wt-we || wl+wm<=_wt+we)
+      return 0;
+    return nmid;
+  }
+
+  // Counts values less than xlo and in [xlo,xhi], sums their weights (if 
+  // any), and copies values (and weights) in [xlo,xhi] to buffers, in the 
+  // order of their indices. Returns the number of values less than xlo. 
+  // Afterwards, _bc[1] is the number of values copied, and _bw[0:2] are 
+  // sums of weights for low, between, and high values.
+  private int countParallel(
+    final float[] w, final float[] x, final float xlo, final float xhi) 
+  {
+    final int n = _n;
+    final int nb = (n+NBLOCK-1)/NBLOCK;
+    if (_bc==null) {
+      _bc = new int[2*nb];
+      _bw = new double[3*nb];
+    }
+    final int[] bc = _bc;
+    final double[] bw = _bw;
+    Parallel.loop(nb,new Parallel.LoopInt() {
+      public void compute(int ib) {
+        int i0 = ib*NBLOCK;
+        int i1 = Math.min(i0+NBLOCK,n);
+        int nl = 0, nm = 0;
+        double wl = 0.0, wm = 0.0, wr = 0.0;
+        for (int i=i0; i<i1; ++i) {
+          float xi = x[i];
+          if (xi<xlo) {
+            ++nl;
+            if (w!=null) wl += w[i];
+          } else if (xi<=xhi) {
+            ++nm;
+            if (w!=null) wm += w[i];
+          } else {
+            if (w!=null) wr += w[i];
+          }
+        }
+        bc[2*ib  ] = nl;
+        bc[2*ib+1] = nm;
+        bw[3*ib  ] = wl;
+        bw[3*ib+1] = wm;
+        bw[3*ib+2] = wr;
+      }
+    });
+
+    // Sum counts and weights in block order, and convert the counts of 
+    // values between the pivots into offsets in the buffers.
+    int nl = 0, nm = 0;
+    double wl = 0.0, wm = 0.0, wr = 0.0;
+    for (int ib=0; ib<nb; ++ib) {
+      nl += bc[2*ib];
+      int mb = bc[2*ib+1];
+      bc[2*ib+1] = nm;
+      nm += mb;
+      wl += bw[3*ib];
+      wm += bw[3*ib+1];
+      wr += bw[3*ib+2];
+    }
+    final float[] xb = _x;
+    final float[] wb = _w;
+    Parallel.loop(nb,new Parallel.LoopInt() {
+      public void compute(int ib) {
+        int i0 = ib*NBLOCK;
+        int i1 = Math.min(i0+NBLOCK,n);
+        for (int i=i0,j=bc[2*ib+1]; i<i1; ++i) {
+          float xi = x[i];
+          if (xlo<=xi && xi<=xhi) {
+            if (w!=null) wb[j] = w[i];
+            xb[j++] = xi;
+          }
+        }
+      }
+    });
+    bc[1] = nm;
+    bw[0] = wl;
+    bw[1] = wm;
+    bw[2] = wr;
+    return nl;
+  }
 }
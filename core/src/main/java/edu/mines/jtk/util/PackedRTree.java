@@ -0,0 +1,530 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.util;
+
+/**
+ * A static R-tree of boxes, packed for fast queries by many threads.
+ * Boxes are referenced by their integer indices, and their min/max
+ * coordinates are specified and stored in arrays of primitive values.
+ * Unlike an {@link RTree}, a packed R-tree is static; boxes cannot be
+ * added or removed after the tree is constructed. For points, which are
+ * boxes with equal min and max coordinates, see also {@link KdTree}.
+ * <p>
+ * The tree is built bottom-up with the Sort-Tile-Recursive (STR)
+ * algorithm. Boxes are sorted by their centers in the 1st dimension
+ * and partitioned into slabs, each slab is sorted in the 2nd dimension
+ * and partitioned, and so on, so that consecutive groups of boxes form
+ * full leaf nodes with little overlap. The same algorithm then packs
+ * leaf nodes into their parents, and so on, up to a single root node.
+ * All nodes and boxes are stored in flat arrays in tree order, without
+ * per-node objects. Construction costs O(N log N) for N boxes, and
+ * sorting of slabs is performed in parallel.
+ * <p>
+ * After construction, a packed R-tree is not modified by any queries,
+ * so that queries may be performed concurrently in multiple threads.
+ * Batched queries are performed in parallel.
+ * <p>
+ * Distances are those between a point and a box. The distance is zero
+ * for a point inside a box. When two or more boxes are equally distant
+ * from a query point, the box with the lowest index is considered
+ * nearest. Results of queries therefore do not depend on the structure
+ * of the tree.
+ * <p>
+ * Reference: Leutenegger, S.T., Lopez, M.A., and Edgington, J., 1997,
+ * STR: a simple and efficient algorithm for R-tree packing: Proceedings
+ * of the 13th International Conference on Data Engineering, p. 497-506.
+ * @author agent
+ * @version 2026.10.19
+ */
+public class PackedRTree {
+
+  /**
+   * Constructs a tree for points with specified coordinates.
+   * Each point is a box with equal min and max coordinates.
+   * The specified arrays are copied; not referenced.
+   * @param x array[ndim][npoint] of point coordinates; by convention,
+   *  x[0] contains 1st coordinates, x[1] contains 2nd coordinates, etc.
+   */
+  public PackedRTree(float[][] x) {
+    this(x,x);
+  }
+
+  /**
+   * Constructs a tree for boxes with specified min/max coordinates.
+   * The number of coordinate arrays is the number of dimensions of the
+   * tree, and all coordinate arrays must have the same length, the
+   * number of boxes. The specified arrays are copied; not referenced.
+   * @param min array[ndim][nbox] of box min coordinates.
+   * @param max array[ndim][nbox] of box max coordinates.
+   */
+  public PackedRTree(float[][] min, float[][] max) {
+    int k = min.length;
+    Check.argument(k>0,"number of dimensions is positive");
+    Check.argument(max.length==k,"min and max have same dimensions");
+    int n = min[0].length;
+    for (int j=0; j<k; ++j) {
+      Check.argument(min[j].length==n,"coordinate arrays have same length");
+      Check.argument(max[j].length==n,"coordinate arrays have same length");
+    }
+    _k = k;
+    _n = n;
+
+    // Sort boxes into leaves, and copy their bounds in tree order.
+    _i = ArrayMath.rampint(0,1,n);
+    sortTiles(centers(min,max,n),_i,0,n,0);
+    _e = new float[2*k*n];
+    for (int i=0; i<n; ++i) {
+      for (int j=0,ij=2*k*i; j<k; ++j,++ij) {
+        _e[ij  ] = min[j][_i[i]];
+        _e[ij+k] = max[j][_i[i]];
+      }
+    }
+
+    // Count nodes in all levels.
+    int nnode = 0;
+    int nlevel = 0;
+    for (int m=n; m>1 || nlevel==0 && m>0; m=(m+NNODE-1)/NNODE) {
+      nnode += (m+NNODE-1)/NNODE;
+      ++nlevel;
+    }
+    _nleaf = (n+NNODE-1)/NNODE;
+    _levels = nlevel;
+    _b = new float[2*k*nnode];
+    _c = new int[nnode];
+    _m = new int[nnode];
+
+    // Build the tree level by level, beginning with leaves that contain
+    // boxes. For each level above the leaves, the nodes in the level
+    // below are first sorted into tiles, and then grouped into parents.
+    int nchild = n;
+    int jchild = 0;
+    float[] bchild = _e;
+    for (int jnode=0; jnode<nnode; ) {
+      if (jnode>0)
+        sortNodes(jchild,nchild);
+      int mnode = (nchild+NNODE-1)/NNODE;
+      for (int inode=0; inode<mnode; ++inode) {
+        int c = inode*NNODE;
+        int m = Math.min(NNODE,nchild-c);
+        int jb = 2*k*(jnode+inode);
+        _c[jnode+inode] = c+((jnode>0)?jchild:0);
+        _m[jnode+inode] = m;
+        for (int j=0; j<k; ++j) {
+          _b[jb+j] = Float.MAX_VALUE;
+          _b[jb+k+j] = -Float.MAX_VALUE;
+        }
+        int cb = 2*k*(c+((jnode>0)?jchild:0));
+        for (int ic=0; ic<m; ++ic,cb+=2*k) {
+          for (int j=0; j<k; ++j) {
+            if (bchild[cb+j]<_b[jb+j]) _b[jb+j] = bchild[cb+j];
+            if (bchild[cb+k+j]>_b[jb+k+j]) _b[jb+k+j] = bchild[cb+k+j];
+          }
+        }
+      }
+      jchild = jnode;
+      nchild = mnode;
+      bchild = _b;
+      jnode += mnode;
+    }
+    _root = nnode-1;
+  }
+
+  /**
+   * Returns the number of dimensions for boxes in this tree.
+   * @return the number of dimensions.
+   */
+  public int getDimensions() {
+    return _k;
+  }
+
+  /**
+   * Returns the number of boxes in this tree.
+   * @return the number of boxes.
+   */
+  public int size() {
+    return _n;
+  }
+
+  /**
+   * Returns the number of levels of nodes in this tree.
+   * @return the number of levels; zero, if this tree is empty.
+   */
+  public int getLevels() {
+    return _levels;
+  }
+
+  /**
+   * Finds all boxes that overlap the specified box.
+   * @param min array of min coordinates of the specified box.
+   * @param max array of max coordinates of the specified box.
+   * @return array of box indices, in increasing order.
+   */
+  public int[] findOverlapping(float[] min, float[] max) {
+    Check.argument(min.length==_k,"min.length equals tree ndim");
+    Check.argument(max.length==_k,"max.length equals tree ndim");
+    KdTree.List list = new KdTree.List();
+    if (_n>0)
+      findOverlapping(min,max,list,_root);
+    int[] a = list.trim();
+    ArrayMath.quickSort(a);
+    return a;
+  }
+
+  /**
+   * Finds all boxes within a sphere with specified center and radius.
+   * A box is in the sphere if its distance to the center is less than
+   * or equal to the radius.
+   * @param p array of sphere center coordinates.
+   * @param r the sphere radius.
+   * @return array of box indices, in increasing order.
+   */
+  public int[] findInSphere(float[] p, float r) {
+    Check.argument(p.length==_k,"p.length equals tree ndim");
+    KdTree.List list = new KdTree.List();
+    if (_n>0)
+      findInSphere(p,r*r,list,_root);
+    int[] a = list.trim();
+    ArrayMath.quickSort(a);
+    return a;
+  }
+
+  /**
+   * Finds the box nearest to the specified point.
+   * @param p array of point coordinates.
+   * @return the index of the nearest box; -1, if this tree is empty.
+   */
+  public int findNearest(float[] p) {
+    int[] a = findNearest(1,p);
+    return (a.length>0)?a[0]:-1;
+  }
+
+  /**
+   * Finds the k boxes nearest to the specified point.
+   * If this tree has fewer than k boxes, then all boxes are found.
+   * @param k the number of nearest boxes to find.
+   * @param p array of point coordinates.
+   * @return array of box indices, ordered by increasing distance.
+   */
+  public int[] findNearest(int k, float[] p) {
+    Check.argument(p.length==_k,"p.length equals tree ndim");
+    Check.argument(k>=0,"k is non-negative");
+    KdTree.Heap heap = new KdTree.Heap(Math.min(k,_n),p);
+    if (heap.k>0)
+      findNearest(heap,new Queue());
+    return heap.toArray();
+  }
+
+  /**
+   * Finds the k boxes nearest to each of many points, in parallel.
+   * @param k the number of nearest boxes to find for each point.
+   * @param p array[ndim][npoint] of point coordinates.
+   * @return array[npoint][] of box indices, with indices for each point
+   *  ordered by increasing distance.
+   */
+  public int[][] findNearest(final int k, final float[][] p) {
+    Check.argument(p.length==_k,"p.length equals tree ndim");
+    Check.argument(k>=0,"k is non-negative");
+    final int np = p[0].length;
+    final int[][] a = new int[np][];
+    loop(np,new Query() {
+      public void compute(int i, float[] pi, float[] qi, Queue queue) {
+        for (int j=0; j<_k; ++j)
+          pi[j] = p[j][i];
+        KdTree.Heap heap = new KdTree.Heap(Math.min(k,_n),pi);
+        if (heap.k>0)
+          findNearest(heap,queue);
+        a[i] = heap.toArray();
+      }
+    });
+    return a;
+  }
+
+  /**
+   * Finds the boxes that overlap each of many boxes, in parallel.
+   * @param min array[ndim][nquery] of min coordinates of query boxes.
+   * @param max array[ndim][nquery] of max coordinates of query boxes.
+   * @return array[nquery][] of box indices, with indices for each query
+   *  box in increasing order.
+   */
+  public int[][] findOverlapping(final float[][] min, final float[][] max) {
+    Check.argument(min.length==_k,"min.length equals tree ndim");
+    Check.argument(max.length==_k,"max.length equals tree ndim");
+    final int nq = min[0].length;
+    final int[][] a = new int[nq][];
+    loop(nq,new Query() {
+      public void compute(int i, float[] qmin, float[] qmax, Queue queue) {
+        for (int j=0; j<_k; ++j) {
+          qmin[j] = min[j][i];
+          qmax[j] = max[j][i];
+        }
+        KdTree.List list = new KdTree.List();
+        if (_n>0)
+          findOverlapping(qmin,qmax,list,_root);
+        int[] ai = list.trim();
+        ArrayMath.quickSort(ai);
+        a[i] = ai;
+      }
+    });
+    return a;
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  // Maximum number of children (boxes or nodes) per node.
+  private static final int NNODE = 16;
+
+  // Minimum number of boxes (or nodes) for parallel sorting of slabs.
+  private static final int NPARALLEL = 32768;
+
+  // Number of queries per parallel task in batched queries.
+  private static final int NQUERY = 256;
+
+  private int _k; // number of dimensions
+  private int _n; // number of boxes
+  private int[] _i; // indices of boxes, in tree order
+  private float[] _e; // packed box min/max coordinates, in tree order
+  private float[] _b; // packed node min/max coordinates
+  private int[] _c; // index of first child (box or node) of each node
+  private int[] _m; // number of children of each node
+  private int _nleaf; // number of leaf nodes, which are the first nodes
+  private int _root; // index of root node, which is the last node
+  private int _levels; // number of levels of nodes
+
+  // Returns centers of boxes, for sorting.
+  private static float[][] centers(float[][] min, float[][] max, int n) {
+    int k = min.length;
+    float[][] c = new float[k][n];
+    for (int j=0; j<k; ++j)
+      for (int i=0; i<n; ++i)
+        c[j][i] = 0.5f*(min[j][i]+max[j][i]);
+    return c;
+  }
+
+  // Sorts the indices a[lo:hi-1] into tiles, beginning with dimension d.
+  // The indices are sorted by centers c[d], and then partitioned into
+  // slabs that each contain a multiple of NNODE indices. Indices in each
+  // slab are then sorted recursively for the next dimension.
+  private void sortTiles(
+    final float[][] c, final int[] a,
+    final int lo, final int hi, final int d)
+  {
+    int n = hi-lo;
+    sortBy(c[d],a,lo,hi);
+    if (d==_k-1 || n<=NNODE)
+      return;
+    int p = (n+NNODE-1)/NNODE;
+    int s = (int)Math.ceil(Math.pow(p,1.0/(_k-d))-1.0e-6);
+    final int ns = NNODE*((p+s-1)/s);
+    int nslab = (n+ns-1)/ns;
+    if (n<NPARALLEL) {
+      for (int is=0; is<nslab; ++is)
+        sortTiles(c,a,lo+is*ns,Math.min(hi,lo+(is+1)*ns),d+1);
+    } else {
+      Parallel.loop(nslab,new Parallel.LoopInt() {
+        public void compute(int is) {
+          sortTiles(c,a,lo+is*ns,Math.min(hi,lo+(is+1)*ns),d+1);
+        }
+      });
+    }
+  }
+
+  // Sorts the indices a[lo:hi-1] by the keys x[a[i]].
+  private static void sortBy(float[] x, int[] a, int lo, int hi) {
+    int n = hi-lo;
+    float[] t = new float[n];
+    int[] r = new int[n];
+    for (int i=0; i<n; ++i) {
+      t[i] = x[a[lo+i]];
+      r[i] = a[lo+i];
+    }
+    int[] q = ArrayMath.rampint(0,1,n);
+    ArrayMath.quickIndexSort(t,q);
+    for (int i=0; i<n; ++i)
+      a[lo+i] = r[q[i]];
+  }
+
+  // Sorts n nodes beginning with node j into tiles, by their centers.
+  private void sortNodes(int j, int n) {
+    int k = _k;
+    float[][] c = new float[k][n];
+    for (int i=0; i<n; ++i) {
+      for (int d=0,jb=2*k*(j+i); d<k; ++d,++jb)
+        c[d][i] = 0.5f*(_b[jb]+_b[jb+k]);
+    }
+    int[] a = ArrayMath.rampint(0,1,n);
+    sortTiles(c,a,0,n,0);
+    float[] b = new float[2*k*n];
+    int[] cc = new int[n];
+    int[] mm = new int[n];
+    for (int i=0; i<n; ++i) {
+      System.arraycopy(_b,2*k*(j+a[i]),b,2*k*i,2*k);
+      cc[i] = _c[j+a[i]];
+      mm[i] = _m[j+a[i]];
+    }
+    System.arraycopy(b,0,_b,2*k*j,2*k*n);
+    System.arraycopy(cc,0,_c,j,n);
+    System.arraycopy(mm,0,_m,j,n);
+  }
+
+  // Returns the distance squared between point p and a box with
+  // min/max coordinates that begin at index jb in the array b.
+  private float distanceSquared(float[] p, float[] b, int jb) {
+    float ds = 0.0f;
+    for (int d=0; d<_k; ++d,++jb) {
+      float pd = p[d];
+      float s = b[jb];
+      float t = b[jb+_k];
+      float e = (pd<s)?pd-s:(pd>t)?pd-t:0.0f;
+      ds += e*e;
+    }
+    return ds;
+  }
+
+  // Determines whether the specified box overlaps a box with min/max
+  // coordinates that begin at index jb in the array b.
+  private boolean overlaps(float[] min, float[] max, float[] b, int jb) {
+    for (int d=0; d<_k; ++d,++jb) {
+      if (min[d]>b[jb+_k] || max[d]<b[jb])
+        return false;
+    }
+    return true;
+  }
+
+  private void findOverlapping(
+    float[] min, float[] max, KdTree.List list, int node)
+  {
+    if (!overlaps(min,max,_b,2*_k*node))
+      return;
+    int c = _c[node];
+    int m = _m[node];
+    if (node<_nleaf) {
+      for (int i=c; i<c+m; ++i)
+        if (overlaps(min,max,_e,2*_k*i)) list.add(_i[i]);
+    } else {
+      for (int i=c; i<c+m; ++i)
+        findOverlapping(min,max,list,i);
+    }
+  }
+
+  private void findInSphere(float[] p, float rs, KdTree.List list, int node) {
+    if (distanceSquared(p,_b,2*_k*node)>rs)
+      return;
+    int c = _c[node];
+    int m = _m[node];
+    if (node<_nleaf) {
+      for (int i=c; i<c+m; ++i)
+        if (distanceSquared(p,_e,2*_k*i)<=rs) list.add(_i[i]);
+    } else {
+      for (int i=c; i<c+m; ++i)
+        findInSphere(p,rs,list,i);
+    }
+  }
+
+  // A min-heap of nodes, ordered by their distances to a query point.
+  // Queues may be reused for multiple queries.
+  private static class Queue {
+    int n;
+    float[] ds = new float[64];
+    int[] j = new int[64];
+    void add(float dsj, int jj) {
+      if (n==ds.length) {
+        float[] dt = new float[2*n];
+        int[] jt = new int[2*n];
+        System.arraycopy(ds,0,dt,0,n);
+        System.arraycopy(j,0,jt,0,n);
+        ds = dt;
+        j = jt;
+      }
+      int c = n++;
+      while (c>0) {
+        int q = (c-1)/2;
+        if (ds[q]<=dsj)
+          break;
+        ds[c] = ds[q];
+        j[c] = j[q];
+        c = q;
+      }
+      ds[c] = dsj;
+      j[c] = jj;
+    }
+    void remove() {
+      float dsl = ds[--n];
+      int jl = j[n];
+      int c = 0;
+      for (int q=1; q<n; q=2*c+1) {
+        if (q+1<n && ds[q+1]<ds[q])
+          ++q;
+        if (dsl<=ds[q])
+          break;
+        ds[c] = ds[q];
+        j[c] = j[q];
+        c = q;
+      }
+      ds[c] = dsl;
+      j[c] = jl;
+    }
+  }
+
+  // Best-first search: nodes are visited in order of increasing distance,
+  // until the next node is farther than the k'th nearest box found.
+  private void findNearest(KdTree.Heap heap, Queue queue) {
+    float[] p = heap.p;
+    queue.n = 0;
+    queue.add(distanceSquared(p,_b,2*_k*_root),_root);
+    while (queue.n>0) {
+      float dsn = queue.ds[0];
+      int node = queue.j[0];
+      if (heap.full() && dsn>heap.top())
+        break;
+      queue.remove();
+      int c = _c[node];
+      int m = _m[node];
+      if (node<_nleaf) {
+        for (int i=c; i<c+m; ++i)
+          heap.add(distanceSquared(p,_e,2*_k*i),_i[i]);
+      } else {
+        for (int i=c; i<c+m; ++i) {
+          float dsi = distanceSquared(p,_b,2*_k*i);
+          if (!heap.full() || dsi<=heap.top())
+            queue.add(dsi,i);
+        }
+      }
+    }
+  }
+
+  // One query in a batch, with per-thread storage for a queue and two
+  // points, such as the min and max corners of a query box.
+  private interface Query {
+    public void compute(int i, float[] p, float[] q, Queue queue);
+  }
+
+  // Performs nq queries in parallel blocks.
+  private void loop(final int nq, final Query query) {
+    int nb = (nq+NQUERY-1)/NQUERY;
+    if (nb==0) return;
+    Parallel.loop(nb,new Parallel.LoopInt() {
+      public void compute(int ib) {
+        int i0 = ib*NQUERY;
+        int i1 = Math.min(i0+NQUERY,nq);
+        float[] p = new float[_k];
+        float[] q = new float[_k];
+        Queue queue = new Queue();
+        for (int i=i0; i<i1; ++i)
+          query.compute(i,p,q,queue);
+      }
+    });
+  }
+}
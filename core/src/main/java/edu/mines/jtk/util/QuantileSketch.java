@@ -0,0 +1,464 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.util;
+
+import java.util.Arrays;
+
+import static edu.mines.jtk.util.ArrayMath.*;
+
+/**
+ * A mergeable sketch for approximate quantiles of large sets of values.
+ * A sketch processes values in one pass, with memory that grows only
+ * logarithmically with the number of values, and can be merged with
+ * other sketches, so that sketches of parts of an array may be computed
+ * in parallel and then combined.
+ * <p>
+ * The sketch is a hierarchy of compactors, as in the algorithms of Manku,
+ * Rajagopalan and Lindsay (1998) and Karnin, Lang and Liberty (2016).
+ * Values are stored in levels of at most k values each, and each value
+ * in level h represents 2^h of the values added. When a level is full,
+ * its values are sorted and every other value is promoted to the next
+ * level. Compactions alternate between keeping values with even and odd
+ * indices, and are deterministic, so that a sketch computed in parallel
+ * is the same as one computed serially.
+ * <p>
+ * Each compaction of level h changes the rank of any value by at most
+ * 2^h. The sum of these changes is tracked, so that the method 
+ * {@link #getRankError()} returns a guaranteed bound on the error in the
+ * ranks of quantiles. That bound is never more than h/k, where h is the
+ * number of levels, about log2(n/k) for n values. Minimum and maximum
+ * values are exact. NaN values are ignored.
+ * <p>
+ * References: Manku, G.S., Rajagopalan, S., and Lindsay, B.G., 1998,
+ * Approximate medians and other quantiles in one pass and with limited
+ * memory: Proc. ACM SIGMOD, p. 426-435. Karnin, Z., Lang, K., and
+ * Liberty, E., 2016, Optimal quantile approximation in streams: 
+ * Proc. IEEE FOCS, p. 71-78.
+ * @author agent
+ * @version 2026.10.19
+ */
+public class QuantileSketch {
+
+  /**
+   * Constructs an empty sketch with the specified capacity per level.
+   * @param k the number of values per level; must be at least 8.
+   */
+  public QuantileSketch(int k) {
+    Check.argument(k>=8,"k>=8");
+    _k = k;
+    _items = new float[1][2*k];
+    _size = new int[1];
+    _coin = new boolean[1];
+  }
+
+  /**
+   * Constructs an empty sketch with a specified bound on rank errors.
+   * For up to 2^40 values, quantiles returned have ranks that differ 
+   * from exact ranks by no more than epsilon times the number of values.
+   * @param epsilon bound on normalized rank error; must be positive.
+   * @return the sketch.
+   */
+  public static QuantileSketch forRankError(double epsilon) {
+    Check.argument(epsilon>0.0,"epsilon>0");
+    int k = 8;
+    while (k<Integer.MAX_VALUE/4 && levels(1L<<40,k)>epsilon*k)
+      k *= 2;
+    return new QuantileSketch(k);
+  }
+
+  /**
+   * Computes in parallel a sketch of the specified array.
+   * @param f array of values.
+   * @param epsilon bound on normalized rank error.
+   * @return the sketch.
+   */
+  public static QuantileSketch sketch(float[] f, double epsilon) {
+    int n = f.length;
+    int nb = (n+BLOCK-1)/BLOCK;
+    float[][] rows = new float[nb][];
+    int[] j = new int[nb], m = new int[nb];
+    for (int ib=0; ib<nb; ++ib) {
+      rows[ib] = f;
+      j[ib] = ib*BLOCK;
+      m[ib] = min(BLOCK,n-j[ib]);
+    }
+    QuantileSketch qs = forRankError(epsilon);
+    qs.addBlocks(rows,j,m);
+    return qs;
+  }
+
+  /**
+   * Computes in parallel a sketch of the specified array.
+   * @param f array of values.
+   * @param epsilon bound on normalized rank error.
+   * @return the sketch.
+   */
+  public static QuantileSketch sketch(float[][] f, double epsilon) {
+    QuantileSketch qs = forRankError(epsilon);
+    qs.addRows(f);
+    return qs;
+  }
+
+  /**
+   * Computes in parallel a sketch of the specified array.
+   * @param f array of values.
+   * @param epsilon bound on normalized rank error.
+   * @return the sketch.
+   */
+  public static QuantileSketch sketch(float[][][] f, double epsilon) {
+    int n3 = f.length;
+    int nrow = 0;
+    for (int i3=0; i3<n3; ++i3)
+      nrow += f[i3].length;
+    float[][] rows = new float[nrow][];
+    for (int i3=0,irow=0; i3<n3; ++i3)
+      for (int i2=0; i2<f[i3].length; ++i2)
+        rows[irow++] = f[i3][i2];
+    QuantileSketch qs = forRankError(epsilon);
+    qs.addRows(rows);
+    return qs;
+  }
+
+  /**
+   * Computes a sketch of the specified abstract array. Reads the array
+   * one slice at a time, and sketches each slice in parallel.
+   * @param f3 abstract array of values.
+   * @param epsilon bound on normalized rank error.
+   * @return the sketch.
+   */
+  public static QuantileSketch sketch(Float3 f3, double epsilon) {
+    int n1 = f3.getN1();
+    int n2 = f3.getN2();
+    int n3 = f3.getN3();
+    float[][] a = new float[n2][n1];
+    QuantileSketch qs = forRankError(epsilon);
+    for (int i3=0; i3<n3; ++i3) {
+      f3.get12(n1,n2,0,0,i3,a);
+      qs.addRows(a);
+    }
+    return qs;
+  }
+
+  /**
+   * Adds the specified value to this sketch.
+   * @param v the value; ignored if NaN.
+   */
+  public void add(float v) {
+    if (v!=v) return;
+    if (_n==0) {
+      _min = _max = v;
+    } else if (v<_min) {
+      _min = v;
+    } else if (v>_max) {
+      _max = v;
+    }
+    ++_n;
+    _items[0][_size[0]++] = v;
+    if (_size[0]>=_k)
+      compact(0);
+  }
+
+  /**
+   * Adds the specified values to this sketch.
+   * @param v array of values; NaN values are ignored.
+   */
+  public void add(float[] v) {
+    add(v,0,v.length);
+  }
+
+  /**
+   * Adds the specified values to this sketch.
+   * @param v array of values; NaN values are ignored.
+   * @param j index of first value to add.
+   * @param n number of values to add.
+   */
+  public void add(float[] v, int j, int n) {
+    for (int i=j; i<j+n; ++i)
+      add(v[i]);
+  }
+
+  /**
+   * Merges the specified sketch into this sketch. The other sketch
+   * is unchanged, and must have the same number of values per level.
+   * @param qs the other sketch.
+   */
+  public void merge(QuantileSketch qs) {
+    Check.argument(qs._k==_k,"sketches have the same k");
+    if (qs._n==0) return;
+    if (_n==0) {
+      _min = qs._min;
+      _max = qs._max;
+    } else {
+      _min = min(_min,qs._min);
+      _max = max(_max,qs._max);
+    }
+    _n += qs._n;
+    _error += qs._error;
+    for (int h=0; h<qs._size.length; ++h) {
+      int m = qs._size[h];
+      if (m==0) continue;
+      ensureLevel(h);
+      if (_size[h]+m>_items[h].length)
+        _items[h] = Arrays.copyOf(_items[h],_size[h]+m);
+      System.arraycopy(qs._items[h],0,_items[h],_size[h],m);
+      _size[h] += m;
+    }
+    for (int h=0; h<_size.length; ++h) {
+      if (_size[h]>=_k)
+        compact(h);
+    }
+  }
+
+  /**
+   * Returns the number of values added to this sketch.
+   * @return the number of values.
+   */
+  public long getCount() {
+    return _n;
+  }
+
+  /**
+   * Returns the minimum value added to this sketch.
+   * @return the minimum value; NaN, if no values.
+   */
+  public float getMin() {
+    return (_n>0)?_min:Float.NaN;
+  }
+
+  /**
+   * Returns the maximum value added to this sketch.
+   * @return the maximum value; NaN, if no values.
+   */
+  public float getMax() {
+    return (_n>0)?_max:Float.NaN;
+  }
+
+  /**
+   * Returns a bound on the normalized rank error of quantiles.
+   * The rank of any quantile returned differs from its exact rank 
+   * by no more than this bound times the number of values.
+   * @return the bound on normalized rank error.
+   */
+  public double getRankError() {
+    return (_n>0)?(double)_error/(double)_n:0.0;
+  }
+
+  /**
+   * Returns the quantile for the specified fraction. For n values
+   * v[i] sorted in increasing order, the exact quantile would be 
+   * v[rint(q*(n-1))].
+   * @param q the fraction, in the range [0,1].
+   * @return the quantile; NaN, if no values.
+   */
+  public float getQuantile(double q) {
+    return getQuantiles(new double[]{q})[0];
+  }
+
+  /**
+   * Returns quantiles for the specified fractions.
+   * @param q array of fractions, each in the range [0,1].
+   * @return array of quantiles.
+   */
+  public float[] getQuantiles(double[] q) {
+    int nq = q.length;
+    float[] v = new float[nq];
+    if (_n==0) {
+      fill(Float.NaN,v);
+      return v;
+    }
+    int nh = _size.length;
+    int m = 0;
+    for (int h=0; h<nh; ++h)
+      m += _size[h];
+    float[] a = new float[m];
+    int[] ia = new int[m];
+    long[] w = new long[m];
+    for (int h=0,j=0; h<nh; ++h) {
+      for (int i=0; i<_size[h]; ++i,++j) {
+        a[j] = _items[h][i];
+        w[j] = 1L<<h;
+        ia[j] = j;
+      }
+    }
+    quickIndexSort(a,ia);
+    long[] c = new long[m]; // cumulative weights, with c[m-1] = n
+    long s = 0;
+    for (int j=0; j<m; ++j)
+      c[j] = s += w[ia[j]];
+    for (int iq=0; iq<nq; ++iq) {
+      Check.argument(0.0<=q[iq] && q[iq]<=1.0,"0<=q<=1");
+      long r = (long)rint(q[iq]*(_n-1));
+      if (r<=0) {
+        v[iq] = _min;
+      } else if (r>=_n-1) {
+        v[iq] = _max;
+      } else {
+        int lo = 0, hi = m-1;
+        while (lo<hi) {
+          int mid = (lo+hi)>>>1;
+          if (c[mid]>r) hi = mid; else lo = mid+1;
+        }
+        v[iq] = a[ia[lo]];
+      }
+    }
+    return v;
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  private static final int BLOCK = 1<<16; // values per parallel block
+  private static final int NBATCH = 64; // blocks sketched concurrently
+
+  private int _k; // capacity of each level
+  private float[][] _items; // values in each level
+  private int[] _size; // number of values in each level
+  private boolean[] _coin; // alternates compactions between even and odd
+  private long _n; // number of values added
+  private long _error; // bound on error in ranks
+  private float _min,_max; // exact min and max values
+  private int[] _ra,_rb; // scratch arrays for radix sort
+  private static final int RADIX_MIN = 1024; // min length for radix sort
+  private static final int RADIX_BITS = 11; // bits per radix pass
+
+  // Number of levels for n values in a sketch with k values per level.
+  private static int levels(long n, int k) {
+    int h = 1;
+    while (((long)k<<(h-1))<n)
+      ++h;
+    return h;
+  }
+
+  private void ensureLevel(int h) {
+    int nh = _size.length;
+    if (h<nh) return;
+    _items = Arrays.copyOf(_items,h+1);
+    _size = Arrays.copyOf(_size,h+1);
+    _coin = Arrays.copyOf(_coin,h+1);
+    for (int i=nh; i<=h; ++i)
+      _items[i] = new float[2*_k];
+  }
+
+  // Promotes every other sorted value of level h to level h+1.
+  private void compact(int h) {
+    ensureLevel(h+1);
+    float[] x = _items[h];
+    int m = _size[h];
+    sort(x,m);
+    int mp = m&~1; // even number of values to compact
+    int odd = _coin[h]?1:0;
+    _coin[h] = !_coin[h];
+    int np = mp/2;
+    if (_size[h+1]+np>_items[h+1].length)
+      _items[h+1] = Arrays.copyOf(_items[h+1],_size[h+1]+np);
+    float[] y = _items[h+1];
+    for (int i=odd,j=_size[h+1]; i<mp; i+=2,++j)
+      y[j] = x[i];
+    _size[h+1] += np;
+    if (mp<m) x[0] = x[m-1]; // keep largest value if number is odd
+    _size[h] = m-mp;
+    _error += 1L<<h;
+    if (_size[h+1]>=_k)
+      compact(h+1);
+  }
+
+  // Sorts the first m values of x; uses a radix sort for large m.
+  private void sort(float[] x, int m) {
+    if (m<RADIX_MIN) {
+      Arrays.sort(x,0,m);
+      return;
+    }
+    if (_ra==null || _ra.length<m) {
+      _ra = new int[m];
+      _rb = new int[m];
+    }
+    int[] a = _ra, b = _rb;
+    for (int i=0; i<m; ++i) { // bits ordered like the floats
+      int v = Float.floatToRawIntBits(x[i]);
+      a[i] = v^((v>>31)|0x80000000);
+    }
+    int[] c = new int[1<<RADIX_BITS];
+    int mask = (1<<RADIX_BITS)-1;
+    for (int shift=0; shift<32; shift+=RADIX_BITS) {
+      Arrays.fill(c,0);
+      for (int i=0; i<m; ++i)
+        ++c[(a[i]>>>shift)&mask];
+      for (int i=0,t=0; i<=mask; ++i) {
+        int ci = c[i];
+        c[i] = t;
+        t += ci;
+      }
+      for (int i=0; i<m; ++i)
+        b[c[(a[i]>>>shift)&mask]++] = a[i];
+      int[] t = a; a = b; b = t;
+    }
+    for (int i=0; i<m; ++i) {
+      int v = a[i];
+      x[i] = Float.intBitsToFloat(v^(((~v)>>31)|0x80000000));
+    }
+  }
+
+  // Adds all values in the specified rows, in parallel.
+  private void addRows(float[][] rows) {
+    int nrow = rows.length;
+    int n1 = 0;
+    for (int irow=0; irow<nrow; ++irow)
+      n1 = max(n1,rows[irow].length);
+    int nr = max(1,BLOCK/max(1,n1)); // rows per block
+    int nb = (nrow+nr-1)/nr;
+    int[] j = new int[nrow], m = new int[nrow];
+    int[] b = new int[nb+1]; // rows in block ib are [b[ib],b[ib+1])
+    for (int irow=0; irow<nrow; ++irow)
+      m[irow] = rows[irow].length;
+    for (int ib=0; ib<=nb; ++ib)
+      b[ib] = min(ib*nr,nrow);
+    addBlocks(rows,j,m,b);
+  }
+
+  // Adds values in blocks, each block with one row segment.
+  private void addBlocks(float[][] rows, int[] j, int[] m) {
+    int nb = rows.length;
+    int[] b = new int[nb+1];
+    for (int ib=0; ib<=nb; ++ib)
+      b[ib] = ib;
+    addBlocks(rows,j,m,b);
+  }
+
+  // Adds row segments rows[irow][j[irow]:j[irow]+m[irow]] in blocks
+  // [b[ib],b[ib+1]). Blocks are sketched in parallel, in batches, and
+  // merged in order, so that results do not depend on threads.
+  private void addBlocks(
+    final float[][] rows, final int[] j, final int[] m, final int[] b)
+  {
+    int nb = b.length-1;
+    final QuantileSketch[] qs = new QuantileSketch[min(nb,NBATCH)];
+    for (int ib=0; ib<nb; ib+=NBATCH) {
+      final int jb = ib;
+      final int mb = min(NBATCH,nb-ib);
+      Parallel.loop(mb,new Parallel.LoopInt() {
+        public void compute(int kb) {
+          QuantileSketch s = new QuantileSketch(_k);
+          for (int irow=b[jb+kb]; irow<b[jb+kb+1]; ++irow)
+            s.add(rows[irow],j[irow],m[irow]);
+          qs[kb] = s;
+        }
+      });
+      for (int kb=0; kb<mb; ++kb) {
+        merge(qs[kb]);
+        qs[kb] = null;
+      }
+    }
+  }
+}
@@ -0,0 +1,188 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.dsp;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import edu.mines.jtk.util.Parallel;
+import edu.mines.jtk.util.Stopwatch;
+
+/**
+ * Tests {@link edu.mines.jtk.dsp.Cholesky}.
+ * @author agent
+ * @version 2026.10.19
+ */
+public class CholeskyTest extends TestCase {
+  public static void main(String[] args) {
+    if (args.length>0 && args[0].equals("bench")) {
+      bench();
+    } else {
+      TestSuite suite = new TestSuite(CholeskyTest.class);
+      junit.textui.TestRunner.run(suite);
+    }
+  }
+
+  public void testSolve22() {
+    int n = 3000;
+    float[][] a = makeMatrices(2,n);
+    float[][] b = makeVectors(2,n);
+    float[][] x = new float[2][n];
+    assertEquals(0,Cholesky.solve22(a[0],a[1],a[2],b[0],b[1],x[0],x[1]));
+    checkSolutions(a,b,x);
+  }
+
+  public void testSolve33() {
+    int n = 3000;
+    float[][] a = makeMatrices(3,n);
+    float[][] b = makeVectors(3,n);
+    float[][] x = new float[3][n];
+    assertEquals(0,Cholesky.solve33(a[0],a[1],a[3],a[2],a[4],a[5],
+                                    b[0],b[1],b[2],x[0],x[1],x[2]));
+    checkSolutions(a,b,x);
+  }
+
+  public void testSolve() {
+    for (int m=1; m<=6; ++m) {
+      int n = 2000;
+      float[][] a = makeMatrices(m,n);
+      float[][] b = makeVectors(m,n);
+      float[][] x = new float[m][n];
+      assertEquals(0,Cholesky.solve(a,b,x));
+      checkSolutions(a,b,x);
+    }
+  }
+
+  public void testInPlace() {
+    int n = 100;
+    float[][] a = makeMatrices(3,n);
+    float[][] b = makeVectors(3,n);
+    float[][] x = new float[3][n];
+    Cholesky.solve(a,b,x);
+    Cholesky.solve(a,b,b);
+    for (int j=0; j<3; ++j)
+      for (int i=0; i<n; ++i)
+        assertEquals(x[j][i],b[j][i],0.0f);
+  }
+
+  public void testNotPositiveDefinite() {
+    int n = 100;
+    float[][] a = makeMatrices(3,n);
+    float[][] b = makeVectors(3,n);
+    a[5][7] = -1.0f; // A(3,3) for system 7
+    a[0][9] = 0.0f; // A(1,1) for system 9
+    float[][] x = new float[3][n];
+    assertEquals(2,Cholesky.solve(a,b,x));
+    for (int j=0; j<3; ++j) {
+      assertEquals(0.0f,x[j][7]);
+      assertEquals(0.0f,x[j][9]);
+    }
+    float[][] y = new float[3][n];
+    assertEquals(2,Cholesky.solve33(a[0],a[1],a[3],a[2],a[4],a[5],
+                                    b[0],b[1],b[2],y[0],y[1],y[2]));
+    for (int j=0; j<3; ++j)
+      for (int i=0; i<n; ++i)
+        assertEquals(x[j][i],y[j][i],1.0e-5f*(1.0f+Math.abs(x[j][i])));
+  }
+
+  public void testSerialParallel() {
+    int n = 10000;
+    float[][] a = makeMatrices(4,n);
+    float[][] b = makeVectors(4,n);
+    float[][] xp = new float[4][n];
+    float[][] xs = new float[4][n];
+    Cholesky.solve(a,b,xp);
+    Parallel.setParallel(false);
+    try {
+      Cholesky.solve(a,b,xs);
+    } finally {
+      Parallel.setParallel(true);
+    }
+    for (int j=0; j<4; ++j)
+      for (int i=0; i<n; ++i)
+        assertEquals(xs[j][i],xp[j][i],0.0f);
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  private static Random _random = new Random(314159);
+
+  // Random symmetric positive-definite matrices, stored by rows in the 
+  // lower triangle, with eigenvalues not less than 0.5.
+  private static float[][] makeMatrices(int m, int n) {
+    float[][] a = new float[m*(m+1)/2][n];
+    double[][] r = new double[m][m];
+    for (int i=0; i<n; ++i) {
+      for (int j=0; j<m; ++j)
+        for (int k=0; k<m; ++k)
+          r[j][k] = _random.nextDouble()-0.5;
+      for (int j=0,jk=0; j<m; ++j) {
+        for (int k=0; k<=j; ++k,++jk) {
+          double s = (j==k)?0.5:0.0;
+          for (int l=0; l<m; ++l)
+            s += r[j][l]*r[k][l];
+          a[jk][i] = (float)s;
+        }
+      }
+    }
+    return a;
+  }
+
+  private static float[][] makeVectors(int m, int n) {
+    float[][] b = new float[m][n];
+    for (int j=0; j<m; ++j)
+      for (int i=0; i<n; ++i)
+        b[j][i] = _random.nextFloat()-0.5f;
+    return b;
+  }
+
+  private static float get(float[][] a, int j, int k, int i) {
+    return (j>=k)?a[j*(j+1)/2+k][i]:a[k*(k+1)/2+j][i];
+  }
+
+  private static void checkSolutions(float[][] a, float[][] b, float[][] x) {
+    int m = b.length;
+    int n = b[0].length;
+    for (int i=0; i<n; ++i) {
+      for (int j=0; j<m; ++j) {
+        double s = 0.0;
+        for (int k=0; k<m; ++k)
+          s += get(a,j,k,i)*x[k][i];
+        assertEquals(b[j][i],s,1.0e-4);
+      }
+    }
+  }
+
+  private static void bench() {
+    int n = 1000000;
+    float[][] a = makeMatrices(3,n);
+    float[][] b = makeVectors(3,n);
+    float[][] x = new float[3][n];
+    Stopwatch sw = new Stopwatch();
+    for (int ntrial=0; ntrial<3; ++ntrial) {
+      sw.restart();
+      Cholesky.solve33(a[0],a[1],a[3],a[2],a[4],a[5],
+                       b[0],b[1],b[2],x[0],x[1],x[2]);
+      double t33 = sw.time();
+      sw.restart();
+      Cholesky.solve(a,b,x);
+      double tnn = sw.time();
+      System.out.println("n="+n+" solve33="+t33+" s, solve="+tnn+" s");
+    }
+  }
+}
@@ -72,6 +72,64 @@ public class EigenTest extends TestCase {
     }
   }
 
+  public void testSymmetric22Batch() {
+    int n = 5000;
+    float[] a11 = new float[n], a12 = new float[n], a22 = new float[n];
+    for (int i=0; i<n; ++i) {
+      a11[i] = r.nextFloat();
+      a12[i] = (i%7==0)?0.0f:r.nextFloat()-0.5f; // some diagonal
+      a22[i] = r.nextFloat();
+    }
+    float[] u1 = new float[n], u2 = new float[n];
+    float[] au = new float[n], av = new float[n];
+    Eigen.solveSymmetric22(a11,a12,a22,u1,u2,au,av);
+    float[][] a = new float[2][2];
+    float[][] v = new float[2][2];
+    float[] d = new float[2];
+    for (int i=0; i<n; ++i) {
+      a[0][0] = a11[i]; a[0][1] = a12[i];
+      a[1][0] = a12[i]; a[1][1] = a22[i];
+      Eigen.solveSymmetric22(a,v,d);
+      assertEquals(v[0][0],u1[i],0.0f);
+      assertEquals(v[0][1],u2[i],0.0f);
+      assertEquals(d[0],au[i],0.0f);
+      assertEquals(d[1],av[i],0.0f);
+    }
+  }
+
+  public void testSymmetric33Batch() {
+    int n = 5000;
+    float[][] a = new float[6][n];
+    for (int i=0; i<n; ++i) {
+      double[][] ai = makeRandomSymmetric33();
+      a[0][i] = (float)ai[0][0];
+      a[1][i] = (float)ai[0][1];
+      a[2][i] = (float)ai[0][2];
+      a[3][i] = (float)ai[1][1];
+      a[4][i] = (float)ai[1][2];
+      a[5][i] = (float)ai[2][2];
+    }
+    float[][] u = new float[3][n];
+    float[][] w = new float[3][n];
+    float[][] e = new float[3][n];
+    Eigen.solveSymmetric33(a[0],a[1],a[2],a[3],a[4],a[5],
+                           u[0],u[1],u[2],w[0],w[1],w[2],e[0],e[1],e[2]);
+    double[][] ai = new double[3][3];
+    double[][] v = new double[3][3];
+    double[] d = new double[3];
+    for (int i=0; i<n; ++i) {
+      ai[0][0] = a[0][i]; ai[0][1] = a[1][i]; ai[0][2] = a[2][i];
+      ai[1][0] = a[1][i]; ai[1][1] = a[3][i]; ai[1][2] = a[4][i];
+      ai[2][0] = a[2][i]; ai[2][1] = a[4][i]; ai[2][2] = a[5][i];
+      Eigen.solveSymmetric33(ai,v,d);
+      for (int j=0; j<3; ++j) {
+        assertEquals((float)v[0][j],u[j][i],0.0f);
+        assertEquals((float)v[2][j],w[j][i],0.0f);
+        assertEquals((float)d[j],e[j][i],0.0f);
+      }
+    }
+  }
+
   private void check(double[][] a, double[][] v, double[] d) {
     int n = a.length;
     for (int k=0; k<n; ++k) {
@@ -14,11 +14,16 @@ limitations under the License.
 ****************************************************************************/
 package edu.mines.jtk.dsp;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.Random;
 
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
 
+import edu.mines.jtk.io.ArrayInputStream;
+import edu.mines.jtk.io.ArrayOutputStream;
 import static edu.mines.jtk.util.ArrayMath.*;
 
 /**
@@ -112,6 +117,61 @@ public class FftFilterTest extends TestCase {
     }
   }
 
+  public void test1Stream() {
+    FftFilter.Extrapolation[] extrapolations = {
+      FftFilter.Extrapolation.ZERO_VALUE,
+      FftFilter.Extrapolation.ZERO_SLOPE
+    };
+    for (int itest=0; itest<200; ++itest) {
+      int nh = 1+_random.nextInt(40);
+      int kh = _random.nextInt(nh);
+      int nx = 1+_random.nextInt(2000);
+      float[] h = randfloat(nh);
+      float[] x = randfloat(nx);
+      FftFilter ff = new FftFilter(kh,h);
+      ff.setExtrapolation(extrapolations[itest%2]);
+      float[] z = ff.apply(x);
+      FftFilter.Stream fs = ff.stream(1+_random.nextInt(100));
+      float[] y = new float[nx];
+      int ny = 0;
+      for (int jx=0; jx<nx; ) {
+        int mx = Math.min(nx-jx,_random.nextInt(300));
+        fs.push(x,jx,mx);
+        jx += mx;
+        ny += fs.pull(y,ny,_random.nextInt(1+nx-ny));
+      }
+      fs.finish();
+      ny += fs.pull(y,ny,nx-ny);
+      assertEquals(nx,ny);
+      assertEquals(0,fs.available());
+      assertEquals(z,y);
+    }
+  }
+
+  public void test1StreamArrayIO() throws IOException {
+    int nx = 100000;
+    float[] x = randfloat(nx);
+    BandPassFilter bpf = new BandPassFilter(0.1,0.3,0.05,0.01);
+    float[] z = new float[nx];
+    bpf.apply(x,z);
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    ArrayOutputStream aos = new ArrayOutputStream(bos);
+    aos.writeFloats(x);
+    aos.close();
+    ArrayInputStream ais = new ArrayInputStream(
+      new ByteArrayInputStream(bos.toByteArray()));
+    bos = new ByteArrayOutputStream();
+    aos = new ArrayOutputStream(bos);
+    bpf.apply(ais,aos,nx);
+    aos.close();
+    ais.close();
+    ais = new ArrayInputStream(new ByteArrayInputStream(bos.toByteArray()));
+    float[] y = new float[nx];
+    ais.readFloats(y);
+    ais.close();
+    assertEquals(z,y);
+  }
+
   private Random _random = new Random();
 
   private static final float TOLERANCE = 1000.0f*FLT_EPSILON;
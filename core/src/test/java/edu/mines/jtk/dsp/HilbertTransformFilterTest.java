@@ -79,6 +79,67 @@ public class HilbertTransformFilterTest extends TestCase {
     }
   }
 
+  public void testApplyFft() {
+    HilbertTransformFilter htf = new HilbertTransformFilter();
+    int n = 1001;
+    float[] x = new float[n];
+    for (int i=0; i<n; ++i)
+      x[i] = sin(0.3f*i)+0.5f*cos(1.5f*i+0.3f);
+    float[] y = new float[n];
+    float[] z = new float[n];
+    htf.apply(n,x,y);
+    HilbertTransformFilter.applyFft(x,z);
+    for (int i=n/4; i<3*n/4; ++i) {
+      float h = cos(0.3f*i)-0.5f*sin(1.5f*i+0.3f);
+      assertEquals(h,y[i],0.02f);
+      assertEquals(h,z[i],0.02f);
+    }
+  }
+
+  public void testAttributes() {
+    int n = 1001;
+    float w = 2.0f*FLT_PI*0.05f;
+    float[] x = new float[n];
+    for (int i=0; i<n; ++i)
+      x[i] = 2.0f*cos(w*i+0.5f);
+    float[] e = new float[n];
+    float[] p = new float[n];
+    float[] f = new float[n];
+    HilbertTransformFilter.applyForAttributes(x,e,p,f);
+    for (int i=100; i<n-100; ++i) {
+      assertEquals(2.0f,e[i],0.02f);
+      assertEquals(0.0f,sin(p[i]-w*i-0.5f),0.01f);
+      assertEquals(0.05f,f[i],0.001f);
+    }
+  }
+
+  public void testAttributes3() {
+    int n1 = 101, n2 = 5, n3 = 4;
+    float[][][] x = randfloat(n1,n2,n3);
+    float[][][] e = new float[n3][n2][n1];
+    float[][][] f = new float[n3][n2][n1];
+    HilbertTransformFilter.applyForAttributes(x,e,null,f);
+    float[][] e2 = new float[n2][n1];
+    float[][] p2 = new float[n2][n1];
+    HilbertTransformFilter.applyForAttributes(x[1],e2,p2,null);
+    float[] e1 = new float[n1];
+    float[] p1 = new float[n1];
+    float[] f1 = new float[n1];
+    for (int i3=0; i3<n3; ++i3) {
+      for (int i2=0; i2<n2; ++i2) {
+        HilbertTransformFilter.applyForAttributes(x[i3][i2],e1,p1,f1);
+        for (int i1=0; i1<n1; ++i1) {
+          assertEquals(e1[i1],e[i3][i2][i1],0.0f);
+          assertEquals(f1[i1],f[i3][i2][i1],0.0f);
+          if (i3==1) {
+            assertEquals(e1[i1],e2[i2][i1],0.0f);
+            assertEquals(p1[i1],p2[i2][i1],0.0f);
+          }
+        }
+      }
+    }
+  }
+
   private static final int NMAX_DEFAULT = 100000; // default max length.
   private static final float EMAX_DEFAULT = 0.010f; // default max error.
   private static final float FMIN_DEFAULT = 0.025f; // default min frequency.
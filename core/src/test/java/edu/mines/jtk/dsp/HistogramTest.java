@@ -14,9 +14,13 @@ limitations under the License.
 ****************************************************************************/
 package edu.mines.jtk.dsp;
 
+import java.util.Random;
+
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
 
+import edu.mines.jtk.util.Parallel;
+import edu.mines.jtk.util.SimpleFloat3;
 import static edu.mines.jtk.util.ArrayMath.*;
 
 /**
@@ -132,4 +136,56 @@ public class HistogramTest extends TestCase {
     //System.out.println("nbin="+nbin+" dbin="+dbin+" fbin="+fbin);
   }
   */
+
+  public void testArrays() {
+    float[][][] v = randfloat(new Random(1),21,22,23);
+    float[] v1 = flatten(v);
+    float[][] v2 = new float[22*23][];
+    for (int i3=0,i=0; i3<23; ++i3)
+      for (int i2=0; i2<22; ++i2)
+        v2[i++] = v[i3][i2];
+    Histogram h1 = new Histogram(v1);
+    assertSame(h1,new Histogram(v2));
+    assertSame(h1,new Histogram(v));
+    assertSame(h1,new Histogram(new SimpleFloat3(v)));
+    h1 = new Histogram(v1,0.2f,0.7f,17);
+    assertSame(h1,new Histogram(v2,0.2f,0.7f,17));
+    assertSame(h1,new Histogram(v,0.2f,0.7f,17));
+    assertSame(h1,new Histogram(new SimpleFloat3(v),0.2f,0.7f,17));
+    h1 = new Histogram(v1,0.2f,0.7f);
+    assertSame(h1,new Histogram(new SimpleFloat3(v),0.2f,0.7f));
+  }
+
+  public void testLarge() {
+    float[][][] v = randfloat(new Random(2),200,100,60);
+    Histogram hp = new Histogram(v);
+    Parallel.setParallel(false);
+    Histogram hs;
+    try {
+      hs = new Histogram(v);
+    } finally {
+      Parallel.setParallel(true);
+    }
+    assertSame(hs,hp);
+    assertEquals(200*100*60,hp.getInCount());
+    assertEquals(min(v),hp.getMinValue());
+    assertEquals(max(v),hp.getMaxValue());
+
+    // uniform values, so bin width is about 2*0.5/cbrt(n)
+    double dbin = 1.0/pow(200*100*60,1.0/3.0);
+    assertEquals(dbin,hp.getBinDelta(),0.02*dbin);
+  }
+
+  private static void assertSame(Histogram ha, Histogram hb) {
+    assertEquals(ha.getMinValue(),hb.getMinValue());
+    assertEquals(ha.getMaxValue(),hb.getMaxValue());
+    assertEquals(ha.getBinCount(),hb.getBinCount());
+    assertEquals(ha.getBinDelta(),hb.getBinDelta());
+    assertEquals(ha.getLowCount(),hb.getLowCount());
+    assertEquals(ha.getHighCount(),hb.getHighCount());
+    long[] ca = ha.getCounts();
+    long[] cb = hb.getCounts();
+    for (int i=0; i<ca.length; ++i)
+      assertEquals(ca[i],cb[i]);
+  }
 }
@@ -105,6 +105,38 @@ public class LocalOrientFilterTest extends TestCase {
     }
   }
 
+  public void test3Tensors() {
+    int n1 = 31, n2 = 29, n3 = 27;
+    float[][][] x = randfloat(new java.util.Random(314159),n1,n2,n3);
+    LocalOrientFilter lof = new LocalOrientFilter(4.0,3.0,2.0);
+    float[][][] u1 = new float[n3][n2][n1];
+    float[][][] u2 = new float[n3][n2][n1];
+    float[][][] u3 = new float[n3][n2][n1];
+    float[][][] eu = new float[n3][n2][n1];
+    float[][][] ev = new float[n3][n2][n1];
+    float[][][] ew = new float[n3][n2][n1];
+    lof.apply(x,null,null,u1,u2,u3,null,null,null,null,null,null,
+              eu,ev,ew,null,null);
+    EigenTensors3 et = lof.applyForTensors(x,false);
+    float[] a = new float[3];
+    float[] u = new float[3];
+    for (int i3=0; i3<n3; ++i3) {
+      for (int i2=0; i2<n2; ++i2) {
+        for (int i1=0; i1<n1; ++i1) {
+          et.getEigenvalues(i1,i2,i3,a);
+          assertEquals(eu[i3][i2][i1],a[0],1.0e-6f*a[0]);
+          assertEquals(ev[i3][i2][i1],a[1],1.0e-6f*a[0]);
+          assertEquals(ew[i3][i2][i1],a[2],1.0e-6f*a[0]);
+          et.getEigenvectorU(i1,i2,i3,u);
+          float s = (u3[i3][i2][i1]<0.0f)?-1.0f:1.0f;
+          assertEquals(s*u1[i3][i2][i1],u[0],0.001f);
+          assertEquals(s*u2[i3][i2][i1],u[1],0.001f);
+          assertEquals(s*u3[i3][i2][i1],u[2],0.001f);
+        }
+      }
+    }
+  }
+
   public void test3Linear() {
     double sigma = 6.0;
     int n1 = 1+2*(int)(3*sigma);
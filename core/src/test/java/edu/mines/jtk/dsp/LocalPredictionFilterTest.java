@@ -0,0 +1,67 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.dsp;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import static edu.mines.jtk.util.ArrayMath.*;
+
+/**
+ * Tests {@link edu.mines.jtk.dsp.LocalPredictionFilter}.
+ * @author agent
+ * @version 2026.10.19
+ */
+public class LocalPredictionFilterTest extends TestCase {
+  public static void main(String[] args) {
+    TestSuite suite = new TestSuite(LocalPredictionFilterTest.class);
+    junit.textui.TestRunner.run(suite);
+  }
+
+  public void testZeroAndConstant() {
+    int n1 = 40, n2 = 90;
+    float[][] f = new float[n2][n1];
+    Random r = new Random(314159);
+    for (int i2=0; i2<n2; ++i2) {
+      for (int i1=0; i1<n1; ++i1) {
+        if (i2<30) {
+          f[i2][i1] = r.nextFloat()-0.5f;
+        } else if (i2>=60) {
+          f[i2][i1] = 1.0f;
+        }
+      }
+    }
+    int[] lag1 = {1,2,0,1};
+    int[] lag2 = {0,0,1,1};
+    LocalPredictionFilter lpf = new LocalPredictionFilter(2.0);
+    float[][] g = new float[n2][n1];
+    float[][][] a = lpf.apply(lag1,lag2,f,g);
+    for (int i2=0; i2<n2; ++i2) {
+      for (int i1=0; i1<n1; ++i1) {
+        for (int j=0; j<lag1.length; ++j) {
+          float aj = a[j][i2][i1];
+          assertTrue(abs(aj)<=2.0f);
+          if (38<=i2 && i2<46)
+            assertEquals(0.0f,aj,0.01f);
+        }
+        assertFalse(Float.isNaN(g[i2][i1]));
+        if (65<=i2 && i2<85 && 5<=i1 && i1<35)
+          assertEquals(1.0f,g[i2][i1],0.05f);
+      }
+    }
+  }
+}
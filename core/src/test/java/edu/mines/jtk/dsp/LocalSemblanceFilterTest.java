@@ -0,0 +1,92 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.dsp;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import static edu.mines.jtk.util.ArrayMath.*;
+
+/**
+ * Tests {@link edu.mines.jtk.dsp.LocalSemblanceFilter}.
+ * @author agent
+ * @version 2026.10.19
+ */
+public class LocalSemblanceFilterTest extends TestCase {
+  public static void main(String[] args) {
+    TestSuite suite = new TestSuite(LocalSemblanceFilterTest.class);
+    junit.textui.TestRunner.run(suite);
+  }
+
+  public void test2() {
+    float[][] f = randfloat(_random,41,37);
+    LocalOrientFilter lof = new LocalOrientFilter(4.0);
+    EigenTensors2 t = lof.applyForTensors(f);
+    LocalSemblanceFilter lsf = new LocalSemblanceFilter(2,4);
+    for (LocalSemblanceFilter.Direction2 d:
+         LocalSemblanceFilter.Direction2.values()) {
+      float[][] sn = lsf.smooth1(d,t,f);
+      sn = lsf.smooth2(d,t,mul(sn,sn));
+      float[][] sd = lsf.smooth2(d,t,lsf.smooth1(d,t,mul(f,f)));
+      float[][] s = lsf.semblance(d,t,f);
+      assertEquals(clip(0.0f,1.0f,div(sn,sd)),s);
+      assertEquals(s,lsf.semblance(d,t,f)); // reuses work arrays
+      lsf.releaseWork();
+      assertEquals(s,lsf.semblance(d,t,f)); // allocates work arrays
+    }
+  }
+
+  public void test3() {
+    float[][][] f = randfloat(_random,21,19,17);
+    LocalOrientFilter lof = new LocalOrientFilter(4.0);
+    EigenTensors3 t = lof.applyForTensors(f);
+    LocalSemblanceFilter lsf = new LocalSemblanceFilter(2,2);
+    LocalSemblanceFilter.Direction3[] ds = {
+      LocalSemblanceFilter.Direction3.W,
+      LocalSemblanceFilter.Direction3.UV
+    };
+    for (LocalSemblanceFilter.Direction3 d:ds) {
+      float[][][] sn = lsf.smooth1(d,t,f);
+      sn = lsf.smooth2(d,t,mul(sn,sn));
+      float[][][] sd = lsf.smooth2(d,t,lsf.smooth1(d,t,mul(f,f)));
+      float[][][] s = lsf.semblance(d,t,f);
+      for (int i3=0; i3<f.length; ++i3)
+        assertEquals(clip(0.0f,1.0f,div(sn[i3],sd[i3])),s[i3]);
+      assertEquals(s,lsf.semblance(d,t,f)); // reuses work arrays
+      lsf.releaseWork();
+      assertEquals(s,lsf.semblance(d,t,f)); // allocates work arrays
+    }
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  private static Random _random = new Random(314159);
+
+  private static void assertEquals(float[][] x, float[][] y) {
+    int n2 = x.length;
+    int n1 = x[0].length;
+    for (int i2=0; i2<n2; ++i2)
+      for (int i1=0; i1<n1; ++i1)
+        assertEquals(x[i2][i1],y[i2][i1],0.0f);
+  }
+
+  private static void assertEquals(float[][][] x, float[][][] y) {
+    for (int i3=0; i3<x.length; ++i3)
+      assertEquals(x[i3],y[i3]);
+  }
+}
@@ -57,4 +57,33 @@ public class LocalShiftFinderTest extends TestCase {
     edu.mines.jtk.mosaic.SimplePlot.asPoints(d);
     */
   }
+
+  public void testThreads() {
+    int n1 = 101, n2 = 83;
+    float w = 0.02f*2.0f*FLT_PI;
+    float shift = 4.0f;
+    float[][] f = new float[n2][n1];
+    float[][] g = new float[n2][n1];
+    for (int i2=0; i2<n2; ++i2) {
+      for (int i1=0; i1<n1; ++i1) {
+        f[i2][i1] = cos(w*(i1+shift))*(2.0f+cos(0.5f*w*i2));
+        g[i2][i1] = cos(w*i1)*(2.0f+cos(0.5f*w*i2));
+      }
+    }
+    float[][][] u = new float[3][n2][n1];
+    int[] nthreads = {1,2,5};
+    for (int it=0; it<3; ++it) {
+      LocalShiftFinder lsf = new LocalShiftFinder(8.0);
+      lsf.setMaxThreads(nthreads[it]);
+      lsf.find1(-12,12,f,g,u[it]);
+    }
+    for (int i2=0; i2<n2; ++i2) {
+      for (int i1=n1/4; i1<3*n1/4; ++i1)
+        assertEquals(shift,u[0][i2][i1],0.1f);
+      for (int i1=0; i1<n1; ++i1) {
+        assertEquals(u[0][i2][i1],u[1][i2][i1]);
+        assertEquals(u[0][i2][i1],u[2][i2][i1]);
+      }
+    }
+  }
 }
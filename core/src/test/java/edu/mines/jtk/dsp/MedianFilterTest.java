@@ -0,0 +1,111 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.dsp;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import edu.mines.jtk.util.MedianFinder;
+import static edu.mines.jtk.util.ArrayMath.*;
+
+/**
+ * Tests {@link edu.mines.jtk.dsp.MedianFilter}.
+ * @author agent
+ * @version 2026.10.19
+ */
+public class MedianFilterTest extends TestCase {
+  public static void main(String[] args) {
+    TestSuite suite = new TestSuite(MedianFilterTest.class);
+    junit.textui.TestRunner.run(suite);
+  }
+
+  public void test1() {
+    for (int h=0; h<=3; ++h) {
+      for (int n1=1; n1<=10000; n1*=10) {
+        float[][][] x = {{values(n1)}};
+        float[][][] y = {{new float[n1]}};
+        new MedianFilter(h).apply(x[0][0],y[0][0]);
+        check(h,0,0,x,y);
+      }
+    }
+  }
+
+  public void test2() {
+    float[][][] x = {randfloat(_random,23,19)};
+    float[][][] y = {new float[19][23]};
+    new MedianFilter(2,1,0).apply(x[0],y[0]);
+    check(2,1,0,x,y);
+    x[0] = quantize(x[0]);
+    new MedianFilter(1,3,0).apply(x[0],y[0]);
+    check(1,3,0,x,y);
+  }
+
+  public void test3() {
+    float[][][] x = randfloat(_random,13,11,9);
+    float[][][] y = new float[9][11][13];
+    new MedianFilter(2,1,3).apply(x,y);
+    check(2,1,3,x,y);
+    for (int i3=0; i3<9; ++i3)
+      x[i3] = quantize(x[i3]);
+    new MedianFilter(1).apply(x,y);
+    check(1,1,1,x,y);
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  private static Random _random = new Random(271828);
+
+  // Values with many duplicates.
+  private static float[] values(int n) {
+    return quantize(new float[][]{randfloat(_random,n)})[0];
+  }
+  private static float[][] quantize(float[][] x) {
+    float[][] y = new float[x.length][x[0].length];
+    for (int i2=0; i2<x.length; ++i2)
+      for (int i1=0; i1<x[0].length; ++i1)
+        y[i2][i1] = (float)Math.floor(x[i2][i1]*8.0f);
+    return y;
+  }
+
+  // Compares output with medians computed separately for each window.
+  private static void check(
+    int h1, int h2, int h3, float[][][] x, float[][][] y)
+  {
+    int n1 = x[0][0].length;
+    int n2 = x[0].length;
+    int n3 = x.length;
+    float[] v = new float[(2*h1+1)*(2*h2+1)*(2*h3+1)];
+    for (int i3=0; i3<n3; ++i3) {
+      for (int i2=0; i2<n2; ++i2) {
+        for (int i1=0; i1<n1; ++i1) {
+          int m = 0;
+          for (int j3=i3-h3; j3<=i3+h3; ++j3) {
+            for (int j2=i2-h2; j2<=i2+h2; ++j2) {
+              for (int j1=i1-h1; j1<=i1+h1; ++j1) {
+                if (0<=j1 && j1<n1 && 0<=j2 && j2<n2 && 0<=j3 && j3<n3)
+                  v[m++] = x[j3][j2][j1];
+              }
+            }
+          }
+          float[] w = copy(m,v);
+          assertEquals(new MedianFinder(m).findMedian(w),y[i3][i2][i1]);
+        }
+      }
+    }
+  }
+}
@@ -17,6 +17,8 @@ package edu.mines.jtk.dsp;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
 
+import edu.mines.jtk.util.Parallel;
+
 import static edu.mines.jtk.util.ArrayMath.*;
 
 /**
@@ -168,6 +170,65 @@ public class MinimumPhaseFilterTest extends TestCase {
     assertEquals(d1,d2,tiny);
   }
 
+  public void testParallelInverse() {
+    int[] lag1 = {0,1,2,-2,-1,0};
+    int[] lag2 = {0,0,0, 1, 1,1};
+    float[] a = {2.0f,-0.3f,-0.1f,-0.1f,-0.2f,-0.4f};
+    MinimumPhaseFilter f2 = new MinimumPhaseFilter(lag1,lag2,a);
+    float[][] x2 = rands(301,401);
+    float[][][] y2 = new float[4][][];
+    for (int ip=0; ip<2; ++ip) {
+      Parallel.setParallel(ip==0);
+      try {
+        f2.applyInverse(x2,y2[ip]=zeros(301,401));
+        f2.applyInverseTranspose(x2,y2[ip+2]=zeros(301,401));
+      } finally {
+        Parallel.setParallel(true);
+      }
+    }
+    assertExact(new float[][][]{y2[0],y2[2]},new float[][][]{y2[1],y2[3]});
+    int[] lag3 = {0,0,0,0,0,1,1,1};
+    lag1 = new int[]{0,1,-1,0,1,0,-1,1};
+    lag2 = new int[]{0,0, 1,1,1,-1,2,0};
+    a = new float[]{2.0f,-0.3f,-0.2f,-0.3f,-0.1f,-0.2f,-0.1f,-0.2f};
+    MinimumPhaseFilter f3 = new MinimumPhaseFilter(lag1,lag2,lag3,a);
+    float[][][] x3 = rands(71,61,51);
+    float[][][][] y3 = new float[4][][][];
+    for (int ip=0; ip<2; ++ip) {
+      Parallel.setParallel(ip==0);
+      try {
+        f3.applyInverse(x3,y3[ip]=zeros(71,61,51));
+        f3.applyInverseTranspose(x3,y3[ip+2]=zeros(71,61,51));
+      } finally {
+        Parallel.setParallel(true);
+      }
+    }
+    assertExact(y3[0],y3[1]);
+    assertExact(y3[2],y3[3]);
+  }
+
+  public void testInverseReference() {
+    int[] lag1 = {0,1,2,-2,-1,0};
+    int[] lag2 = {0,0,0, 1, 1,1};
+    float[] a = {2.0f,-0.3f,-0.1f,-0.1f,-0.2f,-0.4f};
+    MinimumPhaseFilter f2 = new MinimumPhaseFilter(lag1,lag2,a);
+
+    // Rows are pipelined, if parallel.
+    checkInverse(f2,lag1,lag2,zeroint(6),a,rands(301,401));
+
+    int[] lag3 = {0,0,0,0,0,1,1,1};
+    lag1 = new int[]{0,1,-1,0,1,0,-1,1};
+    lag2 = new int[]{0,0, 1,1,1,-1,2,0};
+    a = new float[]{2.0f,-0.3f,-0.2f,-0.3f,-0.1f,-0.2f,-0.1f,-0.2f};
+    MinimumPhaseFilter f3 = new MinimumPhaseFilter(lag1,lag2,lag3,a);
+
+    // Rows are computed serially, because with lag3 ignored, one lag2 < 0.
+    checkInverse(f3,lag1,lag2,zeroint(8),a,rands(301,401));
+
+    // Rows are pipelined, if parallel.
+    checkInverse(f3,lag1,lag2,lag3,a,rands(71,61,51));
+  }
+
   public void testFactorFomelExample() {
     float[] r = {24.0f,242.0f,867.0f,1334.0f,867.0f,242.0f,24.0f};
     int[] lag1 = {0,1,2,3};
@@ -518,4 +579,105 @@ public class MinimumPhaseFilterTest extends TestCase {
         for (int i1=0; i1<n1; ++i1)
           assertEquals(re[i3][i2][i1],ra[i3][i2][i1],tolerance);
   }
+
+  // Compares 2D inverse and inverse transpose with a reference recursion.
+  private static void checkInverse(
+    MinimumPhaseFilter f, int[] lag1, int[] lag2, int[] lag3, float[] a,
+    float[][] x)
+  {
+    int n1 = x[0].length;
+    int n2 = x.length;
+    float[][] y = zeros(n1,n2);
+    float[][] z = zeros(n1,n2);
+    f.applyInverse(x,y);
+    f.applyInverseTranspose(x,z);
+    float[][][] yr = {zeros(n1,n2)};
+    float[][][] zr = {zeros(n1,n2)};
+    inverseReference(lag1,lag2,lag3,a,new float[][][]{x},yr);
+    inverseTransposeReference(lag1,lag2,lag3,a,new float[][][]{x},zr);
+    assertExact(new float[][][]{y,z},new float[][][]{yr[0],zr[0]});
+  }
+
+  // Compares 3D inverse and inverse transpose with a reference recursion.
+  private static void checkInverse(
+    MinimumPhaseFilter f, int[] lag1, int[] lag2, int[] lag3, float[] a,
+    float[][][] x)
+  {
+    int n1 = x[0][0].length;
+    int n2 = x[0].length;
+    int n3 = x.length;
+    float[][][] y = zeros(n1,n2,n3);
+    float[][][] z = zeros(n1,n2,n3);
+    f.applyInverse(x,y);
+    f.applyInverseTranspose(x,z);
+    float[][][] yr = zeros(n1,n2,n3);
+    float[][][] zr = zeros(n1,n2,n3);
+    inverseReference(lag1,lag2,lag3,a,x,yr);
+    inverseTransposeReference(lag1,lag2,lag3,a,x,zr);
+    assertExact(y,yr);
+    assertExact(z,zr);
+  }
+
+  // Straightforward causal recursion, one sample at a time in array order.
+  private static void inverseReference(
+    int[] lag1, int[] lag2, int[] lag3, float[] a,
+    float[][][] x, float[][][] y)
+  {
+    int m = a.length;
+    int n1 = x[0][0].length;
+    int n2 = x[0].length;
+    int n3 = x.length;
+    float a0i = 1.0f/a[0];
+    for (int i3=0; i3<n3; ++i3) {
+      for (int i2=0; i2<n2; ++i2) {
+        for (int i1=0; i1<n1; ++i1) {
+          float yi = x[i3][i2][i1];
+          for (int j=1; j<m; ++j) {
+            int k1 = i1-lag1[j];
+            int k2 = i2-lag2[j];
+            int k3 = i3-lag3[j];
+            if (0<=k1 && k1<n1 && 0<=k2 && k2<n2 && 0<=k3 && k3<n3)
+              yi -= a[j]*y[k3][k2][k1];
+          }
+          y[i3][i2][i1] = yi*a0i;
+        }
+      }
+    }
+  }
+
+  // Straightforward anti-causal recursion, in reverse array order.
+  private static void inverseTransposeReference(
+    int[] lag1, int[] lag2, int[] lag3, float[] a,
+    float[][][] x, float[][][] y)
+  {
+    int m = a.length;
+    int n1 = x[0][0].length;
+    int n2 = x[0].length;
+    int n3 = x.length;
+    float a0i = 1.0f/a[0];
+    for (int i3=n3-1; i3>=0; --i3) {
+      for (int i2=n2-1; i2>=0; --i2) {
+        for (int i1=n1-1; i1>=0; --i1) {
+          float yi = x[i3][i2][i1];
+          for (int j=1; j<m; ++j) {
+            int k1 = i1+lag1[j];
+            int k2 = i2+lag2[j];
+            int k3 = i3+lag3[j];
+            if (0<=k1 && k1<n1 && 0<=k2 && k2<n2 && 0<=k3 && k3<n3)
+              yi -= a[j]*y[k3][k2][k1];
+          }
+          y[i3][i2][i1] = yi*a0i;
+        }
+      }
+    }
+  }
+
+  private static void assertExact(float[][][] re, float[][][] ra) {
+    int n3 = re.length;
+    int n2 = re[0].length;
+    for (int i3=0; i3<n3; ++i3)
+      for (int i2=0; i2<n2; ++i2)
+        assertTrue(java.util.Arrays.equals(re[i3][i2],ra[i3][i2]));
+  }
+
 }
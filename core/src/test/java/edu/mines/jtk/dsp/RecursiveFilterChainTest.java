@@ -0,0 +1,161 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.dsp;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import static edu.mines.jtk.util.ArrayMath.*;
+
+/**
+ * Tests {@link edu.mines.jtk.dsp.RecursiveFilterChain}.
+ * @author agent
+ * @version 2026.10.19
+ */
+public class RecursiveFilterChainTest extends TestCase {
+  public static void main(String[] args) {
+    TestSuite suite = new TestSuite(RecursiveFilterChainTest.class);
+    junit.textui.TestRunner.run(suite);
+  }
+
+  public void test1() {
+    RecursiveFilterChain rfc = new RecursiveFilterChain();
+    rfc.addScale(2.0f);
+    rfc.addForwardReverse(1,BF);
+    rfc.add(1,RGF,1);
+    rfc.add(1,REF);
+    float[] x = randfloat(_random,101);
+    float[] y = copy(x);
+    BF.applyForwardReverse(y,y);
+    mul(2.0f,y,y);
+    RGF.apply1(y,y);
+    REF.apply1(y,y);
+    float[] z = new float[101];
+    rfc.apply(x,z);
+    assertEquals(y,z);
+    rfc.apply(x,x);
+    assertEquals(y,x);
+  }
+
+  public void test2() {
+    RecursiveFilterChain rfc = new RecursiveFilterChain();
+    rfc.addForward(2,BF);
+    rfc.addScale(0.5f);
+    rfc.add(2,RGF,2);
+    rfc.add(1,RGF,0);
+    rfc.add(1,REF);
+    rfc.add(2,REF);
+    rfc.addReverse(1,BF);
+    int[] n1s = {1,7,300,600};
+    for (int n1:n1s) {
+      float[][] x = randfloat(_random,n1,11);
+      float[][] y = copy(x);
+      BF.apply2Forward(y,y);
+      mul(0.5f,y,y);
+      RGF.applyX2(y,y);
+      RGF.apply0X(y,y);
+      REF.apply1(y,y);
+      REF.apply2(y,y);
+      for (int i2=0; i2<11; ++i2)
+        BF.applyReverse(y[i2],y[i2]);
+      float[][] z = new float[11][n1];
+      rfc.apply(x,z);
+      assertEquals(y,z);
+      rfc.apply(x,x);
+      assertEquals(y,x);
+    }
+  }
+
+  public void test3() {
+    RecursiveFilterChain rfc = new RecursiveFilterChain();
+    rfc.add(1,RGF,1);
+    rfc.add(3,RGF,0);
+    rfc.add(2,REF);
+    rfc.addScale(3.0f);
+    rfc.add(3,REF);
+    rfc.addForwardReverse(2,BF);
+    rfc.add(1,REF);
+    float[][][] x = randfloat(_random,13,12,11);
+    float[][][] y = copy(x);
+    RGF.apply1XX(y,y);
+    RGF.applyXX0(y,y);
+    REF.apply2(y,y);
+    mul(3.0f,y,y);
+    REF.apply3(y,y);
+    BF.apply2ForwardReverse(y,y);
+    REF.apply1(y,y);
+    float[][][] z = new float[11][12][13];
+    rfc.apply(x,z);
+    assertEquals(y,z);
+    rfc.apply(x,x);
+    assertEquals(y,x);
+  }
+
+  public void testEmpty() {
+    RecursiveFilterChain rfc = new RecursiveFilterChain();
+    float[] x1 = randfloat(_random,7);
+    float[] y1 = new float[7];
+    rfc.apply(x1,y1);
+    assertEquals(x1,y1);
+    float[][] x2 = randfloat(_random,7,6);
+    float[][] y2 = new float[6][7];
+    rfc.apply(x2,y2);
+    assertEquals(x2,y2);
+    float[][][] x3 = randfloat(_random,7,6,5);
+    float[][][] y3 = new float[5][6][7];
+    rfc.apply(x3,y3);
+    assertEquals(x3,y3);
+  }
+
+  public void testAxes() {
+    RecursiveFilterChain rfc = new RecursiveFilterChain();
+    rfc.add(3,REF);
+    try {
+      rfc.apply(new float[2][3],new float[2][3]);
+      fail("filter along 3rd axis of 2D array");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  private static Random _random = new Random(314159);
+
+  private static final ButterworthFilter BF =
+    new ButterworthFilter(0.1,4,ButterworthFilter.Type.LOW_PASS);
+  private static final RecursiveGaussianFilter RGF =
+    new RecursiveGaussianFilter(2.0);
+  private static final RecursiveExponentialFilter REF =
+    new RecursiveExponentialFilter(3.0,2.0,1.0);
+
+  private static void assertEquals(float[] e, float[] a) {
+    for (int i=0; i<e.length; ++i)
+      assertEquals(e[i],a[i],0.0f);
+  }
+
+  private static void assertEquals(float[][] e, float[][] a) {
+    for (int i=0; i<e.length; ++i)
+      assertEquals(e[i],a[i]);
+  }
+
+  private static void assertEquals(float[][][] e, float[][][] a) {
+    for (int i=0; i<e.length; ++i)
+      assertEquals(e[i],a[i]);
+  }
+}
@@ -0,0 +1,83 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.dsp;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import static edu.mines.jtk.util.ArrayMath.*;
+
+/**
+ * Tests {@link edu.mines.jtk.dsp.SteerablePyramid}.
+ * @author agent
+ * @version 2026.10.19
+ */
+public class SteerablePyramidTest extends TestCase {
+  public static void main(String[] args) {
+    TestSuite suite = new TestSuite(SteerablePyramidTest.class);
+    junit.textui.TestRunner.run(suite);
+  }
+
+  public void testSteerScaleSum() {
+    float[][][] x = randfloat(new Random(314159),21,18,17);
+    for (int linpowr=1; linpowr<=99; linpowr+=98) {
+      boolean forlinear = linpowr==1;
+      float[][][] y = filter(forlinear,linpowr,x);
+      assertFalse(Float.isNaN(y[0][0][0]));
+      SteerablePyramid sp = new SteerablePyramid();
+      float[][][] z =
+        sp.steerScaleSum(forlinear,2.0,linpowr,50.0f,0.5f,true,x);
+      assertEquals(y,z,0.0f);
+    }
+  }
+
+  public void testReducedPrecision() {
+    float[][][] x = randfloat(new Random(271828),21,18,17);
+    float[][][] y = filter(true,1,x);
+    SteerablePyramid sp = new SteerablePyramid();
+    sp.setReducedPrecision(true);
+    float[][][] z = sp.steerScaleSum(true,2.0,1,50.0f,0.5f,true,x);
+    float e = sqrt(sum(pow(sub(y,z),2.0f))/sum(pow(y,2.0f)));
+    assertTrue(e<0.01f);
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  // Filters with the steerable pyramid for all levels.
+  private static float[][][] filter(
+    boolean forlinear, int linpowr, float[][][] x)
+  {
+    SteerablePyramid sp = new SteerablePyramid();
+    float[][][][][] spyr = sp.makePyramid(x);
+    float[][][][][] attr = sp.estimateAttributes(forlinear,2.0,spyr);
+    sp.steerScale(forlinear,linpowr,50.0f,0.5f,attr,spyr);
+    return sp.sumPyramid(true,spyr);
+  }
+
+  private static void assertEquals(
+    float[][][] x, float[][][] y, float tolerance)
+  {
+    int n3 = x.length;
+    int n2 = x[0].length;
+    int n1 = x[0][0].length;
+    for (int i3=0; i3<n3; ++i3)
+      for (int i2=0; i2<n2; ++i2)
+        for (int i1=0; i1<n1; ++i1)
+          assertEquals(x[i3][i2][i1],y[i3][i2][i1],tolerance);
+  }
+}
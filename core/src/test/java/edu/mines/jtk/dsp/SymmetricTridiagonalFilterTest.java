@@ -113,6 +113,22 @@ public class SymmetricTridiagonalFilterTest extends TestCase {
     assertEqual(y,z);
   }
 
+  public void test2Wide() {
+    int n1 = 700;
+    int n2 = 6;
+    SymmetricTridiagonalFilter f = 
+      new SymmetricTridiagonalFilter(0.76,0.52,0.76,0.24);
+    float[][] x = randfloat(n1,n2);
+    float[][] y = zerofloat(n1,n2);
+    float[][] z = zerofloat(n1,n2);
+    f.apply2(x,y);
+    f.applyInverse2(y,z);
+    assertEqual(x,z);
+    float[][] t = transpose(x);
+    f.apply1(t,t);
+    assertEqual(y,transpose(t));
+  }
+
   public void test1Random() {
     java.util.Random r = new java.util.Random();
     int ntest = 1000;
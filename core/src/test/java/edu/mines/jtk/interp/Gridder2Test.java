@@ -22,6 +22,7 @@ import junit.framework.TestSuite;
 import edu.mines.jtk.awt.ColorMap;
 import edu.mines.jtk.dsp.Sampling;
 import edu.mines.jtk.mosaic.*;
+import edu.mines.jtk.util.Parallel;
 import static edu.mines.jtk.util.ArrayMath.*;
 
 /**
@@ -60,6 +61,50 @@ public class Gridder2Test extends TestCase {
     // just a placeholder 
   }
 
+  public void testSerialParallel() {
+    TestFunction tf = TestFunction.makeSine();
+    float[][] fx = tf.sampleScattered2(NS,XMIN,XMAX,XMIN,XMAX);
+    Gridder2[] gpa = makeGridders(fx);
+    Gridder2[] gsa = makeGridders(fx);
+    for (int ig=0; ig<gpa.length; ++ig) {
+      float[][] gp = gpa[ig].grid(SX,SX);
+      Parallel.setParallel(false);
+      float[][] gs;
+      try {
+        gs = gsa[ig].grid(SX,SX);
+      } finally {
+        Parallel.setParallel(true);
+      }
+      assertEquals(0.0f,max(abs(sub(gp,gs))),0.0f);
+    }
+  }
+  private static Gridder2[] makeGridders(float[][] fx) {
+    float[] f = copy(fx[0]), x1 = copy(fx[1]), x2 = copy(fx[2]);
+    return new Gridder2[]{
+      new SimpleGridder2(f,x1,x2),
+      new NearestGridder2(f,x1,x2),
+      new DiscreteSibsonGridder2(f,x1,x2),
+      new RadialGridder2(new RadialInterpolator2.Biharmonic(),f,x1,x2),
+      new SplinesGridder2(copy(f),x1,x2),
+    };
+  }
+
+  public void testSimple() {
+    float[] f = {1.0f,2.0f,4.0f,8.0f};
+    float[] x1 = {0.100f,0.101f,0.700f,2.000f};
+    float[] x2 = {0.200f,0.199f,0.500f,0.500f};
+    SimpleGridder2 gridder = new SimpleGridder2(f,x1,x2);
+    gridder.setNullValue(-1.0f);
+    float[][] g = gridder.grid(SX,SX);
+    assertEquals(1.5f,g[40][20],0.0f);
+    assertEquals(4.0f,g[100][140],0.0f);
+    int nnull = 0;
+    for (int i2=0; i2<NX; ++i2)
+      for (int i1=0; i1<NX; ++i1)
+        if (g[i2][i1]==-1.0f) ++nnull;
+    assertEquals(NX*NX-2,nnull);
+  }
+
   ///////////////////////////////////////////////////////////////////////////
   // demos
 
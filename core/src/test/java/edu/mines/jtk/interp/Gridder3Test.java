@@ -0,0 +1,90 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.interp;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import edu.mines.jtk.dsp.Sampling;
+import edu.mines.jtk.util.Parallel;
+import static edu.mines.jtk.util.ArrayMath.*;
+
+/**
+ * Tests implementations of {@link edu.mines.jtk.interp.Gridder3}.
+ * @author agent
+ * @version 2026.10.19
+ */
+public class Gridder3Test extends TestCase {
+
+  public static void main(String[] args) {
+    TestSuite suite = new TestSuite(Gridder3Test.class);
+    junit.textui.TestRunner.run(suite);
+  }
+
+  // Number of scattered samples to be interpolated.
+  private static final int NS = 100;
+
+  // Uniform sampling used in interpolation, with tiles that do not
+  // evenly divide the number of samples.
+  private static final int NX = 37;
+  private static final Sampling SX = new Sampling(NX,1.0/(NX-1),0.0);
+
+  public void testSerialParallel() {
+    TestFunction tf = TestFunction.makeSine();
+    float[][] fx = tf.sampleScattered3(NS);
+    float[] f = fx[0], x1 = fx[1], x2 = fx[2], x3 = fx[3];
+    Gridder3[] gridders = {
+      new SimpleGridder3(f,x1,x2,x3),
+      new NearestGridder3(f,x1,x2,x3),
+      new DiscreteSibsonGridder3(f,x1,x2,x3),
+    };
+    for (Gridder3 gridder:gridders) {
+      float[][][] gp = gridder.grid(SX,SX,SX);
+      Parallel.setParallel(false);
+      float[][][] gs;
+      try {
+        gs = gridder.grid(SX,SX,SX);
+      } finally {
+        Parallel.setParallel(true);
+      }
+      assertEquals(0.0f,max(abs(sub(gp,gs))),0.0f);
+    }
+  }
+
+  public void testNearest() {
+    TestFunction tf = TestFunction.makeSine();
+    float[][] fx = tf.sampleScattered3(NS);
+    float[] f = fx[0], x1 = fx[1], x2 = fx[2], x3 = fx[3];
+    NearestGridder3 gridder = new NearestGridder3(f,x1,x2,x3);
+    float[][][] d = new float[NX][NX][NX];
+    float[][][] g = new float[NX][NX][NX];
+    gridder.computeDistancesAndValues(SX,SX,SX,d,g);
+    for (int i3=0; i3<NX; i3+=5) {
+      float y3 = (float)SX.getValue(i3);
+      for (int i2=0; i2<NX; i2+=5) {
+        float y2 = (float)SX.getValue(i2);
+        for (int i1=0; i1<NX; i1+=5) {
+          float y1 = (float)SX.getValue(i1);
+          float dmin = Float.MAX_VALUE;
+          for (int i=0; i<NS; ++i) {
+            float d1 = y1-x1[i], d2 = y2-x2[i], d3 = y3-x3[i];
+            dmin = min(dmin,sqrt(d1*d1+d2*d2+d3*d3));
+          }
+          assertEquals(dmin,d[i3][i2][i1],1.0e-6f);
+        }
+      }
+    }
+  }
+}
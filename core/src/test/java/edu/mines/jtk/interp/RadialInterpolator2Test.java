@@ -0,0 +1,112 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.interp;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import edu.mines.jtk.dsp.Sampling;
+import static edu.mines.jtk.util.ArrayMath.*;
+
+/**
+ * Tests {@link edu.mines.jtk.interp.RadialInterpolator2}.
+ * @author agent
+ * @version 2026.10.19
+ */
+public class RadialInterpolator2Test extends TestCase {
+  public static void main(String[] args) {
+    TestSuite suite = new TestSuite(RadialInterpolator2Test.class);
+    junit.textui.TestRunner.run(suite);
+  }
+
+  public void testWendland() {
+    float[][] fx = makeSamples(500);
+    RadialInterpolator2 ri = new RadialInterpolator2(
+      new RadialInterpolator2.Wendland(0.2),fx[0],fx[1],fx[2]);
+    checkSamples(ri,fx);
+    assertEquals(0.0f,ri.interpolate(2.0f,2.0f),0.0f);
+  }
+
+  public void testWendlandMetric() {
+    float[][] fx = makeSamples(500);
+    RadialInterpolator2 ri = new RadialInterpolator2(
+      new RadialInterpolator2.Wendland(0.2),fx[0],fx[1],fx[2]);
+    ri.setMetricTensor(2.0,0.5,0.5);
+    checkSamples(ri,fx);
+  }
+
+  public void testWendlandTrend() {
+    float[][] fx = makeSamples(500);
+    RadialInterpolator2 ri = new RadialInterpolator2(
+      new RadialInterpolator2.Wendland(0.1),fx[0],fx[1],fx[2]);
+    ri.setPolyTrend(1);
+    checkSamples(ri,fx);
+  }
+
+  public void testManySamples() {
+    float[][] fx = makeSamples(20000);
+    RadialInterpolator2 ri = new RadialInterpolator2(
+      new RadialInterpolator2.Wendland(0.015),fx[0],fx[1],fx[2]);
+    checkSamples(ri,fx);
+  }
+
+  public void testSampling() {
+    float[][] fx = makeSamples(100);
+    RadialInterpolator2.Basis[] bases = {
+      new RadialInterpolator2.Biharmonic(),
+      new RadialInterpolator2.Wendland(0.3),
+    };
+    Sampling s1 = new Sampling(21,0.05,0.0);
+    Sampling s2 = new Sampling(22,0.05,0.0);
+    for (RadialInterpolator2.Basis basis:bases) {
+      RadialInterpolator2 ri =
+        new RadialInterpolator2(basis,fx[0],fx[1],fx[2]);
+      float[][] g = ri.interpolate(s1,s2);
+      for (int i2=0; i2<22; ++i2) {
+        float x2 = (float)s2.getValue(i2);
+        for (int i1=0; i1<21; ++i1) {
+          float x1 = (float)s1.getValue(i1);
+          assertEquals(ri.interpolate(x1,x2),g[i2][i1],0.0f);
+        }
+      }
+    }
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  // Values f and coordinates (x1,x2) of samples scattered in a unit square.
+  private static float[][] makeSamples(int n) {
+    Random r = new Random(314159);
+    float[] f = new float[n];
+    float[] x1 = new float[n];
+    float[] x2 = new float[n];
+    for (int i=0; i<n; ++i) {
+      x1[i] = r.nextFloat();
+      x2[i] = r.nextFloat();
+      f[i] = 1.0f+x1[i]+sin(3.0f*x2[i]);
+    }
+    return new float[][]{f,x1,x2};
+  }
+
+  private static void checkSamples(RadialInterpolator2 ri, float[][] fx) {
+    float[] f = fx[0], x1 = fx[1], x2 = fx[2];
+    int n = f.length;
+    for (int i=0; i<n; ++i)
+      assertEquals(f[i],ri.interpolate(x1[i],x2[i]),0.001f);
+  }
+}
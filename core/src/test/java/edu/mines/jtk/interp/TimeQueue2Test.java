@@ -0,0 +1,102 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.interp;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import static edu.mines.jtk.util.ArrayMath.*;
+
+/**
+ * Tests {@link edu.mines.jtk.interp.TimeQueue2}.
+ * @author agent
+ * @version 2026.10.19
+ */
+public class TimeQueue2Test extends TestCase {
+
+  public static void main(String[] args) {
+    TestSuite suite = new TestSuite(TimeQueue2Test.class);
+    junit.textui.TestRunner.run(suite);
+  }
+
+  public void testMin() {
+    testQueue(new TimeQueue2(TimeQueue2.Type.MIN,19,21));
+  }
+
+  public void testMax() {
+    testQueue(new TimeQueue2(TimeQueue2.Type.MAX,19,21));
+  }
+
+  public void testReduce() {
+    TimeQueue2 queue = new TimeQueue2(TimeQueue2.Type.MIN,4,3);
+    queue.insert(0,0,3.0f);
+    queue.insert(1,0,2.0f);
+    queue.insert(2,1,5.0f);
+    queue.insert(3,2,4.0f);
+    queue.reduce(2,1,1.0f);
+    queue.reduce(3,2,2.5f);
+    TimeQueue2.Entry e = queue.remove();
+    assertEquals(2,e.i1);
+    assertEquals(1,e.i2);
+    assertEquals(1.0f,e.time,0.0f);
+    e = queue.remove();
+    assertEquals(1,e.i1);
+    assertEquals(2.0f,e.time,0.0f);
+    queue.reduce(0,0,2.25f);
+    e = queue.remove();
+    assertEquals(0,e.i1);
+    assertEquals(2.25f,e.time,0.0f);
+    e = queue.remove();
+    assertEquals(3,e.i1);
+    assertEquals(2,e.i2);
+    assertEquals(2.5f,e.time,0.0f);
+    assertTrue(queue.isEmpty());
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  private static void testQueue(TimeQueue2 queue) {
+    int n1 = queue.getN1();
+    int n2 = queue.getN2();
+    int n = n1*n2;
+    float[] s = randfloat(n);
+    float[][] t = reshape(n1,n2,s);
+    for (int i2=0; i2<n2; ++i2)
+      for (int i1=0; i1<n1; ++i1)
+        queue.insert(i1,i2,t[i2][i1],i1+n1*i2);
+    for (int i2=0,i=0; i2<n2; ++i2) {
+      for (int i1=0; i1<n1; ++i1,++i) {
+        s[i] -= 0.5f;
+        t[i2][i1] -= 0.5f;
+        queue.reduce(i1,i2,t[i2][i1]);
+      }
+    }
+    assertFalse(queue.isEmpty());
+    assertEquals(n,queue.size());
+    quickSort(s); // increasing order
+    if (queue.getType()==TimeQueue2.Type.MAX)
+      s = reverse(s); // decreasing order
+    for (int i=0; i<n; ++i) {
+      TimeQueue2.Entry e = queue.remove();
+      assertEquals(s[i],e.time,0.0f);
+      assertEquals(t[e.i2][e.i1],e.time,0.0f);
+      assertEquals(e.i1+n1*e.i2,e.mark);
+      assertFalse(queue.contains(e.i1,e.i2));
+    }
+    assertTrue(queue.isEmpty());
+    assertEquals(0,queue.size());
+  }
+}
@@ -0,0 +1,241 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.interp;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import edu.mines.jtk.dsp.Tensors3;
+import edu.mines.jtk.util.Stopwatch;
+import static edu.mines.jtk.util.ArrayMath.*;
+
+/**
+ * Tests {@link edu.mines.jtk.interp.TimeQueue3}. Also benchmarks the queue
+ * against {@link edu.mines.jtk.interp.TimeHeap3}.
+ * @author agent
+ * @version 2026.10.19
+ */
+public class TimeQueue3Test extends TestCase {
+
+  public static void main(String[] args) {
+    if (args.length>=1 && args[0].equals("bench")) {
+      bench();
+      return;
+    }
+    TestSuite suite = new TestSuite(TimeQueue3Test.class);
+    junit.textui.TestRunner.run(suite);
+  }
+
+  public void testMin() {
+    testQueue(new TimeQueue3(TimeQueue3.Type.MIN,9,11,13));
+  }
+
+  public void testMax() {
+    testQueue(new TimeQueue3(TimeQueue3.Type.MAX,9,11,13));
+  }
+
+  public void testMarching() {
+    int n1 = 21, n2 = 22, n3 = 23;
+    Tensors3 tensors = makeTensors(n1,n2,n3);
+    float[][][] th = march(n1,n2,n3,new HeapAdapter(n1,n2,n3),tensors);
+    float[][][] tq = march(n1,n2,n3,new QueueAdapter(n1,n2,n3),tensors);
+    assertEquals(0.0f,max(abs(sub(th,tq))),0.0f);
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  private static void testQueue(TimeQueue3 queue) {
+    int n1 = queue.getN1();
+    int n2 = queue.getN2();
+    int n3 = queue.getN3();
+    int n = n1*n2*n3;
+    float[] s = randfloat(n);
+    float[][][] t = reshape(n1,n2,n3,s);
+    for (int i3=0; i3<n3; ++i3) {
+      for (int i2=0; i2<n2; ++i2) {
+        for (int i1=0; i1<n1; ++i1) {
+          queue.insert(i1,i2,i3,t[i3][i2][i1],i1+n1*(i2+n2*i3));
+        }
+      }
+    }
+    for (int i3=0,i=0; i3<n3; ++i3) {
+      for (int i2=0; i2<n2; ++i2) {
+        for (int i1=0; i1<n1; ++i1,++i) {
+          s[i] -= 0.5f;
+          t[i3][i2][i1] -= 0.5f;
+          queue.reduce(i1,i2,i3,t[i3][i2][i1]);
+        }
+      }
+    }
+    assertFalse(queue.isEmpty());
+    assertEquals(n,queue.size());
+    quickSort(s); // increasing order
+    if (queue.getType()==TimeQueue3.Type.MAX)
+      s = reverse(s); // decreasing order
+    for (int i=0; i<n; ++i) {
+      TimeQueue3.Entry e = queue.remove();
+      assertEquals(s[i],e.time,0.0f);
+      assertEquals(t[e.i3][e.i2][e.i1],e.time,0.0f);
+      assertEquals(e.i1+n1*(e.i2+n2*e.i3),e.mark);
+      assertFalse(queue.contains(e.i1,e.i2,e.i3));
+    }
+    assertTrue(queue.isEmpty());
+    assertEquals(0,queue.size());
+  }
+
+  // Common methods used in marching, so that the heap and queue
+  // can be compared and benchmarked with the same code.
+  private interface Queue {
+    void insert(int i1, int i2, int i3, float time);
+    void reduce(int i1, int i2, int i3, float time);
+    boolean contains(int i1, int i2, int i3);
+    boolean isEmpty();
+    int[] remove(); // returns {i1,i2,i3}
+  }
+  private static class HeapAdapter implements Queue {
+    HeapAdapter(int n1, int n2, int n3) {
+      _h = new TimeHeap3(TimeHeap3.Type.MIN,n1,n2,n3);
+    }
+    public void insert(int i1, int i2, int i3, float time) {
+      _h.insert(i1,i2,i3,time);
+    }
+    public void reduce(int i1, int i2, int i3, float time) {
+      _h.reduce(i1,i2,i3,time);
+    }
+    public boolean contains(int i1, int i2, int i3) {
+      return _h.contains(i1,i2,i3);
+    }
+    public boolean isEmpty() {
+      return _h.isEmpty();
+    }
+    public int[] remove() {
+      TimeHeap3.Entry e = _h.remove();
+      _i[0] = e.i1; _i[1] = e.i2; _i[2] = e.i3;
+      return _i;
+    }
+    private TimeHeap3 _h;
+    private int[] _i = new int[3];
+  }
+  private static class QueueAdapter implements Queue {
+    QueueAdapter(int n1, int n2, int n3) {
+      _q = new TimeQueue3(TimeQueue3.Type.MIN,n1,n2,n3);
+    }
+    public void insert(int i1, int i2, int i3, float time) {
+      _q.insert(i1,i2,i3,time);
+    }
+    public void reduce(int i1, int i2, int i3, float time) {
+      _q.reduce(i1,i2,i3,time);
+    }
+    public boolean contains(int i1, int i2, int i3) {
+      return _q.contains(i1,i2,i3);
+    }
+    public boolean isEmpty() {
+      return _q.isEmpty();
+    }
+    public int[] remove() {
+      TimeQueue3.Entry e = _q.remove();
+      _i[0] = e.i1; _i[1] = e.i2; _i[2] = e.i3;
+      return _i;
+    }
+    private TimeQueue3 _q;
+    private int[] _i = new int[3];
+  }
+
+  // Spatially varying anisotropic tensors, with orientations
+  // that vary smoothly, as for tensors computed from images.
+  private static Tensors3 makeTensors(
+    final int n1, final int n2, final int n3)
+  {
+    return new Tensors3() {
+      public void getTensor(int i1, int i2, int i3, float[] d) {
+        float a = 6.0f*i1/n1+3.0f*i3/n3;
+        float u1 = cos(a), u2 = sin(a);
+        float au = 0.05f, av = 1.0f;
+        d[0] = au*u1*u1+av*u2*u2;
+        d[1] = (au-av)*u1*u2;
+        d[2] = 0.0f;
+        d[3] = au*u2*u2+av*u1*u1;
+        d[4] = 0.0f;
+        d[5] = 0.5f;
+      }
+    };
+  }
+
+  // Dijkstra marching from a source in the center, with traveltimes
+  // between adjacent samples computed from the tensors.
+  private static float[][][] march(
+    int n1, int n2, int n3, Queue q, Tensors3 tensors)
+  {
+    int[] k1 = {-1, 1, 0, 0, 0, 0};
+    int[] k2 = { 0, 0,-1, 1, 0, 0};
+    int[] k3 = { 0, 0, 0, 0,-1, 1};
+    int[] kd = { 0, 0, 3, 3, 5, 5};
+    float[] d = new float[6];
+    float[][][] t = fillfloat(Float.MAX_VALUE,n1,n2,n3);
+    boolean[][][] done = new boolean[n3][n2][n1];
+    t[n3/2][n2/2][n1/2] = 0.0f;
+    q.insert(n1/2,n2/2,n3/2,0.0f);
+    while (!q.isEmpty()) {
+      int[] i = q.remove();
+      int i1 = i[0], i2 = i[1], i3 = i[2];
+      done[i3][i2][i1] = true;
+      tensors.getTensor(i1,i2,i3,d);
+      for (int k=0; k<6; ++k) {
+        int j1 = i1+k1[k];  if (j1<0 || j1>=n1) continue;
+        int j2 = i2+k2[k];  if (j2<0 || j2>=n2) continue;
+        int j3 = i3+k3[k];  if (j3<0 || j3>=n3) continue;
+        if (done[j3][j2][j1]) continue;
+        float tj = t[i3][i2][i1]+1.0f/sqrt(d[kd[k]]);
+        if (tj<t[j3][j2][j1]) {
+          if (q.contains(j1,j2,j3)) {
+            q.reduce(j1,j2,j3,tj);
+          } else {
+            q.insert(j1,j2,j3,tj);
+          }
+          t[j3][j2][j1] = tj;
+        }
+      }
+    }
+    return t;
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // benchmark
+
+  private static void bench() {
+    int n1 = 101, n2 = 102, n3 = 103;
+    Tensors3 tensors = makeTensors(n1,n2,n3);
+    double maxtime = 5.0;
+    for (int ntrial=0; ntrial<3; ++ntrial) {
+      Queue heap = new HeapAdapter(n1,n2,n3);
+      Queue queue = new QueueAdapter(n1,n2,n3);
+      double rh = benchMarch(n1,n2,n3,heap,tensors,maxtime);
+      double rq = benchMarch(n1,n2,n3,queue,tensors,maxtime);
+      System.out.println("marches/s: heap="+rh+" queue="+rq);
+    }
+  }
+  private static double benchMarch(
+    int n1, int n2, int n3, Queue q, Tensors3 tensors, double maxtime)
+  {
+    Stopwatch sw = new Stopwatch();
+    sw.start();
+    int nmarch;
+    for (nmarch=0; sw.time()<maxtime; ++nmarch)
+      march(n1,n2,n3,q,tensors);
+    sw.stop();
+    return nmarch/sw.time();
+  }
+}
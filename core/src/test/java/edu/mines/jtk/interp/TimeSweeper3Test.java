@@ -0,0 +1,156 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.interp;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import edu.mines.jtk.dsp.Tensors3;
+import edu.mines.jtk.util.Parallel;
+import static edu.mines.jtk.util.ArrayMath.*;
+
+/**
+ * Tests {@link edu.mines.jtk.interp.TimeSweeper3}.
+ * @author agent
+ * @version 2026.10.19
+ */
+public class TimeSweeper3Test extends TestCase {
+  public static void main(String[] args) {
+    TestSuite suite = new TestSuite(TimeSweeper3Test.class);
+    junit.textui.TestRunner.run(suite);
+  }
+
+  public void testOneSample() {
+    int n1 = 21, n2 = 22, n3 = 23;
+    Tensors3 tensors = makeTensors(true);
+    float[][][] ts = fillfloat(1.0f,n1,n2,n3);
+    int[][][] ms = new int[n3][n2][n1];
+    ts[11][10][9] = 0.0f;
+    ms[11][10][9] = 7;
+    float[][][] tm = copy(ts);
+    int[][][] mm = copy(ms);
+    new TimeMarker3(n1,n2,n3,tensors).apply(tm,mm);
+    new TimeSweeper3(n1,n2,n3,tensors).apply(ts,ms);
+    for (int i3=0; i3<n3; ++i3) {
+      for (int i2=0; i2<n2; ++i2) {
+        for (int i1=0; i1<n1; ++i1) {
+          assertEquals(7,ms[i3][i2][i1]);
+          float tmi = tm[i3][i2][i1];
+          assertEquals(tmi,ts[i3][i2][i1],0.002f*tmi);
+        }
+      }
+    }
+  }
+
+  public void testIsotropic() {
+    checkTimeMarker(makeTensors(false));
+  }
+
+  public void testAnisotropic() {
+    checkTimeMarker(makeTensors(true));
+  }
+
+  public void testSerialParallel() {
+    int n1 = 25, n2 = 26, n3 = 27;
+    Tensors3 tensors = makeTensors(true);
+    float[][][] tp = makeTimes(n1,n2,n3,40);
+    int[][][] mp = makeMarks(tp);
+    float[][][] ts = copy(tp);
+    int[][][] ms = copy(mp);
+    new TimeSweeper3(n1,n2,n3,tensors).apply(tp,mp);
+    Parallel.setParallel(false);
+    try {
+      new TimeSweeper3(n1,n2,n3,tensors).apply(ts,ms);
+    } finally {
+      Parallel.setParallel(true);
+    }
+    for (int i3=0; i3<n3; ++i3) {
+      for (int i2=0; i2<n2; ++i2) {
+        for (int i1=0; i1<n1; ++i1) {
+          assertEquals(ts[i3][i2][i1],tp[i3][i2][i1],0.0f);
+          assertEquals(ms[i3][i2][i1],mp[i3][i2][i1]);
+        }
+      }
+    }
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  // Compares times and marks with those computed by TimeMarker3.
+  private static void checkTimeMarker(Tensors3 tensors) {
+    int n1 = 31, n2 = 32, n3 = 33;
+    float[][][] tm = makeTimes(n1,n2,n3,20);
+    int[][][] mm = makeMarks(tm);
+    float[][][] ts = copy(tm);
+    int[][][] ms = copy(mm);
+    new TimeMarker3(n1,n2,n3,tensors).apply(tm,mm);
+    new TimeSweeper3(n1,n2,n3,tensors).apply(ts,ms);
+    int nsame = 0;
+    double emean = 0.0;
+    for (int i3=0; i3<n3; ++i3) {
+      for (int i2=0; i2<n2; ++i2) {
+        for (int i1=0; i1<n1; ++i1) {
+          float tmi = tm[i3][i2][i1];
+          float tsi = ts[i3][i2][i1];
+          assertEquals(tmi,tsi,0.15f*tmi);
+          if (tmi>0.0f)
+            emean += abs(tsi-tmi)/tmi;
+          if (mm[i3][i2][i1]==ms[i3][i2][i1])
+            ++nsame;
+        }
+      }
+    }
+    emean /= n1*n2*n3;
+    assertTrue(emean<0.005);
+    assertTrue(nsame>0.95f*n1*n2*n3);
+  }
+
+  private static float[][][] makeTimes(int n1, int n2, int n3, int nk) {
+    float[][][] t = fillfloat(1.0f,n1,n2,n3);
+    Random r = new Random(314159);
+    for (int ik=0; ik<nk; ++ik)
+      t[r.nextInt(n3)][r.nextInt(n2)][r.nextInt(n1)] = 0.0f;
+    return t;
+  }
+
+  private static int[][][] makeMarks(float[][][] t) {
+    int n1 = t[0][0].length;
+    int n2 = t[0].length;
+    int n3 = t.length;
+    int[][][] m = new int[n3][n2][n1];
+    for (int i3=0,mark=0; i3<n3; ++i3)
+      for (int i2=0; i2<n2; ++i2)
+        for (int i1=0; i1<n1; ++i1)
+          m[i3][i2][i1] = (t[i3][i2][i1]==0.0f)?++mark:0;
+    return m;
+  }
+
+  private static Tensors3 makeTensors(final boolean anisotropic) {
+    return new Tensors3() {
+      public void getTensor(int i1, int i2, int i3, float[] d) {
+        if (anisotropic) {
+          d[0] = 1.00f; d[1] = 0.20f; d[2] = 0.10f;
+          d[3] = 0.50f; d[4] = 0.05f; d[5] = 0.25f;
+        } else {
+          d[0] = 1.00f; d[1] = 0.00f; d[2] = 0.00f;
+          d[3] = 1.00f; d[4] = 0.00f; d[5] = 1.00f;
+        }
+      }
+    };
+  }
+}
@@ -56,6 +56,12 @@ public class DMatrixQrdTest extends TestCase {
     test(DMatrix.random(101,100));
   }
 
+  public void testLarge() {
+    test(DMatrix.random(300,300));
+    test(DMatrix.random(301,300));
+    test(DMatrix.random(400,130));
+  }
+
   private void test(DMatrix a) {
     int m = a.getM();
     int n = a.getN();
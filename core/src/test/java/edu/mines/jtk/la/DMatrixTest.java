@@ -148,6 +148,25 @@ public class DMatrixTest extends TestCase {
     assertTrue(trace==t.trace());
   }
 
+  public void testTimesLarge() {
+    int[][] mnk = {{100,99,98},{131,257,300},{300,5,301}};
+    for (int[] d:mnk) {
+      int m = d[0], n = d[1], k = d[2];
+      DMatrix a = DMatrix.random(m,k);
+      DMatrix b = DMatrix.random(k,n);
+      double[][] c = new double[m][n];
+      DBlas.gemmSimple(false,m,n,k,1.0,a.getArray(),0,0,b.getArray(),0,0,
+                       c,0,0);
+      assertEqualFuzzy(new DMatrix(c),a.times(b));
+      DMatrix at = a.transpose();
+      double[][] ct = new double[m+1][n+2];
+      DBlas.gemm(true,m,n,k,-1.0,at.getArray(),0,0,b.getArray(),0,0,
+                 ct,1,2);
+      DMatrix cs = new DMatrix(ct).get(1,m,2,n+1);
+      assertEqualFuzzy(new DMatrix(c),cs.negate());
+    }
+  }
+
 
   ///////////////////////////////////////////////////////////////////////////
   // package
@@ -14,10 +14,14 @@ limitations under the License.
 ****************************************************************************/
 package edu.mines.jtk.opt;
 
+import java.util.Arrays;
+import java.util.Random;
+
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
 
 import edu.mines.jtk.util.Almost;
+import edu.mines.jtk.util.Parallel;
 
 /** Unit tests for edu.mines.jtk.opt.ArrayVect3f.
 */
@@ -51,6 +55,104 @@ public class ArrayVect3fTest extends TestCase {
     assert Almost.FLOAT.equal(1./7., v.magnitude());
   }
 
+  /** Fused addDot must equal add followed by dot. */
+  public void testAddDot () {
+    float[][][] a = new float[5][6][7];
+    float[][][] b = new float[5][6][7];
+    for (int i=0; i<a.length; ++i) {
+      for (int j=0; j<a[i].length; ++j) {
+        for (int k=0; k<a[i][j].length; ++k) {
+          a[i][j][k] = i+2.5f*j - 1.7f*k;
+          b[i][j][k] = 0.3f*i - j + 0.1f*k;
+        }
+      }
+    }
+    ArrayVect3f u = new ArrayVect3f(a, 1.);
+    ArrayVect3f v = u.clone();
+    ArrayVect3f w = new ArrayVect3f(b, 1.);
+    u.add(0.5, -2.0, w);
+    double uw = u.dot(w);
+    double vw = VectUtil.addDot(v, 0.5, -2.0, w, w);
+    assert uw == vw;
+    assert u.dot(u) == v.dot(v);
+  }
+
+  /** Fused addDot must not bypass add and dot of subclasses. */
+  public void testAddDotSubclass () {
+    final int[] calls = new int[2];
+    ArrayVect3f v = new ArrayVect3f(new float[2][3][4], 1.) {
+      private static final long serialVersionUID = 1L;
+      @Override public void add(double sThis, double sOther, VectConst other) {
+        ++calls[0];
+        super.add(sThis, sOther, other);
+      }
+      @Override public double dot(VectConst other) {
+        ++calls[1];
+        return super.dot(other);
+      }
+      @Override public boolean isFused() {return false;}
+    };
+    ArrayVect3f w = new ArrayVect3f(new float[2][3][4], 1.);
+    VectUtil.addDot(v, 1.0, 1.0, w, w);
+    assert calls[0] == 1 && calls[1] == 1;
+
+    // a subclass that also overrides addDot keeps the fused path
+    ArrayVect3f u = new ArrayVect3f(new float[2][3][4], 1.) {
+      private static final long serialVersionUID = 1L;
+      @Override public void add(double sThis, double sOther, VectConst other) {
+        ++calls[0];
+        super.add(sThis, sOther, other);
+      }
+      @Override public double addDot(double sThis, double sOther,
+                                     VectConst other, VectConst dotOther) {
+        ++calls[1];
+        return super.addDot(sThis, sOther, other, dotOther);
+      }
+    };
+    VectUtil.addDot(u, 1.0, 1.0, w, w);
+    assert calls[0] == 1 && calls[1] == 2;
+  }
+
+  /** Parallel results must not depend on the number of threads. */
+  public void testParallel () {
+    float[][][] a = new float[40][50][60];
+    float[][][] b = new float[40][50][60];
+    Random r = new Random(3);
+    for (int i=0; i<a.length; ++i) {
+      for (int j=0; j<a[i].length; ++j) {
+        for (int k=0; k<a[i][j].length; ++k) {
+          a[i][j][k] = r.nextFloat()-0.5f;
+          b[i][j][k] = r.nextFloat()-0.5f;
+        }
+      }
+    }
+    ArrayVect3f w = new ArrayVect3f(b, 1.);
+    ArrayVect3f up = new ArrayVect3f(a, 1.).clone();
+    ArrayVect3f us = new ArrayVect3f(a, 1.).clone();
+    up.add(0.9, 0.3, w);
+    double dp = up.dot(w);
+    double ap = VectUtil.addDot(up, 0.5, -2.0, w, up);
+    Parallel.setParallel(false);
+    double ds, as;
+    try {
+      us.add(0.9, 0.3, w);
+      ds = us.dot(w);
+      as = VectUtil.addDot(us, 0.5, -2.0, w, us);
+    } finally {
+      Parallel.setParallel(true);
+    }
+    assert dp == ds;
+    assert ap == as;
+    assert up.magnitude() == us.magnitude();
+    float[][][] p = up.getData();
+    float[][][] s = us.getData();
+    for (int i=0; i<p.length; ++i) {
+      for (int j=0; j<p[i].length; ++j) {
+        assert Arrays.equals(p[i][j], s[i][j]);
+      }
+    }
+  }
+
   // OPTIONAL OPTIONAL OPTIONAL OPTIONAL OPTIONAL OPTIONAL OPTIONAL
 
   /* Initialize objects used by all test methods */
@@ -0,0 +1,160 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.opt;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import edu.mines.jtk.util.Almost;
+
+/** Unit tests for edu.mines.jtk.opt.FileVect.
+*/
+public class FileVectTest extends TestCase {
+
+  /** Compare operations with those of ArrayVect1f. */
+  public void testOperations () throws Exception {
+    int n = 1000;
+    float[] a = new float[n];
+    float[] b = new float[n];
+    Random r = new Random(1);
+    for (int i=0; i<n; ++i) {
+      a[i] = r.nextFloat()-0.5f;
+      b[i] = r.nextFloat()-0.5f;
+    }
+    FileVect fa = new FileVect(n, 3., null, 64, 2);
+    FileVect fb = new FileVect(n, 3., null, 64, 2);
+    fa.setValues(0, a);
+    fb.setValues(0, b);
+    ArrayVect1f va = new ArrayVect1f(a.clone(), 0, 3.);
+    ArrayVect1f vb = new ArrayVect1f(b.clone(), 0, 3.);
+    assert new Almost(6).equal(va.dot(vb), fa.dot(fb));
+    assert new Almost(6).equal(va.magnitude(), fa.magnitude());
+
+    fa.add(0.5, -2., fb);
+    va.add(0.5, -2., vb);
+    float[] c = new float[n];
+    fa.getValues(0, c);
+    for (int i=0; i<n; ++i) {
+      assert c[i] == va.getData()[i];
+    }
+    double d1 = VectUtil.addDot(fa, 2., 1., fb, fa);
+    double d2 = VectUtil.addDot(va, 2., 1., vb, va);
+    assert new Almost(6).equal(d1, d2);
+
+    // values spanning chunks
+    float[] s = new float[100];
+    fa.getValues(50, s);
+    for (int i=0; i<s.length; ++i) {
+      assert s[i] == va.getData()[50+i];
+    }
+
+    // clones are independent
+    FileVect fc = fa.clone();
+    VectUtil.zero(fa);
+    assert fa.dot(fa) == 0.;
+    assert new Almost(6).equal(va.dot(va), fc.dot(fc));
+
+    // serialization copies samples
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    ObjectOutputStream oos = new ObjectOutputStream(bos);
+    oos.writeObject(fc);
+    oos.close();
+    ObjectInputStream ois = new ObjectInputStream
+      (new ByteArrayInputStream(bos.toByteArray()));
+    FileVect fd = (FileVect) ois.readObject();
+    assert fd.dot(fc) == fc.dot(fc);
+
+    VectUtil.test(fd);
+    fa.dispose();
+    fb.dispose();
+    fc.dispose();
+    fd.dispose();
+  }
+
+  /** Solve a diagonal quadratic one chunk at a time. */
+  public void testQuadraticSolver () {
+    final int n = 5000;
+    Quadratic q = new Quadratic() {
+        public void multiplyHessian(Vect x) {
+          FileVect f = (FileVect) x;
+          float[] v = new float[300];
+          for (int j=0; j<n; j+=v.length) {
+            if (j+v.length > n) {v = new float[n-j];}
+            f.getValues(j, v);
+            for (int i=0; i<v.length; ++i) {
+              v[i] *= diagonal(j+i);
+            }
+            f.setValues(j, v);
+          }
+        }
+        public void inverseHessian(Vect x) {}
+        public Vect getB() {
+          FileVect b = new FileVect(n, 1., null, 256, 2);
+          float[] v = new float[n];
+          Arrays.fill(v, -1.f);
+          b.setValues(0, v);
+          return b;
+        }
+      };
+    QuadraticSolver qs = new QuadraticSolver(q);
+    FileVect x = (FileVect) qs.solve(20, null);
+    float[] v = new float[n];
+    x.getValues(0, v);
+    for (int i=0; i<n; ++i) {
+      assert Almost.FLOAT.equal(1./diagonal(i), v[i]) : i+" "+v[i];
+    }
+    x.dispose();
+  }
+
+  private static float diagonal(int i) {return 1+i%5;}
+
+  // OPTIONAL OPTIONAL OPTIONAL OPTIONAL OPTIONAL OPTIONAL OPTIONAL
+
+  /* Initialize objects used by all test methods */
+  @Override protected void setUp() throws Exception { super.setUp();}
+
+  /* Destruction of stuff used by all tests: rarely necessary */
+  @Override protected void tearDown() throws Exception { super.tearDown();}
+
+  // NO NEED TO CHANGE THE FOLLOWING
+
+  /** Standard constructor calls TestCase(name) constructor 
+      @param name Name of junit Test.
+   */
+  public FileVectTest(String name) {super (name);}
+
+  /** This automatically generates a suite of all "test" methods.
+      @return A suite of all junit tests as a Test.
+   */
+  public static junit.framework.Test suite() {
+    try {assert false; throw new IllegalStateException("need -ea");}
+    catch (AssertionError e) {}
+    return new TestSuite(FileVectTest.class);
+  }
+
+  /** Run all tests with text gui if this class main is invoked 
+      @param args Command-line arguments.
+   */
+  public static void main (String[] args) {
+    junit.textui.TestRunner.run (suite());
+  }
+}
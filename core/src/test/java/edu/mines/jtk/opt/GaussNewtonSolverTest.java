@@ -64,6 +64,13 @@ public class GaussNewtonSolverTest extends TestCase {
       return super.dot(other);
     }
 
+    @Override public double addDot(double scaleThis, double scaleOther,
+                                   VectConst other, VectConst dotOther) {
+      assertSameType(other);
+      assertSameType(dotOther);
+      return super.addDot(scaleThis, scaleOther, other, dotOther);
+    }
+
     private void assertSameType(VectConst other) {
       TestVect tv = (TestVect) other;
       if (!identity.equals(tv.identity)) {
@@ -0,0 +1,228 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.opt;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/** Unit tests for edu.mines.jtk.opt.LbfgsSolver and NonlinearCgSolver.
+*/
+public class LbfgsSolverTest extends TestCase {
+
+  /** Minimize the Rosenbrock function of several variables. */
+  public void testRosenbrock () {
+    int n = 10;
+    ArrayVect1 x0 = new ArrayVect1(new double[n], 1.);
+    for (int i=0; i<n; ++i) {
+      x0.getData()[i] = (i%2 == 0) ? -1.2 : 1.;
+    }
+    LbfgsSolver lbfgs = new LbfgsSolver(ROSENBROCK, 5);
+    ArrayVect1 x = (ArrayVect1) lbfgs.solve(x0, 200, 1.e-8, null);
+    for (int i=0; i<n; ++i) {
+      assert Math.abs(x.getData()[i]-1.) < 1.e-5 : x;
+    }
+    assert lbfgs.getEvaluationCount() < 150 : lbfgs.getEvaluationCount();
+
+    NonlinearCgSolver ncg = new NonlinearCgSolver(ROSENBROCK);
+    x = (ArrayVect1) ncg.solve(x0, 2000, 1.e-8, null);
+    for (int i=0; i<n; ++i) {
+      assert Math.abs(x.getData()[i]-1.) < 1.e-4 : x;
+    }
+    assert x0.getData()[0] == -1.2;
+  }
+
+  /** Fit a non-linear transform with fewer transforms than Gauss-Newton.
+      (Here, about 44 versus 224 applications of the transform.) */
+  public void testTransformMisfit () {
+    ArrayVect1 data = new ArrayVect1(new double[X.length], 1.);
+    ArrayVect1 truth = new ArrayVect1(new double[]{0.8, -1.5, 0.3}, 1.);
+    CountTransform ct = new CountTransform();
+    ct.forwardNonlinear(data, truth);
+    ArrayVect1 m0 = new ArrayVect1(new double[3], 1000.);
+
+    // gradient agrees with finite differences
+    TransformMisfit misfit = new TransformMisfit(data, m0, ct, false);
+    ArrayVect1 m = new ArrayVect1(new double[]{0.5, -1., 0.1}, 1000.);
+    ArrayVect1 g = new ArrayVect1(new double[3], 1000.);
+    double f = misfit.evaluate(m, g);
+    for (int i=0; i<3; ++i) {
+      ArrayVect1 mi = m.clone();
+      double h = 1.e-6;
+      mi.getData()[i] += h;
+      double fd = (misfit.evaluate(mi, mi.clone()) - f)/h;
+      assert Math.abs(fd-g.getData()[i]) < 1.e-4*(1.+Math.abs(fd)) :
+        i+" "+fd+" "+g.getData()[i];
+    }
+
+    ct.count = 0;
+    LbfgsSolver lbfgs = new LbfgsSolver(misfit, 5);
+    ArrayVect1 ml = (ArrayVect1) lbfgs.solve(m0, 100, 1.e-6, null);
+    int nl = ct.count;
+    double fl = misfit.evaluate(ml, ml.clone());
+
+    ct.count = 0;
+    ArrayVect1 mg = (ArrayVect1) GaussNewtonSolver.solve
+      (data, m0, null, ct, false, 3, 20, 10, 0.0001, null);
+    int ng = ct.count;
+    double fg = misfit.evaluate(mg, mg.clone());
+    misfit.dispose();
+
+    assert fl <= fg*1.01+1.e-8 : fl+" "+fg;
+    assert nl < ng : nl+" "+ng;
+    for (int i=0; i<3; ++i) {
+      assert Math.abs(ml.getData()[i]-mg.getData()[i]) < 1.e-4 : ml+" "+mg;
+    }
+  }
+
+  /** A pair with negative curvature must not disturb a full history. */
+  public void testRejectedPair () {
+    LbfgsSolver.History history = new LbfgsSolver.History(2);
+    ArrayVect1 x = new ArrayVect1(new double[]{0., 0., 0.}, 1.);
+    ArrayVect1 g = new ArrayVect1(new double[]{1., 2., 3.}, 1.);
+    double[][] steps = {{1., 0., 0.}, {0., 1., 0.}, {0., 0., 1.}};
+    for (double[] step : steps) { // three pairs fill and wrap the ring
+      history.mark(x, g);
+      for (int i=0; i<3; ++i) {
+        x.getData()[i] += step[i];
+        g.getData()[i] += (i+2.)*step[i];
+      }
+      assert history.update(x, g);
+    }
+    assert history.size() == 2 : history.size();
+    ArrayVect1 q = new ArrayVect1(new double[]{1., 1., 1.}, 1.);
+    ArrayVect1 hq = q.clone();
+    history.multiply(hq);
+
+    // gradient decreases along the step, so s.dot(y) < 0
+    history.mark(x, g);
+    x.getData()[0] += 1.;
+    g.getData()[0] -= 1.;
+    assert !history.update(x, g);
+    assert history.size() == 2 : history.size();
+    ArrayVect1 hr = q.clone();
+    history.multiply(hr);
+    for (int i=0; i<3; ++i) {
+      assert hq.getData()[i] == hr.getData()[i] : hq+" "+hr;
+    }
+    // most recent pairs had curvatures 3 and 4
+    assert Math.abs(hr.getData()[1]-1./3.) < 1.e-12 : hr;
+    assert Math.abs(hr.getData()[2]-1./4.) < 1.e-12 : hr;
+
+    // the next accepted pair still replaces the oldest pair
+    history.mark(x, g);
+    x.getData()[0] += 1.;
+    g.getData()[0] += 5.;
+    assert history.update(x, g);
+    hr = q.clone();
+    history.multiply(hr);
+    assert Math.abs(hr.getData()[0]-1./5.) < 1.e-12 : hr;
+    assert Math.abs(hr.getData()[2]-1./4.) < 1.e-12 : hr;
+    history.dispose();
+  }
+
+  private static final VectFunction ROSENBROCK = new VectFunction() {
+      public double evaluate(VectConst x, Vect gradient) {
+        double[] a = ((ArrayVect1) x).getData();
+        double[] g = ((ArrayVect1) gradient).getData();
+        double f = 0.;
+        Arrays.fill(g, 0.);
+        for (int i=0; i+1<a.length; ++i) {
+          double t = a[i+1]-a[i]*a[i];
+          double u = 1.-a[i];
+          f += 100.*t*t + u*u;
+          g[i] += -400.*a[i]*t - 2.*u;
+          g[i+1] += 200.*t;
+        }
+        return f;
+      }
+    };
+
+  private static final double[] X = new double[20];
+  static {
+    for (int i=0; i<X.length; ++i) {X[i] = 0.1*i;}
+  }
+
+  // d(x) = a*exp(b*x) + c, counting applications of the transform
+  private static class CountTransform implements Transform {
+    int count = 0;
+    public void forwardNonlinear(Vect data, VectConst model) {
+      ++count;
+      double[] d = ((ArrayVect1) data).getData();
+      double[] m = ((ArrayVect1) model).getData();
+      for (int i=0; i<X.length; ++i) {
+        d[i] = m[0]*Math.exp(m[1]*X[i]) + m[2];
+      }
+    }
+    public void forwardLinearized(Vect data, VectConst model,
+                                  VectConst modelReference) {
+      ++count;
+      double[] d = ((ArrayVect1) data).getData();
+      double[] p = ((ArrayVect1) model).getData();
+      double[] m = ((ArrayVect1) modelReference).getData();
+      for (int i=0; i<X.length; ++i) {
+        double e = Math.exp(m[1]*X[i]);
+        d[i] = p[0]*e + p[1]*m[0]*X[i]*e + p[2];
+      }
+    }
+    public void addTranspose(VectConst data, Vect model,
+                             VectConst modelReference) {
+      ++count;
+      double[] d = ((ArrayVect1) data).getData();
+      double[] p = ((ArrayVect1) model).getData();
+      double[] m = ((ArrayVect1) modelReference).getData();
+      for (int i=0; i<X.length; ++i) {
+        double e = Math.exp(m[1]*X[i]);
+        p[0] += d[i]*e;
+        p[1] += d[i]*m[0]*X[i]*e;
+        p[2] += d[i];
+      }
+    }
+    public void inverseHessian(Vect model, VectConst modelReference) {}
+    public void adjustRobustErrors(Vect dataError) {}
+  }
+
+  // OPTIONAL OPTIONAL OPTIONAL OPTIONAL OPTIONAL OPTIONAL OPTIONAL
+
+  /* Initialize objects used by all test methods */
+  @Override protected void setUp() throws Exception { super.setUp();}
+
+  /* Destruction of stuff used by all tests: rarely necessary */
+  @Override protected void tearDown() throws Exception { super.tearDown();}
+
+  // NO NEED TO CHANGE THE FOLLOWING
+
+  /** Standard constructor calls TestCase(name) constructor 
+      @param name Name of junit Test.
+   */
+  public LbfgsSolverTest(String name) {super (name);}
+
+  /** This automatically generates a suite of all "test" methods.
+      @return A suite of all junit tests as a Test.
+   */
+  public static junit.framework.Test suite() {
+    try {assert false; throw new IllegalStateException("need -ea");}
+    catch (AssertionError e) {}
+    return new TestSuite(LbfgsSolverTest.class);
+  }
+
+  /** Run all tests with text gui if this class main is invoked 
+      @param args Command-line arguments.
+   */
+  public static void main (String[] args) {
+    junit.textui.TestRunner.run (suite());
+  }
+}
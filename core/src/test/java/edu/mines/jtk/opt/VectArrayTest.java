@@ -59,6 +59,18 @@ public class VectArrayTest extends TestCase {
     Vect wm = vm.clone();
     wm.multiplyInverseCovariance();
     assert Almost.FLOAT.equal(1., wm.dot(vm)) : wm.dot(vm);
+    // parallel members must give the same sums as serial members
+    double dot = wm.dot(vm);
+    double mag = vm.magnitude();
+    VectArray um = vm.clone();
+    um.add(0.5, 2., wm);
+    vm.setParallel(true);
+    assert dot == wm.dot(vm) && dot == vm.dot(wm) : vm.dot(wm);
+    assert mag == vm.magnitude() : vm.magnitude();
+    VectArray pm = vm.clone();
+    pm.add(0.5, 2., wm);
+    assert um.dot(um) == pm.dot(pm) : pm.dot(pm);
+    VectUtil.test(vm);
   }
 
   // OPTIONAL OPTIONAL OPTIONAL OPTIONAL OPTIONAL OPTIONAL OPTIONAL
@@ -0,0 +1,124 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.opt;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/** Unit tests for edu.mines.jtk.opt.VectPool.
+*/
+public class VectPoolTest extends TestCase {
+
+  /** Released vectors are reused. */
+  public void testBorrow () {
+    ArrayVect1 prototype = new ArrayVect1(new double[]{1., 2., 3.}, 1.);
+    VectPool pool = new VectPool(prototype);
+    Vect a = pool.borrowZero();
+    Vect b = pool.borrowCopy(prototype);
+    assert pool.getAllocatedCount() == 2;
+    assert a.dot(a) == 0.;
+    assert b.dot(b) == 14.;
+    pool.release(a);
+    Vect c = pool.borrow();
+    assert c == a;
+    assert pool.getAllocatedCount() == 2;
+    pool.release(b);
+    pool.release(c);
+    pool.dispose();
+    assert prototype.getData() != null;
+    assert pool.borrow() != a;
+    assert pool.getAllocatedCount() == 3;
+  }
+
+  /** Vectors allocated by Gauss-Newton do not grow with iterations. */
+  public void testGaussNewton () {
+    int n2 = countClones(2);
+    int n8 = countClones(8);
+    assert n2 == n8 : "n2="+n2+" n8="+n8;
+  }
+
+  // Number of clones for a Gauss-Newton fit of a line to points.
+  private static int countClones(int linearizationIterations) {
+    final double[] x = {1., 2., 3., 4.};
+    CountVect data = new CountVect(new double[]{4., 7., 10., 13.});
+    CountVect model = new CountVect(new double[]{0.5, 2.5});
+    LinearTransform lt = new LinearTransform() {
+        public void forward(Vect data1, VectConst model1) {
+          double[] d = ((ArrayVect1)data1).getData();
+          double[] m = ((ArrayVect1)model1).getData();
+          for (int i=0; i<x.length; ++i) {
+            d[i] = m[0] + x[i]*m[1];
+          }
+        }
+        public void addTranspose(VectConst data1, Vect model1) {
+          double[] d = ((ArrayVect1)data1).getData();
+          double[] m = ((ArrayVect1)model1).getData();
+          for (int i=0; i<x.length; ++i) {
+            m[0] += d[i];
+            m[1] += x[i]*d[i];
+          }
+        }
+        public void inverseHessian(Vect model1) {}
+        public void adjustRobustErrors(Vect dataError) {}
+      };
+    CountVect.clones = 0;
+    ArrayVect1 result = (ArrayVect1) GaussNewtonSolver.solve
+      (data, model, null, new LinearTransformWrapper(lt), true,
+       2, 10, linearizationIterations, 0.0001, null);
+    assert Math.abs(result.getData()[1]-3.) < 0.1 : result;
+    return CountVect.clones;
+  }
+
+  private static class CountVect extends ArrayVect1 {
+    private static final long serialVersionUID = 1L;
+    static int clones = 0;
+    CountVect(double[] data) {super(data, 1.);}
+    @Override public CountVect clone() {
+      ++clones;
+      return (CountVect) super.clone();
+    }
+  }
+
+  // OPTIONAL OPTIONAL OPTIONAL OPTIONAL OPTIONAL OPTIONAL OPTIONAL
+
+  /* Initialize objects used by all test methods */
+  @Override protected void setUp() throws Exception { super.setUp();}
+
+  /* Destruction of stuff used by all tests: rarely necessary */
+  @Override protected void tearDown() throws Exception { super.tearDown();}
+
+  // NO NEED TO CHANGE THE FOLLOWING
+
+  /** Standard constructor calls TestCase(name) constructor 
+      @param name Name of junit Test.
+   */
+  public VectPoolTest(String name) {super (name);}
+
+  /** This automatically generates a suite of all "test" methods.
+      @return A suite of all junit tests as a Test.
+   */
+  public static junit.framework.Test suite() {
+    try {assert false; throw new IllegalStateException("need -ea");}
+    catch (AssertionError e) {}
+    return new TestSuite(VectPoolTest.class);
+  }
+
+  /** Run all tests with text gui if this class main is invoked 
+      @param args Command-line arguments.
+   */
+  public static void main (String[] args) {
+    junit.textui.TestRunner.run (suite());
+  }
+}
@@ -49,4 +49,47 @@ public class ClipsTest extends TestCase {
       assertEquals(imax,cmax,tiny);
     }
   }
+
+  public void testPercentilesLarge() {
+    int n1 = 1001, n2 = 1500;
+    float[][] f = new float[n2][n1];
+    for (int i2=0; i2<n2; ++i2)
+      for (int i1=0; i1<n1; ++i1)
+        f[i2][i1] = (float)(((long)i2*n1+i1)%(n1*n2));
+    int n = n1*n2;
+    Clips clips = new Clips(1.0,99.0,f);
+    assertEquals(0.01*(n-1),clips.getClipMin(),0.001*n);
+    assertEquals(0.99*(n-1),clips.getClipMax(),0.001*n);
+    clips.setPercentiles(0.0,100.0);
+    assertEquals(0.0f,clips.getClipMin());
+    assertEquals(n-1.0f,clips.getClipMax());
+  }
+
+  public void testPercentilesNaN() {
+    int n1 = 1001;
+    int[] n2s = {100,1500}; // exact percentiles and quantile sketch
+    for (int n2:n2s) {
+      float[][] f = new float[n2][n1];
+      int n = 0;
+      for (int i2=0; i2<n2; ++i2) {
+        for (int i1=0; i1<n1; ++i1) {
+          if (i1%10==0) {
+            f[i2][i1] = Float.NaN;
+          } else {
+            f[i2][i1] = n++;
+          }
+        }
+      }
+      Clips clips = new Clips(1.0,99.0,f);
+      assertEquals(0.01*(n-1),clips.getClipMin(),0.001*n+1.0);
+      assertEquals(0.99*(n-1),clips.getClipMax(),0.001*n+1.0);
+    }
+  }
+
+  public void testFloat3MinMax() {
+    float[][][] f = rampfloat(1.0f,1.0f,0.0f,0.0f,5,4,3);
+    Clips clips = new Clips(new SimpleFloat3(f));
+    assertEquals(1.0f,clips.getClipMin());
+    assertEquals(5.0f,clips.getClipMax());
+  }
 }
@@ -0,0 +1,249 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.util;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests {@link edu.mines.jtk.util.KdTree}.
+ * @author agent
+ * @version 2026.10.19
+ */
+public class KdTreeTest extends TestCase {
+  public static void main(String[] args) {
+    if (args.length>=1 && args[0].equals("bench")) {
+      bench();
+      return;
+    }
+    TestSuite suite = new TestSuite(KdTreeTest.class);
+    junit.textui.TestRunner.run(suite);
+  }
+
+  public void testNearest() {
+    for (int k=1; k<=3; ++k) {
+      float[][] x = randomPoints(k,1000,false);
+      KdTree kt = new KdTree(x);
+      assertEquals(k,kt.getDimensions());
+      assertEquals(1000,kt.size());
+      for (int i=0; i<200; ++i) {
+        float[] p = randomPoint(k);
+        assertEquals(nearest(x,p),kt.findNearest(p));
+      }
+    }
+  }
+
+  public void testNearestDuplicates() {
+    float[][] x = randomPoints(2,1000,true);
+    KdTree kt = new KdTree(x);
+    for (int i=0; i<200; ++i) {
+      float[] p = randomPoint(2);
+      assertEquals(nearest(x,p),kt.findNearest(p));
+      assertEquals(nearest(x,p),kt.findNearest(p,i));
+    }
+  }
+
+  public void testNearestK() {
+    float[][] x = randomPoints(3,500,true);
+    KdTree kt = new KdTree(x);
+    for (int i=0; i<100; ++i) {
+      float[] p = randomPoint(3);
+      int[] k = kt.findNearest(7,p);
+      assertEquals(7,k.length);
+      int[] s = nearest(x,p,7);
+      for (int j=0; j<7; ++j)
+        assertEquals(s[j],k[j]);
+    }
+    assertEquals(500,kt.findNearest(600,randomPoint(3)).length);
+    assertEquals(0,kt.findNearest(0,randomPoint(3)).length);
+  }
+
+  public void testSphere() {
+    float[][] x = randomPoints(3,1000,false);
+    KdTree kt = new KdTree(x);
+    float r = 0.2f;
+    for (int i=0; i<100; ++i) {
+      float[] p = randomPoint(3);
+      int[] k = kt.findInSphere(p,r);
+      int nk = 0;
+      for (int j=0; j<1000; ++j) {
+        if (distanceSquared(x,j,p)<=r*r) {
+          assertEquals(j,k[nk]);
+          ++nk;
+        }
+      }
+      assertEquals(nk,k.length);
+    }
+  }
+
+  public void testGrid() {
+    float[][] x = randomPoints(3,2000,true);
+    KdTree kt = new KdTree(x);
+    float[] g1 = grid(17), g2 = grid(18), g3 = grid(19);
+    int[][][] k = kt.findNearest(g1,g2,g3);
+    float[] p = new float[3];
+    for (int i3=0; i3<g3.length; ++i3) {
+      for (int i2=0; i2<g2.length; ++i2) {
+        for (int i1=0; i1<g1.length; ++i1) {
+          p[0] = g1[i1]; p[1] = g2[i2]; p[2] = g3[i3];
+          assertEquals(nearest(x,p),k[i3][i2][i1]);
+        }
+      }
+    }
+    float[][] y = new float[][]{x[0],x[1]};
+    kt = new KdTree(y);
+    int[][] k2 = kt.findNearest(g1,g2);
+    p = new float[2];
+    for (int i2=0; i2<g2.length; ++i2) {
+      for (int i1=0; i1<g1.length; ++i1) {
+        p[0] = g1[i1]; p[1] = g2[i2];
+        assertEquals(nearest(y,p),k2[i2][i1]);
+      }
+    }
+  }
+
+  public void testEmpty() {
+    KdTree kt = new KdTree(new float[2][0]);
+    assertEquals(0,kt.size());
+    assertEquals(-1,kt.findNearest(new float[2]));
+    assertEquals(0,kt.findNearest(3,new float[2]).length);
+    assertEquals(0,kt.findInSphere(new float[2],1.0f).length);
+  }
+
+  public void testNoDimensions() {
+    try {
+      new KdTree(new float[0][]);
+      fail("tree with no dimensions");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  public void testSerialParallel() {
+    float[][] x = randomPoints(2,100000,false);
+    KdTree ktp = new KdTree(x);
+    Parallel.setParallel(false);
+    KdTree kts;
+    try {
+      kts = new KdTree(x);
+    } finally {
+      Parallel.setParallel(true);
+    }
+    float[] g = grid(101);
+    int[][] kp = ktp.findNearest(g,g);
+    int[][] ks = kts.findNearest(g,g);
+    for (int i2=0; i2<g.length; ++i2)
+      for (int i1=0; i1<g.length; ++i1)
+        assertEquals(ks[i2][i1],kp[i2][i1]);
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  private static Random _random = new Random(314159);
+
+  // Random points; if duplicates, coordinates are rounded so that many
+  // points have the same coordinates.
+  private static float[][] randomPoints(int k, int n, boolean duplicates) {
+    float[][] x = new float[k][n];
+    for (int i=0; i<n; ++i) {
+      for (int j=0; j<k; ++j) {
+        x[j][i] = _random.nextFloat();
+        if (duplicates)
+          x[j][i] = Math.round(x[j][i]*8.0f)/8.0f;
+      }
+    }
+    return x;
+  }
+
+  private static float[] randomPoint(int k) {
+    float[] p = new float[k];
+    for (int j=0; j<k; ++j)
+      p[j] = 1.2f*_random.nextFloat()-0.1f;
+    return p;
+  }
+
+  private static float[] grid(int n) {
+    float[] g = new float[n];
+    for (int i=0; i<n; ++i)
+      g[i] = -0.1f+1.2f*i/(n-1);
+    return g;
+  }
+
+  private static float distanceSquared(float[][] x, int i, float[] p) {
+    float ds = 0.0f;
+    for (int j=0; j<p.length; ++j) {
+      float e = p[j]-x[j][i];
+      ds += e*e;
+    }
+    return ds;
+  }
+
+  // Brute-force search for nearest point with lowest index.
+  private static int nearest(float[][] x, float[] p) {
+    int n = x[0].length;
+    int imin = -1;
+    float dmin = Float.MAX_VALUE;
+    for (int i=0; i<n; ++i) {
+      float ds = distanceSquared(x,i,p);
+      if (ds<dmin) {
+        dmin = ds;
+        imin = i;
+      }
+    }
+    return imin;
+  }
+
+  // Brute-force search for k nearest points, ordered by distance and index.
+  private static int[] nearest(float[][] x, float[] p, int k) {
+    int n = x[0].length;
+    float[] ds = new float[n];
+    int[] is = new int[n];
+    for (int i=0; i<n; ++i) {
+      ds[i] = distanceSquared(x,i,p);
+      is[i] = i;
+    }
+    for (int i=1; i<n; ++i) { // insertion sort, stable
+      for (int j=i; j>0 && ds[j]<ds[j-1]; --j) {
+        float dt = ds[j]; ds[j] = ds[j-1]; ds[j-1] = dt;
+        int it = is[j]; is[j] = is[j-1]; is[j-1] = it;
+      }
+    }
+    int[] a = new int[k];
+    System.arraycopy(is,0,a,0,k);
+    return a;
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // benchmark
+
+  private static void bench() {
+    int n = 1000000;
+    float[][] x = randomPoints(2,n,false);
+    float[] g = grid(1001);
+    for (int ntrial=0; ntrial<3; ++ntrial) {
+      Stopwatch sw = new Stopwatch();
+      sw.start();
+      KdTree kt = new KdTree(x);
+      double tb = sw.time();
+      sw.restart();
+      kt.findNearest(g,g);
+      double tq = sw.time();
+      System.out.println("n="+n+" build="+tb+" s, grid query="+tq+" s");
+    }
+  }
+}
@@ -78,6 +78,71 @@ public class MedianFinderTest extends TestCase {
     }
   }
 
+  public void testQuantile() {
+    Random r = new Random(3);
+    for (int itest=0; itest<100; ++itest) {
+      int n = 1+r.nextInt(100);
+      float[] w = randfloat(r,n);
+      float[] f = randfloat(r,n);
+      double q = r.nextDouble();
+      MedianFinder mf = new MedianFinder(n);
+      assertEquals(quantileSlow(q,f),mf.findQuantile(q,f));
+      assertEquals(quantileSlow(q,w,f),mf.findQuantile(q,w,f));
+    }
+  }
+
+  public void testLarge() {
+    Random r = new Random(5);
+    for (int itest=0; itest<4; ++itest) {
+      int n = (1<<19)+itest;
+      float[] w = randfloat(r,n);
+      float[] f = randfloat(r,n);
+      if (itest%2==1) { // many equal values
+        for (int i=0; i<n; ++i)
+          f[i] = (float)Math.floor(f[i]*16.0f);
+      }
+      MedianFinder mf = new MedianFinder(n);
+      float[] g = copy(f);
+      quickSort(g);
+      float xmed = (n%2==1)?g[n/2]:0.5f*(g[n/2-1]+g[n/2]);
+      assertEquals(xmed,mf.findMedian(f));
+      for (double q=0.0; q<=1.0; q+=0.125)
+        assertEquals(quantileSlow(q,f),mf.findQuantile(q,f));
+      assertEquals(quantileSlow(0.5,w,f),mf.findMedian(w,f));
+      for (double q=0.125; q<1.0; q+=0.25)
+        assertEquals(quantileSlow(q,w,f),mf.findQuantile(q,w,f));
+      assertEquals(g[0],mf.findQuantile(0.0,w,f));
+      assertEquals(g[n-1],mf.findQuantile(1.0,w,f));
+    }
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  private static float quantileSlow(double q, float[] f) {
+    float[] g = copy(f);
+    quickSort(g);
+    return g[(int)Math.rint(q*(g.length-1))];
+  }
+
+  private static float quantileSlow(double q, float[] w, float[] f) {
+    int n = f.length;
+    int[] k = rampint(0,1,n);
+    quickIndexSort(f,k);
+    double wt = 0.0;
+    for (int i=0; i<n; ++i)
+      wt += w[i];
+    wt *= q;
+    double ws = 0.0;
+    int i = 0;
+    for (; i<n-1; ++i) {
+      ws += w[k[i]];
+      if (ws>=wt)
+        break;
+    }
+    return f[k[i]];
+  }
+
   ///////////////////////////////////////////////////////////////////////////
   // benchmark
 
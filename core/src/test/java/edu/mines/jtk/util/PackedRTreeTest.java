@@ -0,0 +1,252 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.util;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests {@link edu.mines.jtk.util.PackedRTree}.
+ * @author agent
+ * @version 2026.10.19
+ */
+public class PackedRTreeTest extends TestCase {
+  public static void main(String[] args) {
+    if (args.length>=1 && args[0].equals("bench")) {
+      bench();
+      return;
+    }
+    TestSuite suite = new TestSuite(PackedRTreeTest.class);
+    junit.textui.TestRunner.run(suite);
+  }
+
+  public void testNearest() {
+    for (int k=1; k<=3; ++k) {
+      for (int n=1; n<=3000; n*=7) {
+        float[][][] b = randomBoxes(k,n,0.05f);
+        PackedRTree rt = new PackedRTree(b[0],b[1]);
+        assertEquals(k,rt.getDimensions());
+        assertEquals(n,rt.size());
+        for (int i=0; i<100; ++i) {
+          float[] p = randomPoint(k);
+          int[] a = rt.findNearest(5,p);
+          int[] s = nearest(b,p,5);
+          assertEquals(s.length,a.length);
+          for (int j=0; j<s.length; ++j)
+            assertEquals(s[j],a[j]);
+          assertEquals(s[0],rt.findNearest(p));
+        }
+      }
+    }
+  }
+
+  public void testPoints() {
+    float[][] x = randomBoxes(2,2000,0.0f)[0];
+    for (int i=0; i<2000; ++i) {
+      x[0][i] = Math.round(x[0][i]*8.0f)/8.0f;
+      x[1][i] = Math.round(x[1][i]*8.0f)/8.0f;
+    }
+    PackedRTree rt = new PackedRTree(x);
+    KdTree kt = new KdTree(x);
+    for (int i=0; i<200; ++i) {
+      float[] p = randomPoint(2);
+      int[] a = rt.findNearest(7,p);
+      int[] s = kt.findNearest(7,p);
+      for (int j=0; j<7; ++j)
+        assertEquals(s[j],a[j]);
+      assertEquals(kt.findInSphere(p,0.2f).length,
+                   rt.findInSphere(p,0.2f).length);
+    }
+  }
+
+  public void testOverlapping() {
+    float[][][] b = randomBoxes(3,5000,0.05f);
+    PackedRTree rt = new PackedRTree(b[0],b[1]);
+    for (int i=0; i<100; ++i) {
+      float[] p = randomPoint(3);
+      float[] min = new float[3];
+      float[] max = new float[3];
+      for (int j=0; j<3; ++j) {
+        min[j] = p[j]-0.1f;
+        max[j] = p[j]+0.1f;
+      }
+      int[] a = rt.findOverlapping(min,max);
+      int na = 0;
+      for (int ib=0; ib<5000; ++ib) {
+        boolean overlaps = true;
+        for (int j=0; j<3; ++j)
+          if (min[j]>b[1][j][ib] || max[j]<b[0][j][ib]) overlaps = false;
+        if (overlaps)
+          assertEquals(ib,a[na++]);
+      }
+      assertEquals(na,a.length);
+    }
+  }
+
+  public void testSphere() {
+    float[][][] b = randomBoxes(2,5000,0.02f);
+    PackedRTree rt = new PackedRTree(b[0],b[1]);
+    float r = 0.1f;
+    for (int i=0; i<100; ++i) {
+      float[] p = randomPoint(2);
+      int[] a = rt.findInSphere(p,r);
+      int na = 0;
+      for (int ib=0; ib<5000; ++ib)
+        if (distanceSquared(b,ib,p)<=r*r)
+          assertEquals(ib,a[na++]);
+      assertEquals(na,a.length);
+    }
+  }
+
+  public void testBatch() {
+    float[][][] b = randomBoxes(2,100000,0.001f);
+    PackedRTree rt = new PackedRTree(b[0],b[1]);
+    float[][][] q = randomBoxes(2,1000,0.01f);
+    int[][] kp = rt.findNearest(4,q[0]);
+    int[][] op = rt.findOverlapping(q[0],q[1]);
+    Parallel.setParallel(false);
+    PackedRTree rts;
+    try {
+      rts = new PackedRTree(b[0],b[1]);
+    } finally {
+      Parallel.setParallel(true);
+    }
+    float[] p = new float[2];
+    float[] min = new float[2];
+    float[] max = new float[2];
+    for (int i=0; i<1000; ++i) {
+      p[0] = min[0] = q[0][0][i];
+      p[1] = min[1] = q[0][1][i];
+      max[0] = q[1][0][i];
+      max[1] = q[1][1][i];
+      int[] ks = rts.findNearest(4,p);
+      int[] os = rts.findOverlapping(min,max);
+      assertEquals(ks.length,kp[i].length);
+      for (int j=0; j<ks.length; ++j)
+        assertEquals(ks[j],kp[i][j]);
+      assertEquals(os.length,op[i].length);
+      for (int j=0; j<os.length; ++j)
+        assertEquals(os[j],op[i][j]);
+    }
+  }
+
+  public void testEmpty() {
+    PackedRTree rt = new PackedRTree(new float[2][0]);
+    assertEquals(0,rt.size());
+    assertEquals(0,rt.getLevels());
+    assertEquals(-1,rt.findNearest(new float[2]));
+    assertEquals(0,rt.findNearest(3,new float[2]).length);
+    assertEquals(0,rt.findInSphere(new float[2],1.0f).length);
+    assertEquals(0,rt.findOverlapping(new float[2],new float[2]).length);
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  private static Random _random = new Random(314159);
+
+  // Random boxes {min,max} with sizes not greater than the specified size.
+  private static float[][][] randomBoxes(int k, int n, float size) {
+    float[][] min = new float[k][n];
+    float[][] max = new float[k][n];
+    for (int i=0; i<n; ++i) {
+      for (int j=0; j<k; ++j) {
+        min[j][i] = _random.nextFloat();
+        max[j][i] = min[j][i]+size*_random.nextFloat();
+      }
+    }
+    return new float[][][]{min,max};
+  }
+
+  private static float[] randomPoint(int k) {
+    float[] p = new float[k];
+    for (int j=0; j<k; ++j)
+      p[j] = 1.2f*_random.nextFloat()-0.1f;
+    return p;
+  }
+
+  private static float distanceSquared(float[][][] b, int i, float[] p) {
+    float ds = 0.0f;
+    for (int j=0; j<p.length; ++j) {
+      float s = b[0][j][i];
+      float t = b[1][j][i];
+      float e = (p[j]<s)?p[j]-s:(p[j]>t)?p[j]-t:0.0f;
+      ds += e*e;
+    }
+    return ds;
+  }
+
+  // Brute-force search for k nearest boxes, ordered by distance and index.
+  private static int[] nearest(float[][][] b, float[] p, int k) {
+    int n = b[0][0].length;
+    float[] ds = new float[n];
+    int[] is = new int[n];
+    for (int i=0; i<n; ++i) {
+      ds[i] = distanceSquared(b,i,p);
+      is[i] = i;
+    }
+    for (int i=1; i<n; ++i) { // insertion sort, stable
+      for (int j=i; j>0 && ds[j]<ds[j-1]; --j) {
+        float dt = ds[j]; ds[j] = ds[j-1]; ds[j-1] = dt;
+        int it = is[j]; is[j] = is[j-1]; is[j-1] = it;
+      }
+    }
+    int[] a = new int[Math.min(k,n)];
+    System.arraycopy(is,0,a,0,a.length);
+    return a;
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // benchmark
+
+  // Compares the build and query throughput of packed and dynamic trees.
+  private static void bench() {
+    int n = 1000000;
+    int nq = 100000;
+    float[][][] b = randomBoxes(2,n,0.001f);
+    float[][][] q = randomBoxes(2,nq,0.002f);
+    RTree.Box[] boxes = new RTree.Box[n];
+    for (int i=0; i<n; ++i)
+      boxes[i] = new RTree.Box(b[0][0][i],b[0][1][i],b[1][0][i],b[1][1][i]);
+    for (int ntrial=0; ntrial<3; ++ntrial) {
+      Stopwatch sw = new Stopwatch();
+      sw.start();
+      PackedRTree pt = new PackedRTree(b[0],b[1]);
+      double tpb = sw.time();
+      sw.restart();
+      pt.findNearest(4,q[0]);
+      pt.findOverlapping(q[0],q[1]);
+      double tpq = sw.time();
+      sw.restart();
+      RTree rt = new RTree(2,4,16);
+      rt.addPacked(boxes);
+      double trb = sw.time();
+      sw.restart();
+      float[] p = new float[2];
+      for (int i=0; i<nq; ++i) {
+        p[0] = q[0][0][i];
+        p[1] = q[0][1][i];
+        rt.findNearest(4,p);
+        rt.findOverlapping(new RTree.Box(p[0],p[1],q[1][0][i],q[1][1][i]));
+      }
+      double trq = sw.time();
+      System.out.println("n="+n+" nq="+nq);
+      System.out.println("  PackedRTree: build="+tpb+" s, queries="+tpq+" s");
+      System.out.println("        RTree: build="+trb+" s, queries="+trq+" s");
+    }
+  }
+}
@@ -0,0 +1,147 @@
+/****************************************************************************
+Copyright 2026, Colorado School of Mines and others.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+****************************************************************************/
+package edu.mines.jtk.util;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests {@link edu.mines.jtk.util.QuantileSketch}.
+ * @author agent
+ * @version 2026.10.19
+ */
+public class QuantileSketchTest extends TestCase {
+  public static void main(String[] args) {
+    TestSuite suite = new TestSuite(QuantileSketchTest.class);
+    junit.textui.TestRunner.run(suite);
+  }
+
+  public void testSmall() {
+    float[] f = randomFloats(100);
+    QuantileSketch qs = new QuantileSketch(128);
+    qs.add(f);
+    float[] s = Arrays.copyOf(f,f.length);
+    Arrays.sort(s);
+    for (int i=0; i<=100; ++i) {
+      double q = i/100.0;
+      assertEquals(s[(int)Math.rint(q*99)],qs.getQuantile(q));
+    }
+    assertEquals(0.0,qs.getRankError());
+    assertEquals(s[0],qs.getMin());
+    assertEquals(s[99],qs.getMax());
+  }
+
+  public void testRankError() {
+    int n = 1000000;
+    float[] f = randomFloats(n);
+    double epsilon = 0.002;
+    QuantileSketch qs = QuantileSketch.sketch(f,epsilon);
+    assertEquals(n,qs.getCount());
+    double bound = qs.getRankError();
+    assertTrue(bound>0.0 && bound<=epsilon);
+    float[] s = Arrays.copyOf(f,n);
+    Arrays.sort(s);
+    for (int i=0; i<=20; ++i) {
+      double q = i/20.0;
+      float v = qs.getQuantile(q);
+      long r = (long)Math.rint(q*(n-1));
+      int lo = lowerRank(s,v), hi = upperRank(s,v);
+      long error = (r<lo)?lo-r:(r>hi)?r-hi:0;
+      assertTrue(error<=bound*n);
+    }
+  }
+
+  public void testSerialParallel() {
+    float[][][] f = new float[30][40][];
+    for (int i3=0; i3<30; ++i3)
+      for (int i2=0; i2<40; ++i2)
+        f[i3][i2] = randomFloats(500);
+    QuantileSketch qp = QuantileSketch.sketch(f,0.01);
+    Parallel.setParallel(false);
+    QuantileSketch qs;
+    try {
+      qs = QuantileSketch.sketch(f,0.01);
+    } finally {
+      Parallel.setParallel(true);
+    }
+    double[] q = {0.0,0.01,0.25,0.5,0.75,0.99,1.0};
+    float[] vp = qp.getQuantiles(q);
+    float[] vs = qs.getQuantiles(q);
+    for (int i=0; i<q.length; ++i)
+      assertEquals(vs[i],vp[i]);
+  }
+
+  public void testMerge() {
+    float[] f = randomFloats(200000);
+    QuantileSketch qa = new QuantileSketch(256);
+    QuantileSketch qb = new QuantileSketch(256);
+    qa.add(f,0,150000);
+    qb.add(f,150000,50000);
+    qa.merge(qb);
+    assertEquals(200000,qa.getCount());
+    float[] s = Arrays.copyOf(f,f.length);
+    Arrays.sort(s);
+    double bound = qa.getRankError();
+    for (int i=0; i<=10; ++i) {
+      double q = i/10.0;
+      float v = qa.getQuantile(q);
+      long r = (long)Math.rint(q*(s.length-1));
+      int lo = lowerRank(s,v), hi = upperRank(s,v);
+      long error = (r<lo)?lo-r:(r>hi)?r-hi:0;
+      assertTrue(error<=bound*s.length);
+    }
+  }
+
+  public void testNaN() {
+    QuantileSketch qs = new QuantileSketch(16);
+    assertTrue(Float.isNaN(qs.getQuantile(0.5)));
+    qs.add(new float[]{Float.NaN,2.0f,1.0f,Float.NaN,3.0f});
+    assertEquals(3,qs.getCount());
+    assertEquals(2.0f,qs.getQuantile(0.5));
+  }
+
+  ///////////////////////////////////////////////////////////////////////////
+  // private
+
+  private static Random _random = new Random(271828);
+
+  private static float[] randomFloats(int n) {
+    float[] f = new float[n];
+    for (int i=0; i<n; ++i)
+      f[i] = (float)_random.nextGaussian();
+    return f;
+  }
+
+  // Lowest and highest zero-based ranks of value v in sorted array s.
+  private static int lowerRank(float[] s, float v) {
+    int lo = 0, hi = s.length;
+    while (lo<hi) {
+      int m = (lo+hi)>>>1;
+      if (s[m]<v) lo = m+1; else hi = m;
+    }
+    return lo;
+  }
+  private static int upperRank(float[] s, float v) {
+    int lo = 0, hi = s.length;
+    while (lo<hi) {
+      int m = (lo+hi)>>>1;
+      if (s[m]<=v) lo = m+1; else hi = m;
+    }
+    return lo-1;
+  }
+}